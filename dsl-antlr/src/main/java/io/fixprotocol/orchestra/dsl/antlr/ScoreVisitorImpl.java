@@ -171,16 +171,13 @@ class ScoreVisitorImpl extends AbstractParseTreeVisitor<FixValue<?>>
           String.format("Semantic error; missing val for assignment at '%s'", ctx.getText()));
       return null;
     }
-    final FixValue<?> var = visitVar(ctx.var());
+    visitVar(ctx.var());
     try {
-      if (var != null) {
-        var.assign(val);
-        return var;
-      } else {
-        final FixValue<?> namedVal = FixValueFactory.copy(pathStep.getName(), val);
-        return currentScope.assign(pathStep, namedVal);
-      }
-    } catch (final ModelException e) {
+      // an existing variable is assigned through its scope too, so that the scope is aware of the
+      // change, e.g. an instance of a repeating group that is indexed by the variable
+      final FixValue<?> namedVal = FixValueFactory.copy(pathStep.getName(), val);
+      return currentScope.assign(pathStep, namedVal);
+    } catch (final ModelException | UnsupportedOperationException e) {
       errorListener
           .onError(String.format("Semantic error; %s at '%s'", e.getMessage(), ctx.getText()));
       return null;
@@ -459,8 +456,18 @@ class ScoreVisitorImpl extends AbstractParseTreeVisitor<FixValue<?>>
     final PredContext predContext = ctx.pred();
     if (predContext != null) {
       final String id = predContext.ID().getText();
-      final ExprContext expr = predContext.expr();
-      // todo evaluate predicate expression
+      // evaluating the expression may resolve variables, so restore the path being resolved
+      final Scope savedScope = currentScope;
+      final PathStep savedPathStep = pathStep;
+      final FixValue<?> predicateValue = visit(predContext.expr());
+      currentScope = savedScope;
+      pathStep = savedPathStep;
+      if (predicateValue == null) {
+        errorListener.onError(
+            String.format("Semantic error; predicate has no value at '%s'", ctx.getText()));
+        return null;
+      }
+      pathStep.setPredicate(id, predicateValue);
     }
 
     final FixNode node = currentScope.resolve(pathStep);
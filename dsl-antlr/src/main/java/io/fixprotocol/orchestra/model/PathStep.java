@@ -32,6 +32,8 @@ public class PathStep {
   private int index = NO_INDEX;
   private final String name;
   private String predicate;
+  private String predicateName;
+  private FixValue<?> predicateValue;
 
   /**
    * Constructor
@@ -90,6 +92,20 @@ public class PathStep {
     return predicate;
   }
 
+  /**
+   * @return the name of the field tested by an evaluated predicate, or {@code null} if not set
+   */
+  public String getPredicateName() {
+    return predicateName;
+  }
+
+  /**
+   * @return the value that an evaluated predicate must match, or {@code null} if not set
+   */
+  public FixValue<?> getPredicateValue() {
+    return predicateValue;
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -123,6 +139,21 @@ public class PathStep {
     this.predicate = predicate;
   }
 
+  /**
+   * An evaluated predicate to select a symbol in an array-like Scope
+   * <p>
+   * Selects the first member of the Scope whose field of the given name equals the value. Also
+   * sets the predicate expression for display.
+   *
+   * @param predicateName name of a field
+   * @param predicateValue value to match
+   */
+  public void setPredicate(String predicateName, FixValue<?> predicateValue) {
+    this.predicateName = predicateName;
+    this.predicateValue = predicateValue;
+    this.predicate = predicateName + "==" + predicateValue.getValue();
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An array-like Scope that holds the instances of a repeating group
+ * <p>
+ * An instance is selected by a one-based index, e.g. {@code Parties[2]}, or by a predicate, e.g.
+ * {@code Parties[PartyRole==3]}. A predicate selects the first instance whose field matches.
+ * <p>
+ * The first time that a field is used in a predicate, an index of instances by the value of that
+ * field is built, so later lookups on the same field do not scan the instances. Values are keyed by
+ * type as they are compared: numbers of any class are equal if numerically equal, but a number
+ * does not match a String, nor a Character a String. Indexes are discarded when instances are
+ * nested or removed, and the index of a field is discarded when that field is assigned within an
+ * instance that is a {@link TreeSymbolTable}. If an instance is changed in any other way, call
+ * {@link #invalidate()}.
+ * <p>
+ * A {@link TreeSymbolTable} creates a RepeatingGroupScope when an instance is nested in it with an
+ * index, e.g. {@code Parties[1]}.
+ */
+public class RepeatingGroupScope extends AbstractScope {
+
+  /**
+   * Keys values of different numeric types consistently, e.g. 3 and 3.0, and other values by their
+   * own class
+   */
+  private static Object indexKey(Object value) {
+    if (value instanceof BigDecimal) {
+      return numericKey((BigDecimal) value);
+    } else if (value instanceof Number) {
+      return numericKey(new BigDecimal(value.toString()));
+    } else {
+      return value;
+    }
+  }
+
+  private static BigDecimal numericKey(BigDecimal value) {
+    return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+  }
+
+  private final Map<String, Map<Object, Scope>> indexes = new HashMap<>();
+  private final List<Scope> instances = new ArrayList<>();
+  private final String name;
+  private Scope parent;
+
+  /**
+   * Constructor
+   *
+   * @param name name of the repeating group
+   */
+  public RepeatingGroupScope(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Values cannot be assigned to a repeating group; assign them to an instance
+   *
+   * @throws ModelException always
+   */
+  @Override
+  public FixValue<?> assign(PathStep pathStep, FixValue<?> value) throws ModelException {
+    throw new ModelException("Cannot assign a value to repeating group " + name);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.AutoCloseable#close()
+   */
+  @Override
+  public void close() throws Exception {
+    if (parent != null) {
+      parent.remove(new PathStep(name));
+    }
+  }
+
+  /**
+   * @return the number of instances
+   */
+  public int getInstanceCount() {
+    return instances.size();
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Discard indexes of instances by field value
+   */
+  public void invalidate() {
+    indexes.clear();
+  }
+
+  /**
+   * Discard the index of instances by the value of one field
+   *
+   * @param fieldName name of a field
+   */
+  public void invalidate(String fieldName) {
+    indexes.remove(fieldName);
+  }
+
+  /**
+   * Nest an instance of the repeating group
+   * <p>
+   * If the PathStep has an index of an existing instance, that instance is replaced. Otherwise,
+   * the instance is appended.
+   */
+  @Override
+  public Scope nest(PathStep pathStep, Scope nested) {
+    final int index = pathStep.getIndex();
+    if (index != PathStep.NO_INDEX && index >= 1 && index <= instances.size()) {
+      instances.set(index - 1, nested);
+    } else {
+      instances.add(nested);
+    }
+    nested.setParent(this);
+    invalidate();
+    traceNest(pathStep, nested);
+    return nested;
+  }
+
+  /**
+   * Remove an instance selected by index or predicate, or else by instance name
+   */
+  @Override
+  public FixNode remove(PathStep pathStep) {
+    Scope removed = select(pathStep);
+    if (removed == null) {
+      for (final Scope instance : instances) {
+        if (instance.getName().equals(pathStep.getName())) {
+          removed = instance;
+          break;
+        }
+      }
+    }
+    if (removed != null) {
+      instances.remove(removed);
+      invalidate();
+      traceRemove(pathStep, removed);
+    }
+    return removed;
+  }
+
+  /**
+   * Select an instance by index or predicate
+   *
+   * @return an instance, or {@code null} if the PathStep has no index or predicate or no instance
+   *         matches
+   */
+  @Override
+  public FixNode resolve(PathStep pathStep) {
+    return select(pathStep);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see
+   * io.fixprotocol.orchestra.model.Scope#setParent(io.fixprotocol.orchestra.model.Scope)
+   */
+  @Override
+  public void setParent(Scope parent) {
+    this.parent = parent;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "RepeatingGroupScope [" + (name != null ? "name=" + name + ", " : "") + "instances="
+        + instances + "]";
+  }
+
+  private Map<Object, Scope> buildIndex(String fieldName) {
+    final Map<Object, Scope> index = new HashMap<>();
+    final PathStep fieldStep = new PathStep(fieldName);
+    for (final Scope instance : instances) {
+      final FixNode node = instance.resolve(fieldStep);
+      if (node instanceof FixValue) {
+        final Object value = ((FixValue<?>) node).getValue();
+        if (value != null) {
+          index.putIfAbsent(indexKey(value), instance);
+        }
+      }
+    }
+    if (isTrace()) {
+      traceHandler.accept(String.format("Index of scope %s built on field %s with %d keys", name,
+          fieldName, index.size()));
+    }
+    return index;
+  }
+
+  private Scope select(PathStep pathStep) {
+    final int index = pathStep.getIndex();
+    if (index != PathStep.NO_INDEX) {
+      return index >= 1 && index <= instances.size() ? instances.get(index - 1) : null;
+    }
+    final String fieldName = pathStep.getPredicateName();
+    final FixValue<?> predicateValue = pathStep.getPredicateValue();
+    if (fieldName == null || predicateValue == null || predicateValue.getValue() == null) {
+      return null;
+    }
+    final Map<Object, Scope> fieldIndex = indexes.computeIfAbsent(fieldName, this::buildIndex);
+    return fieldIndex.get(indexKey(predicateValue.getValue()));
+  }
+}
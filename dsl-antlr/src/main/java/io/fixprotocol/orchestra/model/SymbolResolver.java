@@ -37,6 +37,17 @@ public class SymbolResolver extends TreeSymbolTable {
    */
   public static final PathStep LOCAL_ROOT = new PathStep("this.");
 
+  private static PathStep subPath(String name, PathStep pathStep) {
+    final PathStep vPathStep = new PathStep(name);
+    vPathStep.setIndex(pathStep.getIndex());
+    if (pathStep.getPredicateValue() != null) {
+      vPathStep.setPredicate(pathStep.getPredicateName(), pathStep.getPredicateValue());
+    } else {
+      vPathStep.setPredicate(pathStep.getPredicate());
+    }
+    return vPathStep;
+  }
+
   /**
    * Constructor
    */
@@ -51,15 +62,11 @@ public class SymbolResolver extends TreeSymbolTable {
     final String pathName = pathStep.getName();
     if (pathName.startsWith("$")) {
       final Scope variables = (Scope) super.resolve(VARIABLE_ROOT);
-      final PathStep vPathStep = new PathStep(pathName.substring(1));
-      vPathStep.setIndex(pathStep.getIndex());
-      vPathStep.setPredicate(pathStep.getPredicate());
+      final PathStep vPathStep = subPath(pathName.substring(1), pathStep);
       return variables.assign(vPathStep, value);
     } else if (pathName.startsWith("this.")) {
       final Scope variables = (Scope) super.resolve(LOCAL_ROOT);
-      final PathStep vPathStep = new PathStep(pathName.substring(5));
-      vPathStep.setIndex(pathStep.getIndex());
-      vPathStep.setPredicate(pathStep.getPredicate());
+      final PathStep vPathStep = subPath(pathName.substring(5), pathStep);
       return variables.assign(vPathStep, value);
     } else {
       return super.assign(pathStep, value);
@@ -75,15 +82,11 @@ public class SymbolResolver extends TreeSymbolTable {
     final String pathName = pathStep.getName();
     if (pathName.length() > 1 && pathName.startsWith(VARIABLE_ROOT.getName())) {
       final Scope variables = (Scope) super.resolve(VARIABLE_ROOT);
-      final PathStep vPathStep = new PathStep(pathName.substring(1));
-      vPathStep.setIndex(pathStep.getIndex());
-      vPathStep.setPredicate(pathStep.getPredicate());
+      final PathStep vPathStep = subPath(pathName.substring(1), pathStep);
       node = variables.resolve(vPathStep);
     } else if (pathName.length() > 5 && pathName.startsWith(LOCAL_ROOT.getName())) {
       final Scope variables = (Scope) super.resolve(LOCAL_ROOT);
-      final PathStep vPathStep = new PathStep(pathName.substring(5));
-      vPathStep.setIndex(pathStep.getIndex());
-      vPathStep.setPredicate(pathStep.getPredicate());
+      final PathStep vPathStep = subPath(pathName.substring(5), pathStep);
       node = variables.resolve(vPathStep);
     } else {
       node = super.resolve(pathStep);
@@ -19,6 +19,10 @@ import java.util.Map;
 
 /**
  * A flat symbol space. The only key is name.
+ * <p>
+ * An instance of a repeating group that is nested with an index, e.g. {@code Parties[2]}, is held
+ * by a {@link RepeatingGroupScope} of the group name, which is created when its first instance is
+ * nested.
  *
  * @author Don Mendelson
  *
@@ -44,9 +48,11 @@ public class TreeSymbolTable extends AbstractScope {
     if (node instanceof FixValue) {
       final FixValue<?> val = (FixValue<?>) node;
       val.assign(value);
+      invalidateGroupIndex(pathStep);
       return val;
     } else if (node == null) {
       symbols.put(pathStep.getName(), value);
+      invalidateGroupIndex(pathStep);
       return value;
     } else {
       throw new ModelException("FixNode already exists named " + pathStep.getName());
@@ -72,6 +78,19 @@ public class TreeSymbolTable extends AbstractScope {
 
   @Override
   public Scope nest(PathStep pathStep, Scope nested) {
+    if (pathStep.getIndex() != PathStep.NO_INDEX && !(nested instanceof RepeatingGroupScope)) {
+      final FixNode node = symbols.get(pathStep.getName());
+      final RepeatingGroupScope group;
+      if (node instanceof RepeatingGroupScope) {
+        group = (RepeatingGroupScope) node;
+      } else {
+        group = new RepeatingGroupScope(pathStep.getName());
+        group.setParent(this);
+        symbols.put(pathStep.getName(), group);
+        traceNest(pathStep, group);
+      }
+      return group.nest(pathStep, nested);
+    }
     symbols.put(pathStep.getName(), nested);
     traceNest(pathStep, nested);
     return nested;
@@ -79,6 +98,12 @@ public class TreeSymbolTable extends AbstractScope {
 
   @Override
   public FixNode remove(PathStep pathStep) {
+    final FixNode node = symbols.get(pathStep.getName());
+    // an index or predicate removes an instance of a repeating group
+    if (node instanceof RepeatingGroupScope && (pathStep.getIndex() != PathStep.NO_INDEX
+        || pathStep.getPredicateValue() != null)) {
+      return ((RepeatingGroupScope) node).remove(pathStep);
+    }
     final FixNode removed = symbols.remove(pathStep.getName());
     traceRemove(pathStep, removed);
     return removed;
@@ -86,7 +111,13 @@ public class TreeSymbolTable extends AbstractScope {
 
   @Override
   public FixNode resolve(PathStep pathStep) {
-    return symbols.get(pathStep.getName());
+    final FixNode node = symbols.get(pathStep.getName());
+    // an index or predicate selects an instance of a repeating group
+    if (node instanceof RepeatingGroupScope && (pathStep.getIndex() != PathStep.NO_INDEX
+        || pathStep.getPredicateValue() != null)) {
+      return ((RepeatingGroupScope) node).resolve(pathStep);
+    }
+    return node;
   }
 
   /*
@@ -111,4 +142,11 @@ public class TreeSymbolTable extends AbstractScope {
         + (parent != null ? "parent=" + parent + ", " : "") + "symbols=" + symbols + "]";
   }
 
+  // if this is an instance of a repeating group, the group may be indexed by the value
+  private void invalidateGroupIndex(PathStep pathStep) {
+    if (parent instanceof RepeatingGroupScope) {
+      ((RepeatingGroupScope) parent).invalidate(pathStep.getName());
+    }
+  }
+
 }
@@ -37,7 +37,10 @@ import io.fixprotocol.orchestra.model.FixType;
 import io.fixprotocol.orchestra.model.FixValue;
 import io.fixprotocol.orchestra.model.ModelException;
 import io.fixprotocol.orchestra.model.PathStep;
+import io.fixprotocol.orchestra.model.RepeatingGroupScope;
+import io.fixprotocol.orchestra.model.Scope;
 import io.fixprotocol.orchestra.model.SymbolResolver;
+import io.fixprotocol.orchestra.model.TreeSymbolTable;
 
 /**
  * @author Don Mendelson
@@ -523,6 +526,38 @@ public class ScoreVisitorImplTest {
     assertFalse(fixValue.getValue());
   }
 
+  @Test
+  public void testVisitPredicate() throws IOException, ScoreException, ModelException {
+    final Scope variables = (Scope) symbolResolver.resolve(SymbolResolver.VARIABLE_ROOT);
+    final RepeatingGroupScope parties = new RepeatingGroupScope("Parties");
+    variables.nest(new PathStep("Parties"), parties);
+    final String[] partyIds = {"ABC", "DEF", "GHI"};
+    for (int i = 0; i < partyIds.length; i++) {
+      final TreeSymbolTable party = new TreeSymbolTable("Party");
+      party.assign(new PathStep("PartyID"),
+          new FixValue<String>("PartyID", FixType.StringType, partyIds[i]));
+      party.assign(new PathStep("PartyRole"),
+          new FixValue<Integer>("PartyRole", FixType.intType, i + 1));
+      parties.nest(new PathStep("Parties"), party);
+    }
+
+    ScoreParser parser = parse("$Parties[PartyRole==2].PartyID");
+    AnyExpressionContext ctx = parser.anyExpression();
+    Object expression = visitor.visitAnyExpression(ctx);
+    assertTrue(expression instanceof FixValue<?>);
+    FixValue<?> fixValue = (FixValue<?>) expression;
+    assertEquals("DEF", fixValue.getValue());
+    assertFalse(errorListener.hasError());
+
+    // assignment within an instance discards the index of the assigned field
+    parser = parse("$Parties[PartyRole==2].PartyRole = 5");
+    visitor.visitAnyExpression(parser.anyExpression());
+    parser = parse("$Parties[PartyRole==5].PartyID");
+    fixValue = (FixValue<?>) visitor.visitAnyExpression(parser.anyExpression());
+    assertEquals("DEF", fixValue.getValue());
+    assertFalse(errorListener.hasError());
+  }
+
 
   private ScoreParser parse(String expression) throws IOException {
     ScoreLexer l = new ScoreLexer(CharStreams.fromString(expression));
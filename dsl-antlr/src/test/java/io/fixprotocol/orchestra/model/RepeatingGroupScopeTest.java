@@ -0,0 +1,140 @@
+/**
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RepeatingGroupScopeTest {
+
+  private RepeatingGroupScope parties;
+  private TreeSymbolTable message;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    message = new TreeSymbolTable("NewOrderSingle");
+    parties = new RepeatingGroupScope("Parties");
+    message.nest(new PathStep("Parties"), parties);
+    addParty("ABC", 1);
+    addParty("DEF", 3);
+    addParty("GHI", 3);
+  }
+
+  @Test
+  public void resolveByIndex() {
+    final PathStep pathStep = new PathStep("Parties");
+    pathStep.setIndex(2);
+    final Scope instance = (Scope) message.resolve(pathStep);
+    assertEquals("DEF", ((FixValue<?>) instance.resolve(new PathStep("PartyID"))).getValue());
+
+    pathStep.setIndex(4);
+    assertNull(message.resolve(pathStep));
+  }
+
+  @Test
+  public void resolveByPredicate() {
+    final PathStep pathStep = new PathStep("Parties");
+    pathStep.setPredicate("PartyRole", new FixValue<Integer>(FixType.intType, 3));
+    final Scope instance = (Scope) message.resolve(pathStep);
+    // first match
+    assertEquals("DEF", ((FixValue<?>) instance.resolve(new PathStep("PartyID"))).getValue());
+
+    pathStep.setPredicate("PartyRole", new FixValue<Integer>(FixType.intType, 7));
+    assertNull(message.resolve(pathStep));
+  }
+
+  @Test
+  public void resolveAfterNest() throws ModelException {
+    final PathStep pathStep = new PathStep("Parties");
+    pathStep.setPredicate("PartyRole", new FixValue<Integer>(FixType.intType, 7));
+    assertNull(message.resolve(pathStep));
+
+    final Scope added = addParty("JKL", 7);
+    assertSame(added, message.resolve(pathStep));
+    assertEquals(4, parties.getInstanceCount());
+  }
+
+  @Test
+  public void resolveAfterAssign() throws ModelException {
+    final PathStep pathStep = new PathStep("Parties");
+    pathStep.setPredicate("PartyRole", new FixValue<Integer>(FixType.intType, 1));
+    final Scope first = (Scope) message.resolve(pathStep);
+    assertEquals("ABC", ((FixValue<?>) first.resolve(new PathStep("PartyID"))).getValue());
+
+    first.assign(new PathStep("PartyRole"), new FixValue<Integer>(FixType.intType, 7));
+    assertNull(message.resolve(pathStep));
+    pathStep.setPredicate("PartyRole", new FixValue<Integer>(FixType.intType, 7));
+    assertSame(first, message.resolve(pathStep));
+  }
+
+  @Test
+  public void resolveByType() throws ModelException {
+    final PathStep pathStep = new PathStep("Parties");
+    pathStep.setPredicate("PartyRole", new FixValue<String>(FixType.StringType, "3"));
+    assertNull(message.resolve(pathStep));
+    pathStep.setPredicate("PartyRole",
+        new FixValue<BigDecimal>(FixType.floatType, new BigDecimal("3.00")));
+    assertEquals("DEF", ((FixValue<?>) ((Scope) message.resolve(pathStep))
+        .resolve(new PathStep("PartyID"))).getValue());
+
+    final Scope added = addParty("JKL", 4);
+    added.assign(new PathStep("Side"), new FixValue<Character>(FixType.charType, '1'));
+    pathStep.setPredicate("Side", new FixValue<String>(FixType.StringType, "1"));
+    assertNull(message.resolve(pathStep));
+    pathStep.setPredicate("Side", new FixValue<Character>(FixType.charType, '1'));
+    assertSame(added, message.resolve(pathStep));
+  }
+
+  @Test
+  public void nestInstanceInMessage() throws ModelException {
+    final TreeSymbolTable order = new TreeSymbolTable("NewOrderSingle");
+    for (int i = 1; i <= 2; i++) {
+      final TreeSymbolTable instance = new TreeSymbolTable("Party");
+      instance.assign(new PathStep("PartyRole"),
+          new FixValue<Integer>("PartyRole", FixType.intType, i));
+      final PathStep pathStep = new PathStep("Parties");
+      pathStep.setIndex(i);
+      order.nest(pathStep, instance);
+    }
+    final RepeatingGroupScope group = (RepeatingGroupScope) order.resolve(new PathStep("Parties"));
+    assertEquals(2, group.getInstanceCount());
+
+    final PathStep pathStep = new PathStep("Parties");
+    pathStep.setPredicate("PartyRole", new FixValue<Integer>(FixType.intType, 2));
+    final Scope second = (Scope) order.resolve(pathStep);
+    assertNotNull(second);
+    assertSame(second, order.remove(pathStep));
+    assertEquals(1, group.getInstanceCount());
+  }
+
+  @Test
+  public void resolveWithoutSelector() {
+    assertSame(parties, message.resolve(new PathStep("Parties")));
+  }
+
+  private Scope addParty(String partyId, int partyRole) throws ModelException {
+    final TreeSymbolTable instance = new TreeSymbolTable("Party");
+    instance.assign(new PathStep("PartyID"),
+        new FixValue<String>("PartyID", FixType.StringType, partyId));
+    instance.assign(new PathStep("PartyRole"),
+        new FixValue<Integer>("PartyRole", FixType.intType, partyRole));
+    return parties.nest(new PathStep("Parties"), instance);
+  }
+}
@@ -14,20 +14,17 @@
  */
 package io.fixprotocol.orchestra.interfaces;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URL;
-import java.util.Objects;
-import javax.xml.XMLConstants;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -35,20 +32,34 @@ import org.w3c.dom.Document;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
+import io.fixprotocol.orchestra.batch.BatchValidator;
 import io.fixprotocol.orchestra.event.ConsoleEventListener;
 import io.fixprotocol.orchestra.event.EventListener;
 import io.fixprotocol.orchestra.event.EventListenerFactory;
 import io.fixprotocol.orchestra.event.TeeEventListener;
+import io.fixprotocol.orchestra.schema.SchemaRegistry;
 
 
 /**
  * Validates an Orchestra file against the interfaces schema
+ * <p>
+ * Run from the command line, the input may be a directory, whose files are validated in parallel.
+ * Only files whose root element is in the interfaces namespace are validated, so repository files
+ * in the same tree are ignored. With a cache file, files whose content has not changed since a
+ * previous run are skipped.
  *
  * @author Don Mendelson
  *
  */
 public class InterfacesValidator {
 
+  private static final String INTERFACES_NAMESPACE =
+      "http://fixprotocol.io/2020/orchestra/interfaces";
+  private static final String INTERFACES_SCHEMA = "xsd/interfaces.xsd";
+  // compiled schemas are shared by all validators
+  private static final SchemaRegistry schemaRegistry =
+      new SchemaRegistry(InterfacesValidator.class);
+
   private final class ErrorListener implements ErrorHandler {
 
 
@@ -96,6 +107,85 @@ public class InterfacesValidator {
     return eventListener;
   }
 
+  /**
+   * Validate an interfaces file, or the interfaces files of a directory tree
+   *
+   * @param args command line arguments
+   *
+   *        <pre>
+   * -e &lt;logfile&gt; name of event log
+   * -c &lt;cachefile&gt; name of cache of directory validation results
+   * -g &lt;glob&gt; pattern of file names to validate in a directory; default *.xml
+   * -t &lt;threads&gt; number of threads for files of a directory
+   * &lt;input&gt; name of interfaces file or directory
+   *        </pre>
+   */
+  public static void main(String[] args) {
+    String cacheFile = null;
+    String eventFile = null;
+    String glob = "*.xml";
+    String inputFile = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    for (int i = 0; i < args.length;) {
+      if ("-e".equals(args[i])) {
+        if (i < args.length - 1) {
+          eventFile = args[i + 1];
+          i++;
+        }
+      } else if ("-c".equals(args[i])) {
+        if (i < args.length - 1) {
+          cacheFile = args[i + 1];
+          i++;
+        }
+      } else if ("-g".equals(args[i])) {
+        if (i < args.length - 1) {
+          glob = args[i + 1];
+          i++;
+        }
+      } else if ("-t".equals(args[i])) {
+        if (i < args.length - 1) {
+          threads = Integer.parseInt(args[i + 1]);
+          i++;
+        }
+      } else {
+        inputFile = args[i];
+      }
+      i++;
+    }
+
+    if (!validate(inputFile, eventFile, cacheFile, glob, threads)) {
+      System.exit(1);
+    }
+  }
+
+  private static boolean validate(String inputFile, String eventFile, String cacheFile,
+      String glob, int threads) {
+    try (EventListener eventLogger =
+        createLogger(eventFile != null ? new FileOutputStream(eventFile) : null)) {
+      final Path inputPath = Paths.get(inputFile);
+      if (Files.isDirectory(inputPath)) {
+        final BatchValidator batchValidator = BatchValidator.builder().directory(inputPath)
+            .cacheFile(cacheFile != null ? Paths.get(cacheFile) : null).eventLogger(eventLogger)
+            .glob(glob).rootNamespace(INTERFACES_NAMESPACE).threads(threads)
+            .name(InterfacesValidator.class.getName() + " "
+                + InterfacesValidator.class.getPackage().getImplementationVersion())
+            .validator((path, fileEventLogger) -> {
+              try (InputStream inputStream = Files.newInputStream(path)) {
+                return new InterfacesValidator(fileEventLogger).validate(inputStream);
+              }
+            }).build();
+        return batchValidator.validate().isValid();
+      }
+      try (InputStream inputStream = Files.newInputStream(inputPath)) {
+        return new InterfacesValidator(eventLogger).validate(inputStream);
+      }
+    } catch (final Exception e) {
+      System.err.println(e.getMessage());
+      return false;
+    }
+  }
+
   private int errors = 0;
   private final EventListener eventLogger;
   private int fatalErrors = 0;
@@ -164,23 +254,8 @@ public class InterfacesValidator {
     final DocumentBuilder parser = parserFactory.newDocumentBuilder();
     final Document document = parser.parse(inputStream);
 
-    // create a SchemaFactory capable of understanding WXS schemas
-    final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-    final ResourceResolver resourceResolver = new ResourceResolver();
-    factory.setResourceResolver(resourceResolver);
-
-    // load a WXS schema, represented by a Schema instance
-    final URL resourceUrl = this.getClass().getClassLoader().getResource("xsd/interfaces.xsd");
-    final String path = Objects.requireNonNull(resourceUrl).getPath();
-    final String parentPath = path.substring(0, path.lastIndexOf('/'));
-    final URL baseUrl = new URL(resourceUrl.getProtocol(), null, parentPath);
-    resourceResolver.setBaseUrl(baseUrl);
-
-    final Source schemaFile = new StreamSource(resourceUrl.openStream());
-    final Schema schema = factory.newSchema(schemaFile);
-
-    // create a Validator instance, which can be used to validate an instance document
-    final Validator validator = schema.newValidator();
+    // create a Validator instance from the shared schema
+    final Validator validator = schemaRegistry.newValidator(INTERFACES_SCHEMA);
 
     validator.setErrorHandler(errorHandler);
 
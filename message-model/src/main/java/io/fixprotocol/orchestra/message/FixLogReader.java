@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads FIX messages in tag=value encoding from a log file
+ * <p>
+ * The file is memory-mapped one window at a time, so files of any size are read in constant
+ * memory. Each message begins with BeginString(8) and ends with CheckSum(10). Fields may be
+ * delimited by SOH or '|'. Any text between messages, such as timestamps or line endings, is
+ * skipped.
+ * <p>
+ * Not thread-safe.
+ */
+public final class FixLogReader implements AutoCloseable {
+
+  /**
+   * Default size of a mapped window of the file
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private static final int NOT_FOUND = -1;
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private final FileChannel channel;
+  private final long fileSize;
+  private long malformedCount = 0;
+  private int position = 0;
+  private long sequence = 0;
+  private MappedByteBuffer window;
+  private int windowLimit = 0;
+  private final int windowSize;
+  private long windowStart = 0;
+
+  /**
+   * Opens a log file with the default window size
+   *
+   * @param path log file
+   * @throws IOException if the file cannot be opened
+   */
+  public FixLogReader(Path path) throws IOException {
+    this(path, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Opens a log file
+   *
+   * @param path log file
+   * @param windowSize number of bytes mapped at a time; must exceed the longest message
+   * @throws IOException if the file cannot be opened
+   */
+  public FixLogReader(Path path, int windowSize) throws IOException {
+    this.windowSize = windowSize;
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.fileSize = channel.size();
+    map(0);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.AutoCloseable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+
+  /**
+   * @return number of messages skipped because they were truncated or longer than a buffer
+   */
+  public long getMalformedCount() {
+    return malformedCount;
+  }
+
+  /**
+   * @return number of messages read
+   */
+  public long getMessageCount() {
+    return sequence;
+  }
+
+  /**
+   * Reads the next message into a buffer and parses it
+   *
+   * @param message buffer to populate
+   * @return {@code true} if a message was read, or {@code false} at end of file
+   * @throws IOException if the file cannot be read
+   */
+  public boolean read(TagValueMessage message) throws IOException {
+    for (;;) {
+      final int start = findBeginString(position);
+      if (start == NOT_FOUND) {
+        if (windowStart + windowLimit >= fileSize) {
+          position = windowLimit;
+          return false;
+        }
+        // keep a partial BeginString that straddles the window boundary
+        map(windowStart + Math.max(position, windowLimit - 4));
+        continue;
+      }
+
+      final byte delimiter = findDelimiter(start);
+      final int end = delimiter != 0 ? findEnd(start, delimiter) : NOT_FOUND;
+      if (end == NOT_FOUND) {
+        if (windowStart + windowLimit < fileSize && start > 0) {
+          // message continues past the window
+          map(windowStart + start);
+          continue;
+        }
+        // truncated at end of file, or longer than a window
+        malformedCount++;
+        position = start + 1;
+        continue;
+      } else if (end < 0) {
+        // message interrupted by a line ending
+        malformedCount++;
+        position = -end;
+        continue;
+      }
+
+      final int length = end - start;
+      if (length > message.buffer().length) {
+        malformedCount++;
+        position = end;
+        continue;
+      }
+      window.position(start);
+      window.get(message.buffer(), 0, length);
+      message.setSource(++sequence, windowStart + start);
+      message.parse(length, delimiter);
+      position = end;
+      return true;
+    }
+  }
+
+  private int findBeginString(int from) {
+    for (int i = from; i + 4 < windowLimit; i++) {
+      if (window.get(i) == '8' && window.get(i + 1) == '=' && window.get(i + 2) == 'F'
+          && window.get(i + 3) == 'I' && window.get(i + 4) == 'X'
+          && (i == 0 || !isDigit(window.get(i - 1)))) {
+        return i;
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  private byte findDelimiter(int start) {
+    for (int i = start; i < windowLimit; i++) {
+      final byte b = window.get(i);
+      if (b == TagValueMessage.SOH || b == '|') {
+        return b;
+      } else if (b == '\n' || b == '\r') {
+        return 0;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return position after the message, or NOT_FOUND if it extends past the window, or the
+   *         negated position of a line ending that interrupts the message
+   */
+  private int findEnd(int start, byte delimiter) {
+    for (int i = start; i + 3 < windowLimit; i++) {
+      final byte b = window.get(i);
+      if (b == '\n') {
+        return -(i + 1);
+      } else if (b == delimiter && window.get(i + 1) == '1' && window.get(i + 2) == '0'
+          && window.get(i + 3) == '=') {
+        int j = i + 4;
+        while (j < windowLimit && isDigit(window.get(j))) {
+          j++;
+        }
+        if (j == windowLimit && windowStart + windowLimit < fileSize) {
+          return NOT_FOUND;
+        }
+        if (j < windowLimit && window.get(j) == delimiter) {
+          j++;
+        }
+        return j;
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  private void map(long start) throws IOException {
+    final long size = Math.min(windowSize, fileSize - start);
+    window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    windowStart = start;
+    windowLimit = (int) size;
+    position = 0;
+  }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.xml.bind.JAXBException;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol.orchestra.event.EventListener;
+import io.fixprotocol.orchestra.event.EventListenerFactory;
+import io.fixprotocol.orchestra.event.TeeEventListener;
+import io.fixprotocol.orchestra.message.metrics.LatencyHistogram;
+import io.fixprotocol.orchestra.message.metrics.MessageTypeMetrics;
+import io.fixprotocol.orchestra.message.metrics.ValidationMetrics;
+import io.fixprotocol.orchestra.repository.io.RepositoryIO;
+import io.fixprotocol.orchestra.repository.model.CompactRepository;
+
+/**
+ * Validates a FIX log file against the message definitions of an Orchestra file
+ * <p>
+ * The log is read through {@link FixLogReader} into a fixed {@link MessageBufferPool} and
+ * validated by a pool of worker threads, so memory use does not depend on the size of the log.
+ * Violations are reported as errors to an {@link EventListener}. Counts and latency of validation
+ * by message type are published through JMX while the log is validated and summarized at the end.
+ */
+public class FixLogValidator {
+
+  public static class Builder {
+    private String eventFile;
+    private String logFile;
+    private int maxMessageLength = DEFAULT_MAX_MESSAGE_LENGTH;
+    private String repositoryFile;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int windowSize = FixLogReader.DEFAULT_WINDOW_SIZE;
+
+    public FixLogValidator build() {
+      return new FixLogValidator(this);
+    }
+
+    public Builder eventLog(String eventFile) {
+      this.eventFile = eventFile;
+      return this;
+    }
+
+    public Builder logFile(String logFile) {
+      this.logFile = logFile;
+      return this;
+    }
+
+    public Builder maxMessageLength(int maxMessageLength) {
+      this.maxMessageLength = maxMessageLength;
+      return this;
+    }
+
+    public Builder repositoryFile(String repositoryFile) {
+      this.repositoryFile = repositoryFile;
+      return this;
+    }
+
+    public Builder threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    public Builder windowSize(int windowSize) {
+      this.windowSize = windowSize;
+      return this;
+    }
+  }
+
+  /**
+   * Default maximum length of a message in bytes
+   */
+  public static final int DEFAULT_MAX_MESSAGE_LENGTH = 64 * 1024;
+
+  // buffers per worker thread, so the reader can run ahead of validation
+  private static final int BUFFERS_PER_THREAD = 4;
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Execute FixLogValidator with command line arguments
+   *
+   * @param args command line arguments
+   *
+   *        <pre>
+   * -r &lt;orchestrafile&gt; name of Orchestra file with message definitions
+   * -e &lt;eventfile&gt; name of JSON event file
+   * -t &lt;threads&gt; number of validation threads
+   * -m &lt;bytes&gt; maximum message length
+   * &lt;logfile&gt; name of FIX log file
+   *        </pre>
+   *
+   * @throws Exception if a file cannot be found, read, or parsed
+   */
+  public static void main(String[] args) throws Exception {
+    final Builder builder = FixLogValidator.builder();
+
+    for (int i = 0; i < args.length;) {
+      if ("-r".equals(args[i])) {
+        if (i < args.length - 1) {
+          builder.repositoryFile(args[i + 1]);
+          i++;
+        }
+      } else if ("-e".equals(args[i])) {
+        if (i < args.length - 1) {
+          builder.eventLog(args[i + 1]);
+          i++;
+        }
+      } else if ("-t".equals(args[i])) {
+        if (i < args.length - 1) {
+          builder.threads(Integer.parseInt(args[i + 1]));
+          i++;
+        }
+      } else if ("-m".equals(args[i])) {
+        if (i < args.length - 1) {
+          builder.maxMessageLength(Integer.parseInt(args[i + 1]));
+          i++;
+        }
+      } else {
+        builder.logFile(args[i]);
+      }
+      i++;
+    }
+    final FixLogValidator validator = builder.build();
+    if (!validator.validate()) {
+      System.exit(1);
+    }
+  }
+
+  static EventListener createLogger(OutputStream jsonOutputStream) throws Exception {
+    final EventListenerFactory factory = new EventListenerFactory();
+    final TeeEventListener eventListener = new TeeEventListener();
+    eventListener.addEventListener(factory.getInstance("STDOUT"));
+    if (jsonOutputStream != null) {
+      final EventListener jsonEventLogger = factory.getInstance("JSON");
+      jsonEventLogger.setResource(jsonOutputStream);
+      eventListener.addEventListener(jsonEventLogger);
+    }
+    return eventListener;
+  }
+
+  private static Repository unmarshal(InputStream inputStream) throws JAXBException {
+    return RepositoryIO.getInstance().read(inputStream);
+  }
+
+  private final String eventFile;
+  private final AtomicLong invalidMessages = new AtomicLong();
+  private final String logFile;
+  private final int maxMessageLength;
+  private final String repositoryFile;
+  private final int threads;
+  private final AtomicLong unknownMessages = new AtomicLong();
+  private final int windowSize;
+
+  private FixLogValidator(Builder builder) {
+    this.eventFile = builder.eventFile;
+    this.logFile = builder.logFile;
+    this.maxMessageLength = builder.maxMessageLength;
+    this.repositoryFile = builder.repositoryFile;
+    this.threads = Math.max(1, builder.threads);
+    this.windowSize = builder.windowSize;
+  }
+
+  /**
+   * Validates all messages of the log file
+   * <p>
+   * Missing arguments and failures to read the Orchestra file or the log are reported as fatal
+   * events.
+   *
+   * @return {@code true} if every message was valid
+   */
+  public boolean validate() {
+    try (EventListener eventLogger =
+        createLogger(eventFile != null ? new FileOutputStream(eventFile) : null)) {
+      if (repositoryFile == null) {
+        eventLogger.fatal("FixLogValidator missing Orchestra file; use -r <orchestrafile>");
+        return false;
+      }
+      if (logFile == null) {
+        eventLogger.fatal("FixLogValidator missing FIX log file");
+        return false;
+      }
+      try {
+        return validateLog(eventLogger);
+      } catch (final Exception e) {
+        eventLogger.fatal("FixLogValidator failed; {0}", e.toString());
+        return false;
+      }
+    } catch (final Exception e) {
+      // the event log itself failed, so report to the console only
+      new EventListenerFactory().getInstance("STDOUT")
+          .fatal("FixLogValidator failed to open event log; {0}", e.toString());
+      return false;
+    }
+  }
+
+  private boolean validateLog(EventListener eventLogger) throws Exception {
+    final Repository repository;
+    try (InputStream is = new FileInputStream(repositoryFile)) {
+      repository = unmarshal(is);
+    }
+    final ValidationMetrics metrics = new ValidationMetrics();
+    try {
+      metrics.register();
+    } catch (final JMException e) {
+      eventLogger.warn("FixLogValidator metrics not available through JMX; {0}", e.getMessage());
+    }
+    final CompactRepository model = CompactRepository.from(repository);
+    // shared with the compiled validators so that a message is indexed only once
+    final GroupLayout groupLayout = GroupLayout.from(model);
+    final MessageTypeRegistry<TagValueValidator> registry =
+        TagValueValidator.compile(repository, model, groupLayout, metrics);
+    final MessageBufferPool pool = new MessageBufferPool(threads * BUFFERS_PER_THREAD,
+        maxMessageLength);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    final long startNanos = System.nanoTime();
+    try (FixLogReader reader = new FixLogReader(Paths.get(logFile), windowSize)) {
+      for (;;) {
+        final TagValueMessage message = pool.acquire();
+        // so that scenarios are discriminated by fields outside repeating groups
+        message.setGroupLayout(groupLayout);
+        if (!reader.read(message)) {
+          pool.release(message);
+          break;
+        }
+        executor.execute(() -> {
+          try {
+            validate(message, registry, eventLogger);
+          } finally {
+            pool.release(message);
+          }
+        });
+      }
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+      final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      synchronized (eventLogger) {
+        if (reader.getMalformedCount() > 0) {
+          eventLogger.warn("FixLogValidator skipped {0} malformed messages",
+              reader.getMalformedCount());
+        }
+        eventLogger.info(
+            "FixLogValidator validated {0} messages in {1} ms; invalid={2} unknown MsgType={3}",
+            reader.getMessageCount(), elapsedMillis, invalidMessages.get(),
+            unknownMessages.get());
+        for (final MessageTypeMetrics.Snapshot snapshot : metrics.snapshot()) {
+          final LatencyHistogram.Snapshot latency = snapshot.getLatency();
+          eventLogger.info("{0}: validated={1} failed={2} p50={3} ns p99={4} ns max={5} ns",
+              snapshot.getMessageType(), snapshot.getValidationCount(),
+              snapshot.getFailureCount(), latency.getP50(), latency.getP99(), latency.getMax());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+      metrics.unregister();
+    }
+    return invalidMessages.get() == 0 && unknownMessages.get() == 0;
+  }
+
+  private void validate(TagValueMessage message, MessageTypeRegistry<TagValueValidator> registry,
+      EventListener eventLogger) {
+    final int offset = message.getValueOffset(35);
+    final MessageTypeRegistry.Entry<TagValueValidator> entry = offset >= 0
+        ? registry.get(message.buffer(), offset, message.getValueLength(35), message::getString)
+        : null;
+    if (entry == null) {
+      unknownMessages.incrementAndGet();
+      synchronized (eventLogger) {
+        eventLogger.error("Message {0} at offset {1} has unknown MsgType {2}",
+            message.getSequence(), message.getPosition(), message.getMsgType());
+      }
+      return;
+    }
+    try {
+      entry.getProgram().validate(message);
+    } catch (final TestException e) {
+      invalidMessages.incrementAndGet();
+      synchronized (eventLogger) {
+        eventLogger.error("Message {0} at offset {1} MsgType {2}; {3}", message.getSequence(),
+            message.getPosition(), message.getMsgType(), e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import io.fixprotocol.orchestra.repository.model.Component;
+import io.fixprotocol.orchestra.repository.model.CompactRepository;
+import io.fixprotocol.orchestra.repository.model.Group;
+import io.fixprotocol.orchestra.repository.model.Member;
+
+/**
+ * Members of repeating groups by NumInGroup tag
+ * <p>
+ * Tells which fields of a tag=value message belong to a repeating group instance, so that
+ * {@link TagValueMessage} can tell fields at the top level of a message from fields within groups.
+ * The members of a group are its fields, the fields of its nested components and the NumInGroup
+ * fields of its nested groups, but not the members of nested groups. Groups that share a
+ * NumInGroup field are merged.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class GroupLayout {
+
+  // guards against circular component references
+  private static final int MAX_DEPTH = 32;
+
+  /**
+   * Collects the repeating groups of a repository
+   *
+   * @param model compact model of a repository
+   * @return a layout of repeating groups
+   */
+  public static GroupLayout from(CompactRepository model) {
+    final Map<Integer, Set<Integer>> members = new HashMap<>();
+    for (final Group group : model.getGroups()) {
+      final int numInGroup = group.getNumInGroupId();
+      if (numInGroup != 0) {
+        addMembers(model, group.getMembers(),
+            members.computeIfAbsent(numInGroup, k -> new TreeSet<>()), 0);
+      }
+    }
+    return new GroupLayout(members);
+  }
+
+  private static void addMembers(CompactRepository model, List<Member> members, Set<Integer> tags,
+      int depth) {
+    if (depth > MAX_DEPTH) {
+      return;
+    }
+    for (final Member member : members) {
+      switch (member.getKind()) {
+        case FIELD:
+          tags.add(member.getId());
+          break;
+        case GROUP: {
+          final Group group = model.getGroup(member.getId());
+          if (group != null && group.getNumInGroupId() != 0) {
+            tags.add(group.getNumInGroupId());
+          }
+          break;
+        }
+        default: {
+          final Component component = model.getComponent(member.getId());
+          if (component != null) {
+            addMembers(model, component.getMembers(), tags, depth + 1);
+          }
+        }
+      }
+    }
+  }
+
+  // sorted NumInGroup tags with members of each at the same index, so a lookup does not box
+  private final int[][] members;
+  private final int[] numInGroupTags;
+
+  private GroupLayout(Map<Integer, Set<Integer>> members) {
+    this.numInGroupTags = members.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+    this.members = new int[numInGroupTags.length][];
+    for (int i = 0; i < numInGroupTags.length; i++) {
+      this.members[i] =
+          members.get(numInGroupTags[i]).stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  /**
+   * @param tag field tag
+   * @return {@code true} if the field is the NumInGroup field of a repeating group
+   */
+  public boolean isNumInGroup(int tag) {
+    return Arrays.binarySearch(numInGroupTags, tag) >= 0;
+  }
+
+  /**
+   * @param numInGroup NumInGroup tag of a repeating group
+   * @param tag field tag
+   * @return {@code true} if the field is a member of an instance of the group
+   */
+  public boolean isMember(int numInGroup, int tag) {
+    final int i = Arrays.binarySearch(numInGroupTags, numInGroup);
+    return i >= 0 && Arrays.binarySearch(members[i], tag) >= 0;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A fixed pool of reusable message buffers
+ * <p>
+ * All buffers are allocated on construction. {@link #acquire()} blocks while every buffer is in
+ * use, so a fast producer is held back by its consumers and memory use stays constant.
+ */
+public final class MessageBufferPool {
+
+  private final BlockingQueue<TagValueMessage> available;
+  private final int size;
+
+  /**
+   * Constructor
+   *
+   * @param size number of buffers
+   * @param capacity maximum length of a message in bytes
+   */
+  public MessageBufferPool(int size, int capacity) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Pool size must be positive");
+    }
+    this.size = size;
+    this.available = new ArrayBlockingQueue<>(size);
+    for (int i = 0; i < size; i++) {
+      available.add(new TagValueMessage(capacity));
+    }
+  }
+
+  /**
+   * Takes a buffer from the pool, waiting if none is available
+   *
+   * @return a message buffer
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public TagValueMessage acquire() throws InterruptedException {
+    return available.take();
+  }
+
+  /**
+   * Returns a buffer to the pool
+   *
+   * @param message a buffer previously acquired from this pool
+   */
+  public void release(TagValueMessage message) {
+    available.offer(message);
+  }
+
+  /**
+   * @return the number of buffers
+   */
+  public int size() {
+    return size;
+  }
+}
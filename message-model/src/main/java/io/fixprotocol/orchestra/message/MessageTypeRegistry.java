@@ -0,0 +1,365 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * Dispatches messages to compiled programs by MsgType(35) and scenario
+ * <p>
+ * Each {@link MessageType} of a repository is compiled once into a program, such as a
+ * {@link Validator} or {@link Populator} bound to that message type. Lookup by MsgType takes
+ * constant time and does not allocate; ASCII MsgType values of up to four bytes are keyed as a
+ * primitive int. Other values are looked up by their ISO-8859-1 string, the encoding of
+ * {@link TagValueMessage#getString(int)}.
+ * <p>
+ * When a MsgType has more than one scenario, non-base scenarios are distinguished by the top-level
+ * field references of their structures that have presence {@code constant} and a value. A scenario
+ * is selected when all of its constant fields match a message; scenarios with more constants are
+ * tried first. The base scenario is returned when no other scenario matches. If the base scenario
+ * is not declared, the first declared scenario without constant fields takes its place; if there is
+ * none, a message that matches no scenario is not dispatched.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ *
+ * @param <P> type of a compiled program
+ */
+public final class MessageTypeRegistry<P> {
+
+  /**
+   * A compiled message type with the constant field values that select it
+   */
+  public static final class Entry<P> {
+    private final MessageType messageType;
+    private final P program;
+    private final int[] tags;
+    private final String[] values;
+
+    Entry(MessageType messageType, P program, int[] tags, String[] values) {
+      this.messageType = messageType;
+      this.program = program;
+      this.tags = tags;
+      this.values = values;
+    }
+
+    /**
+     * @return Orchestra declaration of the message type
+     */
+    public MessageType getMessageType() {
+      return messageType;
+    }
+
+    /**
+     * @return compiled program
+     */
+    public P getProgram() {
+      return program;
+    }
+
+    boolean matches(IntFunction<String> fieldValues) {
+      for (int i = 0; i < tags.length; i++) {
+        if (!values[i].equals(fieldValues.apply(tags[i]))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return "Entry [msgType=" + messageType.getMsgType() + ", scenario="
+          + messageType.getScenario() + "]";
+    }
+  }
+
+  /**
+   * All scenarios of one MsgType
+   */
+  private static final class Dispatch<P> {
+    Entry<P> base;
+    // ordered by descending number of discriminators
+    final List<Entry<P>> scenarios = new ArrayList<>();
+
+    Entry<P> select(IntFunction<String> fieldValues) {
+      if (fieldValues != null) {
+        for (int i = 0; i < scenarios.size(); i++) {
+          final Entry<P> entry = scenarios.get(i);
+          if (entry.matches(fieldValues)) {
+            return entry;
+          }
+        }
+      }
+      return base;
+    }
+  }
+
+  private static final String BASE_SCENARIO = "base";
+  private static final int NO_KEY = 0;
+
+  /**
+   * Compiles all message types of a repository
+   *
+   * @param <P> type of a compiled program
+   * @param repository an Orchestra repository
+   * @param compiler compiles a message type into a program
+   * @return a new registry
+   */
+  public static <P> MessageTypeRegistry<P> compile(Repository repository,
+      Function<MessageType, P> compiler) {
+    Objects.requireNonNull(repository, "Missing repository");
+    Objects.requireNonNull(compiler, "Missing compiler");
+    final Map<String, Dispatch<P>> byMsgType = new LinkedHashMap<>();
+    if (repository.getMessages() != null) {
+      for (final MessageType messageType : repository.getMessages().getMessage()) {
+        final String msgType = messageType.getMsgType();
+        if (msgType == null || msgType.isEmpty()) {
+          continue;
+        }
+        final Dispatch<P> dispatch = byMsgType.computeIfAbsent(msgType, k -> new Dispatch<>());
+        final String scenario = messageType.getScenario();
+        if (scenario == null || BASE_SCENARIO.equals(scenario)) {
+          dispatch.base = new Entry<>(messageType, compiler.apply(messageType), new int[0],
+              new String[0]);
+        } else {
+          final List<FieldRefType> constants = getConstantFieldRefs(messageType);
+          final int[] tags = new int[constants.size()];
+          final String[] values = new String[constants.size()];
+          for (int i = 0; i < tags.length; i++) {
+            tags[i] = constants.get(i).getId().intValue();
+            values[i] = constants.get(i).getValue();
+          }
+          dispatch.scenarios
+              .add(new Entry<>(messageType, compiler.apply(messageType), tags, values));
+        }
+      }
+    }
+    for (final Dispatch<P> dispatch : byMsgType.values()) {
+      dispatch.scenarios.sort((e1, e2) -> Integer.compare(e2.tags.length, e1.tags.length));
+      // a scenario without discriminators cannot be selected by content; use it as the default
+      // if the base scenario is not declared
+      if (dispatch.base == null) {
+        for (final Entry<P> entry : dispatch.scenarios) {
+          if (entry.tags.length == 0) {
+            dispatch.base = entry;
+            break;
+          }
+        }
+      }
+      dispatch.scenarios.removeIf(e -> e.tags.length == 0);
+    }
+    return new MessageTypeRegistry<>(byMsgType);
+  }
+
+  /**
+   * Encodes a MsgType of up to four ASCII bytes as an int
+   *
+   * @return a non-zero key, or {@code NO_KEY} if the MsgType is too long or not ASCII
+   */
+  private static int encode(byte[] buffer, int offset, int length) {
+    if (length < 1 || length > 4) {
+      return NO_KEY;
+    }
+    int key = 0;
+    for (int i = offset; i < offset + length; i++) {
+      final byte b = buffer[i];
+      if (b < 0) {
+        return NO_KEY;
+      }
+      key = (key << 8) | b;
+    }
+    return key;
+  }
+
+  /**
+   * Encodes a MsgType of up to four ASCII characters as an int, with the same key as its bytes
+   *
+   * @return a non-zero key, or {@code NO_KEY} if the MsgType is too long or not ASCII
+   */
+  private static int encode(CharSequence msgType) {
+    final int length = msgType.length();
+    if (length < 1 || length > 4) {
+      return NO_KEY;
+    }
+    int key = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = msgType.charAt(i);
+      if (c > 0x7f) {
+        return NO_KEY;
+      }
+      key = (key << 8) | c;
+    }
+    return key;
+  }
+
+  private static List<FieldRefType> getConstantFieldRefs(MessageType messageType) {
+    if (messageType.getStructure() == null) {
+      return Collections.emptyList();
+    }
+    final List<FieldRefType> constants = new ArrayList<>();
+    for (final Object member : messageType.getStructure().getComponentRefOrGroupRefOrFieldRef()) {
+      if (member instanceof FieldRefType) {
+        final FieldRefType fieldRef = (FieldRefType) member;
+        if (fieldRef.getPresence() == PresenceT.CONSTANT && fieldRef.getValue() != null) {
+          constants.add(fieldRef);
+        }
+      }
+    }
+    return constants;
+  }
+
+  private static int hash(int key) {
+    final int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private final int[] keys;
+  private final Map<String, Dispatch<P>> longMsgTypes = new HashMap<>();
+  private final int mask;
+  private final Map<String, Entry<P>> messageTypesByName = new HashMap<>();
+  private final int size;
+  private final Dispatch<P>[] slots;
+
+  @SuppressWarnings("unchecked")
+  private MessageTypeRegistry(Map<String, Dispatch<P>> byMsgType) {
+    int capacity = 16;
+    while (capacity < byMsgType.size() * 2) {
+      capacity <<= 1;
+    }
+    this.keys = new int[capacity];
+    this.slots = new Dispatch[capacity];
+    this.mask = capacity - 1;
+    this.size = byMsgType.size();
+
+    for (final Map.Entry<String, Dispatch<P>> e : byMsgType.entrySet()) {
+      final int key = encode(e.getKey());
+      final Dispatch<P> dispatch = e.getValue();
+      if (key == NO_KEY) {
+        longMsgTypes.put(e.getKey(), dispatch);
+      } else {
+        int slot = hash(key) & mask;
+        while (keys[slot] != NO_KEY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        slots[slot] = dispatch;
+      }
+      if (dispatch.base != null) {
+        messageTypesByName.put(dispatch.base.messageType.getName(), dispatch.base);
+      }
+      for (final Entry<P> entry : dispatch.scenarios) {
+        messageTypesByName.putIfAbsent(entry.messageType.getName(), entry);
+      }
+    }
+  }
+
+  /**
+   * Returns the base scenario of a MsgType
+   *
+   * @param msgType value of MsgType(35)
+   * @return a compiled message type, or {@code null} if the MsgType is unknown
+   */
+  public Entry<P> get(CharSequence msgType) {
+    return get(msgType, null);
+  }
+
+  /**
+   * Selects the scenario of a MsgType that matches a message
+   *
+   * @param msgType value of MsgType(35)
+   * @param fieldValues returns the value of a field of a message by tag, or {@code null} if the
+   *        field is not present. If {@code null}, the base scenario is returned.
+   * @return a compiled message type, or {@code null} if the MsgType is unknown
+   */
+  public Entry<P> get(CharSequence msgType, IntFunction<String> fieldValues) {
+    final int key = encode(msgType);
+    final Dispatch<P> dispatch =
+        key != NO_KEY ? lookup(key) : longMsgTypes.get(msgType.toString());
+    return dispatch != null ? dispatch.select(fieldValues) : null;
+  }
+
+  /**
+   * Selects the scenario of a MsgType that matches a message, reading MsgType from a buffer
+   *
+   * @param buffer buffer containing the value of MsgType(35)
+   * @param offset position of the first byte of the value
+   * @param length number of bytes of the value
+   * @param fieldValues returns the value of a field of a message by tag, or {@code null} if the
+   *        field is not present. If {@code null}, the base scenario is returned.
+   * @return a compiled message type, or {@code null} if the MsgType is unknown
+   */
+  public Entry<P> get(byte[] buffer, int offset, int length, IntFunction<String> fieldValues) {
+    final int key = encode(buffer, offset, length);
+    final Dispatch<P> dispatch = key != NO_KEY ? lookup(key)
+        : longMsgTypes.get(new String(buffer, offset, length, StandardCharsets.ISO_8859_1));
+    return dispatch != null ? dispatch.select(fieldValues) : null;
+  }
+
+  /**
+   * Returns a message type by name, preferring its base scenario
+   *
+   * @param name name of a message type, e.g. "NewOrderSingle"
+   * @return a compiled message type, or {@code null} if not found
+   */
+  public Entry<P> getByName(String name) {
+    return messageTypesByName.get(name);
+  }
+
+  /**
+   * @return number of distinct MsgType values
+   */
+  public int size() {
+    return size;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "MessageTypeRegistry [size=" + size + "]";
+  }
+
+  private Dispatch<P> lookup(int key) {
+    int slot = hash(key) & mask;
+    int k;
+    while ((k = keys[slot]) != NO_KEY) {
+      if (k == key) {
+        return slots[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol.orchestra.message.metrics.RuleMetrics;
+
+/**
+ * A conditional presence requirement of a message member, taken from a field or component rule
+ *
+ */
+public final class PresenceRule {
+
+  /**
+   * Kind of message member that a rule applies to
+   */
+  public enum MemberType {
+    COMPONENT, FIELD, GROUP
+  }
+
+  private final int memberId;
+  private final String memberName;
+  private final MemberType memberType;
+  private final RuleMetrics metrics;
+  private final PresenceT presence;
+  private final String ruleName;
+  private final String when;
+
+  /**
+   * Constructor
+   *
+   * @param memberType kind of the referenced member
+   * @param memberId id of the referenced field, component or group
+   * @param memberName name of the referenced field, component or group, if known
+   * @param ruleName name of the rule, may be {@code null}
+   * @param presence presence of the member when the condition is true
+   * @param when condition as a Score expression
+   */
+  public PresenceRule(MemberType memberType, int memberId, String memberName, String ruleName,
+      PresenceT presence, String when) {
+    this(memberType, memberId, memberName, ruleName, presence, when, null);
+  }
+
+  /**
+   * Constructor for an instrumented rule
+   *
+   * @param memberType kind of the referenced member
+   * @param memberId id of the referenced field, component or group
+   * @param memberName name of the referenced field, component or group, if known
+   * @param ruleName name of the rule, may be {@code null}
+   * @param presence presence of the member when the condition is true
+   * @param when condition as a Score expression
+   * @param metrics counters of the rule, or {@code null} for none
+   */
+  public PresenceRule(MemberType memberType, int memberId, String memberName, String ruleName,
+      PresenceT presence, String when, RuleMetrics metrics) {
+    this.metrics = metrics;
+    this.memberType = memberType;
+    this.memberId = memberId;
+    this.memberName = memberName;
+    this.ruleName = ruleName;
+    this.presence = presence;
+    this.when = when;
+  }
+
+  /**
+   * @return the id of the referenced field, component or group
+   */
+  public int getMemberId() {
+    return memberId;
+  }
+
+  /**
+   * @return the name of the referenced field, component or group
+   */
+  public String getMemberName() {
+    return memberName;
+  }
+
+  /**
+   * @return the kind of the referenced member
+   */
+  public MemberType getMemberType() {
+    return memberType;
+  }
+
+  /**
+   * @return counters of the rule, or {@code null} if the rule is not instrumented
+   */
+  public RuleMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @return presence of the member when the condition is true
+   */
+  public PresenceT getPresence() {
+    return presence;
+  }
+
+  /**
+   * @return the name of the rule, may be {@code null}
+   */
+  public String getRuleName() {
+    return ruleName;
+  }
+
+  /**
+   * @return condition as a Score expression
+   */
+  public String getWhen() {
+    return when;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "PresenceRule [memberType=" + memberType + ", memberId=" + memberId + ", "
+        + (memberName != null ? "memberName=" + memberName + ", " : "")
+        + (ruleName != null ? "ruleName=" + ruleName + ", " : "") + "presence=" + presence
+        + ", when=" + when + "]";
+  }
+
+}
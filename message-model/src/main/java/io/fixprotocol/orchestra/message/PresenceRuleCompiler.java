@@ -0,0 +1,427 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRuleType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldRuleType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreLexer;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.CharacterContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.ContainsContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.EqualityContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.ExprContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.IntegerContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.LogicalOrContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.ParensContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.QualContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.StringContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.VarContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.VariableContext;
+import io.fixprotocol.orchestra.message.PresenceRule.MemberType;
+import io.fixprotocol.orchestra.message.metrics.MessageTypeMetrics;
+import io.fixprotocol.orchestra.message.metrics.RuleMetrics;
+import io.fixprotocol.orchestra.model.FixType;
+
+/**
+ * Compiles presence rules of message structures into {@link PresenceRuleTable}
+ * <p>
+ * A rule is merged into a decision table when its condition has one of these forms, where
+ * {@code F} is an unqualified field name and each {@code c} is a code reference such as
+ * {@code ^Limit}, or a character, string or integer literal:
+ * <ul>
+ * <li>{@code F == c} or {@code c == F}</li>
+ * <li>{@code F in {c1, c2, ...}}</li>
+ * <li>a disjunction of the above forms that all test the same field</li>
+ * </ul>
+ * The repository must declare the field, and its datatype or code set type must be one that the
+ * Score evaluator compares as an integer, a character or a string. A literal must be of the same
+ * kind as the field. Code references are translated to wire values through the code set of the
+ * field. Integer keys are held without leading zeros and wire values are normalized the same way
+ * when looked up, so {@code PartyRole == 4} applies to a wire value of "04", as it does when
+ * evaluated. Otherwise, the rule is residual.
+ * <p>
+ * Indexes of the repository are built once on construction, so one compiler should be used for
+ * all message types of a repository.
+ */
+public class PresenceRuleCompiler {
+
+  /**
+   * How the Score evaluator compares values of a field
+   */
+  private enum KeyKind {
+    CHARACTER, INTEGER, NONE, STRING
+  }
+
+  /**
+   * A condition that is true when a field has one of a set of values
+   */
+  private static final class Discriminant {
+    final String fieldName;
+    final Set<String> values;
+
+    Discriminant(String fieldName, Set<String> values) {
+      this.fieldName = fieldName;
+      this.values = values;
+    }
+  }
+
+  private static class SyntaxErrorListener extends BaseErrorListener {
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+        int charPositionInLine, String msg, RecognitionException e) {
+      throw new IllegalStateException(msg);
+    }
+  }
+
+  private static final String BASE_SCENARIO = "base";
+
+  private static RuleMetrics forRule(MessageTypeMetrics metrics, String expression) {
+    return metrics != null ? metrics.forRule(expression) : null;
+  }
+
+  private static <T> void putPreferBase(Map<T, ?> map, T key, Object value, String scenario) {
+    @SuppressWarnings("unchecked")
+    final Map<T, Object> m = (Map<T, Object>) map;
+    if (BASE_SCENARIO.equals(scenario)) {
+      m.put(key, value);
+    } else {
+      m.putIfAbsent(key, value);
+    }
+  }
+
+  private final Map<String, CodeSetType> codeSetsByName = new HashMap<>();
+  private final Map<Integer, ComponentType> componentsById = new HashMap<>();
+  private final Map<Integer, FieldType> fieldsById = new HashMap<>();
+  private final Map<String, FieldType> fieldsByName = new HashMap<>();
+  private final Map<Integer, GroupType> groupsById = new HashMap<>();
+
+  /**
+   * Constructor
+   *
+   * @param repository Orchestra repository that declares fields, code sets, components and groups
+   */
+  public PresenceRuleCompiler(Repository repository) {
+    if (repository.getFields() != null) {
+      for (final FieldType field : repository.getFields().getField()) {
+        putPreferBase(fieldsById, field.getId().intValue(), field, field.getScenario());
+        putPreferBase(fieldsByName, field.getName(), field, field.getScenario());
+      }
+    }
+    if (repository.getCodeSets() != null) {
+      for (final CodeSetType codeSet : repository.getCodeSets().getCodeSet()) {
+        putPreferBase(codeSetsByName, codeSet.getName(), codeSet, codeSet.getScenario());
+      }
+    }
+    if (repository.getComponents() != null) {
+      for (final ComponentType component : repository.getComponents().getComponent()) {
+        putPreferBase(componentsById, component.getId().intValue(), component,
+            component.getScenario());
+      }
+    }
+    if (repository.getGroups() != null) {
+      for (final GroupType group : repository.getGroups().getGroup()) {
+        putPreferBase(groupsById, group.getId().intValue(), group, group.getScenario());
+      }
+    }
+  }
+
+  /**
+   * Compiles the presence rules of the direct members of a message, component or group
+   * <p>
+   * Members of nested components and groups are not traversed; compile their structures
+   * separately.
+   *
+   * @param members list of field, component and group references
+   * @return a table of compiled rules
+   */
+  public PresenceRuleTable compile(List<Object> members) {
+    return compile(members, null);
+  }
+
+  /**
+   * Compiles the presence rules of the direct members of a message with instrumentation
+   * <p>
+   * Counters of each rule are obtained here, once, and kept by the rule.
+   *
+   * @param members list of field, component and group references
+   * @param metrics counters of the message type, or {@code null} for none
+   * @return a table of compiled rules
+   */
+  public PresenceRuleTable compile(List<Object> members, MessageTypeMetrics metrics) {
+    final Map<String, Map<String, List<PresenceRule>>> decisionTables = new LinkedHashMap<>();
+    final List<PresenceRule> residualRules = new ArrayList<>();
+
+    for (final Object member : members) {
+      if (member instanceof FieldRefType) {
+        final FieldRefType fieldRef = (FieldRefType) member;
+        final int id = fieldRef.getId().intValue();
+        final FieldType field = fieldsById.get(id);
+        final String name = field != null ? field.getName() : null;
+        for (final FieldRuleType rule : fieldRef.getRule()) {
+          if (rule.getPresence() != null && rule.getWhen() != null) {
+            addRule(new PresenceRule(MemberType.FIELD, id, name, rule.getName(),
+                rule.getPresence(), rule.getWhen(), forRule(metrics, rule.getWhen())),
+                decisionTables, residualRules);
+          }
+        }
+      } else if (member instanceof ComponentRefType) {
+        // GroupRefType extends ComponentRefType
+        final ComponentRefType componentRef = (ComponentRefType) member;
+        final int id = componentRef.getId().intValue();
+        final MemberType memberType;
+        final String name;
+        if (member instanceof GroupRefType) {
+          memberType = MemberType.GROUP;
+          final GroupType group = groupsById.get(id);
+          name = group != null ? group.getName() : null;
+        } else {
+          memberType = MemberType.COMPONENT;
+          final ComponentType component = componentsById.get(id);
+          name = component != null ? component.getName() : null;
+        }
+        for (final ComponentRuleType rule : componentRef.getRule()) {
+          if (rule.getPresence() != null && rule.getWhen() != null) {
+            addRule(new PresenceRule(memberType, id, name, rule.getName(), rule.getPresence(),
+                rule.getWhen(), forRule(metrics, rule.getWhen())), decisionTables,
+                residualRules);
+          }
+        }
+      }
+    }
+
+    for (final Map.Entry<String, Map<String, List<PresenceRule>>> entry : decisionTables
+        .entrySet()) {
+      final Map<String, List<PresenceRule>> table = entry.getValue();
+      table.replaceAll((value, rules) -> Collections.unmodifiableList(rules));
+      entry.setValue(Collections.unmodifiableMap(table));
+    }
+    final Set<String> integerFields = new HashSet<>();
+    for (final String fieldName : decisionTables.keySet()) {
+      if (getKeyKind(fieldName) == KeyKind.INTEGER) {
+        integerFields.add(fieldName);
+      }
+    }
+    return new PresenceRuleTable(Collections.unmodifiableMap(decisionTables), residualRules,
+        integerFields);
+  }
+
+  private void addRule(PresenceRule rule,
+      Map<String, Map<String, List<PresenceRule>>> decisionTables,
+      List<PresenceRule> residualRules) {
+    final Discriminant discriminant = analyze(rule.getWhen());
+    if (discriminant != null) {
+      final Map<String, List<PresenceRule>> table =
+          decisionTables.computeIfAbsent(discriminant.fieldName, k -> new HashMap<>());
+      for (final String value : discriminant.values) {
+        table.computeIfAbsent(value, k -> new ArrayList<>()).add(rule);
+      }
+    } else {
+      residualRules.add(rule);
+    }
+  }
+
+  /**
+   * @return a Discriminant if the condition tests one field against constants, or {@code null}
+   */
+  private Discriminant analyze(String expression) {
+    final ScoreLexer lexer = new ScoreLexer(CharStreams.fromString(expression));
+    lexer.removeErrorListeners();
+    final ScoreParser parser = new ScoreParser(new CommonTokenStream(lexer));
+    parser.removeErrorListeners();
+    parser.addErrorListener(new SyntaxErrorListener());
+    try {
+      final ExprContext expr = parser.anyExpression().expr();
+      return expr != null ? analyze(expr) : null;
+    } catch (final IllegalStateException e) {
+      // not a valid expression; left for the evaluator to report
+      return null;
+    }
+  }
+
+  private Discriminant analyze(ExprContext expr) {
+    if (expr instanceof ParensContext) {
+      return analyze(((ParensContext) expr).expr());
+    } else if (expr instanceof EqualityContext) {
+      final EqualityContext equality = (EqualityContext) expr;
+      final String op = equality.op.getText();
+      if (!"==".equals(op) && !"eq".equals(op)) {
+        return null;
+      }
+      Discriminant discriminant = analyzeEquality(equality.expr(0), equality.expr(1));
+      if (discriminant == null) {
+        discriminant = analyzeEquality(equality.expr(1), equality.expr(0));
+      }
+      return discriminant;
+    } else if (expr instanceof ContainsContext) {
+      final ContainsContext contains = (ContainsContext) expr;
+      final String fieldName = getFieldName(contains.val);
+      if (fieldName == null) {
+        return null;
+      }
+      final Set<String> values = new LinkedHashSet<>();
+      for (final ExprContext member : contains.member) {
+        final String value = getConstant(member, fieldName);
+        if (value == null) {
+          return null;
+        }
+        values.add(value);
+      }
+      return new Discriminant(fieldName, values);
+    } else if (expr instanceof LogicalOrContext) {
+      final LogicalOrContext or = (LogicalOrContext) expr;
+      final Discriminant left = analyze(or.expr(0));
+      final Discriminant right = analyze(or.expr(1));
+      if (left != null && right != null && left.fieldName.equals(right.fieldName)) {
+        final Set<String> values = new LinkedHashSet<>(left.values);
+        values.addAll(right.values);
+        return new Discriminant(left.fieldName, values);
+      }
+    }
+    return null;
+  }
+
+  private Discriminant analyzeEquality(ExprContext variable, ExprContext constant) {
+    final String fieldName = getFieldName(variable);
+    if (fieldName != null) {
+      final String value = getConstant(constant, fieldName);
+      if (value != null) {
+        return new Discriminant(fieldName, Collections.singleton(value));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return wire value of a literal or code reference, or {@code null} if not a constant
+   */
+  private String getConstant(ExprContext expr, String fieldName) {
+    final KeyKind keyKind = getKeyKind(fieldName);
+    if (expr instanceof CharacterContext) {
+      return keyKind == KeyKind.CHARACTER ? unquote(((CharacterContext) expr).CHAR().getText())
+          : null;
+    } else if (expr instanceof StringContext) {
+      return keyKind == KeyKind.STRING ? unquote(((StringContext) expr).STRING().getText()) : null;
+    } else if (expr instanceof IntegerContext) {
+      return keyKind == KeyKind.INTEGER
+          ? PresenceRuleTable.toIntegerKey(((IntegerContext) expr).UINT().getText())
+          : null;
+    } else if (expr instanceof VariableContext) {
+      final VarContext var = ((VariableContext) expr).var();
+      if (keyKind != KeyKind.NONE && var.scope != null && "^".equals(var.scope.getText())
+          && var.qual().size() == 1) {
+        final String value = getCodeValue(fieldName, var.qual(0).ID().getText());
+        return keyKind == KeyKind.INTEGER && value != null ? PresenceRuleTable.toIntegerKey(value)
+            : value;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return how the evaluator compares values of a field, by the storage class of its datatype
+   */
+  private KeyKind getKeyKind(String fieldName) {
+    final FieldType field = fieldsByName.get(fieldName);
+    if (field == null || field.getType() == null) {
+      return KeyKind.NONE;
+    }
+    final CodeSetType codeSet = codeSetsByName.get(field.getType());
+    final String type = codeSet != null ? codeSet.getType() : field.getType();
+    if (type == null) {
+      return KeyKind.NONE;
+    }
+    final Class<?> valueClass;
+    try {
+      valueClass = FixType.forName(type).getValueClass();
+    } catch (final IllegalArgumentException e) {
+      return KeyKind.NONE;
+    }
+    if (valueClass == Integer.class) {
+      return KeyKind.INTEGER;
+    } else if (valueClass == Character.class) {
+      return KeyKind.CHARACTER;
+    } else if (valueClass == String.class) {
+      return KeyKind.STRING;
+    } else {
+      return KeyKind.NONE;
+    }
+  }
+
+  private String getCodeValue(String fieldName, String codeName) {
+    final FieldType field = fieldsByName.get(fieldName);
+    if (field == null) {
+      return null;
+    }
+    final CodeSetType codeSet = codeSetsByName.get(field.getType());
+    if (codeSet == null) {
+      return null;
+    }
+    for (final CodeType code : codeSet.getCode()) {
+      if (code.getName().equals(codeName)) {
+        return code.getValue();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return literal text without quotes, or {@code null} if it contains an escape sequence
+   */
+  private static String unquote(String text) {
+    final String value = text.substring(1, text.length() - 1);
+    return value.indexOf('\\') == -1 ? value : null;
+  }
+
+  /**
+   * @return name of an unqualified field in the local scope, or {@code null} if the expression is
+   *         not a simple field reference
+   */
+  private String getFieldName(ExprContext expr) {
+    if (expr instanceof VariableContext) {
+      final VarContext var = ((VariableContext) expr).var();
+      if ((var.scope == null || "this.".equals(var.scope.getText())) && var.qual().size() == 1) {
+        final QualContext qual = var.qual(0);
+        if (qual.index() == null && qual.pred() == null) {
+          return qual.ID().getText();
+        }
+      }
+    }
+    return null;
+  }
+}
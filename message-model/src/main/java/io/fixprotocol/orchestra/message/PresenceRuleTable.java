@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Presence rules of a message structure, compiled into decision tables
+ * <p>
+ * Rules that test a single discriminator field against constants, such as
+ * {@code OrdType == ^Limit}, are merged into one table per discriminator field keyed by the wire
+ * value of the field. Finding every such rule that applies to a message takes one lookup per
+ * discriminator field, regardless of the number of rules. Rules of any other form are kept as
+ * residual rules that must be evaluated individually. Tables of integer fields are keyed without
+ * leading zeros, and wire values are normalized the same way before lookup.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ *
+ * @see PresenceRuleCompiler
+ */
+public final class PresenceRuleTable {
+
+  /**
+   * Normalizes an unsigned integer to a table key
+   *
+   * @param value wire value of an integer field
+   * @return the value without leading zeros, or {@code null} if it is not an unsigned integer
+   */
+  static String toIntegerKey(String value) {
+    final int length = value.length();
+    if (length == 0) {
+      return null;
+    }
+    int start = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return null;
+      }
+      if (c == '0' && start == i && i < length - 1) {
+        start++;
+      }
+    }
+    return start == 0 ? value : value.substring(start);
+  }
+
+  private final Map<String, Map<String, List<PresenceRule>>> decisionTables;
+  private final Set<String> integerFields;
+  private final List<PresenceRule> residualRules;
+  private final Map<String, List<PresenceRule>> rulesByTable = new LinkedHashMap<>();
+  private final List<PresenceRule> tableRules;
+
+  PresenceRuleTable(Map<String, Map<String, List<PresenceRule>>> decisionTables,
+      List<PresenceRule> residualRules, Set<String> integerFields) {
+    this.decisionTables = decisionTables;
+    this.integerFields = integerFields;
+    this.residualRules = Collections.unmodifiableList(residualRules);
+    // a rule is keyed by each of its values
+    final List<PresenceRule> tableRules = new ArrayList<>();
+    for (final Map.Entry<String, Map<String, List<PresenceRule>>> table : decisionTables
+        .entrySet()) {
+      final Set<PresenceRule> rules = Collections.newSetFromMap(new IdentityHashMap<>());
+      final List<PresenceRule> rulesOfTable = new ArrayList<>();
+      for (final List<PresenceRule> valueRules : table.getValue().values()) {
+        for (final PresenceRule rule : valueRules) {
+          if (rules.add(rule)) {
+            rulesOfTable.add(rule);
+          }
+        }
+      }
+      rulesByTable.put(table.getKey(), Collections.unmodifiableList(rulesOfTable));
+      tableRules.addAll(rulesOfTable);
+    }
+    this.tableRules = Collections.unmodifiableList(tableRules);
+  }
+
+  /**
+   * Finds the rules whose conditions are satisfied by discriminator values of a message
+   *
+   * @param fieldValues returns the value of a field by name as it appears on the wire, or
+   *        {@code null} if the field is not present in a message
+   * @return a list of rules that apply, possibly empty. Residual rules are not included.
+   */
+  public List<PresenceRule> getApplicableRules(Function<String, String> fieldValues) {
+    List<PresenceRule> applicable = null;
+    for (final Map.Entry<String, Map<String, List<PresenceRule>>> entry : decisionTables
+        .entrySet()) {
+      final String value = toKey(entry.getKey(), fieldValues.apply(entry.getKey()));
+      if (value != null) {
+        final List<PresenceRule> rules = entry.getValue().get(value);
+        if (rules != null) {
+          if (applicable == null) {
+            applicable = new ArrayList<>(rules);
+          } else {
+            applicable.addAll(rules);
+          }
+        }
+      }
+    }
+    return applicable != null ? applicable : Collections.emptyList();
+  }
+
+  /**
+   * @return names of fields that key decision tables
+   */
+  public Set<String> getDiscriminatorFieldNames() {
+    return decisionTables.keySet();
+  }
+
+  /**
+   * @return rules that could not be merged into a decision table and must be evaluated
+   *         individually
+   */
+  public List<PresenceRule> getResidualRules() {
+    return residualRules;
+  }
+
+  /**
+   * @return rules merged into decision tables, each once
+   */
+  public List<PresenceRule> getTableRules() {
+    return tableRules;
+  }
+
+  /**
+   * Returns the rules of one decision table
+   *
+   * @param fieldName name of a discriminator field
+   * @return rules keyed by values of the field, each once, or an empty list if the field does not
+   *         key a decision table
+   */
+  public List<PresenceRule> getTableRules(String fieldName) {
+    final List<PresenceRule> rules = rulesByTable.get(fieldName);
+    return rules != null ? rules : Collections.emptyList();
+  }
+
+  /**
+   * Tells whether a value can be compared with the values of a decision table
+   *
+   * @param fieldName name of a discriminator field
+   * @param value value of the field as it appears on the wire, or {@code null} if not present
+   * @return {@code false} if the value is present but is not valid for the type of the field, e.g.
+   *         not an unsigned integer
+   */
+  public boolean isComparable(String fieldName, String value) {
+    return value == null || toKey(fieldName, value) != null;
+  }
+
+  /**
+   * Returns rules keyed by a discriminator value
+   *
+   * @param fieldName name of a discriminator field
+   * @param value value of the field as it appears on the wire
+   * @return a list of rules, possibly empty
+   */
+  public List<PresenceRule> getRules(String fieldName, String value) {
+    final Map<String, List<PresenceRule>> table = decisionTables.get(fieldName);
+    final String key = toKey(fieldName, value);
+    if (table != null && key != null) {
+      final List<PresenceRule> rules = table.get(key);
+      if (rules != null) {
+        return rules;
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * @return {@code true} if there are no presence rules
+   */
+  public boolean isEmpty() {
+    return decisionTables.isEmpty() && residualRules.isEmpty();
+  }
+
+  private String toKey(String fieldName, String value) {
+    return value != null && integerFields.contains(fieldName) ? toIntegerKey(value) : value;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "PresenceRuleTable [decisionTables=" + decisionTables + ", residualRules="
+        + residualRules + "]";
+  }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reusable view of a FIX message in tag=value encoding
+ * <p>
+ * A message owns a fixed-size buffer. After message bytes are copied into {@link #buffer()},
+ * {@link #parse(int, byte)} locates the fields without copying them. Fields are accessed by tag;
+ * when a tag occurs more than once, its first occurrence is returned. Once a {@link GroupLayout}
+ * is set, access by tag is limited to fields at the top level of the message, outside of repeating
+ * group instances.
+ * <p>
+ * Instances are not thread-safe but may be handed from one thread to another, for example through
+ * {@link MessageBufferPool}.
+ */
+public final class TagValueMessage {
+
+  /**
+   * Standard field delimiter, SOH
+   */
+  public static final byte SOH = 0x01;
+
+  private static final int MSG_TYPE_TAG = 35;
+  private static final int NOT_FOUND = -1;
+
+  private final byte[] buffer;
+  private int fieldCount;
+  private GroupLayout groupLayout;
+  // NumInGroup tags of the groups enclosing a field while indexing
+  private int[] groupStack = new int[8];
+  private int length;
+  private long position;
+  private long sequence;
+  // open-addressed index of first occurrence of a tag
+  private int[] slotFields;
+  private int[] slotTags;
+  private int[] tags;
+  private int[] valueLengths;
+  private int[] valueOffsets;
+
+  /**
+   * Constructor
+   *
+   * @param capacity maximum length of a message in bytes
+   */
+  public TagValueMessage(int capacity) {
+    this.buffer = new byte[capacity];
+    final int fieldCapacity = 64;
+    this.tags = new int[fieldCapacity];
+    this.valueOffsets = new int[fieldCapacity];
+    this.valueLengths = new int[fieldCapacity];
+    this.slotTags = new int[fieldCapacity * 2];
+    this.slotFields = new int[fieldCapacity * 2];
+  }
+
+  /**
+   * @return the buffer to populate with message bytes
+   */
+  public byte[] buffer() {
+    return buffer;
+  }
+
+  /**
+   * @param tag field tag
+   * @return {@code true} if the field is present
+   */
+  public boolean contains(int tag) {
+    return find(tag) != NOT_FOUND;
+  }
+
+  /**
+   * @return the number of fields
+   */
+  public int getFieldCount() {
+    return fieldCount;
+  }
+
+  /**
+   * @return number of bytes of the message
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * @return the value of MsgType(35), or {@code null} if not present
+   */
+  public String getMsgType() {
+    return getString(MSG_TYPE_TAG);
+  }
+
+  /**
+   * @return position of the message in its source, such as a file offset
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * @return ordinal of the message in its source, starting with 1
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * @param tag field tag
+   * @return the value of a field, or {@code null} if not present
+   */
+  public String getString(int tag) {
+    final int field = find(tag);
+    if (field == NOT_FOUND) {
+      return null;
+    }
+    return new String(buffer, valueOffsets[field], valueLengths[field],
+        StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * @param index field position, starting with 0
+   * @return the tag of a field
+   */
+  public int getTag(int index) {
+    return tags[index];
+  }
+
+  /**
+   * @param tag field tag
+   * @return the number of bytes of a field value, or -1 if not present
+   */
+  public int getValueLength(int tag) {
+    final int field = find(tag);
+    return field != NOT_FOUND ? valueLengths[field] : NOT_FOUND;
+  }
+
+  /**
+   * @param tag field tag
+   * @return offset of a field value in the buffer, or -1 if not present
+   */
+  public int getValueOffset(int tag) {
+    final int field = find(tag);
+    return field != NOT_FOUND ? valueOffsets[field] : NOT_FOUND;
+  }
+
+  /**
+   * Compares a field value without creating a String
+   *
+   * @param tag field tag
+   * @param expected expected value as bytes
+   * @return {@code true} if the field is present and has the expected value
+   */
+  public boolean isValue(int tag, byte[] expected) {
+    final int field = find(tag);
+    if (field == NOT_FOUND || valueLengths[field] != expected.length) {
+      return false;
+    }
+    final int offset = valueOffsets[field];
+    for (int i = 0; i < expected.length; i++) {
+      if (buffer[offset + i] != expected[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Locates the fields of a message in the buffer
+   *
+   * @param length number of bytes of the message
+   * @param delimiter field delimiter, usually SOH or '|'
+   * @return {@code true} if the message was well formed; otherwise, fields up to the first
+   *         malformed one are accessible
+   */
+  public boolean parse(int length, byte delimiter) {
+    this.length = length;
+    this.fieldCount = 0;
+    int i = 0;
+    while (i < length) {
+      int tag = 0;
+      final int tagStart = i;
+      byte b;
+      while (i < length && (b = buffer[i]) != '=') {
+        if (b < '0' || b > '9') {
+          index();
+          return false;
+        }
+        tag = tag * 10 + (b - '0');
+        i++;
+      }
+      if (i == length || i == tagStart) {
+        index();
+        return false;
+      }
+      i++;
+      final int valueStart = i;
+      while (i < length && buffer[i] != delimiter) {
+        i++;
+      }
+      addField(tag, valueStart, i - valueStart);
+      i++;
+    }
+    index();
+    return true;
+  }
+
+  /**
+   * Sets the origin of the message
+   *
+   * @param sequence ordinal of the message in its source
+   * @param position position of the message in its source
+   */
+  public void setSource(long sequence, long position) {
+    this.sequence = sequence;
+    this.position = position;
+  }
+
+  /**
+   * Sets the repeating groups of the message's repository
+   * <p>
+   * A field that follows a NumInGroup field and is a member of its group is taken to be within
+   * a group instance and is not accessible by tag. The fields of a parsed message are re-indexed
+   * only if the layout differs from the current one.
+   *
+   * @param groupLayout members of repeating groups, or {@code null} to access fields by tag
+   *        regardless of groups
+   */
+  public void setGroupLayout(GroupLayout groupLayout) {
+    if (this.groupLayout != groupLayout) {
+      this.groupLayout = groupLayout;
+      index();
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "TagValueMessage [sequence=" + sequence + ", position=" + position + ", message="
+        + new String(buffer, 0, length, StandardCharsets.ISO_8859_1) + "]";
+  }
+
+  private void addField(int tag, int valueOffset, int valueLength) {
+    if (fieldCount == tags.length) {
+      final int newCapacity = tags.length * 2;
+      tags = Arrays.copyOf(tags, newCapacity);
+      valueOffsets = Arrays.copyOf(valueOffsets, newCapacity);
+      valueLengths = Arrays.copyOf(valueLengths, newCapacity);
+      slotTags = new int[newCapacity * 2];
+      slotFields = new int[newCapacity * 2];
+    }
+    tags[fieldCount] = tag;
+    valueOffsets[fieldCount] = valueOffset;
+    valueLengths[fieldCount] = valueLength;
+    fieldCount++;
+  }
+
+  private int find(int tag) {
+    final int mask = slotTags.length - 1;
+    int slot = (tag * 0x9E3779B9 >>> 16) & mask;
+    int t;
+    while ((t = slotTags[slot]) != 0) {
+      if (t == tag) {
+        return slotFields[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NOT_FOUND;
+  }
+
+  private void index() {
+    Arrays.fill(slotTags, 0);
+    final int mask = slotTags.length - 1;
+    int depth = 0;
+    for (int field = 0; field < fieldCount; field++) {
+      final int tag = tags[field];
+      if (tag == 0) {
+        continue;
+      }
+      if (groupLayout != null) {
+        // a field that is not a member of the innermost group ends it
+        while (depth > 0 && !groupLayout.isMember(groupStack[depth - 1], tag)) {
+          depth--;
+        }
+        final boolean topLevel = depth == 0;
+        if (groupLayout.isNumInGroup(tag)) {
+          if (depth == groupStack.length) {
+            groupStack = Arrays.copyOf(groupStack, depth * 2);
+          }
+          groupStack[depth++] = tag;
+        }
+        if (!topLevel) {
+          continue;
+        }
+      }
+      int slot = (tag * 0x9E3779B9 >>> 16) & mask;
+      int t;
+      while ((t = slotTags[slot]) != 0 && t != tag) {
+        slot = (slot + 1) & mask;
+      }
+      if (t == 0) {
+        slotTags[slot] = tag;
+        slotFields[slot] = field;
+      }
+    }
+  }
+}
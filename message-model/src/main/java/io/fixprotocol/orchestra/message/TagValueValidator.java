@@ -0,0 +1,567 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol.orchestra.message.metrics.MessageTypeMetrics;
+import io.fixprotocol.orchestra.message.metrics.RuleMetrics;
+import io.fixprotocol.orchestra.message.metrics.ValidationMetrics;
+import io.fixprotocol.orchestra.repository.model.Code;
+import io.fixprotocol.orchestra.repository.model.CodeSet;
+import io.fixprotocol.orchestra.repository.model.CompactRepository;
+import io.fixprotocol.orchestra.repository.model.Component;
+import io.fixprotocol.orchestra.repository.model.Field;
+import io.fixprotocol.orchestra.repository.model.Group;
+import io.fixprotocol.orchestra.repository.model.Member;
+import io.fixprotocol.orchestra.repository.model.Message;
+
+/**
+ * Validates messages in tag=value encoding against one compiled message type
+ * <p>
+ * Checks, for fields at the top level of a message and of its nested components:
+ * <ul>
+ * <li>required fields and required repeating groups (by their NumInGroup field) are present</li>
+ * <li>forbidden fields are absent</li>
+ * <li>constant fields have their declared value</li>
+ * <li>values of coded fields are members of their code set</li>
+ * <li>conditionally required or forbidden members, for rules that compile to a decision table</li>
+ * </ul>
+ * Members of repeating group instances and residual conditional rules are not checked. A field
+ * within a group instance neither satisfies nor violates a check of the top level, even if the same
+ * tag is declared at both levels; see {@link GroupLayout}. A component is taken to be present if
+ * any of its fields, or NumInGroup fields of its groups, is present at the top level, including
+ * those of nested components; a conditional rule of a component that is not in the repository is
+ * not checked.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ *
+ * @see #compile(Repository)
+ */
+public final class TagValueValidator implements Validator<TagValueMessage> {
+
+  /**
+   * A compiled field reference
+   */
+  private static final class FieldCheck {
+    final byte[][] codes;
+    final byte[] constant;
+    final boolean multipleValue;
+    final String name;
+    final PresenceT presence;
+    final int tag;
+
+    FieldCheck(int tag, String name, PresenceT presence, byte[] constant, byte[][] codes,
+        boolean multipleValue) {
+      this.tag = tag;
+      this.name = name;
+      this.presence = presence;
+      this.constant = constant;
+      this.codes = codes;
+      this.multipleValue = multipleValue;
+    }
+  }
+
+  /**
+   * Compact model of a repository shared by all compiled message types
+   */
+  private static final class RepositoryIndex {
+    final Map<CodeSet, byte[][]> codesByCodeSet = new IdentityHashMap<>();
+    final GroupLayout groupLayout;
+    final CompactRepository model;
+    final Map<String, Integer> tagsByName = new HashMap<>();
+
+    RepositoryIndex(CompactRepository model, GroupLayout groupLayout) {
+      this.model = model;
+      this.groupLayout = groupLayout;
+      for (final Field field : model.getFields()) {
+        tagsByName.putIfAbsent(field.getName(), field.getId());
+      }
+    }
+
+    byte[][] getCodes(CodeSet codeSet) {
+      return codesByCodeSet.computeIfAbsent(codeSet, k -> {
+        final List<Code> codes = codeSet.getCodes();
+        final byte[][] values = new byte[codes.size()][];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = codes.get(i).getValue().getBytes(StandardCharsets.ISO_8859_1);
+        }
+        return values;
+      });
+    }
+  }
+
+  // guards against circular component references
+  private static final int MAX_DEPTH = 32;
+
+  /**
+   * Compiles every message type of a repository
+   *
+   * @param repository an Orchestra repository
+   * @return a registry of validators by MsgType and scenario
+   */
+  public static MessageTypeRegistry<TagValueValidator> compile(Repository repository) {
+    return compile(repository, null);
+  }
+
+  /**
+   * Compiles every message type of a repository with instrumentation
+   * <p>
+   * Each validation is counted and timed per message type. Each conditional rule of a decision
+   * table is counted as true, false or an error, and timed, for every validated message.
+   *
+   * @param repository an Orchestra repository
+   * @param metrics where to record results, or {@code null} for none
+   * @return a registry of validators by MsgType and scenario
+   */
+  public static MessageTypeRegistry<TagValueValidator> compile(Repository repository,
+      ValidationMetrics metrics) {
+    return compile(repository, CompactRepository.from(repository), metrics);
+  }
+
+  /**
+   * Compiles every message type of a repository with instrumentation, sharing its compact model
+   *
+   * @param repository an Orchestra repository
+   * @param model compact model of the same repository
+   * @param metrics where to record results, or {@code null} for none
+   * @return a registry of validators by MsgType and scenario
+   */
+  public static MessageTypeRegistry<TagValueValidator> compile(Repository repository,
+      CompactRepository model, ValidationMetrics metrics) {
+    return compile(repository, model, GroupLayout.from(model), metrics);
+  }
+
+  /**
+   * Compiles every message type of a repository with instrumentation, sharing its compact model
+   * and group layout
+   * <p>
+   * A message that already carries the same layout is not indexed again by
+   * {@link #validate(TagValueMessage)}.
+   *
+   * @param repository an Orchestra repository
+   * @param model compact model of the same repository
+   * @param groupLayout layout of repeating groups of the same model
+   * @param metrics where to record results, or {@code null} for none
+   * @return a registry of validators by MsgType and scenario
+   */
+  public static MessageTypeRegistry<TagValueValidator> compile(Repository repository,
+      CompactRepository model, GroupLayout groupLayout, ValidationMetrics metrics) {
+    final RepositoryIndex index = new RepositoryIndex(model, groupLayout);
+    final PresenceRuleCompiler ruleCompiler = new PresenceRuleCompiler(repository);
+    return MessageTypeRegistry.compile(repository,
+        messageType -> new TagValueValidator(messageType, index, ruleCompiler,
+            metrics != null ? metrics.forMessageType(messageType) : null));
+  }
+
+  private static String scenarioOf(MessageType messageType) {
+    return messageType.getScenario() != null ? messageType.getScenario() : "base";
+  }
+
+  private static boolean contains(byte[][] codes, byte[] buffer, int offset, int length) {
+    for (final byte[] code : codes) {
+      if (code.length == length) {
+        boolean match = true;
+        for (int i = 0; i < length; i++) {
+          if (buffer[offset + i] != code[i]) {
+            match = false;
+            break;
+          }
+        }
+        if (match) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // fields that key decision tables, and their tags or 0 if not a field of the repository
+  private final String[] discriminatorNames;
+  private final int[] discriminatorTags;
+  private final FieldCheck[] fieldChecks;
+  // top-level tags of components that are subject to conditional rules
+  private final Map<Integer, int[]> componentTags = new HashMap<>();
+  private final GroupLayout groupLayout;
+  private final Map<Integer, Integer> groupTags = new HashMap<>();
+  private final MessageType messageType;
+  // per decision table, one rule of each distinct expression, since such rules share counters
+  private final PresenceRule[][] meteredRules;
+  private final MessageTypeMetrics metrics;
+  private final PresenceRuleTable presenceRules;
+
+  private TagValueValidator(MessageType messageType, RepositoryIndex index,
+      PresenceRuleCompiler ruleCompiler, MessageTypeMetrics metrics) {
+    this.messageType = messageType;
+    this.metrics = metrics;
+    this.groupLayout = index.groupLayout;
+    final List<FieldCheck> checks = new ArrayList<>();
+    final Message message =
+        index.model.getMessage(messageType.getMsgType(), messageType.getScenario());
+    if (message != null) {
+      addMembers(message.getMembers(), true, index, checks, new HashSet<>(), 0);
+    }
+    if (messageType.getStructure() != null) {
+      this.presenceRules = ruleCompiler
+          .compile(messageType.getStructure().getComponentRefOrGroupRefOrFieldRef(), metrics);
+    } else {
+      this.presenceRules = ruleCompiler.compile(new ArrayList<>(), metrics);
+    }
+    this.fieldChecks = checks.toArray(new FieldCheck[0]);
+    this.discriminatorNames =
+        presenceRules.getDiscriminatorFieldNames().toArray(new String[0]);
+    this.discriminatorTags = new int[discriminatorNames.length];
+    this.meteredRules = new PresenceRule[discriminatorNames.length][];
+    for (int i = 0; i < discriminatorNames.length; i++) {
+      final Integer tag = index.tagsByName.get(discriminatorNames[i]);
+      discriminatorTags[i] = tag != null ? tag : 0;
+      final Set<RuleMetrics> ruleMetrics = Collections.newSetFromMap(new IdentityHashMap<>());
+      final List<PresenceRule> metered = new ArrayList<>();
+      for (final PresenceRule rule : presenceRules.getTableRules(discriminatorNames[i])) {
+        if (rule.getMetrics() != null && ruleMetrics.add(rule.getMetrics())) {
+          metered.add(rule);
+        }
+      }
+      meteredRules[i] = metered.toArray(new PresenceRule[0]);
+    }
+    for (final PresenceRule rule : presenceRules.getTableRules()) {
+      if (rule.getMemberType() == PresenceRule.MemberType.COMPONENT
+          && !componentTags.containsKey(rule.getMemberId())) {
+        final Component component = index.model.getComponent(rule.getMemberId());
+        if (component != null) {
+          final Set<Integer> tags = new LinkedHashSet<>();
+          addTags(component.getMembers(), index, tags, 0);
+          componentTags.put(rule.getMemberId(),
+              tags.stream().mapToInt(Integer::intValue).toArray());
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the Orchestra declaration of the message type
+   */
+  public MessageType getMessageType() {
+    return messageType;
+  }
+
+  /**
+   * @return repeating groups of the repository, shared by the validators of a registry
+   */
+  public GroupLayout getGroupLayout() {
+    return groupLayout;
+  }
+
+  /**
+   * @return compiled conditional presence rules
+   */
+  public PresenceRuleTable getPresenceRules() {
+    return presenceRules;
+  }
+
+  /**
+   * Validates a message against the message type from which this validator was compiled
+   *
+   * @param message a parsed message
+   * @throws TestException if the message is invalid, with details of each violation
+   */
+  public void validate(TagValueMessage message) throws TestException {
+    if (metrics == null) {
+      doValidate(message);
+    } else {
+      final long startNanos = System.nanoTime();
+      boolean valid = false;
+      try {
+        doValidate(message);
+        valid = true;
+      } finally {
+        metrics.recordValidation(valid, System.nanoTime() - startNanos);
+      }
+    }
+  }
+
+  /**
+   * Validates a message against a message type
+   *
+   * @param message a parsed message
+   * @param messageType the message type from which this validator was compiled, or one with the
+   *        same MsgType and scenario, or {@code null} for the compiled message type
+   * @throws TestException if the message is invalid, with details of each violation
+   * @throws IllegalArgumentException if this validator was compiled from another message type
+   */
+  @Override
+  public void validate(TagValueMessage message, MessageType messageType) throws TestException {
+    if (messageType != null && messageType != this.messageType
+        && !(Objects.equals(messageType.getMsgType(), this.messageType.getMsgType())
+            && scenarioOf(messageType).equals(scenarioOf(this.messageType)))) {
+      throw new IllegalArgumentException(String.format(
+          "Validator of message %s scenario %s cannot validate message %s scenario %s",
+          this.messageType.getName(), scenarioOf(this.messageType), messageType.getName(),
+          scenarioOf(messageType)));
+    }
+    validate(message);
+  }
+
+  private TestException addDetail(TestException ex, String detail, String expected,
+      String actual) {
+    final TestException e = ex != null ? ex
+        : new TestException(String.format("Invalid message %s scenario %s",
+            this.messageType.getName(), this.messageType.getScenario()));
+    e.addDetail(detail, expected, actual);
+    return e;
+  }
+
+  private void doValidate(TagValueMessage message) throws TestException {
+    TestException ex = null;
+    final byte[] buffer = message.buffer();
+    message.setGroupLayout(groupLayout);
+    for (final FieldCheck check : fieldChecks) {
+      final int offset = message.getValueOffset(check.tag);
+      if (offset < 0) {
+        if (check.presence == PresenceT.REQUIRED || check.presence == PresenceT.CONSTANT) {
+          ex = addDetail(ex, String.format("Missing required field %s(%d)", check.name, check.tag),
+              null, null);
+        }
+        continue;
+      }
+      final int length = message.getValueLength(check.tag);
+      if (check.presence == PresenceT.FORBIDDEN) {
+        ex = addDetail(ex, String.format("Forbidden field %s(%d) present", check.name, check.tag),
+            null, message.getString(check.tag));
+      } else if (check.constant != null) {
+        if (!message.isValue(check.tag, check.constant)) {
+          ex = addDetail(ex, String.format("Invalid constant %s(%d)", check.name, check.tag),
+              new String(check.constant, StandardCharsets.ISO_8859_1),
+              message.getString(check.tag));
+        }
+      } else if (check.codes != null && !isValidCode(check, buffer, offset, length)) {
+        ex = addDetail(ex, String.format("Invalid code %s(%d)", check.name, check.tag), null,
+            message.getString(check.tag));
+      }
+    }
+
+    for (int i = 0; i < discriminatorNames.length; i++) {
+      final long startNanos = metrics != null ? System.nanoTime() : 0L;
+      final String fieldName = discriminatorNames[i];
+      final String value =
+          discriminatorTags[i] != 0 ? message.getString(discriminatorTags[i]) : null;
+      final List<PresenceRule> rules = presenceRules.getRules(fieldName, value);
+      if (metrics != null) {
+        recordRules(meteredRules[i], rules, presenceRules.isComparable(fieldName, value),
+            System.nanoTime() - startNanos);
+      }
+      for (final PresenceRule rule : rules) {
+        if (rule.getMemberType() == PresenceRule.MemberType.COMPONENT) {
+          ex = checkComponentRule(rule, message, ex);
+          continue;
+        }
+        final int tag;
+        switch (rule.getMemberType()) {
+          case FIELD:
+            tag = rule.getMemberId();
+            break;
+          case GROUP:
+            final Integer numInGroup = groupTags.get(rule.getMemberId());
+            tag = numInGroup != null ? numInGroup : 0;
+            break;
+          default:
+            tag = 0;
+        }
+        if (tag == 0) {
+          continue;
+        }
+        final boolean present = message.contains(tag);
+        if (rule.getPresence() == PresenceT.REQUIRED && !present) {
+          ex = addDetail(ex, String.format("Missing conditionally required %s(%d) when %s",
+              rule.getMemberName(), tag, rule.getWhen()), null, null);
+        } else if (rule.getPresence() == PresenceT.FORBIDDEN && present) {
+          ex = addDetail(ex, String.format("Conditionally forbidden %s(%d) present when %s",
+              rule.getMemberName(), tag, rule.getWhen()), null, message.getString(tag));
+        }
+      }
+    }
+
+    if (ex != null) {
+      throw ex;
+    }
+  }
+
+  // fields and NumInGroup fields of groups at the top level of a component, with its components
+  private void addTags(List<Member> members, RepositoryIndex index, Set<Integer> tags,
+      int depth) {
+    if (depth > MAX_DEPTH) {
+      return;
+    }
+    for (final Member member : members) {
+      switch (member.getKind()) {
+        case FIELD:
+          tags.add(member.getId());
+          break;
+        case GROUP: {
+          final Group group = index.model.getGroup(member.getId());
+          if (group != null && group.getNumInGroupId() != 0) {
+            tags.add(group.getNumInGroupId());
+          }
+          break;
+        }
+        default: {
+          final Component component = index.model.getComponent(member.getId());
+          if (component != null) {
+            addTags(component.getMembers(), index, tags, depth + 1);
+          }
+        }
+      }
+    }
+  }
+
+  private TestException checkComponentRule(PresenceRule rule, TagValueMessage message,
+      TestException ex) {
+    final int[] tags = componentTags.get(rule.getMemberId());
+    if (tags == null) {
+      return ex;
+    }
+    int presentTag = 0;
+    for (final int tag : tags) {
+      if (message.contains(tag)) {
+        presentTag = tag;
+        break;
+      }
+    }
+    if (rule.getPresence() == PresenceT.REQUIRED && presentTag == 0) {
+      return addDetail(ex, String.format("Missing conditionally required component %s when %s",
+          rule.getMemberName(), rule.getWhen()), null, null);
+    } else if (rule.getPresence() == PresenceT.FORBIDDEN && presentTag != 0) {
+      return addDetail(ex,
+          String.format("Conditionally forbidden component %s present by tag %d when %s",
+              rule.getMemberName(), presentTag, rule.getWhen()),
+          null, message.getString(presentTag));
+    }
+    return ex;
+  }
+
+  private void addMembers(List<Member> members, boolean required, RepositoryIndex index,
+      List<FieldCheck> checks, Set<Integer> tags, int depth) {
+    if (depth > MAX_DEPTH) {
+      return;
+    }
+    for (final Member member : members) {
+      switch (member.getKind()) {
+        case FIELD: {
+          final int tag = member.getId();
+          if (!tags.add(tag)) {
+            continue;
+          }
+          PresenceT presence =
+              member.getPresence() != null ? member.getPresence() : PresenceT.OPTIONAL;
+          // a required field of an optional component is not required in the message
+          if (!required && presence == PresenceT.REQUIRED) {
+            presence = PresenceT.OPTIONAL;
+          }
+          final Field field = index.model.getField(tag);
+          final String name = field != null ? field.getName() : Integer.toString(tag);
+          byte[] constant = null;
+          if (presence == PresenceT.CONSTANT && member.getValue() != null) {
+            constant = member.getValue().getBytes(StandardCharsets.ISO_8859_1);
+          }
+          byte[][] codes = null;
+          boolean multipleValue = false;
+          if (field != null) {
+            final CodeSet codeSet = index.model.getCodeSet(field.getType());
+            if (codeSet != null) {
+              codes = index.getCodes(codeSet);
+              multipleValue = codeSet.getType() != null && codeSet.getType().startsWith("Multiple");
+            }
+          }
+          checks.add(new FieldCheck(tag, name, presence, constant, codes, multipleValue));
+          break;
+        }
+        case GROUP: {
+          final Group group = index.model.getGroup(member.getId());
+          if (group != null && group.getNumInGroupId() != 0) {
+            final int tag = group.getNumInGroupId();
+            groupTags.put(group.getId(), tag);
+            if (!tags.add(tag)) {
+              continue;
+            }
+            final Field field = index.model.getField(tag);
+            final PresenceT presence = required && member.getPresence() == PresenceT.REQUIRED
+                ? PresenceT.REQUIRED
+                : PresenceT.OPTIONAL;
+            checks.add(new FieldCheck(tag, field != null ? field.getName() : group.getName(),
+                presence, null, null, false));
+          }
+          break;
+        }
+        default: {
+          final Component component = index.model.getComponent(member.getId());
+          if (component != null) {
+            addMembers(component.getMembers(),
+                required && member.getPresence() == PresenceT.REQUIRED, index, checks, tags,
+                depth + 1);
+          }
+        }
+      }
+    }
+  }
+
+  // each rule of a decision table is true if selected by the value of its discriminator, false if
+  // not, or an error if the value cannot be compared; all are timed by the one lookup
+  private static void recordRules(PresenceRule[] metered, List<PresenceRule> selected,
+      boolean comparable, long nanos) {
+    for (final PresenceRule rule : metered) {
+      RuleMetrics.Outcome outcome = RuleMetrics.Outcome.ERROR;
+      if (comparable) {
+        outcome = RuleMetrics.Outcome.FALSE;
+        for (int i = 0; i < selected.size(); i++) {
+          if (selected.get(i) == rule) {
+            outcome = RuleMetrics.Outcome.TRUE;
+            break;
+          }
+        }
+      }
+      rule.getMetrics().record(outcome, nanos);
+    }
+  }
+
+  private boolean isValidCode(FieldCheck check, byte[] buffer, int offset, int length) {
+    if (!check.multipleValue) {
+      return contains(check.codes, buffer, offset, length);
+    }
+    // space-delimited values
+    int start = offset;
+    final int end = offset + length;
+    for (int i = offset; i <= end; i++) {
+      if (i == end || buffer[i] == ' ') {
+        if (i > start && !contains(check.codes, buffer, start, i - start)) {
+          return false;
+        }
+        start = i + 1;
+      }
+    }
+    return true;
+  }
+}
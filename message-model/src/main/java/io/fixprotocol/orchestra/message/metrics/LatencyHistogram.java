@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds
+ * <p>
+ * Buckets are log-linear: each power of two is divided into 16 linear sub-buckets, so a recorded
+ * value is reported within about 6% of its true value over the whole range. Values of 2^40 ns
+ * (about 18 minutes) or more are counted in the last bucket.
+ */
+public final class LatencyHistogram {
+
+  /**
+   * A point-in-time view of a histogram
+   */
+  public static final class Snapshot {
+    private final long count;
+    private final long max;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+
+    Snapshot(long count, long max, double mean, long p50, long p90, long p99, long p999) {
+      this.count = count;
+      this.max = max;
+      this.mean = mean;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.p999 = p999;
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return upper bound of the bucket of the largest recorded value
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * @return mean of recorded values
+     */
+    public double getMean() {
+      return mean;
+    }
+
+    /**
+     * @return median, in nanoseconds
+     */
+    public long getP50() {
+      return p50;
+    }
+
+    /**
+     * @return 90th percentile, in nanoseconds
+     */
+    public long getP90() {
+      return p90;
+    }
+
+    /**
+     * @return 99th percentile, in nanoseconds
+     */
+    public long getP99() {
+      return p99;
+    }
+
+    /**
+     * @return 99.9th percentile, in nanoseconds
+     */
+    public long getP999() {
+      return p999;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return "Snapshot [count=" + count + ", mean=" + mean + ", p50=" + p50 + ", p90=" + p90
+          + ", p99=" + p99 + ", p999=" + p999 + ", max=" + max + "]";
+    }
+  }
+
+  private static final int MAX_EXPONENT = 40;
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return value < 0 ? 0 : (int) value;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent >= MAX_EXPONENT) {
+      return BUCKET_COUNT - 1;
+    }
+    final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  /**
+   * @return the largest value that falls in a bucket
+   */
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+    final long subBucket = index % SUB_BUCKET_COUNT;
+    final long lowerBound = (1L << exponent) | (subBucket << (exponent - SUB_BUCKET_BITS));
+    return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+  /**
+   * Records a latency
+   *
+   * @param nanos elapsed time in nanoseconds
+   */
+  public void record(long nanos) {
+    counts.incrementAndGet(bucketIndex(nanos));
+  }
+
+  /**
+   * Clears all recorded values
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+  }
+
+  /**
+   * @return a point-in-time view of recorded values; concurrent updates may be partly included
+   */
+  public Snapshot snapshot() {
+    final long[] copy = new long[BUCKET_COUNT];
+    long count = 0;
+    double sum = 0.0;
+    int maxIndex = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      final long n = counts.get(i);
+      if (n > 0) {
+        copy[i] = n;
+        count += n;
+        sum += (double) n * bucketUpperBound(i);
+        maxIndex = i;
+      }
+    }
+    if (count == 0) {
+      return new Snapshot(0, 0, 0.0, 0, 0, 0, 0);
+    }
+    return new Snapshot(count, bucketUpperBound(maxIndex), sum / count,
+        percentile(copy, count, 0.5), percentile(copy, count, 0.9),
+        percentile(copy, count, 0.99), percentile(copy, count, 0.999));
+  }
+
+  private static long percentile(long[] counts, long total, double fraction) {
+    final long rank = Math.max(1, (long) Math.ceil(total * fraction));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return bucketUpperBound(i);
+      }
+    }
+    return bucketUpperBound(counts.length - 1);
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message.metrics;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validation counters for one message type, and its rules
+ * <p>
+ * Updates are lock-free; counters are striped to avoid contention between threads.
+ */
+public final class MessageTypeMetrics {
+
+  /**
+   * A point-in-time view of message type counters
+   */
+  public static final class Snapshot {
+    private final long failureCount;
+    private final LatencyHistogram.Snapshot latency;
+    private final String messageType;
+    private final long validationCount;
+
+    Snapshot(String messageType, long validationCount, long failureCount,
+        LatencyHistogram.Snapshot latency) {
+      this.messageType = messageType;
+      this.validationCount = validationCount;
+      this.failureCount = failureCount;
+      this.latency = latency;
+    }
+
+    /**
+     * @return number of messages that failed validation
+     */
+    public long getFailureCount() {
+      return failureCount;
+    }
+
+    /**
+     * @return fraction of messages that failed validation
+     */
+    public double getFailureRate() {
+      return validationCount > 0 ? (double) failureCount / validationCount : 0.0;
+    }
+
+    /**
+     * @return latency of validations
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+      return latency;
+    }
+
+    /**
+     * @return key of the message type
+     */
+    public String getMessageType() {
+      return messageType;
+    }
+
+    /**
+     * @return number of messages validated
+     */
+    public long getValidationCount() {
+      return validationCount;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return "MessageTypeMetrics [messageType=" + messageType + ", validationCount="
+          + validationCount + ", failureCount=" + failureCount + ", latency=" + latency + "]";
+    }
+  }
+
+  private final LongAdder failureCount = new LongAdder();
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final String messageType;
+  private final ConcurrentMap<String, RuleMetrics> rules = new ConcurrentHashMap<>();
+  private final LongAdder validationCount = new LongAdder();
+
+  MessageTypeMetrics(String messageType) {
+    this.messageType = messageType;
+  }
+
+  /**
+   * Returns counters for a rule, creating them on first use
+   * <p>
+   * Callers on a hot path should keep the returned instance rather than look it up each time.
+   *
+   * @param expression rule expression
+   * @return counters for the rule
+   */
+  public RuleMetrics forRule(String expression) {
+    final RuleMetrics ruleMetrics = rules.get(expression);
+    return ruleMetrics != null ? ruleMetrics
+        : rules.computeIfAbsent(expression, e -> new RuleMetrics(messageType, e));
+  }
+
+  /**
+   * @return key of the message type, its name and scenario
+   */
+  public String getMessageType() {
+    return messageType;
+  }
+
+  /**
+   * Records validation of a message
+   *
+   * @param valid {@code true} if the message was valid
+   * @param nanos elapsed time in nanoseconds
+   */
+  public void recordValidation(boolean valid, long nanos) {
+    validationCount.increment();
+    if (!valid) {
+      failureCount.increment();
+    }
+    latency.record(nanos);
+  }
+
+  /**
+   * Clears all counters of the message type and its rules
+   */
+  public void reset() {
+    validationCount.reset();
+    failureCount.reset();
+    latency.reset();
+    for (final RuleMetrics rule : rules.values()) {
+      rule.reset();
+    }
+  }
+
+  /**
+   * @return a point-in-time view of message type counters
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(messageType, validationCount.sum(), failureCount.sum(),
+        latency.snapshot());
+  }
+
+  Collection<RuleMetrics> getRules() {
+    return rules.values();
+  }
+}
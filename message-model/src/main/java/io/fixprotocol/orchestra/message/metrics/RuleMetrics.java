@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one rule expression within one message type
+ * <p>
+ * A rule of a decision table is evaluated once for each validated message: it is true if the value
+ * of its discriminator field selects it, false if not, or an error if the value cannot be compared
+ * with the values of the table. The rules of a table are evaluated together by a single lookup, so
+ * each is timed with the latency of that lookup. Updates are lock-free; counters are striped to
+ * avoid contention between threads.
+ */
+public final class RuleMetrics {
+
+  /**
+   * Result of evaluating a rule
+   */
+  public enum Outcome {
+    /**
+     * Evaluation failed, e.g. a value could not be compared with the condition
+     */
+    ERROR,
+    /**
+     * Condition was false
+     */
+    FALSE,
+    /**
+     * Condition was true
+     */
+    TRUE
+  }
+
+  /**
+   * A point-in-time view of rule counters
+   */
+  public static final class Snapshot {
+    private final long errorCount;
+    private final long evaluationCount;
+    private final String expression;
+    private final long falseCount;
+    private final LatencyHistogram.Snapshot latency;
+    private final String messageType;
+    private final long trueCount;
+
+    Snapshot(String messageType, String expression, long evaluationCount, long trueCount,
+        long falseCount, long errorCount, LatencyHistogram.Snapshot latency) {
+      this.messageType = messageType;
+      this.expression = expression;
+      this.evaluationCount = evaluationCount;
+      this.trueCount = trueCount;
+      this.falseCount = falseCount;
+      this.errorCount = errorCount;
+      this.latency = latency;
+    }
+
+    /**
+     * @return number of failed evaluations
+     */
+    public long getErrorCount() {
+      return errorCount;
+    }
+
+    /**
+     * @return fraction of evaluations that failed
+     */
+    public double getErrorRate() {
+      return evaluationCount > 0 ? (double) errorCount / evaluationCount : 0.0;
+    }
+
+    /**
+     * @return number of evaluations
+     */
+    public long getEvaluationCount() {
+      return evaluationCount;
+    }
+
+    /**
+     * @return rule expression
+     */
+    public String getExpression() {
+      return expression;
+    }
+
+    /**
+     * @return number of evaluations that were false
+     */
+    public long getFalseCount() {
+      return falseCount;
+    }
+
+    /**
+     * @return latency of timed evaluations
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+      return latency;
+    }
+
+    /**
+     * @return key of the message type
+     */
+    public String getMessageType() {
+      return messageType;
+    }
+
+    /**
+     * @return number of evaluations that were true
+     */
+    public long getTrueCount() {
+      return trueCount;
+    }
+
+    /**
+     * @return fraction of evaluations that were true
+     */
+    public double getTrueRate() {
+      return evaluationCount > 0 ? (double) trueCount / evaluationCount : 0.0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return "RuleMetrics [messageType=" + messageType + ", expression=" + expression
+          + ", evaluationCount=" + evaluationCount + ", trueCount=" + trueCount + ", falseCount="
+          + falseCount + ", errorCount=" + errorCount + ", latency=" + latency + "]";
+    }
+  }
+
+  private final LongAdder errorCount = new LongAdder();
+  private final String expression;
+  private final LongAdder falseCount = new LongAdder();
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final String messageType;
+  private final LongAdder trueCount = new LongAdder();
+
+  RuleMetrics(String messageType, String expression) {
+    this.messageType = messageType;
+    this.expression = expression;
+  }
+
+  /**
+   * @return rule expression
+   */
+  public String getExpression() {
+    return expression;
+  }
+
+  /**
+   * Records an evaluation without timing it
+   *
+   * @param outcome result of the evaluation
+   */
+  public void record(Outcome outcome) {
+    switch (outcome) {
+      case TRUE:
+        trueCount.increment();
+        break;
+      case FALSE:
+        falseCount.increment();
+        break;
+      default:
+        errorCount.increment();
+    }
+  }
+
+  /**
+   * Records a timed evaluation
+   *
+   * @param outcome result of the evaluation
+   * @param nanos elapsed time in nanoseconds
+   */
+  public void record(Outcome outcome, long nanos) {
+    record(outcome);
+    latency.record(nanos);
+  }
+
+  /**
+   * Clears all counters
+   */
+  public void reset() {
+    trueCount.reset();
+    falseCount.reset();
+    errorCount.reset();
+    latency.reset();
+  }
+
+  /**
+   * @return a point-in-time view of counters
+   */
+  public Snapshot snapshot() {
+    final long trueSum = trueCount.sum();
+    final long falseSum = falseCount.sum();
+    final long errorSum = errorCount.sum();
+    return new Snapshot(messageType, expression, trueSum + falseSum + errorSum, trueSum, falseSum,
+        errorSum, latency.snapshot());
+  }
+}
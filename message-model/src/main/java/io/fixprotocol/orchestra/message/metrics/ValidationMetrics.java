@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+
+/**
+ * Validation metrics by message type and rule expression
+ * <p>
+ * Obtain counters with {@link #forMessageType(MessageType)} and
+ * {@link MessageTypeMetrics#forRule(String)} once and keep them; recording is then lock-free and
+ * does not allocate. A consistent view is available from {@link #snapshot()} or, once registered,
+ * through JMX.
+ */
+public class ValidationMetrics implements ValidationMetricsMXBean {
+
+  /**
+   * Default JMX object name
+   */
+  public static final String DEFAULT_OBJECT_NAME =
+      "io.fixprotocol.orchestra:type=ValidationMetrics";
+
+  /**
+   * @return key of a message type, its name qualified by a non-base scenario
+   */
+  public static String key(MessageType messageType) {
+    final String scenario = messageType.getScenario();
+    if (scenario == null || "base".equals(scenario)) {
+      return messageType.getName();
+    } else {
+      return messageType.getName() + ":" + scenario;
+    }
+  }
+
+  private final ConcurrentMap<String, MessageTypeMetrics> messageTypes =
+      new ConcurrentHashMap<>();
+  private ObjectName objectName;
+  private MBeanServer server;
+
+  /**
+   * Returns counters for a message type, creating them on first use
+   *
+   * @param messageType Orchestra declaration of a message type
+   * @return counters for the message type
+   */
+  public MessageTypeMetrics forMessageType(MessageType messageType) {
+    return messageTypes.computeIfAbsent(key(messageType), MessageTypeMetrics::new);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see io.fixprotocol.orchestra.message.metrics.ValidationMetricsMXBean#getMessageTypes()
+   */
+  @Override
+  public List<MessageTypeMetrics.Snapshot> getMessageTypes() {
+    final List<MessageTypeMetrics.Snapshot> snapshots = new ArrayList<>();
+    for (final MessageTypeMetrics metrics : messageTypes.values()) {
+      snapshots.add(metrics.snapshot());
+    }
+    snapshots.sort((s1, s2) -> s1.getMessageType().compareTo(s2.getMessageType()));
+    return snapshots;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see io.fixprotocol.orchestra.message.metrics.ValidationMetricsMXBean#getRules()
+   */
+  @Override
+  public List<RuleMetrics.Snapshot> getRules() {
+    final List<RuleMetrics.Snapshot> snapshots = new ArrayList<>();
+    for (final MessageTypeMetrics metrics : messageTypes.values()) {
+      for (final RuleMetrics rule : metrics.getRules()) {
+        snapshots.add(rule.snapshot());
+      }
+    }
+    // busiest rules first
+    snapshots.sort((s1, s2) -> Long.compare(s2.getEvaluationCount(), s1.getEvaluationCount()));
+    return snapshots;
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server under {@link #DEFAULT_OBJECT_NAME}
+   *
+   * @throws JMException if registration fails, e.g. the name is already registered
+   */
+  public void register() throws JMException {
+    register(ManagementFactory.getPlatformMBeanServer(), new ObjectName(DEFAULT_OBJECT_NAME));
+  }
+
+  /**
+   * Registers these metrics with an MBean server
+   *
+   * @param server an MBean server
+   * @param objectName name to register
+   * @throws JMException if registration fails
+   */
+  public void register(MBeanServer server, ObjectName objectName) throws JMException {
+    server.registerMBean(this, objectName);
+    this.server = server;
+    this.objectName = objectName;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see io.fixprotocol.orchestra.message.metrics.ValidationMetricsMXBean#reset()
+   */
+  @Override
+  public void reset() {
+    for (final MessageTypeMetrics metrics : messageTypes.values()) {
+      metrics.reset();
+    }
+  }
+
+  /**
+   * @return a point-in-time view of message type counters, ordered by message type
+   */
+  public List<MessageTypeMetrics.Snapshot> snapshot() {
+    return getMessageTypes();
+  }
+
+  /**
+   * Removes these metrics from the MBean server where they were registered, if any
+   *
+   * @throws JMException if the metrics cannot be unregistered
+   */
+  public void unregister() throws JMException {
+    if (objectName != null) {
+      server.unregisterMBean(objectName);
+      objectName = null;
+      server = null;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.message.metrics;
+
+import java.util.List;
+
+/**
+ * Management interface of {@link ValidationMetrics}
+ */
+public interface ValidationMetricsMXBean {
+
+  /**
+   * @return counters of each message type
+   */
+  List<MessageTypeMetrics.Snapshot> getMessageTypes();
+
+  /**
+   * @return counters of each rule of each message type
+   */
+  List<RuleMetrics.Snapshot> getRules();
+
+  /**
+   * Clears all counters
+   */
+  void reset();
+}
@@ -1,7 +1,10 @@
 module message.model {
   requires orchestra.repository;
   requires orchestra.score;
+  requires orchestra.common;
+  requires java.management;
   
   exports io.fixprotocol.orchestra.message;
+  exports io.fixprotocol.orchestra.message.metrics;
   opens io.fixprotocol.orchestra.message;
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package io.fixprotocol.orchestra.message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class FixLogReaderTest {
+
+  @BeforeAll
+  public static void setupOnce() throws Exception {
+    new File(("target/test")).mkdirs();
+  }
+
+  private static Path write(String name, String text) throws IOException {
+    final Path path = new File("target/test", name).toPath();
+    Files.write(path, text.getBytes(StandardCharsets.ISO_8859_1));
+    return path;
+  }
+
+  private static List<String> readAll(Path path, int windowSize) throws IOException {
+    final List<String> clOrdIds = new ArrayList<>();
+    final TagValueMessage message = new TagValueMessage(256);
+    try (FixLogReader reader = new FixLogReader(path, windowSize)) {
+      while (reader.read(message)) {
+        clOrdIds.add(message.getString(11));
+      }
+    }
+    return clOrdIds;
+  }
+
+  @Test
+  public void read() throws IOException {
+    final Path path = write("read.log", "20200101-00:00:00 8=FIX.4.4|9=20|35=D|11=A1|10=000|\n"
+        + "20200101-00:00:01 8=FIX.4.4\u00019=20\u000135=D\u000111=A2\u000110=000\u0001\n");
+    final TagValueMessage message = new TagValueMessage(256);
+    try (FixLogReader reader = new FixLogReader(path)) {
+      assertTrue(reader.read(message));
+      assertEquals("A1", message.getString(11));
+      assertEquals(1, message.getSequence());
+      assertEquals(18, message.getPosition());
+      assertTrue(reader.read(message));
+      assertEquals("A2", message.getString(11));
+      assertFalse(reader.read(message));
+      assertEquals(2, reader.getMessageCount());
+      assertEquals(0, reader.getMalformedCount());
+    }
+  }
+
+  @Test
+  public void spanningWindows() throws IOException {
+    final StringBuilder text = new StringBuilder();
+    final List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      final String clOrdId = "ORD" + i;
+      expected.add(clOrdId);
+      text.append("8=FIX.4.4|9=30|35=D|11=").append(clOrdId).append("|54=1|10=000|\n");
+    }
+    final Path path = write("windows.log", text.toString());
+    // each window holds less than two messages, so most messages straddle a boundary
+    assertEquals(expected, readAll(path, 64));
+    assertEquals(expected, readAll(path, 57));
+  }
+
+  @Test
+  public void malformed() throws IOException {
+    final Path path = write("malformed.log", "8=FIX.4.4|9=20|35=D|11=A1|\n"
+        + "8=FIX.4.4|9=20|35=D|11=A2|10=000|\n" + "8=FIX.4.4|9=20|35=D|11=A3");
+    final TagValueMessage message = new TagValueMessage(256);
+    try (FixLogReader reader = new FixLogReader(path)) {
+      assertTrue(reader.read(message));
+      assertEquals("A2", message.getString(11));
+      assertFalse(reader.read(message));
+      assertEquals(2, reader.getMalformedCount());
+    }
+  }
+
+  @Test
+  public void tooLong() throws IOException {
+    final Path path = write("long.log",
+        "8=FIX.4.4|9=20|35=D|11=A1|58=a long text|10=000|\n8=FIX.4.4|9=20|35=D|11=A2|10=000|\n");
+    final TagValueMessage message = new TagValueMessage(40);
+    try (FixLogReader reader = new FixLogReader(path)) {
+      assertTrue(reader.read(message));
+      assertEquals("A2", message.getString(11));
+      assertEquals(1, reader.getMalformedCount());
+    }
+  }
+}
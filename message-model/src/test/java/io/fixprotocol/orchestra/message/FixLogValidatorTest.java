@@ -0,0 +1,45 @@
+package io.fixprotocol.orchestra.message;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class FixLogValidatorTest {
+
+  @BeforeAll
+  public static void setupOnce() throws Exception {
+    new File(("target/test")).mkdirs();
+  }
+
+  private static String readEvents(String eventFile) throws Exception {
+    return new String(Files.readAllBytes(new File(eventFile).toPath()), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void missingRepository() throws Exception {
+    final String eventFile = "target/test/missingRepository.json";
+    assertFalse(FixLogValidator.builder().logFile("target/test/missing.log").eventLog(eventFile)
+        .build().validate());
+    assertTrue(readEvents(eventFile).contains("missing Orchestra file"));
+  }
+
+  @Test
+  public void missingLog() throws Exception {
+    final String eventFile = "target/test/missingLog.json";
+    assertFalse(FixLogValidator.builder().repositoryFile("target/test/missing.xml")
+        .eventLog(eventFile).build().validate());
+    assertTrue(readEvents(eventFile).contains("missing FIX log file"));
+  }
+
+  @Test
+  public void unreadableRepository() throws Exception {
+    final String eventFile = "target/test/unreadableRepository.json";
+    assertFalse(FixLogValidator.builder().repositoryFile("target/test/missing.xml")
+        .logFile("target/test/missing.log").eventLog(eventFile).build().validate());
+    assertTrue(readEvents(eventFile).contains("FileNotFoundException"));
+  }
+}
@@ -0,0 +1,52 @@
+package io.fixprotocol.orchestra.message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+public class MessageBufferPoolTest {
+
+  @Test
+  public void reuse() throws InterruptedException {
+    final MessageBufferPool pool = new MessageBufferPool(2, 128);
+    assertEquals(2, pool.size());
+    final TagValueMessage first = pool.acquire();
+    final TagValueMessage second = pool.acquire();
+    assertNotSame(first, second);
+    assertEquals(128, first.buffer().length);
+    pool.release(first);
+    assertSame(first, pool.acquire());
+  }
+
+  @Test
+  public void blocksWhenExhausted() throws InterruptedException {
+    final MessageBufferPool pool = new MessageBufferPool(1, 128);
+    final TagValueMessage message = pool.acquire();
+    final AtomicReference<TagValueMessage> acquired = new AtomicReference<>();
+    final CountDownLatch done = new CountDownLatch(1);
+    final Thread consumer = new Thread(() -> {
+      try {
+        acquired.set(pool.acquire());
+        done.countDown();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    consumer.start();
+    assertEquals(1, done.getCount());
+    pool.release(message);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertSame(message, acquired.get());
+  }
+
+  @Test
+  public void invalidSize() {
+    assertThrows(IllegalArgumentException.class, () -> new MessageBufferPool(0, 128));
+  }
+}
@@ -0,0 +1,103 @@
+package io.fixprotocol.orchestra.message;
+
+import static io.fixprotocol.orchestra.message.RepositoryFixtures.fieldRef;
+import static io.fixprotocol.orchestra.message.RepositoryFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+public class MessageTypeRegistryTest {
+
+  private static IntFunction<String> fields(Object... tagsAndValues) {
+    final Map<Integer, String> values = new HashMap<>();
+    for (int i = 0; i + 1 < tagsAndValues.length; i += 2) {
+      values.put((Integer) tagsAndValues[i], (String) tagsAndValues[i + 1]);
+    }
+    return values::get;
+  }
+
+  private static MessageTypeRegistry<String> registry(MessageType... messageTypes) {
+    final Repository repository = new Repository();
+    final Messages messages = new Messages();
+    for (final MessageType messageType : messageTypes) {
+      messages.getMessage().add(messageType);
+    }
+    repository.setMessages(messages);
+    return MessageTypeRegistry.compile(repository,
+        messageType -> messageType.getName() + ":" + messageType.getScenario());
+  }
+
+  private static String scenario(MessageTypeRegistry.Entry<String> entry) {
+    return entry != null ? entry.getProgram() : null;
+  }
+
+  @Test
+  public void scenarios() {
+    final MessageTypeRegistry<String> registry = registry(
+        message(1, "ExecutionReport", "8", "base"),
+        message(2, "ExecutionReport", "8", "Fill", fieldRef(150, PresenceT.CONSTANT, "F")),
+        message(3, "ExecutionReport", "8", "TradeCancel", fieldRef(150, PresenceT.CONSTANT, "H"),
+            fieldRef(20, PresenceT.CONSTANT, "1")),
+        message(4, "ExecutionReport", "8", "Cancel", fieldRef(150, PresenceT.CONSTANT, "H")),
+        message(5, "NewOrderSingle", "D", "base"));
+    assertEquals(2, registry.size());
+    assertEquals("ExecutionReport:base", scenario(registry.get("8")));
+    assertEquals("ExecutionReport:Fill", scenario(registry.get("8", fields(150, "F"))));
+    // more discriminators are tried first
+    assertEquals("ExecutionReport:TradeCancel",
+        scenario(registry.get("8", fields(150, "H", 20, "1"))));
+    assertEquals("ExecutionReport:Cancel", scenario(registry.get("8", fields(150, "H"))));
+    assertEquals("ExecutionReport:base", scenario(registry.get("8", fields(150, "0"))));
+    assertEquals("NewOrderSingle:base", scenario(registry.get("D", fields())));
+    assertNull(registry.get("Z"));
+    assertEquals("ExecutionReport:base", scenario(registry.getByName("ExecutionReport")));
+  }
+
+  @Test
+  public void defaultWithoutBase() {
+    final MessageTypeRegistry<String> registry = registry(
+        message(1, "ExecutionReport", "8", "Fill", fieldRef(150, PresenceT.CONSTANT, "F")),
+        message(2, "ExecutionReport", "8", "Any"),
+        message(3, "ExecutionReport", "8", "Other"));
+    assertEquals("ExecutionReport:Fill", scenario(registry.get("8", fields(150, "F"))));
+    assertEquals("ExecutionReport:Any", scenario(registry.get("8", fields(150, "0"))));
+  }
+
+  @Test
+  public void noDefault() {
+    // without a base scenario, a discriminated scenario is not a default
+    final MessageTypeRegistry<String> registry = registry(
+        message(1, "ExecutionReport", "8", "Fill", fieldRef(150, PresenceT.CONSTANT, "F")),
+        message(2, "ExecutionReport", "8", "Cancel", fieldRef(150, PresenceT.CONSTANT, "4")));
+    assertEquals("ExecutionReport:Cancel", scenario(registry.get("8", fields(150, "4"))));
+    assertNull(registry.get("8", fields(150, "0")));
+    assertNull(registry.get("8"));
+    assertEquals("ExecutionReport:Fill", scenario(registry.getByName("ExecutionReport")));
+  }
+
+  @Test
+  public void encoding() {
+    final MessageTypeRegistry<String> registry = registry(message(1, "Short", "AE", "base"),
+        message(2, "Long", "XLONG", "base"), message(3, "Latin", "\u00e9", "base"),
+        message(4, "Latin4", "\u00e9\u00e9\u00e9\u00e9", "base"));
+    for (final String msgType : new String[] {"AE", "XLONG", "\u00e9",
+        "\u00e9\u00e9\u00e9\u00e9"}) {
+      final byte[] bytes = ("35=" + msgType).getBytes(StandardCharsets.ISO_8859_1);
+      final MessageTypeRegistry.Entry<String> entry = registry.get(msgType);
+      assertEquals(msgType, entry.getMessageType().getMsgType());
+      assertSame(entry, registry.get(bytes, 3, bytes.length - 3, null));
+    }
+    final byte[] unknown = "35=\u00e8".getBytes(StandardCharsets.ISO_8859_1);
+    assertNull(registry.get(unknown, 3, 1, null));
+    assertNull(registry.get("\u00e8"));
+  }
+}
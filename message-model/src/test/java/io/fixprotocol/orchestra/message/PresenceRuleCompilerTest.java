@@ -0,0 +1,186 @@
+package io.fixprotocol.orchestra.message;
+
+import static io.fixprotocol.orchestra.message.RepositoryFixtures.codeSet;
+import static io.fixprotocol.orchestra.message.RepositoryFixtures.field;
+import static io.fixprotocol.orchestra.message.RepositoryFixtures.fieldRef;
+import static io.fixprotocol.orchestra.message.RepositoryFixtures.rule;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol.orchestra.dsl.antlr.Evaluator;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreException;
+import io.fixprotocol.orchestra.model.FixType;
+import io.fixprotocol.orchestra.model.FixValue;
+import io.fixprotocol.orchestra.model.ModelException;
+import io.fixprotocol.orchestra.model.PathStep;
+import io.fixprotocol.orchestra.model.Scope;
+import io.fixprotocol.orchestra.model.SymbolResolver;
+import io.fixprotocol.orchestra.model.TreeSymbolTable;
+
+public class PresenceRuleCompilerTest {
+
+  private static final String[] TABLE_RULES = {"OrdType == ^Limit", "OrdType == '3'",
+      "OrdType in {^Stop, ^StopLimit}", "PartyRole == 4", "PartyRole == ^ExecutingFirm",
+      "PartyRole in {1, 3}", "Account == \"ABC\""};
+
+  private static final String[] RESIDUAL_RULES = {"OrdType == ^Limit and PartyRole == 4",
+      "OrdType != ^Market", "PartyRole > 2", "OrdType == 2", "Price == 10"};
+
+  private static Repository repository;
+  private static PresenceRuleTable table;
+
+  @BeforeAll
+  public static void setupOnce() {
+    repository = new Repository();
+    final CodeSets codeSets = new CodeSets();
+    codeSets.getCodeSet().add(codeSet("OrdTypeCodeSet", "char", "Market", "1", "Limit", "2",
+        "Stop", "3", "StopLimit", "4"));
+    codeSets.getCodeSet().add(codeSet("PartyRoleCodeSet", "int", "ExecutingFirm", "1",
+        "BrokerOfCredit", "2", "ClientID", "3", "ClearingFirm", "4"));
+    repository.setCodeSets(codeSets);
+    final Fields fields = new Fields();
+    fields.getField().add(field(1, "Account", "String"));
+    fields.getField().add(field(40, "OrdType", "OrdTypeCodeSet"));
+    fields.getField().add(field(44, "Price", "Price"));
+    fields.getField().add(field(452, "PartyRole", "PartyRoleCodeSet"));
+    repository.setFields(fields);
+
+    final FieldRefType price = fieldRef(44, PresenceT.OPTIONAL);
+    int i = 0;
+    for (final String when : TABLE_RULES) {
+      price.getRule().add(rule("Rule" + i++, PresenceT.REQUIRED, when));
+    }
+    for (final String when : RESIDUAL_RULES) {
+      price.getRule().add(rule("Rule" + i++, PresenceT.REQUIRED, when));
+    }
+    table = new PresenceRuleCompiler(repository).compile(Arrays.asList(price));
+  }
+
+  private static Set<String> whens(List<PresenceRule> rules) {
+    final Set<String> whens = new TreeSet<>();
+    for (final PresenceRule rule : rules) {
+      whens.add(rule.getWhen());
+    }
+    return whens;
+  }
+
+  private static boolean evaluate(Evaluator evaluator, String expression) {
+    try {
+      final FixValue<?> value = evaluator.evaluate(expression);
+      return value != null && Boolean.TRUE.equals(value.getValue());
+    } catch (final ScoreException e) {
+      return false;
+    }
+  }
+
+  private static SymbolResolver resolver(Map<String, String> fieldValues) throws ModelException {
+    final SymbolResolver resolver = new SymbolResolver();
+    final TreeSymbolTable codes = new TreeSymbolTable("codes");
+    for (final CodeSetType codeSet : repository.getCodeSets().getCodeSet()) {
+      final FixType type = FixType.forName(codeSet.getType());
+      for (final CodeType code : codeSet.getCode()) {
+        codes.assign(new PathStep(code.getName()), value(code.getName(), type, code.getValue()));
+      }
+    }
+    resolver.nest(SymbolResolver.CODE_SET_ROOT, codes);
+    final TreeSymbolTable message = new TreeSymbolTable("message");
+    message.assign(new PathStep("OrdType"),
+        value("OrdType", FixType.charType, fieldValues.get("OrdType")));
+    message.assign(new PathStep("PartyRole"),
+        value("PartyRole", FixType.intType, fieldValues.get("PartyRole")));
+    message.assign(new PathStep("Account"),
+        value("Account", FixType.StringType, fieldValues.get("Account")));
+    ((Scope) resolver.resolve(SymbolResolver.LOCAL_ROOT)).nest(new PathStep("message"), message);
+    return resolver;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static FixValue<?> value(String name, FixType type, String text) {
+    return new FixValue(name, type, type.getValueClass().cast(type.fromString(text)));
+  }
+
+  @Test
+  public void residualRules() {
+    assertEquals(new TreeSet<>(Arrays.asList(RESIDUAL_RULES)), whens(table.getResidualRules()));
+    assertEquals(new TreeSet<>(Arrays.asList(TABLE_RULES)), whens(table.getTableRules()));
+    assertEquals(new HashSet<>(Arrays.asList("OrdType", "PartyRole", "Account")),
+        table.getDiscriminatorFieldNames());
+  }
+
+  @Test
+  public void equivalentToEvaluator() throws ModelException {
+    for (final String ordType : new String[] {"1", "2", "3", "4", "X"}) {
+      for (final String partyRole : new String[] {"1", "01", "3", "4", "004", "0", "5"}) {
+        for (final String account : new String[] {"ABC", "ABD"}) {
+          final Map<String, String> fieldValues = new HashMap<>();
+          fieldValues.put("OrdType", ordType);
+          fieldValues.put("PartyRole", partyRole);
+          fieldValues.put("Account", account);
+          final Evaluator evaluator = new Evaluator(resolver(fieldValues));
+
+          final Set<String> expected = new TreeSet<>();
+          for (final String when : TABLE_RULES) {
+            if (evaluate(evaluator, when)) {
+              expected.add(when);
+            }
+          }
+          for (final String when : RESIDUAL_RULES) {
+            if (evaluate(evaluator, when)) {
+              expected.add(when);
+            }
+          }
+
+          final Set<String> actual = whens(table.getApplicableRules(fieldValues::get));
+          for (final PresenceRule rule : table.getResidualRules()) {
+            if (evaluate(evaluator, rule.getWhen())) {
+              actual.add(rule.getWhen());
+            }
+          }
+          assertEquals(expected, actual, fieldValues.toString());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void integerKeys() {
+    assertEquals(whens(table.getRules("PartyRole", "4")),
+        whens(table.getRules("PartyRole", "0004")));
+    assertEquals(1, table.getRules("PartyRole", "04").size());
+    assertEquals(0, table.getRules("PartyRole", "4x").size());
+    assertEquals(1, table.getRules("OrdType", "2").size());
+    assertEquals(0, table.getRules("OrdType", "02").size());
+    assertTrue(table.isComparable("PartyRole", "0004"));
+    assertTrue(table.isComparable("PartyRole", null));
+    assertFalse(table.isComparable("PartyRole", "4x"));
+    assertTrue(table.isComparable("OrdType", "x"));
+  }
+
+  @Test
+  public void toIntegerKey() {
+    assertEquals("4", PresenceRuleTable.toIntegerKey("4"));
+    assertEquals("4", PresenceRuleTable.toIntegerKey("004"));
+    assertEquals("0", PresenceRuleTable.toIntegerKey("000"));
+    assertEquals("10", PresenceRuleTable.toIntegerKey("010"));
+    assertNull(PresenceRuleTable.toIntegerKey(""));
+    assertNull(PresenceRuleTable.toIntegerKey("-4"));
+    assertNull(PresenceRuleTable.toIntegerKey("4.0"));
+  }
+}
@@ -0,0 +1,207 @@
+package io.fixprotocol.orchestra.message;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRuleType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldRuleType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * Builds small repositories and messages for tests
+ */
+final class RepositoryFixtures {
+
+  static final int DISPLAY_INSTRUCTION_ID = 1001;
+  static final int PARTIES_GROUP_ID = 1012;
+
+  static CodeSetType codeSet(String name, String type, String... namesAndValues) {
+    final CodeSetType codeSet = new CodeSetType();
+    codeSet.setName(name);
+    codeSet.setType(type);
+    for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+      final CodeType code = new CodeType();
+      code.setName(namesAndValues[i]);
+      code.setValue(namesAndValues[i + 1]);
+      codeSet.getCode().add(code);
+    }
+    return codeSet;
+  }
+
+  static FieldType field(int id, String name, String type) {
+    final FieldType field = new FieldType();
+    field.setId(BigInteger.valueOf(id));
+    field.setName(name);
+    field.setType(type);
+    return field;
+  }
+
+  static FieldRefType fieldRef(int id, PresenceT presence) {
+    final FieldRefType ref = new FieldRefType();
+    ref.setId(BigInteger.valueOf(id));
+    ref.setPresence(presence);
+    return ref;
+  }
+
+  static FieldRefType fieldRef(int id, PresenceT presence, String value) {
+    final FieldRefType ref = fieldRef(id, presence);
+    ref.setValue(value);
+    return ref;
+  }
+
+  static GroupRefType groupRef(int id, PresenceT presence) {
+    final GroupRefType ref = new GroupRefType();
+    ref.setId(BigInteger.valueOf(id));
+    ref.setPresence(presence);
+    return ref;
+  }
+
+  static GroupType group(int id, String name, int numInGroup, Object... members) {
+    final GroupType group = new GroupType();
+    group.setId(BigInteger.valueOf(id));
+    group.setName(name);
+    group.setNumInGroup(fieldRef(numInGroup, null));
+    for (final Object member : members) {
+      group.getComponentRefOrGroupRefOrFieldRef().add(member);
+    }
+    return group;
+  }
+
+  static MessageType message(int id, String name, String msgType, String scenario,
+      Object... members) {
+    final MessageType message = new MessageType();
+    message.setId(BigInteger.valueOf(id));
+    message.setName(name);
+    message.setMsgType(msgType);
+    message.setScenario(scenario);
+    message.setStructure(new MessageType.Structure());
+    for (final Object member : members) {
+      message.getStructure().getComponentRefOrGroupRefOrFieldRef().add(member);
+    }
+    return message;
+  }
+
+  /**
+   * A NewOrderSingle with code sets, a constant, a forbidden field, a repeating group and
+   * conditionally required fields
+   */
+  static Repository newOrderSingle() {
+    final Repository repository = new Repository();
+    final CodeSets codeSets = new CodeSets();
+    codeSets.getCodeSet().add(codeSet("SideCodeSet", "char", "Buy", "1", "Sell", "2"));
+    codeSets.getCodeSet().add(codeSet("OrdTypeCodeSet", "char", "Market", "1", "Limit", "2",
+        "Stop", "3", "StopLimit", "4"));
+    codeSets.getCodeSet()
+        .add(codeSet("ExecInstCodeSet", "MultipleCharValue", "NotHeld", "1", "Work", "2"));
+    repository.setCodeSets(codeSets);
+
+    final Fields fields = new Fields();
+    fields.getField().add(field(1, "Account", "String"));
+    fields.getField().add(field(11, "ClOrdID", "String"));
+    fields.getField().add(field(18, "ExecInst", "ExecInstCodeSet"));
+    fields.getField().add(field(21, "HandlInst", "char"));
+    fields.getField().add(field(40, "OrdType", "OrdTypeCodeSet"));
+    fields.getField().add(field(44, "Price", "Price"));
+    fields.getField().add(field(54, "Side", "SideCodeSet"));
+    fields.getField().add(field(59, "TimeInForce", "char"));
+    fields.getField().add(field(99, "StopPx", "Price"));
+    fields.getField().add(field(448, "PartyID", "String"));
+    fields.getField().add(field(452, "PartyRole", "int"));
+    fields.getField().add(field(453, "NoPartyIDs", "NumInGroup"));
+    repository.setFields(fields);
+
+    final Groups groups = new Groups();
+    groups.getGroup()
+        .add(group(PARTIES_GROUP_ID, "Parties", 453, fieldRef(448, PresenceT.REQUIRED),
+            fieldRef(452, PresenceT.OPTIONAL), fieldRef(1, PresenceT.OPTIONAL),
+            fieldRef(59, PresenceT.OPTIONAL)));
+    repository.setGroups(groups);
+
+    final FieldRefType price = fieldRef(44, PresenceT.OPTIONAL);
+    price.getRule().add(rule("PriceRule", PresenceT.REQUIRED, "OrdType == ^Limit"));
+    final FieldRefType stopPx = fieldRef(99, PresenceT.OPTIONAL);
+    stopPx.getRule().add(rule("StopPxRule", PresenceT.REQUIRED, "OrdType in {^Stop, ^StopLimit}"));
+    final GroupRefType parties = groupRef(PARTIES_GROUP_ID, PresenceT.OPTIONAL);
+    final ComponentRuleType partiesRule = new ComponentRuleType();
+    partiesRule.setName("PartiesRule");
+    partiesRule.setPresence(PresenceT.FORBIDDEN);
+    partiesRule.setWhen("OrdType == ^Market");
+    parties.getRule().add(partiesRule);
+
+    final Messages messages = new Messages();
+    messages.getMessage()
+        .add(message(14, "NewOrderSingle", "D", "base", fieldRef(11, PresenceT.REQUIRED),
+            fieldRef(1, PresenceT.REQUIRED), fieldRef(21, PresenceT.CONSTANT, "1"),
+            fieldRef(54, PresenceT.REQUIRED), fieldRef(40, PresenceT.REQUIRED),
+            fieldRef(18, PresenceT.OPTIONAL), price, stopPx, fieldRef(59, PresenceT.FORBIDDEN),
+            parties));
+    repository.setMessages(messages);
+    return repository;
+  }
+
+  /**
+   * Adds a DisplayInstruction component to NewOrderSingle, required for limit orders and forbidden
+   * for market orders
+   *
+   * @return the repository
+   */
+  static Repository withDisplayInstruction(Repository repository) {
+    repository.getFields().getField().add(field(1138, "DisplayQty", "Qty"));
+    final ComponentType component = new ComponentType();
+    component.setId(BigInteger.valueOf(DISPLAY_INSTRUCTION_ID));
+    component.setName("DisplayInstruction");
+    component.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(1138, PresenceT.OPTIONAL));
+    final Components components = new Components();
+    components.getComponent().add(component);
+    repository.setComponents(components);
+
+    final ComponentRefType componentRef = new ComponentRefType();
+    componentRef.setId(BigInteger.valueOf(DISPLAY_INSTRUCTION_ID));
+    componentRef.setPresence(PresenceT.OPTIONAL);
+    for (final String[] presenceAndWhen : new String[][] {{"REQUIRED", "OrdType == ^Limit"},
+        {"FORBIDDEN", "OrdType == ^Market"}}) {
+      final ComponentRuleType rule = new ComponentRuleType();
+      rule.setPresence(PresenceT.valueOf(presenceAndWhen[0]));
+      rule.setWhen(presenceAndWhen[1]);
+      componentRef.getRule().add(rule);
+    }
+    repository.getMessages().getMessage().get(0).getStructure()
+        .getComponentRefOrGroupRefOrFieldRef().add(componentRef);
+    return repository;
+  }
+
+  static FieldRuleType rule(String name, PresenceT presence, String when) {
+    final FieldRuleType rule = new FieldRuleType();
+    rule.setName(name);
+    rule.setPresence(presence);
+    rule.setWhen(when);
+    return rule;
+  }
+
+  /**
+   * Parses a message with fields delimited by '|'
+   */
+  static TagValueMessage tagValue(String text) {
+    final TagValueMessage message = new TagValueMessage(1024);
+    final byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+    System.arraycopy(bytes, 0, message.buffer(), 0, bytes.length);
+    message.parse(bytes.length, (byte) '|');
+    return message;
+  }
+
+  private RepositoryFixtures() {}
+}
@@ -0,0 +1,91 @@
+package io.fixprotocol.orchestra.message;
+
+import static io.fixprotocol.orchestra.message.RepositoryFixtures.tagValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.orchestra.repository.model.CompactRepository;
+
+public class TagValueMessageTest {
+
+  @Test
+  public void parse() {
+    final TagValueMessage message = tagValue("8=FIX.4.4|9=20|35=D|11=A1|54=1|10=000|");
+    assertEquals(6, message.getFieldCount());
+    assertEquals("D", message.getMsgType());
+    assertEquals("A1", message.getString(11));
+    assertEquals(54, message.getTag(4));
+    assertTrue(message.isValue(54, "1".getBytes(StandardCharsets.ISO_8859_1)));
+    assertFalse(message.isValue(54, "12".getBytes(StandardCharsets.ISO_8859_1)));
+    assertFalse(message.contains(44));
+    assertEquals(-1, message.getValueOffset(44));
+  }
+
+  @Test
+  public void malformed() {
+    final TagValueMessage message = new TagValueMessage(64);
+    final byte[] bytes = "35=D|1x=A|54=1|".getBytes(StandardCharsets.ISO_8859_1);
+    System.arraycopy(bytes, 0, message.buffer(), 0, bytes.length);
+    assertFalse(message.parse(bytes.length, (byte) '|'));
+    assertEquals("D", message.getMsgType());
+    assertFalse(message.contains(54));
+  }
+
+  @Test
+  public void repeatedTag() {
+    final TagValueMessage message = tagValue("35=D|58=first|11=A1|58=second|");
+    assertEquals(4, message.getFieldCount());
+    assertEquals("first", message.getString(58));
+  }
+
+  @Test
+  public void manyFields() {
+    final StringBuilder text = new StringBuilder("35=D|");
+    for (int tag = 5000; tag < 5200; tag++) {
+      text.append(tag).append('=').append(tag).append('|');
+    }
+    final TagValueMessage message = new TagValueMessage(4096);
+    final byte[] bytes = text.toString().getBytes(StandardCharsets.ISO_8859_1);
+    System.arraycopy(bytes, 0, message.buffer(), 0, bytes.length);
+    assertTrue(message.parse(bytes.length, (byte) '|'));
+    assertEquals(201, message.getFieldCount());
+    assertEquals("5199", message.getString(5199));
+  }
+
+  @Test
+  public void groupLayout() {
+    final GroupLayout layout =
+        GroupLayout.from(CompactRepository.from(RepositoryFixtures.newOrderSingle()));
+    final TagValueMessage message =
+        tagValue("35=D|11=A1|453=2|448=P1|1=ACC1|448=P2|452=3|54=1|1=ACC2|");
+    // without a layout, the first occurrence anywhere
+    assertEquals("ACC1", message.getString(1));
+    assertEquals("P1", message.getString(448));
+
+    message.setGroupLayout(layout);
+    assertEquals("2", message.getString(453));
+    assertEquals("ACC2", message.getString(1));
+    assertNull(message.getString(448));
+    assertFalse(message.contains(452));
+    assertEquals("1", message.getString(54));
+
+    message.setGroupLayout(null);
+    assertEquals("ACC1", message.getString(1));
+  }
+
+  @Test
+  public void groupLayoutKeptAcrossParse() {
+    final GroupLayout layout =
+        GroupLayout.from(CompactRepository.from(RepositoryFixtures.newOrderSingle()));
+    final TagValueMessage message = new TagValueMessage(256);
+    message.setGroupLayout(layout);
+    final byte[] bytes = "35=D|453=1|1=ACC1|".getBytes(StandardCharsets.ISO_8859_1);
+    System.arraycopy(bytes, 0, message.buffer(), 0, bytes.length);
+    message.parse(bytes.length, (byte) '|');
+    assertFalse(message.contains(1));
+    assertTrue(message.contains(453));
+  }
+}
@@ -0,0 +1,183 @@
+package io.fixprotocol.orchestra.message;
+
+import static io.fixprotocol.orchestra.message.RepositoryFixtures.tagValue;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol.orchestra.message.metrics.RuleMetrics;
+import io.fixprotocol.orchestra.message.metrics.ValidationMetrics;
+import io.fixprotocol.orchestra.repository.model.CompactRepository;
+
+public class TagValueValidatorTest {
+
+  private static MessageTypeRegistry<TagValueValidator> registry;
+
+  @BeforeAll
+  public static void setupOnce() {
+    registry = TagValueValidator.compile(RepositoryFixtures.newOrderSingle());
+  }
+
+  private static void assertValid(String text) {
+    final TagValueMessage message = tagValue(text);
+    final MessageTypeRegistry.Entry<TagValueValidator> entry = registry.get(message.getMsgType());
+    assertDoesNotThrow(() -> entry.getProgram().validate(message, entry.getMessageType()));
+  }
+
+  private static String assertInvalid(String text) {
+    final TagValueMessage message = tagValue(text);
+    final MessageTypeRegistry.Entry<TagValueValidator> entry = registry.get(message.getMsgType());
+    assertNotNull(entry);
+    final TestException e = assertThrows(TestException.class,
+        () -> entry.getProgram().validate(message, entry.getMessageType()));
+    assertTrue(e.hasDetails());
+    return e.getMessage();
+  }
+
+  @Test
+  public void valid() {
+    assertValid("35=D|11=A1|1=ACC|21=1|54=1|40=1|10=000|");
+    assertValid("35=D|11=A1|1=ACC|21=1|54=2|40=2|44=10.5|18=1 2|10=000|");
+  }
+
+  @Test
+  public void missingRequired() {
+    final String message = assertInvalid("35=D|1=ACC|21=1|54=1|40=1|");
+    assertTrue(message.contains("Missing required field ClOrdID(11)"), message);
+  }
+
+  @Test
+  public void forbidden() {
+    final String message = assertInvalid("35=D|11=A1|1=ACC|21=1|54=1|40=1|59=0|");
+    assertTrue(message.contains("Forbidden field TimeInForce(59) present"), message);
+  }
+
+  @Test
+  public void constant() {
+    final String message = assertInvalid("35=D|11=A1|1=ACC|21=2|54=1|40=1|");
+    assertTrue(message.contains("Invalid constant HandlInst(21)"), message);
+    assertTrue(assertInvalid("35=D|11=A1|1=ACC|54=1|40=1|")
+        .contains("Missing required field HandlInst(21)"));
+  }
+
+  @Test
+  public void code() {
+    final String message = assertInvalid("35=D|11=A1|1=ACC|21=1|54=9|40=1|");
+    assertTrue(message.contains("Invalid code Side(54)"), message);
+    final String multiple = assertInvalid("35=D|11=A1|1=ACC|21=1|54=1|40=1|18=1 7|");
+    assertTrue(multiple.contains("Invalid code ExecInst(18)"), multiple);
+  }
+
+  @Test
+  public void conditionallyRequired() {
+    final String message = assertInvalid("35=D|11=A1|1=ACC|21=1|54=1|40=2|");
+    assertTrue(message.contains("Missing conditionally required Price(44) when OrdType == ^Limit"),
+        message);
+    final String stop = assertInvalid("35=D|11=A1|1=ACC|21=1|54=1|40=4|44=10|");
+    assertTrue(stop.contains("Missing conditionally required StopPx(99)"), stop);
+    assertValid("35=D|11=A1|1=ACC|21=1|54=1|40=4|44=10|99=9|");
+  }
+
+  @Test
+  public void conditionallyForbiddenGroup() {
+    final String message = assertInvalid("35=D|11=A1|1=ACC|21=1|54=1|40=1|453=1|448=P1|");
+    assertTrue(message.contains("Conditionally forbidden Parties(453) present"), message);
+    assertValid("35=D|11=A1|1=ACC|21=1|54=1|40=2|44=10|453=1|448=P1|");
+  }
+
+  @Test
+  public void groupMembersNotTopLevel() {
+    // Account(1) only within a Parties instance does not satisfy the top-level requirement
+    final String message = assertInvalid("35=D|11=A1|21=1|54=1|40=2|44=10|453=1|448=P1|1=ACC|");
+    assertTrue(message.contains("Missing required field Account(1)"), message);
+    // TimeInForce(59) is forbidden at the top level only
+    assertValid("35=D|11=A1|1=ACC|21=1|54=1|40=2|44=10|453=1|448=P1|59=0|");
+  }
+
+  @Test
+  public void ruleMetrics() throws TestException {
+    final ValidationMetrics metrics = new ValidationMetrics();
+    final MessageTypeRegistry<TagValueValidator> metered =
+        TagValueValidator.compile(RepositoryFixtures.newOrderSingle(), metrics);
+    final MessageTypeRegistry.Entry<TagValueValidator> entry = metered.get("D");
+    for (final String text : new String[] {"35=D|11=A1|1=ACC|21=1|54=1|40=2|44=10|",
+        "35=D|11=A2|1=ACC|21=1|54=1|40=2|44=10|", "35=D|11=A3|1=ACC|21=1|54=1|40=1|",
+        "35=D|11=A4|1=ACC|21=1|54=1|40=3|99=9|"}) {
+      entry.getProgram().validate(tagValue(text), entry.getMessageType());
+    }
+    assertEquals(4, metrics.snapshot().get(0).getValidationCount());
+    final Map<String, RuleMetrics.Snapshot> rules = new HashMap<>();
+    for (final RuleMetrics.Snapshot rule : metrics.getRules()) {
+      rules.put(rule.getExpression(), rule);
+    }
+    assertEquals(3, rules.size());
+    final RuleMetrics.Snapshot limit = rules.get("OrdType == ^Limit");
+    assertEquals(4, limit.getEvaluationCount());
+    assertEquals(2, limit.getTrueCount());
+    assertEquals(2, limit.getFalseCount());
+    assertEquals(0, limit.getErrorCount());
+    assertEquals(4, limit.getLatency().getCount());
+    final RuleMetrics.Snapshot stop = rules.get("OrdType in {^Stop, ^StopLimit}");
+    assertEquals(1, stop.getTrueCount());
+    assertEquals(3, stop.getFalseCount());
+    assertEquals(0.25, rules.get("OrdType == ^Market").getTrueRate(), 0.0);
+  }
+
+  @Test
+  public void sharedGroupLayout() throws TestException {
+    final Repository repository = RepositoryFixtures.newOrderSingle();
+    final CompactRepository model = CompactRepository.from(repository);
+    final GroupLayout groupLayout = GroupLayout.from(model);
+    final MessageTypeRegistry<TagValueValidator> shared =
+        TagValueValidator.compile(repository, model, groupLayout, null);
+    final MessageTypeRegistry.Entry<TagValueValidator> entry = shared.get("D");
+    assertSame(groupLayout, entry.getProgram().getGroupLayout());
+    final TagValueMessage message = tagValue("35=D|11=A1|1=ACC|21=1|54=1|40=1|");
+    message.setGroupLayout(groupLayout);
+    entry.getProgram().validate(message, entry.getMessageType());
+  }
+
+  @Test
+  public void conditionalComponent() throws TestException {
+    final MessageTypeRegistry<TagValueValidator> components = TagValueValidator
+        .compile(RepositoryFixtures.withDisplayInstruction(RepositoryFixtures.newOrderSingle()));
+    final TagValueValidator validator = components.get("D").getProgram();
+    validator.validate(tagValue("35=D|11=A1|1=ACC|21=1|54=1|40=2|44=10|1138=100|"));
+    validator.validate(tagValue("35=D|11=A1|1=ACC|21=1|54=1|40=1|"));
+    final String missing = assertThrows(TestException.class,
+        () -> validator.validate(tagValue("35=D|11=A1|1=ACC|21=1|54=1|40=2|44=10|")))
+            .getMessage();
+    assertTrue(missing.contains(
+        "Missing conditionally required component DisplayInstruction when OrdType == ^Limit"),
+        missing);
+    final String forbidden = assertThrows(TestException.class,
+        () -> validator.validate(tagValue("35=D|11=A1|1=ACC|21=1|54=1|40=1|1138=100|")))
+            .getMessage();
+    assertTrue(forbidden.contains("Conditionally forbidden component DisplayInstruction present"
+        + " by tag 1138 when OrdType == ^Market"), forbidden);
+  }
+
+  @Test
+  public void otherMessageType() {
+    final MessageTypeRegistry.Entry<TagValueValidator> entry = registry.get("D");
+    final TagValueMessage message = tagValue("35=D|11=A1|1=ACC|21=1|54=1|40=1|");
+    assertDoesNotThrow(() -> entry.getProgram().validate(message, null));
+    final MessageType other = RepositoryFixtures.message(9, "ExecutionReport", "8", null);
+    assertThrows(IllegalArgumentException.class,
+        () -> entry.getProgram().validate(message, other));
+  }
+
+  @Test
+  public void allDetails() {
+    final String message = assertInvalid("35=D|21=2|54=9|40=2|59=0|");
+    assertEquals(6, message.split("detailMessage=").length - 1, message);
+  }
+}
@@ -0,0 +1,78 @@
+package io.fixprotocol.orchestra.message.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void bucketBoundaries() {
+    // values below 16 have a bucket each
+    for (int value = 0; value < 16; value++) {
+      assertEquals(value, LatencyHistogram.bucketIndex(value));
+      assertEquals(value, LatencyHistogram.bucketUpperBound(value));
+    }
+    assertEquals(0, LatencyHistogram.bucketIndex(-5));
+    // 16..31 are still exact
+    assertEquals(16, LatencyHistogram.bucketIndex(16));
+    assertEquals(31, LatencyHistogram.bucketIndex(31));
+    assertEquals(31, LatencyHistogram.bucketUpperBound(31));
+    // 32..63 in buckets of two
+    assertEquals(32, LatencyHistogram.bucketIndex(32));
+    assertEquals(32, LatencyHistogram.bucketIndex(33));
+    assertEquals(33, LatencyHistogram.bucketIndex(34));
+    assertEquals(33, LatencyHistogram.bucketUpperBound(32));
+    // values beyond the range share the last bucket
+    final int last = LatencyHistogram.bucketIndex(1L << 40);
+    assertEquals(last, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    assertEquals(last, LatencyHistogram.bucketIndex((1L << 40) - 1));
+  }
+
+  @Test
+  public void upperBoundContainsValue() {
+    for (long value = 1; value < (1L << 40); value = value * 3 + 1) {
+      final int index = LatencyHistogram.bucketIndex(value);
+      final long upper = LatencyHistogram.bucketUpperBound(index);
+      assertTrue(upper >= value, "upper bound " + upper + " of " + value);
+      assertTrue(upper - value <= value / 16, "bucket of " + value + " too wide");
+      assertEquals(index, LatencyHistogram.bucketIndex(upper));
+      assertEquals(index + 1, LatencyHistogram.bucketIndex(upper + 1));
+    }
+  }
+
+  @Test
+  public void percentiles() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i < 1000 ? 10 : 5000);
+    }
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(10, snapshot.getP50());
+    assertEquals(10, snapshot.getP90());
+    assertEquals(10, snapshot.getP99());
+    assertEquals(10, snapshot.getP999());
+    final long max = snapshot.getMax();
+    assertTrue(max >= 5000 && max <= 5000 + 5000 / 16, Long.toString(max));
+    assertEquals((999 * 10 + max) / 1000.0, snapshot.getMean(), 0.001);
+
+    for (int i = 0; i < 10; i++) {
+      histogram.record(5000);
+    }
+    // 11 of 1010 values are large, so the 99th percentile falls among them
+    assertEquals(10, histogram.snapshot().getP90());
+    assertEquals(max, histogram.snapshot().getP99());
+  }
+
+  @Test
+  public void empty() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(100);
+    histogram.reset();
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getP99());
+    assertEquals(0, snapshot.getMax());
+  }
+}
@@ -0,0 +1,96 @@
+package io.fixprotocol.orchestra.message.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.math.BigInteger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+
+public class ValidationMetricsTest {
+
+  private static MessageType messageType(String name, String scenario) {
+    final MessageType messageType = new MessageType();
+    messageType.setId(BigInteger.ONE);
+    messageType.setName(name);
+    messageType.setScenario(scenario);
+    return messageType;
+  }
+
+  @Test
+  public void counters() {
+    final ValidationMetrics metrics = new ValidationMetrics();
+    final MessageTypeMetrics order = metrics.forMessageType(messageType("NewOrderSingle", "base"));
+    assertSame(order, metrics.forMessageType(messageType("NewOrderSingle", null)));
+    assertEquals("NewOrderSingle:Limit",
+        metrics.forMessageType(messageType("NewOrderSingle", "Limit")).getMessageType());
+
+    order.recordValidation(true, 100);
+    order.recordValidation(false, 200);
+    final RuleMetrics rule = order.forRule("OrdType == ^Limit");
+    assertSame(rule, order.forRule("OrdType == ^Limit"));
+    rule.record(RuleMetrics.Outcome.TRUE);
+    rule.record(RuleMetrics.Outcome.FALSE);
+    rule.record(RuleMetrics.Outcome.FALSE);
+    rule.record(RuleMetrics.Outcome.FALSE);
+    rule.record(RuleMetrics.Outcome.ERROR, 1000);
+
+    final MessageTypeMetrics.Snapshot snapshot = metrics.snapshot().get(0);
+    assertEquals("NewOrderSingle", snapshot.getMessageType());
+    assertEquals(2, snapshot.getValidationCount());
+    assertEquals(1, snapshot.getFailureCount());
+    assertEquals(0.5, snapshot.getFailureRate(), 0.0);
+
+    final RuleMetrics.Snapshot ruleSnapshot = metrics.getRules().get(0);
+    assertEquals(5, ruleSnapshot.getEvaluationCount());
+    assertEquals(1, ruleSnapshot.getTrueCount());
+    assertEquals(3, ruleSnapshot.getFalseCount());
+    assertEquals(1, ruleSnapshot.getErrorCount());
+    assertEquals(0.2, ruleSnapshot.getTrueRate(), 0.0);
+    assertEquals(0.2, ruleSnapshot.getErrorRate(), 0.0);
+    // only timed evaluations are in the histogram
+    assertEquals(1, ruleSnapshot.getLatency().getCount());
+
+    metrics.reset();
+    assertEquals(0, metrics.snapshot().get(0).getValidationCount());
+    assertEquals(0, metrics.getRules().get(0).getEvaluationCount());
+  }
+
+  @Test
+  public void registerAndUnregister() throws Exception {
+    final MBeanServer server = MBeanServerFactory.newMBeanServer();
+    final ObjectName objectName = new ObjectName(ValidationMetrics.DEFAULT_OBJECT_NAME);
+    final ValidationMetrics metrics = new ValidationMetrics();
+    metrics.forMessageType(messageType("NewOrderSingle", "base")).recordValidation(true, 100);
+    metrics.register(server, objectName);
+    assertTrue(server.isRegistered(objectName));
+
+    final CompositeData[] messageTypes =
+        (CompositeData[]) server.getAttribute(objectName, "MessageTypes");
+    assertEquals(1, messageTypes.length);
+    assertEquals("NewOrderSingle", messageTypes[0].get("messageType"));
+    assertEquals(1L, messageTypes[0].get("validationCount"));
+
+    server.invoke(objectName, "reset", null, null);
+    assertEquals(0L, ((CompositeData[]) server.getAttribute(objectName, "MessageTypes"))[0]
+        .get("validationCount"));
+
+    assertThrows(InstanceAlreadyExistsException.class,
+        () -> new ValidationMetrics().register(server, objectName));
+
+    metrics.unregister();
+    assertFalse(server.isRegistered(objectName));
+    // a second unregister does nothing
+    metrics.unregister();
+    metrics.register(server, objectName);
+    assertTrue(server.isRegistered(objectName));
+    metrics.unregister();
+  }
+}
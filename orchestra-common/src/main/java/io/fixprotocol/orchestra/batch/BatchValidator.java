@@ -0,0 +1,410 @@
+package io.fixprotocol.orchestra.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import io.fixprotocol.orchestra.event.Event;
+import io.fixprotocol.orchestra.event.EventListener;
+
+/**
+ * Validates the files of a directory tree in parallel, skipping files that a previous run has
+ * already validated
+ * <p>
+ * Results are cached in a properties file keyed by the SHA-256 hash of file content, so an
+ * unchanged file is skipped even if it was moved or renamed. The cache is discarded if it was
+ * written by a validator of a different name, which should include its version. It holds only the
+ * files of the latest run.
+ * <p>
+ * The events of each file are buffered and reported together, in order of file path, so the output
+ * does not depend on the number of threads.
+ * <p>
+ * Since a directory may hold Orchestra files of more than one schema, files may be selected by the
+ * namespace of their root element as well as by file name. A file that is not well-formed XML is
+ * passed to the validator so that it is reported.
+ */
+public class BatchValidator {
+
+  public static class Builder {
+    private Path cacheFile;
+    private Path directory;
+    private EventListener eventLogger;
+    private String glob = "*.xml";
+    private String name = BatchValidator.class.getName();
+    private String rootNamespace;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private FileValidator validator;
+
+    public BatchValidator build() {
+      return new BatchValidator(this);
+    }
+
+    /**
+     * @param cacheFile file of cached results, created if it does not exist; if not set, every
+     *        file is validated
+     */
+    public Builder cacheFile(Path cacheFile) {
+      this.cacheFile = cacheFile;
+      return this;
+    }
+
+    public Builder directory(Path directory) {
+      this.directory = directory;
+      return this;
+    }
+
+    public Builder eventLogger(EventListener eventLogger) {
+      this.eventLogger = eventLogger;
+      return this;
+    }
+
+    /**
+     * @param glob pattern of file names to validate; default {@code *.xml}
+     */
+    public Builder glob(String glob) {
+      this.glob = glob;
+      return this;
+    }
+
+    /**
+     * @param name identifies the validator and its version in the cache
+     */
+    public Builder name(String name) {
+      this.name = name;
+      return this;
+    }
+
+    /**
+     * @param rootNamespace namespace URI of the root element of files to validate; if not set,
+     *        files are selected by name only
+     */
+    public Builder rootNamespace(String rootNamespace) {
+      this.rootNamespace = rootNamespace;
+      return this;
+    }
+
+    public Builder threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    public Builder validator(FileValidator validator) {
+      this.validator = validator;
+      return this;
+    }
+  }
+
+  /**
+   * Validates one file
+   */
+  @FunctionalInterface
+  public interface FileValidator {
+    /**
+     * @param path file to validate
+     * @param eventLogger receives the events of this file
+     * @return {@code true} if the file is valid
+     * @throws Exception if the file cannot be read or validated
+     */
+    boolean validate(Path path, EventListener eventLogger) throws Exception;
+  }
+
+  /**
+   * Counts of files in a batch
+   */
+  public static final class Result {
+    private int ignored = 0;
+    private int invalid = 0;
+    private int skipped = 0;
+    private int validated = 0;
+
+    /**
+     * @return number of files whose root element is not in the selected namespace
+     */
+    public int getIgnored() {
+      return ignored;
+    }
+
+    public int getInvalid() {
+      return invalid;
+    }
+
+    public int getSkipped() {
+      return skipped;
+    }
+
+    public int getValidated() {
+      return validated;
+    }
+
+    /**
+     * @return {@code true} if no file is invalid, including skipped files that were invalid
+     */
+    public boolean isValid() {
+      return invalid == 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return "Result [validated=" + validated + ", skipped=" + skipped + ", ignored=" + ignored
+          + ", invalid=" + invalid + "]";
+    }
+  }
+
+  private static final class BufferedEventListener implements EventListener {
+    final List<Event> events = new ArrayList<>();
+
+    @Override
+    public void close() {
+
+    }
+
+    @Override
+    public void event(Event event) {
+      events.add(event);
+    }
+  }
+
+  private static final class Outcome {
+    List<Event> events;
+    String hash;
+    String ignoredNamespace;
+    Path path;
+    boolean skipped;
+    boolean valid;
+  }
+
+  private static final String INVALID = "invalid";
+  private static final String VALID = "valid";
+  private static final String VALIDATOR_KEY = "validator";
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  static String hash(Path path) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      // every Java platform supports SHA-256
+      throw new IllegalStateException(e);
+    }
+    final byte[] buffer = new byte[8192];
+    try (InputStream in = Files.newInputStream(path)) {
+      int length;
+      while ((length = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, length);
+      }
+    }
+    final StringBuilder sb = new StringBuilder(64);
+    for (final byte b : digest.digest()) {
+      sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return namespace URI of the root element, empty if it has none, or {@code null} if the file
+   *         is not well-formed
+   */
+  private static String readRootNamespace(Path path) throws IOException {
+    final XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    try (InputStream in = Files.newInputStream(path)) {
+      final XMLStreamReader reader = factory.createXMLStreamReader(in);
+      try {
+        while (reader.hasNext()) {
+          if (reader.next() == XMLStreamReader.START_ELEMENT) {
+            final String namespace = reader.getNamespaceURI();
+            return namespace != null ? namespace : "";
+          }
+        }
+        return null;
+      } finally {
+        reader.close();
+      }
+    } catch (final XMLStreamException e) {
+      return null;
+    }
+  }
+
+  private final Path cacheFile;
+  private final Path directory;
+  private final EventListener eventLogger;
+  private final String glob;
+  private final String name;
+  private final String rootNamespace;
+  private final int threads;
+  private final FileValidator validator;
+
+  private BatchValidator(Builder builder) {
+    this.cacheFile = builder.cacheFile;
+    this.directory = Objects.requireNonNull(builder.directory, "Missing directory");
+    this.eventLogger = Objects.requireNonNull(builder.eventLogger, "Missing event logger");
+    this.glob = builder.glob;
+    this.name = builder.name;
+    this.rootNamespace = builder.rootNamespace;
+    this.threads = Math.max(1, builder.threads);
+    this.validator = Objects.requireNonNull(builder.validator, "Missing validator");
+  }
+
+  /**
+   * Validates the files of the directory tree that match the pattern and root namespace, and
+   * updates the cache
+   *
+   * @return counts of files
+   * @throws IOException if the directory cannot be read or the cache cannot be written
+   * @throws InterruptedException if interrupted while waiting for validation
+   */
+  public Result validate() throws IOException, InterruptedException {
+    final Properties cache = loadCache();
+    final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+    final List<Path> paths;
+    try (Stream<Path> stream = Files.walk(directory)) {
+      paths = stream.filter(p -> Files.isRegularFile(p) && matcher.matches(p.getFileName()))
+          .sorted().collect(Collectors.toList());
+    }
+
+    final Result result = new Result();
+    final Properties updatedCache = new Properties();
+    updatedCache.setProperty(VALIDATOR_KEY, name);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<Outcome>> futures = new ArrayList<>(paths.size());
+      for (final Path path : paths) {
+        futures.add(executor.submit(() -> validate(path, cache)));
+      }
+      for (final Future<Outcome> future : futures) {
+        final Outcome outcome;
+        try {
+          outcome = future.get();
+        } catch (final ExecutionException e) {
+          throw new IOException(e.getCause());
+        }
+        report(outcome, result);
+        if (outcome.hash != null) {
+          updatedCache.setProperty(outcome.hash, outcome.valid ? VALID : INVALID);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    if (cacheFile != null) {
+      storeCache(updatedCache);
+    }
+    final Event.Severity severity = result.isValid() ? Event.Severity.INFO : Event.Severity.ERROR;
+    eventLogger.event(new Event(severity,
+        "Batch validation of {0} complete; validated={1,number,integer} skipped={2,number,integer} invalid={3,number,integer}",
+        directory, result.getValidated(), result.getSkipped(), result.getInvalid()));
+    return result;
+  }
+
+  private Properties loadCache() {
+    final Properties cache = new Properties();
+    if (cacheFile != null && Files.exists(cacheFile)) {
+      try (InputStream in = Files.newInputStream(cacheFile)) {
+        cache.load(in);
+      } catch (final IOException | IllegalArgumentException e) {
+        eventLogger.warn("Batch validation cache {0} not read; {1}", cacheFile, e.getMessage());
+        cache.clear();
+      }
+      if (!name.equals(cache.getProperty(VALIDATOR_KEY))) {
+        cache.clear();
+      }
+    }
+    return cache;
+  }
+
+  private void report(Outcome outcome, Result result) {
+    if (outcome.ignoredNamespace != null) {
+      result.ignored++;
+      eventLogger.info("{0} ignored; root element namespace {1} is not {2}", outcome.path,
+          outcome.ignoredNamespace, rootNamespace);
+      return;
+    }
+    if (outcome.skipped) {
+      result.skipped++;
+      if (outcome.valid) {
+        eventLogger.info("{0} unchanged since validated", outcome.path);
+      } else {
+        eventLogger.error("{0} unchanged since failed validation", outcome.path);
+      }
+    } else {
+      result.validated++;
+      eventLogger.info("Validating {0}", outcome.path);
+      outcome.events.forEach(eventLogger::event);
+    }
+    if (!outcome.valid) {
+      result.invalid++;
+    }
+  }
+
+  // Written to a temporary file and then moved, so an interrupted run leaves the old cache intact
+  private void storeCache(Properties updatedCache) throws IOException {
+    final Path parent = cacheFile.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    final Path temporary = Files.createTempFile(parent, cacheFile.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(temporary)) {
+        updatedCache.store(out, "Batch validation results by SHA-256 of file content");
+      }
+      Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  private Outcome validate(Path path, Properties cache) {
+    final Outcome outcome = new Outcome();
+    outcome.path = path;
+    final BufferedEventListener buffer = new BufferedEventListener();
+    outcome.events = buffer.events;
+    try {
+      if (rootNamespace != null) {
+        final String namespace = readRootNamespace(path);
+        if (namespace != null && !namespace.equals(rootNamespace)) {
+          outcome.ignoredNamespace = namespace;
+          return outcome;
+        }
+      }
+      outcome.hash = hash(path);
+      final String cached = cache.getProperty(outcome.hash);
+      if (cached != null) {
+        outcome.skipped = true;
+        outcome.valid = VALID.equals(cached);
+        return outcome;
+      }
+      outcome.valid = validator.validate(path, buffer);
+    } catch (final Exception e) {
+      // not cached, so the file is validated again by the next run
+      outcome.hash = null;
+      outcome.valid = false;
+      buffer.fatal("Failed to validate {0}; {1}", path, e.getMessage());
+    }
+    return outcome;
+  }
+}
@@ -1,4 +1,4 @@
-package io.fixprotocol.orchestra.repository;
+package io.fixprotocol.orchestra.schema;
 
 import java.io.BufferedInputStream;
 import java.io.InputStream;
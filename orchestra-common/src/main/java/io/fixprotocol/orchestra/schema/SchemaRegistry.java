@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.schema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Compiles XML schemas once and hands out validators for them
+ * <p>
+ * A compiled {@link Schema} is immutable and may be shared by threads, while a {@link Validator}
+ * is cheap to create but not thread-safe, so each validation should obtain its own.
+ * <p>
+ * Schemas are classpath resources found through the class loader of a given class, so each module
+ * that validates files should hold one registry for the lifetime of the JVM, constructed with one
+ * of its own classes. Schemas imported by a schema, even those with a remote location, are read from the
+ * directory of the importing schema.
+ */
+public final class SchemaRegistry {
+
+  private final ClassLoader classLoader;
+  private final Map<String, Schema> schemas = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor
+   *
+   * @param resourceOwner a class whose class loader finds the schemas
+   */
+  public SchemaRegistry(Class<?> resourceOwner) {
+    this.classLoader = resourceOwner.getClassLoader();
+  }
+
+  /**
+   * Returns a compiled schema, compiling it on first use
+   *
+   * @param resourceName classpath resource of a schema; imported schemas are resolved relative to
+   *        it
+   * @return a shared schema
+   * @throws SAXException if the schema is invalid
+   * @throws IOException if the schema is not found or cannot be read
+   */
+  public Schema getSchema(String resourceName) throws SAXException, IOException {
+    final Schema schema = schemas.get(resourceName);
+    return schema != null ? schema : compile(resourceName);
+  }
+
+  /**
+   * Creates a validator for a schema
+   *
+   * @param resourceName classpath resource of a schema
+   * @return a new validator, to be used by one thread at a time
+   * @throws SAXException if the schema is invalid
+   * @throws IOException if the schema is not found or cannot be read
+   */
+  public Validator newValidator(String resourceName) throws SAXException, IOException {
+    return getSchema(resourceName).newValidator();
+  }
+
+  /**
+   * Creates a validator of SAX events for a schema
+   *
+   * @param resourceName classpath resource of a schema
+   * @return a new validator handler, to be used by one thread at a time
+   * @throws SAXException if the schema is invalid
+   * @throws IOException if the schema is not found or cannot be read
+   */
+  public ValidatorHandler newValidatorHandler(String resourceName)
+      throws SAXException, IOException {
+    return getSchema(resourceName).newValidatorHandler();
+  }
+
+  // Serialized so that concurrent first uses do not compile the same schema twice
+  private synchronized Schema compile(String resourceName) throws SAXException, IOException {
+    Schema schema = schemas.get(resourceName);
+    if (schema == null) {
+      final URL resourceUrl = classLoader.getResource(resourceName);
+      if (resourceUrl == null) {
+        throw new IOException("Schema not found; " + resourceName);
+      }
+
+      // create a SchemaFactory capable of understanding WXS schemas
+      final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+      final ResourceResolver resourceResolver = new ResourceResolver();
+      factory.setResourceResolver(resourceResolver);
+
+      // load a WXS schema, represented by a Schema instance
+      final String path = resourceUrl.getPath();
+      final String parentPath = path.substring(0, path.lastIndexOf('/'));
+      final URL baseUrl = new URL(resourceUrl.getProtocol(), null, parentPath);
+      resourceResolver.setBaseUrl(baseUrl);
+
+      try (InputStream inputStream = resourceUrl.openStream()) {
+        schema = factory.newSchema(new StreamSource(inputStream));
+      }
+      schemas.put(resourceName, schema);
+    }
+    return schema;
+  }
+}
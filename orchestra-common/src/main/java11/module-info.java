@@ -1,7 +1,10 @@
 module orchestra.common {
+  exports io.fixprotocol.orchestra.batch;
   exports io.fixprotocol.orchestra.event;
+  exports io.fixprotocol.orchestra.schema;
   
   opens io.fixprotocol.orchestra.event;
   requires com.fasterxml.jackson.core;
   requires org.apache.logging.log4j;
+  requires java.xml;
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package io.fixprotocol.orchestra.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.orchestra.event.Event;
+import io.fixprotocol.orchestra.event.EventListener;
+
+public class BatchValidatorTest {
+
+  private final Path cacheFile = Paths.get("target/test/batch/cache.properties");
+  private final Path directory = Paths.get("target/test/batch/files");
+  private final List<Event> events = new ArrayList<>();
+  private final EventListener eventLogger = new EventListener() {
+    @Override
+    public void close() {
+
+    }
+
+    @Override
+    public void event(Event event) {
+      events.add(event);
+    }
+  };
+  private final AtomicInteger validations = new AtomicInteger();
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    if (Files.exists(cacheFile.getParent())) {
+      try (Stream<Path> stream = Files.walk(cacheFile.getParent())) {
+        stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+      }
+    }
+    Files.createDirectories(directory.resolve("nested"));
+    write("a.xml", "ok");
+    write("nested/b.xml", "bad");
+    write("c.txt", "ignored");
+  }
+
+  @Test
+  public void skipUnchanged() throws Exception {
+    BatchValidator.Result result = batch().validate();
+    assertEquals(2, result.getValidated());
+    assertEquals(0, result.getSkipped());
+    assertEquals(1, result.getInvalid());
+    assertEquals(2, validations.get());
+
+    result = batch().validate();
+    assertEquals(0, result.getValidated());
+    assertEquals(2, result.getSkipped());
+    // an unchanged invalid file is still reported as invalid
+    assertFalse(result.isValid());
+    assertEquals(2, validations.get());
+
+    write("a.xml", "ok again");
+    result = batch().validate();
+    assertEquals(1, result.getValidated());
+    assertEquals(1, result.getSkipped());
+    assertEquals(3, validations.get());
+  }
+
+  @Test
+  public void otherValidator() throws Exception {
+    batch().validate();
+    final BatchValidator.Result result = BatchValidator.builder().directory(directory)
+        .cacheFile(cacheFile).eventLogger(eventLogger).name("other")
+        .validator((path, listener) -> validate(path, listener)).build().validate();
+    assertEquals(2, result.getValidated());
+  }
+
+  @Test
+  public void rootNamespace() throws Exception {
+    write("repository.xml", "<fixr:repository xmlns:fixr=\"urn:repository\"/>");
+    write("interfaces.xml", "<fixi:interfaces xmlns:fixi=\"urn:interfaces\"/>");
+    final BatchValidator.Result result = BatchValidator.builder().directory(directory)
+        .eventLogger(eventLogger).rootNamespace("urn:repository")
+        .validator((path, listener) -> !path.endsWith("interfaces.xml")).build().validate();
+    // files that are not well-formed are still validated so that they are reported
+    assertEquals(3, result.getValidated());
+    assertEquals(1, result.getIgnored());
+    assertTrue(result.isValid());
+  }
+
+  private BatchValidator batch() {
+    return BatchValidator.builder().directory(directory).cacheFile(cacheFile)
+        .eventLogger(eventLogger).threads(2).name("test")
+        .validator((path, listener) -> validate(path, listener)).build();
+  }
+
+  private boolean validate(Path path, EventListener listener) throws IOException {
+    validations.incrementAndGet();
+    final String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    if (!content.startsWith("ok")) {
+      listener.error("{0} is not ok", path);
+      return false;
+    }
+    return true;
+  }
+
+  private void write(String name, String content) throws IOException {
+    Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
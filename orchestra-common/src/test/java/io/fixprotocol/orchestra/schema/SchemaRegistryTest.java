@@ -0,0 +1,40 @@
+package io.fixprotocol.orchestra.schema;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.io.StringReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+
+public class SchemaRegistryTest {
+
+  private static final String SCHEMA = "xsd/registrytest.xsd";
+
+  private final SchemaRegistry schemaRegistry = new SchemaRegistry(SchemaRegistryTest.class);
+
+  @Test
+  public void compiledOnce() throws Exception {
+    final Schema schema = schemaRegistry.getSchema(SCHEMA);
+    assertSame(schema, schemaRegistry.getSchema(SCHEMA));
+    assertNotSame(schemaRegistry.newValidator(SCHEMA), schemaRegistry.newValidator(SCHEMA));
+  }
+
+  @Test
+  public void included() throws Exception {
+    final Validator validator = schemaRegistry.newValidator(SCHEMA);
+    validator.validate(new StreamSource(
+        new StringReader("<order xmlns=\"http://example.org/registrytest\" qty=\"5\"/>")));
+    assertThrows(SAXException.class, () -> validator.validate(new StreamSource(
+        new StringReader("<order xmlns=\"http://example.org/registrytest\" qty=\"0\"/>"))));
+  }
+
+  @Test
+  public void missing() {
+    assertThrows(IOException.class, () -> schemaRegistry.getSchema("xsd/missing.xsd"));
+  }
+}
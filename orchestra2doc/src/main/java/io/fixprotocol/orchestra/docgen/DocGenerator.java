@@ -29,10 +29,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.ValidationEvent;
 import javax.xml.bind.ValidationEventHandler;
 
@@ -69,6 +67,11 @@ import io.fixprotocol._2020.orchestra.repository.Repository;
 import io.fixprotocol._2020.orchestra.repository.ResponseType;
 import io.fixprotocol._2020.orchestra.repository.StateMachineType;
 import io.fixprotocol._2020.orchestra.repository.SupportType;
+import io.fixprotocol.orchestra.repository.io.RepositoryIO;
+import io.fixprotocol.orchestra.repository.model.CompactRepository;
+import io.fixprotocol.orchestra.repository.model.Component;
+import io.fixprotocol.orchestra.repository.model.Field;
+import io.fixprotocol.orchestra.repository.model.Group;
 
 /**
  * @author Don Mendelson
@@ -146,6 +149,7 @@ public class DocGenerator {
   private final InputStream inputStream;
   private final String outputRootDir;
   private PathManager pathManager;
+  private CompactRepository model;
   private Repository repository;
 
   private final STGroup stGroup;
@@ -219,6 +223,7 @@ public class DocGenerator {
    */
   public void generate() throws Exception {
     this.repository = unmarshal(inputStream);
+    this.model = CompactRepository.from(repository);
 
     // Implementation note: consideration was given to supporting "jar:file:" scheme, but the
     // supporting FileSystem is not guaranteed to be installed.
@@ -718,23 +723,15 @@ public class DocGenerator {
   }
 
   private ComponentType getComponent(final int componentId) {
-    final List<ComponentType> components = repository.getComponents().getComponent();
-    for (final ComponentType component : components) {
-      if (component.getId().intValue() == componentId) {
-        return component;
-      }
-    }
-    return null;
+    final Component component = model.getComponent(componentId);
+    return component != null
+        ? repository.getComponents().getComponent().get(component.getOrdinal())
+        : null;
   }
 
   private FieldType getField(final int id) {
-    final List<FieldType> fields = repository.getFields().getField();
-    for (final FieldType fieldType : fields) {
-      if (fieldType.getId().intValue() == id) {
-        return fieldType;
-      }
-    }
-    return null;
+    final Field field = model.getField(id);
+    return field != null ? repository.getFields().getField().get(field.getOrdinal()) : null;
   }
   
   private String getFieldPresence(final FieldRefType fieldRef) {
@@ -773,13 +770,8 @@ public class DocGenerator {
   }
 
   private GroupType getGroup(final int componentId) {
-    final List<GroupType> groups = repository.getGroups().getGroup();
-    for (final GroupType group : groups) {
-      if (group.getId().intValue() == componentId) {
-        return group;
-      }
-    }
-    return null;
+    final Group group = model.getGroup(componentId);
+    return group != null ? repository.getGroups().getGroup().get(group.getOrdinal()) : null;
   }
 
   private PathManager getPathManager(final String path) {
@@ -818,9 +810,6 @@ public class DocGenerator {
   }
   
   private Repository unmarshal(final InputStream inputStream) throws JAXBException {
-    final JAXBContext jaxbContext = JAXBContext.newInstance(Repository.class);
-    final Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-    jaxbUnmarshaller.setEventHandler(unmarshallerErrorHandler);
-    return (Repository) jaxbUnmarshaller.unmarshal(inputStream);
+    return RepositoryIO.getInstance().read(inputStream, unmarshallerErrorHandler);
   }
 }
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreException;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreLexer;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.AddSubContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.AnyExpressionContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.AssignmentContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.CharacterContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.ContainsContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.DateonlyContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.DecimalContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.DurationContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.EqualityContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.ExistContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.ExprContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.IntegerContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.LogicalAndContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.LogicalNotContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.LogicalOrContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.MulDivContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.ParensContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.PredContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.QualContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.RangeContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.RelationalContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.StringContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.TimeonlyContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.TimestampContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.UnaryMinusContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.VarContext;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreParser.VariableContext;
+import io.fixprotocol.orchestra.model.FixType;
+
+/**
+ * Resolves the symbols of Score expressions against the elements of a repository and checks the
+ * types of their operands
+ * <p>
+ * Field, component and group names are resolved in message scopes ({@code this.}, {@code in.},
+ * {@code out.} or none), and a code reference such as {@code ^Limit} is resolved in the code set
+ * of the field it is compared to or assigned to. Variables ({@code $}) are not declared by a
+ * repository and are not resolved. Operand types follow {@link FixType}; operands are compatible
+ * if they have the same value class or are both numeric, as for evaluation.
+ * <p>
+ * Elements are added as a repository is read. As the sections of a repository may appear in any
+ * order, expressions should be checked once all elements are added. Symbols are looked up by hash
+ * of name. A populated checker may be shared by threads.
+ */
+final class ExpressionChecker {
+
+  private static final class CodeSetSymbol {
+    final Set<String> codeNames;
+    final String name;
+    final FixType type;
+
+    CodeSetSymbol(String name, FixType type, Set<String> codeNames) {
+      this.name = name;
+      this.type = type;
+      this.codeNames = codeNames;
+    }
+  }
+
+  // Checks one expression
+  private final class Checker {
+    private final List<String> errors = new ArrayList<>();
+
+    void check(AnyExpressionContext ctx, boolean condition) {
+      final AssignmentContext assignment = ctx.assignment();
+      if (assignment != null) {
+        if (condition) {
+          errors.add(String.format("assignment is not a condition at '%s'", ctx.getText()));
+        }
+        final FixType varType = typeOf(assignment.var(), fieldOf(assignment.expr()));
+        final FixType valType = typeOf(assignment.expr(), fieldOf(assignment.var()));
+        requireComparable(varType, valType, assignment);
+      } else {
+        final FixType type = typeOf(ctx.expr(), null);
+        if (condition && type != null && type != FixType.BooleanType) {
+          errors.add(String.format("condition of type %s is not Boolean at '%s'", type,
+              ctx.getText()));
+        }
+      }
+    }
+
+    private FixType compare(ExprContext operand0, ExprContext operand1, ExprContext ctx) {
+      final FixType type0 = typeOf(operand0, fieldOf(operand1));
+      final FixType type1 = typeOf(operand1, fieldOf(operand0));
+      requireComparable(type0, type1, ctx);
+      return FixType.BooleanType;
+    }
+
+    private void requireBoolean(FixType type, ExprContext ctx) {
+      if (type != null && type != FixType.BooleanType) {
+        errors.add(String.format("operand of type %s is not Boolean at '%s'", type,
+            ctx.getText()));
+      }
+    }
+
+    private void requireComparable(FixType type0, FixType type1, ParserRuleContext ctx) {
+      if (type0 != null && type1 != null && type0.getValueClass() != type1.getValueClass()
+          && !(isNumeric(type0) && isNumeric(type1))) {
+        errors.add(String.format("incompatible types %s and %s at '%s'", type0, type1,
+            ctx.getText()));
+      }
+    }
+
+    // Returns null if the type cannot be inferred
+    private FixType typeOf(ExprContext expr, String contextField) {
+      if (expr instanceof ParensContext) {
+        return typeOf(((ParensContext) expr).expr(), contextField);
+      } else if (expr instanceof VariableContext) {
+        return typeOf(((VariableContext) expr).var(), contextField);
+      } else if (expr instanceof ExistContext) {
+        typeOf(((ExistContext) expr).var(), null);
+        return FixType.BooleanType;
+      } else if (expr instanceof EqualityContext) {
+        final EqualityContext equality = (EqualityContext) expr;
+        return compare(equality.expr(0), equality.expr(1), expr);
+      } else if (expr instanceof RelationalContext) {
+        final RelationalContext relational = (RelationalContext) expr;
+        return compare(relational.expr(0), relational.expr(1), expr);
+      } else if (expr instanceof ContainsContext) {
+        final ContainsContext contains = (ContainsContext) expr;
+        for (final ExprContext member : contains.member) {
+          compare(contains.val, member, expr);
+        }
+        return FixType.BooleanType;
+      } else if (expr instanceof RangeContext) {
+        final RangeContext range = (RangeContext) expr;
+        compare(range.val, range.min, expr);
+        return compare(range.val, range.max, expr);
+      } else if (expr instanceof LogicalAndContext) {
+        final LogicalAndContext and = (LogicalAndContext) expr;
+        requireBoolean(typeOf(and.expr(0), null), expr);
+        requireBoolean(typeOf(and.expr(1), null), expr);
+        return FixType.BooleanType;
+      } else if (expr instanceof LogicalOrContext) {
+        final LogicalOrContext or = (LogicalOrContext) expr;
+        requireBoolean(typeOf(or.expr(0), null), expr);
+        requireBoolean(typeOf(or.expr(1), null), expr);
+        return FixType.BooleanType;
+      } else if (expr instanceof LogicalNotContext) {
+        requireBoolean(typeOf(((LogicalNotContext) expr).expr(), null), expr);
+        return FixType.BooleanType;
+      } else if (expr instanceof AddSubContext) {
+        final AddSubContext addSub = (AddSubContext) expr;
+        return arithmetic(typeOf(addSub.expr(0), null), typeOf(addSub.expr(1), null), expr);
+      } else if (expr instanceof MulDivContext) {
+        final MulDivContext mulDiv = (MulDivContext) expr;
+        return arithmetic(typeOf(mulDiv.expr(0), null), typeOf(mulDiv.expr(1), null), expr);
+      } else if (expr instanceof UnaryMinusContext) {
+        final FixType type = typeOf(((UnaryMinusContext) expr).expr(), contextField);
+        if (type != null && !isNumeric(type)) {
+          errors.add(String.format("cannot apply unary minus to type %s at '%s'", type,
+              expr.getText()));
+        }
+        return type;
+      } else if (expr instanceof IntegerContext) {
+        return FixType.intType;
+      } else if (expr instanceof DecimalContext) {
+        return FixType.floatType;
+      } else if (expr instanceof StringContext) {
+        return FixType.StringType;
+      } else if (expr instanceof TimestampContext) {
+        return FixType.UTCTimestamp;
+      } else if (expr instanceof TimeonlyContext) {
+        return FixType.UTCTimeOnly;
+      } else if (expr instanceof DateonlyContext) {
+        return FixType.UTCDateOnly;
+      } else if (expr instanceof DurationContext) {
+        return FixType.Duration;
+      } else if (expr instanceof CharacterContext) {
+        return FixType.charType;
+      }
+      return null;
+    }
+
+    private FixType typeOf(VarContext var, String contextField) {
+      final String scope = var.scope != null ? var.scope.getText() : "this.";
+      switch (scope) {
+        case "$":
+          return null;
+        case "^":
+          return typeOfCode(var, contextField);
+        default:
+          FixType type = null;
+          for (final QualContext qual : var.qual()) {
+            final String name = qual.ID().getText();
+            type = null;
+            if (fieldTypes.containsKey(name)) {
+              type = typeOfField(name);
+            } else if (!componentNames.contains(name) && !groupNames.contains(name)) {
+              errors.add(String.format("unknown symbol %s at '%s'", name, var.getText()));
+            }
+            final PredContext pred = qual.pred();
+            if (pred != null) {
+              final String predField = pred.ID().getText();
+              if (fieldTypes.containsKey(predField)) {
+                requireComparable(typeOfField(predField), typeOf(pred.expr(), predField), pred);
+              } else {
+                errors.add(String.format("unknown field %s at '%s'", predField, var.getText()));
+              }
+            }
+          }
+          return type;
+      }
+    }
+
+    private FixType typeOfCode(VarContext var, String contextField) {
+      final String codeName = var.qual(var.qual().size() - 1).ID().getText();
+      final CodeSetSymbol codeSet = contextField != null ? codeSetOf(contextField) : null;
+      if (codeSet != null) {
+        if (!codeSet.codeNames.contains(codeName)) {
+          errors.add(String.format("code %s not found in code set %s of field %s at '%s'",
+              codeName, codeSet.name, contextField, var.getText()));
+        }
+        return codeSet.type;
+      } else if (contextField != null && fieldTypes.containsKey(contextField)) {
+        errors.add(String.format("field %s has no code set for code %s at '%s'", contextField,
+            codeName, var.getText()));
+      } else if (!allCodeNames.contains(codeName)) {
+        errors.add(String.format("unknown code %s at '%s'", codeName, var.getText()));
+      }
+      return null;
+    }
+
+    private FixType arithmetic(FixType type0, FixType type1, ExprContext ctx) {
+      if (type0 == null || type1 == null) {
+        return null;
+      } else if (isNumeric(type0) && isNumeric(type1)) {
+        return type0.getValueClass() == Integer.class && type1.getValueClass() == Integer.class
+            ? FixType.intType
+            : FixType.floatType;
+      } else if (ctx instanceof AddSubContext && type1 == FixType.Duration
+          && type0.getValueClass() == Instant.class) {
+        // a timestamp plus or minus a duration
+        return type0;
+      }
+      errors.add(String.format("incompatible types %s and %s at '%s'", type0, type1,
+          ctx.getText()));
+      return null;
+    }
+  }
+
+  // Reports a syntax error as in Evaluator.validateSyntax()
+  private static class SyntaxErrorListener extends BaseErrorListener {
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+        int charPositionInLine, String msg, RecognitionException e) {
+      throw new IllegalStateException(new ScoreException(msg, line, charPositionInLine, e));
+    }
+  }
+
+  private static final String BASE_SCENARIO = "base";
+
+  private static boolean isNumeric(FixType type) {
+    final Class<?> valueClass = type.getValueClass();
+    return valueClass == Integer.class || valueClass == BigDecimal.class;
+  }
+
+  private static FixType toFixType(String datatype) {
+    try {
+      return FixType.forName(datatype);
+    } catch (final IllegalArgumentException e) {
+      // a datatype without a mapping; operands of this type are not checked
+      return null;
+    }
+  }
+
+  private final Set<String> allCodeNames = new HashSet<>();
+  private final Map<String, CodeSetSymbol> codeSets = new HashMap<>();
+  private final Set<String> componentNames = new HashSet<>();
+  private final Map<String, String> fieldTypes = new HashMap<>();
+  private final Set<String> groupNames = new HashSet<>();
+
+  /**
+   * Adds a code set; a base scenario takes precedence over others of the same name
+   */
+  void addCodeSet(String name, String datatype, String scenario, Collection<String> codeNames) {
+    final CodeSetSymbol codeSet =
+        new CodeSetSymbol(name, toFixType(datatype), new HashSet<>(codeNames));
+    if (isBase(scenario)) {
+      codeSets.put(name, codeSet);
+    } else {
+      codeSets.putIfAbsent(name, codeSet);
+    }
+    allCodeNames.addAll(codeNames);
+  }
+
+  void addComponent(String name) {
+    componentNames.add(name);
+  }
+
+  /**
+   * Adds a field; a base scenario takes precedence over others of the same name
+   *
+   * @param type name of a datatype or code set
+   */
+  void addField(String name, String type, String scenario) {
+    if (isBase(scenario)) {
+      fieldTypes.put(name, type);
+    } else {
+      fieldTypes.putIfAbsent(name, type);
+    }
+  }
+
+  void addGroup(String name) {
+    groupNames.add(name);
+  }
+
+  /**
+   * Checks a Score expression
+   *
+   * @param expression text of an expression
+   * @param condition {@code true} if the expression is a condition, which must be Boolean
+   * @return descriptions of unresolved symbols and type errors, empty if none
+   * @throws ScoreException if the expression is not syntactically valid
+   */
+  List<String> check(String expression, boolean condition) throws ScoreException {
+    final ScoreLexer lexer = new ScoreLexer(CharStreams.fromString(expression));
+    final ScoreParser parser = new ScoreParser(new CommonTokenStream(lexer));
+    parser.removeErrorListeners();
+    parser.addErrorListener(new SyntaxErrorListener());
+    final AnyExpressionContext ctx;
+    try {
+      ctx = parser.anyExpression();
+    } catch (final IllegalStateException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof ScoreException) {
+        throw (ScoreException) cause;
+      }
+      throw e;
+    }
+    final Checker checker = new Checker();
+    checker.check(ctx, condition);
+    return checker.errors;
+  }
+
+  private CodeSetSymbol codeSetOf(String fieldName) {
+    final String type = fieldTypes.get(fieldName);
+    return type != null ? codeSets.get(type) : null;
+  }
+
+  // Name of a field referenced by an expression, or null if it is not a field reference
+  private String fieldOf(ParserRuleContext expr) {
+    VarContext var = null;
+    if (expr instanceof VarContext) {
+      var = (VarContext) expr;
+    } else if (expr instanceof VariableContext) {
+      var = ((VariableContext) expr).var();
+    } else if (expr instanceof ParensContext) {
+      return fieldOf(((ParensContext) expr).expr());
+    }
+    if (var == null || var.scope != null
+        && ("^".equals(var.scope.getText()) || "$".equals(var.scope.getText()))) {
+      return null;
+    }
+    final String name = var.qual(var.qual().size() - 1).ID().getText();
+    return fieldTypes.containsKey(name) ? name : null;
+  }
+
+  private boolean isBase(String scenario) {
+    return scenario == null || scenario.isEmpty() || BASE_SCENARIO.equals(scenario);
+  }
+
+  private FixType typeOfField(String fieldName) {
+    final CodeSetSymbol codeSet = codeSetOf(fieldName);
+    if (codeSet != null) {
+      return codeSet.type;
+    }
+    final String type = fieldTypes.get(fieldName);
+    return type != null ? toFixType(type) : null;
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Checks that references between the elements of a repository resolve
+ * <p>
+ * Element references ({@code fieldRef}, {@code numInGroup}, {@code componentRef},
+ * {@code groupRef} and {@code messageRef}) must match the id and scenario of a field, component,
+ * group or message of the repository. The {@code type} of a code set, and the {@code baseType} of
+ * a datatype, must name a datatype. In state machines, a transition must target a state of its
+ * state machine, a trigger must name a transition of a state machine of an actor, and a timer
+ * schedule must name a timer of an actor. Codes of a code set must have distinct ids, and states
+ * of a state machine distinct names.
+ * <p>
+ * Uniqueness of ids within each section, and the type of a field of the {@code fields} section,
+ * are constrained by the schema, so they are not checked again.
+ * <p>
+ * Elements are passed in document order. Declarations are indexed by hash of key as they arrive;
+ * as the sections of a repository may appear in any order, references are held and resolved when
+ * the document is complete, so a repository is checked in linear time.
+ */
+final class ReferenceChecker {
+
+  private static final class Actor {
+    final Map<String, Set<String>> stateMachines = new HashMap<>();
+    final Set<String> timers = new HashSet<>();
+  }
+
+  private static final String BASE_SCENARIO = "base";
+
+  private static String describe(String kind, String name, String id) {
+    return id.isEmpty() ? kind + " " + name : kind + " " + name + " (id=" + id + ")";
+  }
+
+  private static String key(String id, String scenario) {
+    return scenario + ':' + id;
+  }
+
+  private static String scenario(UnaryOperator<String> attributes) {
+    final String scenario = attributes.apply("scenario");
+    return scenario.isEmpty() ? BASE_SCENARIO : scenario;
+  }
+
+  private final Map<String, Actor> actors = new HashMap<>();
+  private Actor actor;
+  private Set<String> codeIds;
+  private final Set<String> codeSetNames = new HashSet<>();
+  private final Set<String> components = new HashSet<>();
+  private final Deque<String> contexts = new ArrayDeque<>();
+  private final Set<String> datatypes = new HashSet<>();
+  private final Deque<String> elements = new ArrayDeque<>();
+  private final Set<String> fields = new HashSet<>();
+  private final Set<String> groups = new HashSet<>();
+  private final Set<String> messages = new HashSet<>();
+  // each returns a problem, or null if resolved
+  private final List<Supplier<String>> problems = new ArrayList<>();
+  private Set<String> states;
+  private Set<String> transitions;
+
+  /**
+   * Resolves references once all elements are passed
+   *
+   * @return descriptions of unresolved references and duplicates in document order, or an empty
+   *         list if all references resolve
+   */
+  List<String> check() {
+    final List<String> unresolved = new ArrayList<>();
+    for (final Supplier<String> problem : problems) {
+      final String description = problem.get();
+      if (description != null) {
+        unresolved.add(description);
+      }
+    }
+    return unresolved;
+  }
+
+  /**
+   * Passes the end of an element of the repository namespace
+   *
+   * @param localName name of the element
+   */
+  void endElement(String localName) {
+    elements.pop();
+    switch (localName) {
+      case "actor":
+        actor = null;
+        contexts.pop();
+        break;
+      case "codeSet":
+        codeIds = null;
+        contexts.pop();
+        break;
+      case "states":
+        states = null;
+        transitions = null;
+        contexts.pop();
+        break;
+      case "component":
+      case "field":
+      case "group":
+      case "message":
+        contexts.pop();
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Passes the start of an element of the repository namespace
+   *
+   * @param localName name of the element
+   * @param attributes returns the value of an attribute by name, or an empty string if the
+   *        attribute is not present
+   */
+  void startElement(String localName, UnaryOperator<String> attributes) {
+    final String parent = elements.peek();
+    elements.push(localName);
+    final String name = attributes.apply("name");
+    final String id = attributes.apply("id");
+    switch (localName) {
+      case "datatype":
+        datatypes.add(name);
+        referenceDatatype("baseType", attributes.apply("baseType"), "datatype " + name);
+        break;
+      case "codeSet":
+        contexts.push(describe("codeSet", name, id));
+        codeSetNames.add(name);
+        codeIds = new HashSet<>();
+        referenceDatatype("type", attributes.apply("type"), contexts.peek());
+        break;
+      case "code":
+        if (codeIds != null && !id.isEmpty() && !codeIds.add(id)) {
+          duplicate("code " + name + " id=" + id + " duplicates the id of another code in "
+              + contexts.peek());
+        }
+        break;
+      case "field":
+        contexts.push(describe("field", name, id));
+        if ("fields".equals(parent)) {
+          fields.add(key(id, scenario(attributes)));
+        } else {
+          referenceType(attributes.apply("type"), contexts.peek());
+        }
+        break;
+      case "component":
+        contexts.push(describe("component", name, id));
+        if ("components".equals(parent)) {
+          components.add(key(id, scenario(attributes)));
+        }
+        break;
+      case "group":
+        contexts.push(describe("group", name, id));
+        if ("groups".equals(parent)) {
+          groups.add(key(id, scenario(attributes)));
+        }
+        break;
+      case "message":
+        contexts.push(describe("message", name, id));
+        if ("messages".equals(parent)) {
+          messages.add(key(id, scenario(attributes)));
+        }
+        break;
+      case "fieldRef":
+      case "numInGroup":
+        reference(localName, id, scenario(attributes), fields, "field");
+        break;
+      case "componentRef":
+        reference(localName, id, scenario(attributes), components, "component");
+        break;
+      case "groupRef":
+        reference(localName, id, scenario(attributes), groups, "group");
+        break;
+      case "messageRef":
+        reference(localName, id, scenario(attributes), messages, "message");
+        break;
+      case "actor":
+        contexts.push("actor " + name);
+        actor = actors.computeIfAbsent(name, k -> new Actor());
+        break;
+      case "timer":
+        if (actor != null && !actor.timers.add(name)) {
+          duplicate("timer " + name + " is declared more than once in " + contexts.peek());
+        }
+        break;
+      case "states":
+        contexts.push("state machine " + name + " of " + contexts.peek());
+        states = new HashSet<>();
+        transitions = new HashSet<>();
+        if (actor != null) {
+          actor.stateMachines.put(name, transitions);
+        }
+        break;
+      case "initial":
+      case "state":
+        if (states != null && !states.add(name)) {
+          duplicate("state " + name + " is declared more than once in " + contexts.peek());
+        }
+        break;
+      case "transition":
+        if (states != null) {
+          transitions.add(name);
+          referenceState(name, attributes.apply("target"));
+        }
+        break;
+      case "trigger":
+        referenceTransition(attributes.apply("actor"), attributes.apply("stateMachine"), name);
+        break;
+      case "timerSchedule":
+        referenceTimer(attributes.apply("actor"), name);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private String context() {
+    final String context = contexts.peek();
+    return context != null ? " in " + context : "";
+  }
+
+  private void duplicate(String description) {
+    problems.add(() -> description);
+  }
+
+  private void reference(String localName, String id, String scenario, Set<String> declared,
+      String kind) {
+    final String key = key(id, scenario);
+    final String description = BASE_SCENARIO.equals(scenario) ? localName + " id=" + id
+        : localName + " id=" + id + " scenario=" + scenario;
+    final String context = context();
+    problems.add(() -> declared.contains(key) ? null
+        : description + context + " does not match a " + kind);
+  }
+
+  private void referenceDatatype(String attribute, String datatype, String context) {
+    if (!datatype.isEmpty()) {
+      problems.add(() -> datatypes.contains(datatype) ? null
+          : attribute + " " + datatype + " of " + context + " is not a datatype");
+    }
+  }
+
+  private void referenceState(String transition, String target) {
+    final Set<String> machineStates = states;
+    final String context = contexts.peek();
+    problems.add(() -> machineStates.contains(target) ? null
+        : "transition " + transition + " of " + context + " targets unknown state " + target);
+  }
+
+  private void referenceTimer(String actorName, String timer) {
+    final String context = context();
+    problems.add(() -> {
+      final Actor timerActor = actors.get(actorName);
+      return timerActor != null && timerActor.timers.contains(timer) ? null
+          : "timerSchedule" + context + " names unknown timer " + timer + " of actor "
+              + actorName;
+    });
+  }
+
+  private void referenceTransition(String actorName, String stateMachine, String transition) {
+    final String context = context();
+    problems.add(() -> {
+      final Actor triggerActor = actors.get(actorName);
+      final Set<String> machineTransitions =
+          triggerActor != null ? triggerActor.stateMachines.get(stateMachine) : null;
+      return machineTransitions != null && machineTransitions.contains(transition) ? null
+          : "trigger" + context + " names unknown transition " + transition + " of state machine "
+              + stateMachine + " of actor " + actorName;
+    });
+  }
+
+  private void referenceType(String type, String context) {
+    if (!type.isEmpty()) {
+      problems.add(() -> codeSetNames.contains(type) || datatypes.contains(type) ? null
+          : "type " + type + " of " + context + " is not a code set or datatype");
+    }
+  }
+}
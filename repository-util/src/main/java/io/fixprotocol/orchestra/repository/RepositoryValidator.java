@@ -14,12 +14,21 @@
  */
 package io.fixprotocol.orchestra.repository;
 
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import io.fixprotocol.orchestra.batch.BatchValidator;
 import io.fixprotocol.orchestra.event.EventListener;
 
 /**
  * Validates an Orchestra file against the repository schema
+ * <p>
+ * If the input is a directory, the Orchestra files of its tree are validated in parallel. Only files
+ * whose root element is in the repository namespace are validated, so interfaces files in the same
+ * tree are ignored. With a cache file, files whose content has not changed since a previous run
+ * are skipped.
  *
  * @author Don Mendelson
  *
@@ -27,22 +36,60 @@ import io.fixprotocol.orchestra.event.EventListener;
 public class RepositoryValidator {
 
   public static class Builder {
+    private String cacheFile;
     private String inputFile;
     private String eventFile;
+    private String glob = "*.xml";
+    private boolean streaming = true;
+    private int threads = Runtime.getRuntime().availableProcessors();
 
     public RepositoryValidator build() {
       return new RepositoryValidator(this);
     }
 
+    /**
+     * File of cached results of directory validation
+     */
+    public Builder cacheFile(String cacheFile) {
+      this.cacheFile = cacheFile;
+      return this;
+    }
+
     public Builder eventLog(String eventFile) {
       this.eventFile = eventFile;
       return this;
     }
 
+    /**
+     * Pattern of file names to validate in a directory; defaults to {@code *.xml}
+     */
+    public Builder glob(String glob) {
+      this.glob = glob;
+      return this;
+    }
+
     public Builder inputFile(String inputFilename) {
       this.inputFile = inputFilename;
       return this;
     }
+
+    /**
+     * Selects whether the file is validated in a single streaming pass, the default, or by
+     * loading it as a document
+     */
+    public Builder streaming(boolean streaming) {
+      this.streaming = streaming;
+      return this;
+    }
+
+    /**
+     * Number of threads to check code sets and Score expressions, or to validate the files of a
+     * directory; defaults to the number of processors
+     */
+    public Builder threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
   }
 
   public static Builder builder() {
@@ -56,6 +103,10 @@ public class RepositoryValidator {
    *
    *        <pre>
    * -e &lt;logfile&gt; name of event log
+   * -c &lt;cachefile&gt; name of cache of directory validation results
+   * -g &lt;glob&gt; pattern of file names to validate in a directory; default *.xml
+   * -d load the file as a document rather than streaming it
+   * -t &lt;threads&gt; number of threads for semantic checks or files of a directory
    * -v verbose logging
    * -i &lt;orchestrafile&gt; name of input file; "-i" is optional
    *        </pre>
@@ -71,32 +122,81 @@ public class RepositoryValidator {
           builder.eventLog(args[i + 1]);
           i++;
         }
+      } else if ("-c".equals(args[i])) {
+        if (i < args.length - 1) {
+          builder.cacheFile(args[i + 1]);
+          i++;
+        }
+      } else if ("-g".equals(args[i])) {
+        if (i < args.length - 1) {
+          builder.glob(args[i + 1]);
+          i++;
+        }
+      } else if ("-t".equals(args[i])) {
+        if (i < args.length - 1) {
+          builder.threads(Integer.parseInt(args[i + 1]));
+          i++;
+        }
+      } else if ("-d".equals(args[i])) {
+        builder.streaming(false);
       } else {
         builder.inputFile(args[i]);
       }
       i++;
     }
     final RepositoryValidator validator = builder.build();
-    validator.validate();
+    if (!validator.validate()) {
+      System.exit(1);
+    }
   }
 
+  private final String cacheFile;
   private final String inputFile;
   private final String eventFile;
+  private final String glob;
+  private final boolean streaming;
+  private final int threads;
 
   private RepositoryValidator(Builder builder) {
+    this.cacheFile = builder.cacheFile;
     this.eventFile = builder.eventFile;
+    this.glob = builder.glob;
     this.inputFile = builder.inputFile;
+    this.streaming = builder.streaming;
+    this.threads = builder.threads;
   }
 
   public boolean validate() {
     try (EventListener eventLogger = RepositoryValidatorImpl
         .createLogger(eventFile != null ? new FileOutputStream(eventFile) : null)) {
-      final RepositoryValidatorImpl impl = new RepositoryValidatorImpl(eventLogger);
-      return impl.validate(new FileInputStream(inputFile));
+      final Path inputPath = Paths.get(inputFile);
+      if (Files.isDirectory(inputPath)) {
+        return validateDirectory(inputPath, eventLogger);
+      }
+      final RepositoryValidatorImpl impl = new RepositoryValidatorImpl(eventLogger, threads);
+      try (InputStream inputStream = Files.newInputStream(inputPath)) {
+        return streaming ? impl.validateStreaming(inputStream) : impl.validate(inputStream);
+      }
     } catch (final Exception e) {
       System.err.println(e.getMessage());
       return false;
     }
   }
 
+  private boolean validateDirectory(Path directory, EventListener eventLogger) throws Exception {
+    // files are validated in parallel, so the checks of each file run on its own thread
+    final BatchValidator batchValidator = BatchValidator.builder().directory(directory)
+        .cacheFile(cacheFile != null ? Paths.get(cacheFile) : null).eventLogger(eventLogger)
+        .glob(glob).rootNamespace(RepositoryValidatorImpl.REPOSITORY_NAMESPACE).threads(threads)
+        .name(RepositoryValidator.class.getName() + " "
+            + RepositoryValidator.class.getPackage().getImplementationVersion())
+        .validator((path, fileEventLogger) -> {
+          final RepositoryValidatorImpl impl = new RepositoryValidatorImpl(fileEventLogger);
+          try (InputStream inputStream = Files.newInputStream(path)) {
+            return streaming ? impl.validateStreaming(inputStream) : impl.validate(inputStream);
+          }
+        }).build();
+    return batchValidator.validate().isValid();
+  }
+
 }
@@ -3,46 +3,86 @@ package io.fixprotocol.orchestra.repository;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.Objects;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
-import javax.xml.XMLConstants;
+import java.util.function.Supplier;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Source;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.ValidatorHandler;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
-import io.fixprotocol.orchestra.dsl.antlr.Evaluator;
 import io.fixprotocol.orchestra.dsl.antlr.ScoreException;
 import io.fixprotocol.orchestra.event.ConsoleEventListener;
 import io.fixprotocol.orchestra.event.EventListenerFactory;
 import io.fixprotocol.orchestra.event.TeeEventListener;
+import io.fixprotocol.orchestra.schema.SchemaRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
 import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 import io.fixprotocol.orchestra.event.EventListener;
 
 public class RepositoryValidatorImpl {
 
   public RepositoryValidatorImpl(EventListener eventLogger) {
+    this(eventLogger, 1);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param eventLogger receives validation events
+   * @param threads number of threads for checks of code sets and Score expressions; checks run on
+   *        the calling thread if less than 2
+   */
+  public RepositoryValidatorImpl(EventListener eventLogger, int threads) {
     this.eventLogger = eventLogger;
+    this.threads = threads;
+  }
+
+  private static final class Code {
+    final String name;
+    final String value;
+
+    Code(String name, String value) {
+      this.name = name;
+      this.value = value;
+    }
+  }
+
+  private static final class Expression {
+    final boolean condition;
+    final String text;
+
+    Expression(String text, boolean condition) {
+      this.text = text;
+      this.condition = condition;
+    }
   }
 
   private final class ErrorListener implements ErrorHandler {
@@ -51,25 +91,195 @@ public class RepositoryValidatorImpl {
     public void error(SAXParseException exception) throws SAXException {
       eventLogger.error("RepositoryValidator: XML error at line {0} col {1} {2}",
           exception.getLineNumber(), exception.getColumnNumber(), exception.getMessage());
-      errors++;
+      errors.incrementAndGet();
     }
 
     @Override
     public void fatalError(SAXParseException exception) throws SAXException {
       eventLogger.fatal("RepositoryValidator: XML fatal error at line {0} col {1} {2}",
           exception.getLineNumber(), exception.getColumnNumber(), exception.getMessage());
-      fatalErrors++;
+      fatalErrors.incrementAndGet();
     }
 
     @Override
     public void warning(SAXParseException exception) throws SAXException {
       eventLogger.warn("RepositoryValidator: XML warning at line {0} col {1} {2}",
           exception.getLineNumber(), exception.getColumnNumber(), exception.getMessage());
-      warnings++;
+      warnings.incrementAndGet();
+    }
+
+  }
+
+  /**
+   * Runs independent checks, on an executor if one is given, and collects their events in the
+   * order the checks were submitted
+   * <p>
+   * At most {@link #MAX_PENDING_CHECKS} checks are outstanding; when the window is full, the
+   * oldest is awaited, so memory held for pending checks is bounded.
+   */
+  private static final class OrderedChecks {
+    private final List<Runnable> events = new ArrayList<>();
+    private final ExecutorService executor;
+    private final Deque<Future<List<Runnable>>> pending = new ArrayDeque<>();
+
+    OrderedChecks(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    /**
+     * Reports the events of all checks in order
+     */
+    void report() throws InterruptedException, ExecutionException {
+      while (!pending.isEmpty()) {
+        events.addAll(pending.remove().get());
+      }
+      events.forEach(Runnable::run);
+    }
+
+    /**
+     * @param check returns events to report, to be run on the reporting thread
+     */
+    void submit(Supplier<List<Runnable>> check) throws InterruptedException, ExecutionException {
+      if (executor == null) {
+        events.addAll(check.get());
+        return;
+      }
+      if (pending.size() >= MAX_PENDING_CHECKS) {
+        events.addAll(pending.remove().get());
+      }
+      pending.add(executor.submit(check::get));
+    }
+  }
+
+  /**
+   * Checks code sets and Score expressions as elements arrive from schema validation
+   * <p>
+   * Code sets are checked as each one ends. Symbols of fields, code sets, components and groups are
+   * collected as they arrive; since repository sections may appear in any order, the text of
+   * expressions is held and they are checked when the document is complete, as are references.
+   * Events are held until then and reported in the order of the document-based checks, code sets,
+   * then references, then expressions, so both modes produce the same events. If the document
+   * cannot be parsed, they are discarded, as no semantic checks would have run.
+   */
+  private final class SemanticHandler extends DefaultHandler {
+    private final ExpressionChecker checker = new ExpressionChecker();
+    private List<Code> codes;
+    private final OrderedChecks codesetChecks;
+    private String codesetId;
+    private String codesetName;
+    private String codesetScenario;
+    private String datatype;
+    private final OrderedChecks expressionChecks;
+    private final List<Expression> expressions = new ArrayList<>();
+    private boolean isCondition;
+    private StringBuilder expressionText;
+    private final ReferenceChecker references = new ReferenceChecker();
+
+    SemanticHandler(ExecutorService executor) {
+      this.codesetChecks = new OrderedChecks(executor);
+      this.expressionChecks = new OrderedChecks(executor);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+      if (expressionText != null) {
+        expressionText.append(ch, start, length);
+      }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+      if (!REPOSITORY_NAMESPACE.equals(uri)) {
+        return;
+      }
+      references.endElement(localName);
+      if ("codeSet".equals(localName) && codes != null) {
+        final String name = codesetName;
+        final String id = codesetId;
+        final String type = datatype;
+        final List<Code> codesetCodes = codes;
+        codes = null;
+        submit(codesetChecks, () -> checkCodeset(name, id, type, codesetCodes));
+        checker.addCodeSet(name, type, codesetScenario, codeNames(codesetCodes));
+      } else if (("when".equals(localName) || "assign".equals(localName))
+          && expressionText != null) {
+        expressions.add(new Expression(expressionText.toString(), isCondition));
+        expressionText = null;
+      }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+      if (!REPOSITORY_NAMESPACE.equals(uri)) {
+        return;
+      }
+      references.startElement(localName, name -> attribute(attributes, name));
+      switch (localName) {
+        case "codeSet":
+          codes = new ArrayList<>();
+          codesetName = attribute(attributes, "name");
+          codesetId = attribute(attributes, "id");
+          codesetScenario = attribute(attributes, "scenario");
+          datatype = attribute(attributes, "type");
+          break;
+        case "code":
+          if (codes != null) {
+            codes.add(new Code(attribute(attributes, "name"), attribute(attributes, "value")));
+          }
+          break;
+        case "field":
+          checker.addField(attribute(attributes, "name"), attribute(attributes, "type"),
+              attribute(attributes, "scenario"));
+          break;
+        case "component":
+          checker.addComponent(attribute(attributes, "name"));
+          break;
+        case "group":
+          checker.addGroup(attribute(attributes, "name"));
+          break;
+        case "when":
+        case "assign":
+          expressionText = new StringBuilder();
+          isCondition = "when".equals(localName);
+          break;
+        default:
+          break;
+      }
+    }
+
+    void report() throws InterruptedException, ExecutionException {
+      for (final Expression expression : expressions) {
+        expressionChecks.submit(() -> checkExpression(checker, expression));
+      }
+      codesetChecks.report();
+      reportReferences(references);
+      expressionChecks.report();
+    }
+
+    // DOM returns an empty string for a missing attribute
+    private String attribute(Attributes attributes, String name) {
+      final String value = attributes.getValue("", name);
+      return value != null ? value : "";
     }
 
+    private void submit(OrderedChecks checks, Supplier<List<Runnable>> check)
+        throws SAXException {
+      try {
+        checks.submit(check);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SAXException(e);
+      } catch (final ExecutionException e) {
+        throw new SAXException(e);
+      }
+    }
   }
 
+  /**
+   * Maximum number of checks awaiting a thread before the oldest is awaited
+   */
+  static final int MAX_PENDING_CHECKS = 1024;
+
   static final String REPOSITORY_NAMESPACE = "http://fixprotocol.io/2020/orchestra/repository";
 
   public static EventListener createLogger(OutputStream jsonOutputStream) {
@@ -92,9 +302,9 @@ public class RepositoryValidatorImpl {
     return eventListener;
   }
 
-  private int errors = 0;
+  private final AtomicInteger errors = new AtomicInteger();
   private final EventListener eventLogger;
-  private int fatalErrors = 0;
+  private final AtomicInteger fatalErrors = new AtomicInteger();
   static final Predicate<String> isValidChar =
       t -> t.length() == 1 && !Character.isWhitespace(t.charAt(0));
   static final Predicate<String> isValidInt = t -> t.chars().allMatch(Character::isDigit);
@@ -104,6 +314,11 @@ public class RepositoryValidatorImpl {
   static final Predicate<String> isValidName = t -> t.length() > 0
       && t.chars().noneMatch(Character::isWhitespace) && Character.isUpperCase(t.charAt(0));
 
+  private static final String REPOSITORY_SCHEMA = "xsd/repository.xsd";
+  // compiled schemas are shared by all validators
+  private static final SchemaRegistry schemaRegistry =
+      new SchemaRegistry(RepositoryValidatorImpl.class);
+
   private static final NamespaceContext nsContext = new NamespaceContext() {
     @Override
     public String getNamespaceURI(String arg0) {
@@ -123,18 +338,19 @@ public class RepositoryValidatorImpl {
       return null;
     }
   };
-  private int warnings = 0;
+  private final int threads;
+  private final AtomicInteger warnings = new AtomicInteger();
 
   public int getErrors() {
-    return errors;
+    return errors.get();
   }
 
   public int getFatalErrors() {
-    return fatalErrors;
+    return fatalErrors.get();
   }
 
   public int getWarnings() {
-    return warnings;
+    return warnings.get();
   }
 
   /**
@@ -150,16 +366,74 @@ public class RepositoryValidatorImpl {
    */
   public boolean validate(InputStream inputStream) {
     final ErrorListener errorHandler = new ErrorListener();
+    final ExecutorService executor = newExecutor();
     Document xmlDocument;
     try {
       xmlDocument = validateSchema(inputStream, errorHandler);
-      validateCodesets(xmlDocument);
-      validateExpressions(xmlDocument);
+      final ExpressionChecker checker = new ExpressionChecker();
+      addSymbols(xmlDocument, checker);
+      final ReferenceChecker references = new ReferenceChecker();
+      addReferences(xmlDocument.getDocumentElement(), references);
+      final OrderedChecks codesetChecks = new OrderedChecks(executor);
+      validateCodesets(xmlDocument, checker, codesetChecks);
+      final OrderedChecks expressionChecks = new OrderedChecks(executor);
+      validateExpressions(xmlDocument, checker, expressionChecks);
+      codesetChecks.report();
+      reportReferences(references);
+      expressionChecks.report();
+    } catch (final Exception e) {
+      eventLogger.fatal("Failed to validate Score expressions, {0}", e.getMessage());
+      fatalErrors.incrementAndGet();
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+    return report();
+  }
+
+  /**
+   * Validate an Orchestra repository file against the XML schema and check code sets and Score
+   * expressions in a single streaming pass
+   *
+   * Unlike {@link #validate(InputStream)}, the document is not held in memory; schema validation
+   * and semantic checks are applied to SAX events as the file is read. The same events are
+   * reported.
+   *
+   * @param inputStream input stream of a repository file
+   * @return Returns {@code true} if the repository does not have serious errors, {@code false} if
+   *         it does.
+   */
+  public boolean validateStreaming(InputStream inputStream) {
+    final ErrorListener errorHandler = new ErrorListener();
+    final ExecutorService executor = newExecutor();
+    try {
+      final SemanticHandler semanticHandler = new SemanticHandler(executor);
+      final ValidatorHandler validatorHandler =
+          schemaRegistry.newValidatorHandler(REPOSITORY_SCHEMA);
+      validatorHandler.setErrorHandler(errorHandler);
+      validatorHandler.setContentHandler(semanticHandler);
+
+      final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+      parserFactory.setNamespaceAware(true);
+      parserFactory.setXIncludeAware(true);
+      final XMLReader reader = parserFactory.newSAXParser().getXMLReader();
+      reader.setContentHandler(validatorHandler);
+      reader.setErrorHandler(errorHandler);
+      reader.parse(new InputSource(inputStream));
+      semanticHandler.report();
     } catch (final Exception e) {
       eventLogger.fatal("Failed to validate Score expressions, {0}", e.getMessage());
-      fatalErrors++;
+      fatalErrors.incrementAndGet();
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
     }
+    return report();
+  }
 
+  private boolean report() {
     if (getErrors() + getFatalErrors() > 0) {
       eventLogger.fatal(
           "RepositoryValidator complete; fatal errors={0,number,integer} errors={1,number,integer} warnings={2,number,integer}",
@@ -181,33 +455,153 @@ public class RepositoryValidatorImpl {
     }
   }
 
-  private void validateCodes(NodeList codeElements, Element codesetElement,
-      Predicate<String> isCodeValid) {
-    for (int i = 0; i < codeElements.getLength(); i++) {
-      final Element codeElement = (Element) codeElements.item(i);
-      final String value = codeElement.getAttribute("value");
-      final String codeName = codeElement.getAttribute("name");
-      final String codesetName = codesetElement.getAttribute("name");
-      final String codesetId = codesetElement.getAttribute("id");
+  private static Predicate<String> codePredicate(String datatype) {
+    switch (datatype) {
+      case "int":
+      case "NumInGroup":
+        return isValidInt;
+      case "char":
+      case "MultipleCharValue":
+        return isValidChar;
+      case "String":
+      case "MultipleStringValue":
+        return isValidString;
+      case "Boolean":
+        return isValidBoolean;
+      default:
+        return null;
+    }
+  }
+
+  private void invalidCodeName(String codeName, String codesetName, String codesetId) {
+    warnings.incrementAndGet();
+    eventLogger.warn(
+        "RepositoryValidator: code name {0} has invalid case in codeset {1} (id={2})", codeName,
+        codesetName, codesetId);
+  }
+
+  private void invalidCodeValue(String codeName, String value, String datatype,
+      String codesetName, String codesetId) {
+    errors.incrementAndGet();
+    eventLogger.error(
+        "RepositoryValidator: code {0} value [{1}] is invalid for datatype {2} in codeset {3} (id={4})",
+        codeName, value, datatype, codesetName, codesetId);
+  }
+
+  private void invalidExpression(String condition, ScoreException exception) {
+    eventLogger.error("RepositoryValidator: invalid Score expression ''{0}''; {1} at col. {2}",
+        condition, exception.getMessage(), exception.getColumnNumber());
+    errors.incrementAndGet();
+  }
 
-      if (!isValidName.test(codeName)) {
-        warnings++;
-        eventLogger.warn(
-            "RepositoryValidator: code name {0} has invalid case in codeset {1} (id={2})", codeName,
-            codesetName, codesetId);
+  private void invalidReference(String problem) {
+    errors.incrementAndGet();
+    eventLogger.error("RepositoryValidator: {0}", problem);
+  }
+
+  private void unresolvedExpression(String expression, String problem) {
+    eventLogger.error("RepositoryValidator: Score expression ''{0}'' is invalid; {1}",
+        expression, problem);
+    errors.incrementAndGet();
+  }
+
+  private void unexpectedDatatype(String datatype, String codesetName, String codesetId) {
+    errors.incrementAndGet();
+    eventLogger.error("RepositoryValidator: unexpected datatype {0} for code set {1} (id={2})",
+        datatype, codesetName, codesetId);
+  }
+
+  // Runs on a worker thread; events are returned to be reported in order
+  private List<Runnable> checkCodeset(String codesetName, String codesetId, String datatype,
+      List<Code> codes) {
+    final Predicate<String> isCodeValid = codePredicate(datatype);
+    if (isCodeValid == null) {
+      return Collections.singletonList(() -> unexpectedDatatype(datatype, codesetName, codesetId));
+    }
+    final List<Runnable> events = new ArrayList<>();
+    for (final Code code : codes) {
+      if (!isValidName.test(code.name)) {
+        events.add(() -> invalidCodeName(code.name, codesetName, codesetId));
+      }
+      if (!isCodeValid.test(code.value)) {
+        events.add(
+            () -> invalidCodeValue(code.name, code.value, datatype, codesetName, codesetId));
+      }
+    }
+    return events;
+  }
 
+  // Runs on a worker thread; events are returned to be reported in order
+  private List<Runnable> checkExpression(ExpressionChecker checker, Expression expression) {
+    try {
+      final List<String> problems = checker.check(expression.text, expression.condition);
+      final List<Runnable> events = new ArrayList<>(problems.size());
+      for (final String problem : problems) {
+        events.add(() -> unresolvedExpression(expression.text, problem));
       }
-      if (!isCodeValid.test(value)) {
-        final String datatype = codesetElement.getAttribute("type");
-        errors++;
-        eventLogger.error(
-            "RepositoryValidator: code {0} value [{1}] is invalid for datatype {2} in codeset {3} (id={4})",
-            codeName, value, datatype, codesetName, codesetId);
+      return events;
+    } catch (final ScoreException exception) {
+      return Collections.singletonList(() -> invalidExpression(expression.text, exception));
+    }
+  }
+
+  private void reportReferences(ReferenceChecker checker) {
+    for (final String problem : checker.check()) {
+      invalidReference(problem);
+    }
+  }
+
+  private static List<String> codeNames(List<Code> codes) {
+    final List<String> names = new ArrayList<>(codes.size());
+    for (final Code code : codes) {
+      names.add(code.name);
+    }
+    return names;
+  }
+
+  private ExecutorService newExecutor() {
+    return threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+  }
+
+  private static void addReferences(Element element, ReferenceChecker checker) {
+    final boolean isRepositoryElement = REPOSITORY_NAMESPACE.equals(element.getNamespaceURI());
+    if (isRepositoryElement) {
+      checker.startElement(element.getLocalName(), element::getAttribute);
+    }
+    for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child.getNodeType() == Node.ELEMENT_NODE) {
+        addReferences((Element) child, checker);
       }
     }
+    if (isRepositoryElement) {
+      checker.endElement(element.getLocalName());
+    }
+  }
+
+  // DOM nodes are not safe to read concurrently, so values are extracted for each check
+  private void addSymbols(Document xmlDocument, ExpressionChecker checker) {
+    final NodeList fieldElements =
+        xmlDocument.getElementsByTagNameNS(REPOSITORY_NAMESPACE, "field");
+    for (int i = 0; i < fieldElements.getLength(); i++) {
+      final Element fieldElement = (Element) fieldElements.item(i);
+      checker.addField(fieldElement.getAttribute("name"), fieldElement.getAttribute("type"),
+          fieldElement.getAttribute("scenario"));
+    }
+    final NodeList componentElements =
+        xmlDocument.getElementsByTagNameNS(REPOSITORY_NAMESPACE, "component");
+    for (int i = 0; i < componentElements.getLength(); i++) {
+      checker.addComponent(((Element) componentElements.item(i)).getAttribute("name"));
+    }
+    final NodeList groupElements =
+        xmlDocument.getElementsByTagNameNS(REPOSITORY_NAMESPACE, "group");
+    for (int i = 0; i < groupElements.getLength(); i++) {
+      checker.addGroup(((Element) groupElements.item(i)).getAttribute("name"));
+    }
   }
 
-  private void validateCodesets(Document xmlDocument) {
+  private void validateCodesets(Document xmlDocument, ExpressionChecker checker,
+      OrderedChecks checks)
+      throws InterruptedException, ExecutionException {
     final XPath xPath = XPathFactory.newInstance().newXPath();
     xPath.setNamespaceContext(nsContext);
     final String expression = "//fixr:codeSet";
@@ -223,43 +617,31 @@ public class RepositoryValidatorImpl {
           final String codesetId = codesetElement.getAttribute("id");
           final String datatype = codesetElement.getAttribute("type");
 
-          NodeList codeElements =
+          final NodeList codeElements =
               codesetElement.getElementsByTagNameNS(REPOSITORY_NAMESPACE, "code");
-          switch (datatype) {
-            case "int":
-            case "NumInGroup":
-              validateCodes(codeElements, codesetElement, isValidInt);
-              break;
-            case "char":
-            case "MultipleCharValue":
-              validateCodes(codeElements, codesetElement, isValidChar);
-              break;
-            case "String":
-            case "MultipleStringValue":
-              validateCodes(codeElements, codesetElement, isValidString);
-              break;
-            case "Boolean":
-              validateCodes(codeElements, codesetElement, isValidBoolean);
-              break;
-            default:
-              errors++;
-              eventLogger.error(
-                  "RepositoryValidator: unexpected datatype {0} for code set {1} (id={2})",
-                  datatype, codesetName, codesetId);
+          final List<Code> codes = new ArrayList<>(codeElements.getLength());
+          for (int j = 0; j < codeElements.getLength(); j++) {
+            final Element codeElement = (Element) codeElements.item(j);
+            codes.add(
+                new Code(codeElement.getAttribute("name"), codeElement.getAttribute("value")));
           }
+          checks.submit(() -> checkCodeset(codesetName, codesetId, datatype, codes));
+          checker.addCodeSet(codesetName, datatype, codesetElement.getAttribute("scenario"),
+              codeNames(codes));
         }
       }
     } catch (final XPathExpressionException e) {
       eventLogger.error("Failed to locate Score expressions");
       eventLogger.fatal(e.getMessage());
-      fatalErrors++;
+      fatalErrors.incrementAndGet();
     }
   }
 
-  private void validateExpressions(Document xmlDocument) {
+  private void validateExpressions(Document xmlDocument, ExpressionChecker checker,
+      OrderedChecks checks) throws InterruptedException, ExecutionException {
     final XPath xPath = XPathFactory.newInstance().newXPath();
     xPath.setNamespaceContext(nsContext);
-    final String expression = "//fixr:when";
+    final String expression = "//fixr:when | //fixr:assign";
     try {
       final NodeList nodeList =
           (NodeList) xPath.compile(expression).evaluate(xmlDocument, XPathConstants.NODESET);
@@ -268,56 +650,29 @@ public class RepositoryValidatorImpl {
         final short nodeType = node.getNodeType();
         if (nodeType == Node.ELEMENT_NODE) {
           final Element element = (Element) node;
-          final String condition = element.getTextContent();
-          try {
-            Evaluator.validateSyntax(condition);
-          } catch (final ScoreException exception) {
-            eventLogger.error(
-                "RepositoryValidator: invalid Score expression '{0}'; {1} at col. {2}", condition,
-                exception.getMessage(), exception.getColumnNumber());
-            errors++;
-          }
+          final Expression condition =
+              new Expression(element.getTextContent(), "when".equals(element.getLocalName()));
+          checks.submit(() -> checkExpression(checker, condition));
         }
       }
     } catch (final XPathExpressionException e) {
       eventLogger.error("Failed to locate Score expressions");
       eventLogger.fatal(e.getMessage());
-      fatalErrors++;
+      fatalErrors.incrementAndGet();
     }
   }
 
   private Document validateSchema(InputStream inputStream, ErrorListener errorHandler)
       throws ParserConfigurationException, SAXException, IOException {
-    // parse an XML document into a DOM tree
+    // parse an XML document into a DOM tree, validating it against the shared schema as it is
+    // parsed so that errors are reported with their position, as in streaming validation
     final DocumentBuilderFactory parserFactory = DocumentBuilderFactory.newInstance();
     parserFactory.setNamespaceAware(true);
     parserFactory.setXIncludeAware(true);
+    parserFactory.setSchema(schemaRegistry.getSchema(REPOSITORY_SCHEMA));
     final DocumentBuilder parser = parserFactory.newDocumentBuilder();
-    final Document document = parser.parse(inputStream);
-
-    // create a SchemaFactory capable of understanding WXS schemas
-    final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-    final ResourceResolver resourceResolver = new ResourceResolver();
-    factory.setResourceResolver(resourceResolver);
-
-    // load a WXS schema, represented by a Schema instance
-    final URL resourceUrl = this.getClass().getClassLoader().getResource("xsd/repository.xsd");
-    final String path = Objects.requireNonNull(resourceUrl).getPath();
-    final String parentPath = path.substring(0, path.lastIndexOf('/'));
-    final URL baseUrl = new URL(resourceUrl.getProtocol(), null, parentPath);
-    resourceResolver.setBaseUrl(baseUrl);
-
-    final Source schemaFile = new StreamSource(resourceUrl.openStream());
-    final Schema schema = factory.newSchema(schemaFile);
-
-    // create a Validator instance, which can be used to validate an instance document
-    final Validator validator = schema.newValidator();
-
-    validator.setErrorHandler(errorHandler);
-
-    // validate the DOM tree
-    validator.validate(new DOMSource(document));
-    return document;
+    parser.setErrorHandler(errorHandler);
+    return parser.parse(inputStream);
   }
 
 }
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.transformers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Structural differences between two versions of a repository
+ * <p>
+ * Each {@link Change} identifies an element by kind, id, name and scenario, and lists its
+ * differences attribute by attribute. Members of a structure and rules of a member are reported as
+ * attributes of the structure, named by a path such as {@code fieldRef[54]@presence}.
+ *
+ * @see RepositoryDiff
+ */
+public final class ChangeSet {
+
+  /**
+   * A change to one element of a repository
+   */
+  public static final class Change {
+    private final List<Difference> differences;
+    private final ElementKind element;
+    private final Integer id;
+    private final String name;
+    private final String parent;
+    private final String scenario;
+    private final ChangeType type;
+
+    Change(ChangeType type, ElementKind element, Integer id, String name, String scenario,
+        String parent, List<Difference> differences) {
+      this.type = type;
+      this.element = element;
+      this.id = id;
+      this.name = name;
+      this.scenario = scenario;
+      this.parent = parent;
+      this.differences = differences;
+    }
+
+    /**
+     * @return attribute-level differences; empty unless the element was modified
+     */
+    public List<Difference> getDifferences() {
+      return Collections.unmodifiableList(differences);
+    }
+
+    public ElementKind getElement() {
+      return element;
+    }
+
+    /**
+     * @return id of the element, or {@code null} if it has none
+     */
+    public Integer getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return name of the enclosing code set of a code, otherwise {@code null}
+     */
+    public String getParent() {
+      return parent;
+    }
+
+    public String getScenario() {
+      return scenario;
+    }
+
+    public ChangeType getType() {
+      return type;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return "Change [type=" + type + ", element=" + element + ", id=" + id + ", name=" + name
+          + ", scenario=" + scenario + (parent != null ? ", parent=" + parent : "")
+          + ", differences=" + differences + "]";
+    }
+  }
+
+  public enum ChangeType {
+    ADDED, MODIFIED, REMOVED;
+
+    String value() {
+      return name().toLowerCase();
+    }
+  }
+
+  /**
+   * A difference in one attribute of an element
+   */
+  public static final class Difference {
+    private final String attribute;
+    private final String newValue;
+    private final String oldValue;
+
+    Difference(String attribute, String oldValue, String newValue) {
+      this.attribute = attribute;
+      this.oldValue = oldValue;
+      this.newValue = newValue;
+    }
+
+    /**
+     * @return name or path of the attribute
+     */
+    public String getAttribute() {
+      return attribute;
+    }
+
+    /**
+     * @return value in the new repository, or {@code null} if absent
+     */
+    public String getNewValue() {
+      return newValue;
+    }
+
+    /**
+     * @return value in the old repository, or {@code null} if absent
+     */
+    public String getOldValue() {
+      return oldValue;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return attribute + ": " + oldValue + " -> " + newValue;
+    }
+  }
+
+  public enum ElementKind {
+    CODE("code"), CODE_SET("codeSet"), COMPONENT("component"), DATATYPE("datatype"), FIELD(
+        "field"), GROUP("group"), MESSAGE("message");
+
+    private final String elementName;
+
+    ElementKind(String elementName) {
+      this.elementName = elementName;
+    }
+
+    /**
+     * @return name of the element in a repository file
+     */
+    public String getElementName() {
+      return elementName;
+    }
+  }
+
+  private final List<Change> changes = new ArrayList<>();
+
+  /**
+   * @return changes in order of the new repository, followed by removals, read-only
+   */
+  public List<Change> getChanges() {
+    return Collections.unmodifiableList(changes);
+  }
+
+  /**
+   * @param type type of change
+   * @return number of changes of the type
+   */
+  public long count(ChangeType type) {
+    return changes.stream().filter(c -> c.getType() == type).count();
+  }
+
+  public boolean isEmpty() {
+    return changes.isEmpty();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "ChangeSet [added=" + count(ChangeType.ADDED) + ", removed=" + count(ChangeType.REMOVED)
+        + ", modified=" + count(ChangeType.MODIFIED) + "]";
+  }
+
+  /**
+   * Writes changes as a JSON object with an array of changes
+   *
+   * @param outputStream output, not closed by this method
+   * @throws IOException if an IO error occurs
+   */
+  public void writeJson(OutputStream outputStream) throws IOException {
+    final JsonFactory factory = new JsonFactory();
+    factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    try (JsonGenerator generator = factory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+      generator.useDefaultPrettyPrinter();
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("changes");
+      for (final Change change : changes) {
+        generator.writeStartObject();
+        generator.writeStringField("type", change.type.value());
+        generator.writeStringField("element", change.element.getElementName());
+        if (change.id != null) {
+          generator.writeNumberField("id", change.id);
+        }
+        writeJsonString(generator, "name", change.name);
+        writeJsonString(generator, "scenario", change.scenario);
+        writeJsonString(generator, "parent", change.parent);
+        if (!change.differences.isEmpty()) {
+          generator.writeArrayFieldStart("differences");
+          for (final Difference difference : change.differences) {
+            generator.writeStartObject();
+            generator.writeStringField("attribute", difference.attribute);
+            writeJsonString(generator, "old", difference.oldValue);
+            writeJsonString(generator, "new", difference.newValue);
+            generator.writeEndObject();
+          }
+          generator.writeEndArray();
+        }
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Writes changes as an XML document
+   *
+   * <pre>
+   * &lt;changes&gt;
+   *   &lt;change type="modified" element="field" id="54" name="Side" scenario="base"&gt;
+   *     &lt;difference attribute="updated" old="FIX.4.4" new="FIX.5.0"/&gt;
+   *   &lt;/change&gt;
+   * &lt;/changes&gt;
+   * </pre>
+   *
+   * @param outputStream output, not closed by this method
+   * @throws IOException if an IO error occurs
+   */
+  public void writeXml(OutputStream outputStream) throws IOException {
+    try {
+      final XMLStreamWriter writer =
+          XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+      writer.writeStartDocument("UTF-8", "1.0");
+      writer.writeCharacters("\n");
+      writer.writeStartElement("changes");
+      for (final Change change : changes) {
+        writer.writeCharacters("\n  ");
+        if (change.differences.isEmpty()) {
+          writer.writeEmptyElement("change");
+        } else {
+          writer.writeStartElement("change");
+        }
+        writer.writeAttribute("type", change.type.value());
+        writer.writeAttribute("element", change.element.getElementName());
+        if (change.id != null) {
+          writer.writeAttribute("id", change.id.toString());
+        }
+        writeXmlAttribute(writer, "name", change.name);
+        writeXmlAttribute(writer, "scenario", change.scenario);
+        writeXmlAttribute(writer, "parent", change.parent);
+        if (!change.differences.isEmpty()) {
+          for (final Difference difference : change.differences) {
+            writer.writeCharacters("\n    ");
+            writer.writeEmptyElement("difference");
+            writer.writeAttribute("attribute", difference.attribute);
+            writeXmlAttribute(writer, "old", difference.oldValue);
+            writeXmlAttribute(writer, "new", difference.newValue);
+          }
+          writer.writeCharacters("\n  ");
+          writer.writeEndElement();
+        }
+      }
+      writer.writeCharacters("\n");
+      writer.writeEndElement();
+      writer.writeEndDocument();
+      writer.flush();
+      writer.close();
+    } catch (final XMLStreamException e) {
+      throw new IOException("Failed to write changes", e);
+    }
+  }
+
+  void add(Change change) {
+    changes.add(Objects.requireNonNull(change));
+  }
+
+  private void writeJsonString(JsonGenerator generator, String name, String value)
+      throws IOException {
+    if (value != null) {
+      generator.writeStringField(name, value);
+    }
+  }
+
+  private void writeXmlAttribute(XMLStreamWriter writer, String name, String value)
+      throws XMLStreamException {
+    if (value != null) {
+      writer.writeAttribute(name, value);
+    }
+  }
+}
@@ -0,0 +1,825 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.transformers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Exports an Orchestra file to a FIX Repository 2010 Edition unified repository and phrases file,
+ * as script orchestra2unified.xslt does, without XSLT
+ * <p>
+ * The Orchestra file is read twice with StAX, one entity at a time, such as a field or a message.
+ * The first pass collects the few values that are referenced ahead of their definition, such as
+ * field names, code sets and the length field of each data field. The second pass writes the
+ * unified repository and the phrases file together. Memory use depends on the size of those
+ * indexes and of the largest entity, not on the size of the file.
+ * <p>
+ * As the script does, duplicate fields and messages of other scenarios are written once, and
+ * members of all scenarios of a component, group or message are merged. A reference is named by
+ * the names of all scenarios of its entity, a Length field lists all data fields that refer to it,
+ * and every enum is supported. Output differs from that of the script in these ways:
+ * <ul>
+ * <li>Text identifiers of members of components and groups are formed alike in the repository and
+ * phrases, from the id of the component or group.</li>
+ * <li>A phrase is written only for documentation that has a text identifier, and only once.</li>
+ * <li>A member without a {@code supported} attribute is supported, the default of the schema.</li>
+ * </ul>
+ */
+public class Orchestra2UnifiedConverter {
+
+  private static final class CodeSet {
+    final Map<String, XmlElement> codes = new LinkedHashMap<>();
+    final String type;
+
+    CodeSet(String type) {
+      this.type = type;
+    }
+  }
+
+  /**
+   * Receives the elements of an Orchestra file one entity at a time
+   */
+  private interface Handler {
+    void endSection(XmlElement section) throws XMLStreamException;
+
+    void entity(XmlElement section, XmlElement entity) throws XMLStreamException;
+
+    void repository(XmlElement repository) throws XMLStreamException;
+
+    void startSection(XmlElement section) throws XMLStreamException;
+  }
+
+  /**
+   * First pass; collects values that are needed before they are read in the second pass
+   */
+  private final class Indexer implements Handler {
+    private final Set<String> structures = new HashSet<>();
+
+    @Override
+    public void endSection(XmlElement section) {
+      // no action
+    }
+
+    @Override
+    public void entity(XmlElement section, XmlElement entity) {
+      final String id = entity.getAttribute("id");
+      final String name = entity.getAttribute("name");
+      switch (entity.getLocalName()) {
+        case "metadata":
+          for (final XmlElement term : entity.getChildren()) {
+            if ("rights".equals(term.getLocalName())) {
+              rights = term.getText();
+            }
+          }
+          break;
+        case "codeSet":
+          indexCodeSet(entity);
+          break;
+        case "category":
+          if (entity.getAttribute("section") != null) {
+            categorySections.putIfAbsent(name, entity.getAttribute("section"));
+          }
+          break;
+        case "field":
+          // as the script selects every field with an id, names of all scenarios are listed
+          fieldNames.merge(id, name, Orchestra2UnifiedConverter::list);
+          if (entity.getAttribute("lengthId") != null) {
+            dataFieldIds.merge(entity.getAttribute("lengthId"), id,
+                Orchestra2UnifiedConverter::list);
+          }
+          break;
+        case "component":
+          componentNames.merge(id, name, Orchestra2UnifiedConverter::list);
+          indexMembers(entity, entity);
+          break;
+        case "group":
+          groupNames.merge(id, name, Orchestra2UnifiedConverter::list);
+          indexMembers(entity, entity);
+          break;
+        case "message":
+          for (final XmlElement child : entity.getChildren()) {
+            if ("structure".equals(child.getLocalName())) {
+              indexMembers(entity, child);
+            }
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    @Override
+    public void repository(XmlElement repository) {
+      version = repository.getAttribute("version");
+    }
+
+    @Override
+    public void startSection(XmlElement section) {
+      if ("components".equals(section.getLocalName())) {
+        hasComponents = true;
+      }
+    }
+
+    private void indexCodeSet(XmlElement codeSet) {
+      final CodeSet index = codeSets.computeIfAbsent(codeSet.getAttribute("name"),
+          k -> new CodeSet(codeSet.getAttribute("type")));
+      for (final XmlElement code : codeSet.getChildren()) {
+        if (!"code".equals(code.getLocalName())) {
+          continue;
+        }
+        // gather codes from all scenarios of a code set; keep only what is written as an enum
+        index.codes.computeIfAbsent(code.getAttribute("value"), k -> enumElement(code));
+      }
+    }
+
+    private void indexMembers(XmlElement entity, XmlElement container) {
+      final String key = entity.getLocalName() + ":" + entity.getAttribute("id");
+      if (!structures.add(key)) {
+        // another scenario; its members are merged into the first
+        final List<XmlElement> members = laterMembers.computeIfAbsent(key, k -> new ArrayList<>());
+        for (final XmlElement member : container.getChildren()) {
+          if (isReference(member)) {
+            members.add(member);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Second pass; writes the unified repository and phrases
+   */
+  private final class Writer implements Handler {
+    private boolean componentsOpen;
+    private boolean componentsWritten;
+    private final Set<String> fieldIds = new HashSet<>();
+    private final String generated = OffsetDateTime.now().toString();
+    private final Map<String, List<XmlElement>> mergedMembers = new HashMap<>();
+    private final Set<String> messageIds = new HashSet<>();
+    private final XMLStreamWriter phrasesWriter;
+    private final Set<String> textIds = new HashSet<>();
+    private final XMLStreamWriter unifiedWriter;
+
+    Writer(XMLStreamWriter unifiedWriter, XMLStreamWriter phrasesWriter) {
+      this.unifiedWriter = unifiedWriter;
+      this.phrasesWriter = phrasesWriter;
+    }
+
+    @Override
+    public void endSection(XmlElement section) throws XMLStreamException {
+      switch (section.getLocalName()) {
+        case "datatypes":
+        case "categories":
+        case "sections":
+        case "fields":
+        case "messages":
+          XmlElement.indent(unifiedWriter, 2);
+          unifiedWriter.writeEndElement();
+          break;
+        default:
+          break;
+      }
+    }
+
+    @Override
+    public void entity(XmlElement section, XmlElement entity) throws XMLStreamException {
+      writePhrases(entity);
+      final XmlElement converted;
+      switch (entity.getLocalName()) {
+        case "datatype":
+          converted = datatype(entity);
+          break;
+        case "category":
+          converted = new XmlElement("category");
+          copyAttributes(entity, converted, "name", "supported");
+          converted.setAttribute("id", entity.getAttribute("name"));
+          break;
+        case "section":
+          converted = new XmlElement("section");
+          copyAttributes(entity, converted, "supported");
+          converted.setAttribute("id", entity.getAttribute("name"));
+          setTextId(entity, converted);
+          break;
+        case "field":
+          converted = fieldIds.add(entity.getAttribute("id")) ? field(entity) : null;
+          break;
+        case "component":
+          converted = component(entity);
+          break;
+        case "group":
+          converted = group(entity);
+          break;
+        case "message":
+          converted = messageIds.add(entity.getAttribute("id")) ? message(entity) : null;
+          break;
+        default:
+          converted = null;
+          break;
+      }
+      if (converted != null) {
+        converted.write(unifiedWriter, 3);
+      }
+    }
+
+    @Override
+    public void repository(XmlElement repository) throws XMLStreamException {
+      unifiedWriter.writeStartDocument("UTF-8", "1.0");
+      final XmlElement fixRepository = new XmlElement("fixRepository");
+      fixRepository.setAttribute("edition", "2010");
+      fixRepository.setAttribute("generated", generated);
+      fixRepository.setAttribute("copyright", rights != null ? rights : "");
+      XmlElement.indent(unifiedWriter, 0);
+      fixRepository.writeStart(unifiedWriter);
+      final XmlElement fix = new XmlElement("fix");
+      fix.setAttribute("fixml", "1");
+      fix.setAttribute("version", version);
+      fix.setAttribute("hasComponents", hasComponents ? "1" : "0");
+      XmlElement.indent(unifiedWriter, 1);
+      fix.writeStart(unifiedWriter);
+
+      phrasesWriter.writeStartDocument("UTF-8", "1.0");
+      final XmlElement phrases = new XmlElement("phrases");
+      phrases.setAttribute("langId", "en");
+      phrases.setAttribute("version", version);
+      phrases.setAttribute("generated", generated);
+      XmlElement.indent(phrasesWriter, 0);
+      phrases.writeStart(phrasesWriter);
+    }
+
+    @Override
+    public void startSection(XmlElement section) throws XMLStreamException {
+      final String localName = section.getLocalName();
+      if ("messages".equals(localName)) {
+        endComponents();
+      }
+      switch (localName) {
+        case "datatypes":
+        case "categories":
+        case "sections":
+        case "fields":
+        case "messages":
+          final XmlElement element = new XmlElement(localName);
+          if ("fields".equals(localName) || "messages".equals(localName)) {
+            copyAttributes(section, element);
+          }
+          XmlElement.indent(unifiedWriter, 2);
+          element.writeStart(unifiedWriter);
+          break;
+        case "components":
+        case "groups":
+          startComponents(section);
+          break;
+        default:
+          break;
+      }
+    }
+
+    void end() throws XMLStreamException {
+      endComponents();
+      XmlElement.indent(unifiedWriter, 1);
+      unifiedWriter.writeEndElement();
+      XmlElement.indent(unifiedWriter, 0);
+      unifiedWriter.writeEndElement();
+      unifiedWriter.writeEndDocument();
+
+      XmlElement.indent(phrasesWriter, 0);
+      phrasesWriter.writeEndElement();
+      phrasesWriter.writeEndDocument();
+    }
+
+    /**
+     * Closes the components of the unified repository, which hold both components and groups, or
+     * writes it empty if there were neither
+     */
+    private void endComponents() throws XMLStreamException {
+      if (componentsOpen) {
+        XmlElement.indent(unifiedWriter, 2);
+        unifiedWriter.writeEndElement();
+        componentsOpen = false;
+      } else if (!componentsWritten) {
+        new XmlElement("components").write(unifiedWriter, 2);
+      }
+      componentsWritten = true;
+    }
+
+    private XmlElement component(XmlElement component) {
+      final XmlElement element = new XmlElement("component");
+      copyAttributes(component, element, "scenario", "supported");
+      element.setAttribute("repeating", "0");
+      element.setAttribute("type", "Block");
+      setTextId(component, element);
+      for (final XmlElement member : members(component, component)) {
+        element.addChild(member(member));
+      }
+      return element;
+    }
+
+    private void startComponents(XmlElement section) throws XMLStreamException {
+      if (!componentsWritten) {
+        final XmlElement element = new XmlElement("components");
+        if ("components".equals(section.getLocalName())) {
+          copyAttributes(section, element);
+        }
+        XmlElement.indent(unifiedWriter, 2);
+        element.writeStart(unifiedWriter);
+        componentsOpen = true;
+        componentsWritten = true;
+      }
+    }
+
+    private XmlElement datatype(XmlElement datatype) {
+      final XmlElement element = new XmlElement("datatype");
+      copyAttributes(datatype, element, "supported");
+      setTextId(datatype, element);
+      for (final XmlElement child : datatype.getChildren()) {
+        if ("mappedDatatype".equals(child.getLocalName())
+            && "XML".equals(child.getAttribute("standard"))) {
+          copyAttributes(child, element.addChild(new XmlElement("XML")), "standard");
+        }
+      }
+      return element;
+    }
+
+    private XmlElement field(XmlElement field) {
+      final XmlElement element = new XmlElement("field");
+      copyAttributes(field, element, "type", "discriminatorId", "lengthId", "scenario", "presence",
+          "supported");
+      setTextId(field, element);
+      final String type = field.getAttribute("type");
+      final CodeSet codeSet = codeSets.get(type);
+      element.setAttribute("type", codeSet != null ? codeSet.type : type);
+      if ("Length".equals(type)) {
+        element.setAttribute("associatedDataTag",
+            dataFieldIds.getOrDefault(field.getAttribute("id"), ""));
+      }
+      if (codeSet != null) {
+        // the script counts every code as supported, whatever its scenarios say
+        for (final XmlElement code : codeSet.codes.values()) {
+          copyAttributes(code, element.addChild(new XmlElement("enum")));
+        }
+      }
+      return element;
+    }
+
+    private XmlElement group(XmlElement group) {
+      final XmlElement element = new XmlElement("component");
+      copyAttributes(group, element, "scenario", "supported", "implMinOccurs", "implMaxOccurs");
+      element.setAttribute("repeating", "1");
+      element.setAttribute("type", "BlockRepeating");
+      setTextId(group, element);
+      final XmlElement repeatingGroup = element.addChild(new XmlElement("repeatingGroup"));
+      for (final XmlElement child : group.getChildren()) {
+        if ("numInGroup".equals(child.getLocalName())) {
+          repeatingGroup.setAttribute("id", child.getAttribute("id"));
+        }
+      }
+      // required attribute, but it was always empty
+      repeatingGroup.setAttribute("name", "");
+      // no source for old but required attributes
+      repeatingGroup.setAttribute("legacyIndent", "0");
+      repeatingGroup.setAttribute("legacyPosition", "0");
+      for (final XmlElement member : members(group, group)) {
+        repeatingGroup.addChild(member(member));
+      }
+      return element;
+    }
+
+    private XmlElement member(XmlElement member) {
+      final String localName = member.getLocalName();
+      final XmlElement element =
+          new XmlElement("fieldRef".equals(localName) ? "fieldRef" : "componentRef");
+      copyAttributes(member, element, "scenario", "supported", "presence", "implMaxOccurs");
+      element.setAttribute("name", referenceName(member));
+      final String presence = member.getAttribute("presence");
+      element.setAttribute("required", "required".equals(presence) ? "1" : "0");
+      if (!isSupported(member) || "forbidden".equals(presence)) {
+        element.setAttribute("supported", "0");
+      }
+      setTextId(member, element);
+      final String implMaxOccurs = member.getAttribute("implMaxOccurs");
+      if ("groupRef".equals(localName) && !"unbounded".equals(implMaxOccurs)) {
+        // empty if not given, as by the script
+        element.setAttribute("implMaxOccurs", implMaxOccurs != null ? implMaxOccurs : "");
+      }
+      // no source for old but required attributes
+      element.setAttribute("legacyIndent", "0");
+      element.setAttribute("legacyPosition", "0");
+      return element;
+    }
+
+    /**
+     * Members of an entity merged with those of other scenarios of it, once each by element and id
+     */
+    private List<XmlElement> members(XmlElement entity, XmlElement container) {
+      final String key = entity.getLocalName() + ":" + entity.getAttribute("id");
+      final List<XmlElement> cached = mergedMembers.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      final Map<String, XmlElement> members = new LinkedHashMap<>();
+      for (final XmlElement member : container.getChildren()) {
+        if (isReference(member)) {
+          members.putIfAbsent(member.getLocalName() + member.getAttribute("id"), member);
+        }
+      }
+      final List<XmlElement> later = laterMembers.get(key);
+      if (later == null) {
+        return new ArrayList<>(members.values());
+      }
+      for (final XmlElement member : later) {
+        members.putIfAbsent(member.getLocalName() + member.getAttribute("id"), member);
+      }
+      final List<XmlElement> merged = new ArrayList<>(members.values());
+      // later scenarios of a component or group are written with the same members
+      mergedMembers.put(key, merged);
+      return merged;
+    }
+
+    private XmlElement message(XmlElement message) {
+      final XmlElement element = new XmlElement("message");
+      copyAttributes(message, element, "scenario", "supported", "flow");
+      setTextId(message, element);
+      element.setAttribute("section",
+          categorySections.getOrDefault(message.getAttribute("category"), ""));
+      element.setAttribute("notReqXML", "0");
+      for (final XmlElement child : message.getChildren()) {
+        if ("structure".equals(child.getLocalName())) {
+          for (final XmlElement member : members(message, child)) {
+            element.addChild(member(member));
+          }
+        }
+      }
+      return element;
+    }
+
+    /**
+     * Writes a phrase for each documented element of an entity, in document order
+     */
+    private void writePhrases(XmlElement element) throws XMLStreamException {
+      for (final XmlElement child : element.getChildren()) {
+        if ("annotation".equals(child.getLocalName())) {
+          final String textId = textIdOf(element);
+          if (textId != null && hasDocumentation(element) && textIds.add(textId)) {
+            phrase(textId, child).write(phrasesWriter, 1);
+          }
+        } else {
+          writePhrases(child);
+        }
+      }
+    }
+  }
+
+  private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  private static final Set<String> SECTIONS = new HashSet<>(Arrays.asList("codeSets",
+      "datatypes", "categories", "sections", "fields", "components", "groups", "messages"));
+
+  /**
+   * Exports an Orchestra file
+   *
+   * @param args command line arguments
+   *        <ol>
+   *        <li>Name of Orchestra file to export</li>
+   *        <li>Name of Unified Repository file to create</li>
+   *        <li>Name of phrases file to create; optional, default is
+   *        {@code <version>_en_phrases.xml} in the directory of the Unified Repository file</li>
+   *        </ol>
+   * @throws IOException if a file cannot be read or written, or is not well formed
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.out.println(
+          "Usage: Orchestra2UnifiedConverter <input_xml_file_path> <output_file_path> [phrases_file_path]");
+      return;
+    }
+    new Orchestra2UnifiedConverter().convert(new File(args[0]), new File(args[1]),
+        args.length > 2 ? new File(args[2]) : null);
+  }
+
+  private static void copyAttributes(XmlElement source, XmlElement target, String... except) {
+    final List<String> excluded = Arrays.asList(except);
+    for (final Map.Entry<String, String> attribute : source.getAttributes().entrySet()) {
+      if (!excluded.contains(attribute.getKey())) {
+        target.setAttribute(attribute.getKey(), attribute.getValue());
+      }
+    }
+  }
+
+  private static boolean hasDocumentation(XmlElement element) {
+    for (final XmlElement child : element.getChildren()) {
+      if ("annotation".equals(child.getLocalName())) {
+        for (final XmlElement documentation : child.getChildren()) {
+          if ("documentation".equals(documentation.getLocalName())) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean isReference(XmlElement member) {
+    switch (member.getLocalName()) {
+      case "fieldRef":
+      case "componentRef":
+      case "groupRef":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static String list(String first, String second) {
+    return first + " " + second;
+  }
+
+  private static boolean isSupported(XmlElement element) {
+    final String supported = element.getAttribute("supported");
+    return supported == null || "supported".equals(supported);
+  }
+
+  private static XmlElement phrase(String textId, XmlElement annotation) {
+    final XmlElement phrase = new XmlElement("phrase");
+    phrase.setAttribute("textId", textId);
+    for (final XmlElement documentation : annotation.getChildren()) {
+      if ("documentation".equals(documentation.getLocalName())) {
+        final XmlElement text = phrase.addChild(new XmlElement("text"));
+        text.setAttribute("purpose", documentation.getAttribute("purpose"));
+        text.addChild(new XmlElement("para")).setText(documentation.getText());
+      }
+    }
+    return phrase;
+  }
+
+  /**
+   * Reads an element and its descendants; the content of documentation is kept as text
+   */
+  private static XmlElement readElement(XMLStreamReader reader) throws XMLStreamException {
+    final XmlElement root = toElement(reader);
+    XmlElement current = root;
+    int documentationDepth = 0;
+    while (current != null) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          if (documentationDepth > 0) {
+            documentationDepth++;
+          } else {
+            current = current.addChild(toElement(reader));
+            if ("documentation".equals(current.getLocalName())) {
+              documentationDepth = 1;
+            }
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          if (documentationDepth > 0 || !reader.isWhiteSpace()) {
+            current.appendText(reader.getTextCharacters(), reader.getTextStart(),
+                reader.getTextLength());
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (documentationDepth > 1) {
+            documentationDepth--;
+          } else {
+            documentationDepth = 0;
+            current = current != root ? current.getParent() : null;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return root;
+  }
+
+  private static XmlElement toElement(XMLStreamReader reader) {
+    final XmlElement element = new XmlElement(reader.getLocalName());
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+    }
+    return element;
+  }
+
+  private final Map<String, String> categorySections = new HashMap<>();
+  // names of all scenarios of an entity, separated by spaces
+  private final Map<String, String> componentNames = new HashMap<>();
+  private final Map<String, CodeSet> codeSets = new HashMap<>();
+  // field id of a Length field to the ids of the data fields that it gives the length of
+  private final Map<String, String> dataFieldIds = new HashMap<>();
+  private final Map<String, String> fieldNames = new HashMap<>();
+  private final Map<String, String> groupNames = new HashMap<>();
+  private boolean hasComponents;
+  private final XMLInputFactory inputFactory;
+  // members of scenarios of a component, group or message after the first
+  private final Map<String, List<XmlElement>> laterMembers = new HashMap<>();
+  private String rights;
+  private String version;
+
+  public Orchestra2UnifiedConverter() {
+    inputFactory = XMLInputFactory.newInstance();
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
+  /**
+   * Exports an Orchestra file
+   *
+   * @param inputXml Orchestra file
+   * @param outputXml Unified Repository file to create
+   * @param phrasesFile phrases file to create, or {@code null} for {@code <version>_en_phrases.xml}
+   *        in the directory of {@code outputXml}
+   * @throws IOException if a file cannot be read or written, or is not well formed
+   */
+  public void convert(File inputXml, File outputXml, File phrasesFile) throws IOException {
+    try {
+      try (InputStream inputStream = new BufferedInputStream(new FileInputStream(inputXml))) {
+        read(inputStream, new Indexer());
+      }
+      final File outputDir = outputXml.getAbsoluteFile().getParentFile();
+      outputDir.mkdirs();
+      final File phrasesXml =
+          phrasesFile != null ? phrasesFile : new File(outputDir, version + "_en_phrases.xml");
+      try (InputStream inputStream = new BufferedInputStream(new FileInputStream(inputXml));
+          OutputStream unifiedStream = new BufferedOutputStream(new FileOutputStream(outputXml));
+          OutputStream phrasesStream =
+              new BufferedOutputStream(new FileOutputStream(phrasesXml))) {
+        write(inputStream, unifiedStream, phrasesStream);
+      }
+    } catch (final XMLStreamException e) {
+      throw new IOException("Failed to export " + inputXml, e);
+    } finally {
+      clear();
+    }
+  }
+
+  private void clear() {
+    categorySections.clear();
+    codeSets.clear();
+    componentNames.clear();
+    dataFieldIds.clear();
+    fieldNames.clear();
+    groupNames.clear();
+    hasComponents = false;
+    laterMembers.clear();
+    rights = null;
+    version = null;
+  }
+
+  /**
+   * An enum of the unified repository, without documentation, from a code
+   */
+  private XmlElement enumElement(XmlElement code) {
+    final XmlElement element = new XmlElement("enum");
+    copyAttributes(code, element, "name", "id", "scenario", "supported");
+    element.setAttribute("symbolicName", code.getAttribute("name"));
+    setTextId(code, element);
+    return element;
+  }
+
+  private void read(InputStream inputStream, Handler handler) throws XMLStreamException {
+    final XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+    try {
+      int depth = 0;
+      XmlElement section = null;
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            if (depth == 0) {
+              handler.repository(toElement(reader));
+              depth++;
+            } else if (depth == 1 && SECTIONS.contains(reader.getLocalName())) {
+              section = toElement(reader);
+              handler.startSection(section);
+              depth++;
+            } else {
+              // consumes the end of the entity
+              handler.entity(section, readElement(reader));
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            depth--;
+            if (depth == 1 && section != null) {
+              handler.endSection(section);
+              section = null;
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  private String referenceName(XmlElement member) {
+    final String id = member.getAttribute("id");
+    switch (member.getLocalName()) {
+      case "fieldRef":
+        return fieldNames.getOrDefault(id, "");
+      case "componentRef":
+        return componentNames.getOrDefault(id, "");
+      default:
+        return groupNames.getOrDefault(id, "");
+    }
+  }
+
+  private void setTextId(XmlElement source, XmlElement target) {
+    if (hasDocumentation(source)) {
+      target.setAttribute("textId", textIdOf(source));
+    }
+  }
+
+  /**
+   * Text identifier of a documented element, by the conventions of the Unified Repository
+   *
+   * @return a text identifier, or {@code null} if the element has none in a unified repository
+   */
+  private String textIdOf(XmlElement element) {
+    switch (element.getLocalName()) {
+      case "datatype":
+        return "DT_" + element.getAttribute("name");
+      case "section":
+        return "SCT_" + element.getAttribute("name");
+      case "field":
+        return "FIELD_" + element.getAttribute("id");
+      case "code":
+        return "ENUM_" + element.getParent().getAttribute("id") + "_"
+            + element.getAttribute("value");
+      case "component":
+      case "group":
+        return "COMP_" + element.getAttribute("name") + "_TITLE";
+      case "message":
+        return "MSG_" + element.getAttribute("id") + "_TITLE";
+      case "fieldRef":
+      case "componentRef":
+      case "groupRef":
+        final XmlElement parent = element.getParent();
+        final String reference = "fieldRef".equals(element.getLocalName())
+            ? element.getAttribute("id")
+            : referenceName(element);
+        if (parent == null) {
+          return null;
+        } else if ("structure".equals(parent.getLocalName()) && parent.getParent() != null) {
+          return "MSG_" + parent.getParent().getAttribute("id") + "_REF_" + reference;
+        } else if ("component".equals(parent.getLocalName())
+            || "group".equals(parent.getLocalName())) {
+          return "CMP_" + parent.getAttribute("id") + "_REF_" + reference;
+        } else {
+          return null;
+        }
+      default:
+        return null;
+    }
+  }
+
+  private void write(InputStream inputStream, OutputStream unifiedStream,
+      OutputStream phrasesStream) throws XMLStreamException {
+    final XMLStreamWriter unifiedWriter =
+        OUTPUT_FACTORY.createXMLStreamWriter(unifiedStream, "UTF-8");
+    final XMLStreamWriter phrasesWriter =
+        OUTPUT_FACTORY.createXMLStreamWriter(phrasesStream, "UTF-8");
+    final Writer writer = new Writer(unifiedWriter, phrasesWriter);
+    read(inputStream, writer);
+    writer.end();
+    unifiedWriter.flush();
+    unifiedWriter.close();
+    phrasesWriter.flush();
+    phrasesWriter.close();
+  }
+}
@@ -14,54 +14,46 @@
  */
 package io.fixprotocol.orchestra.transformers;
 
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
-import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.purl.dc.elements._1.ObjectFactory;
 import org.purl.dc.elements._1.SimpleLiteral;
 import org.purl.dc.terms.ElementOrRefinementContainer;
-import io.fixprotocol._2020.orchestra.repository.Actors;
-import io.fixprotocol._2020.orchestra.repository.Categories;
 import io.fixprotocol._2020.orchestra.repository.CategoryType;
-import io.fixprotocol._2020.orchestra.repository.CodeSetType;
 import io.fixprotocol._2020.orchestra.repository.CodeSets;
-import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
-import io.fixprotocol._2020.orchestra.repository.ComponentType;
 import io.fixprotocol._2020.orchestra.repository.Components;
-import io.fixprotocol._2020.orchestra.repository.Datatypes;
-import io.fixprotocol._2020.orchestra.repository.FieldRefType;
 import io.fixprotocol._2020.orchestra.repository.FieldType;
 import io.fixprotocol._2020.orchestra.repository.Fields;
-import io.fixprotocol._2020.orchestra.repository.GroupRefType;
-import io.fixprotocol._2020.orchestra.repository.GroupType;
 import io.fixprotocol._2020.orchestra.repository.Groups;
 import io.fixprotocol._2020.orchestra.repository.MessageType;
 import io.fixprotocol._2020.orchestra.repository.Messages;
 import io.fixprotocol._2020.orchestra.repository.Repository;
-import io.fixprotocol._2020.orchestra.repository.Sections;
+import io.fixprotocol.orchestra.repository.io.RepositoryIO;
 
 /**
  * Selectively compresses an Orchestra file <br>
@@ -78,6 +70,9 @@ import io.fixprotocol._2020.orchestra.repository.Sections;
  * compressed).</li>
  * <li>Attributes of copied elements are unchanged.</li>
  * </ul>
+ * Several profiles, each a selection of messages with its own output file, may be compressed from
+ * one load of the input file. Closures of profiles are computed in parallel, and retained elements
+ * are shared by the output repositories rather than copied.
  *
  * @author Don Mendelson
  *
@@ -89,20 +84,20 @@ public class RepositoryCompressor {
     private String inputFile;
     private Predicate<MessageType> messagePredicate;
     private String outputFile;
-    private String logFile;
-    private boolean verbose;
+    private final List<Profile> profiles = new ArrayList<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
 
     public RepositoryCompressor build() {
       return new RepositoryCompressor(this);
     }
 
-    public Builder eventLog(String logFile) {
-      this.logFile = logFile;
+    public Builder profile(String outputFile, Predicate<MessageType> messagePredicate) {
+      this.profiles.add(new Profile(outputFile, messagePredicate));
       return this;
     }
 
-    public Builder verbose(boolean verbose) {
-      this.verbose = verbose;
+    public Builder threads(int threads) {
+      this.threads = threads;
       return this;
     }
 
@@ -122,6 +117,27 @@ public class RepositoryCompressor {
     }
   }
 
+  /**
+   * A selection of messages to compress to an output file
+   */
+  public static final class Profile {
+    private final Predicate<MessageType> messagePredicate;
+    private final String outputFile;
+
+    public Profile(String outputFile, Predicate<MessageType> messagePredicate) {
+      this.outputFile = outputFile;
+      this.messagePredicate = messagePredicate;
+    }
+
+    public Predicate<MessageType> getMessagePredicate() {
+      return messagePredicate;
+    }
+
+    public String getOutputFile() {
+      return outputFile;
+    }
+  }
+
   static class HasCategory implements Predicate<MessageType> {
 
     private final String category;
@@ -230,10 +246,20 @@ public class RepositoryCompressor {
    * -i,--input &lt;arg&gt; path of input file
    * -n,--notcategory &lt;arg&gt; select messages except category
    * -o,--output &lt;arg&gt; path of output file
+   * -p,--profiles &lt;arg&gt; path of profiles file
    * -s,--section &lt;arg&gt; select messages by section
    * -x,--notsection &lt;arg&gt; select messages except section
    * </pre>
    *
+   * Each line of a profiles file names an output file followed by selection options, for example
+   *
+   * <pre>
+   * trade.xml --section Trade --notcategory CrossOrders
+   * </pre>
+   *
+   * Blank lines and lines starting with '#' are ignored. An output file and selection options on
+   * the command line are compressed as one more profile.
+   *
    * @param args command line arguments
    * @throws Exception if an IO error occurs or a file cannot be parsed
    */
@@ -243,21 +269,13 @@ public class RepositoryCompressor {
   }
 
   public static Builder parseArgs(String[] args) throws ParseException {
-    final Options options = new Options();
+    final Options options = createSelectionOptions();
     options.addOption(Option.builder("i").desc("path of input file").longOpt("input")
         .numberOfArgs(1).required().build());
     options.addOption(Option.builder("o").desc("path of output file").longOpt("output")
-        .numberOfArgs(1).required().build());
-    options.addOption(Option.builder("c").desc("select messages by category").longOpt("category")
         .numberOfArgs(1).build());
-    options.addOption(Option.builder("s").desc("select messages by section").longOpt("section")
+    options.addOption(Option.builder("p").desc("path of profiles file").longOpt("profiles")
         .numberOfArgs(1).build());
-    options.addOption(Option.builder("f").desc("select messages by flow").longOpt("flow")
-        .numberOfArgs(1).build());
-    options.addOption(Option.builder("n").desc("select messages except category")
-        .longOpt("notcategory").numberOfArgs(1).build());
-    options.addOption(Option.builder("x").desc("select messages except section")
-        .longOpt("notsection").numberOfArgs(1).build());
     options.addOption(Option.builder("?").desc("display usage").longOpt("help").build());
 
     final DefaultParser parser = new DefaultParser();
@@ -277,50 +295,23 @@ public class RepositoryCompressor {
 
       builder.inputFile = cmd.getOptionValue("i");
       builder.outputFile = cmd.getOptionValue("o");
-
-      if (cmd.hasOption("c")) {
-        final String category = cmd.getOptionValue("c");
-        builder.messagePredicate = new HasCategory(category);
-      }
-
-      if (cmd.hasOption("notcategory")) {
-        final String category = cmd.getOptionValue("notcategory");
-        if (builder.messagePredicate == null) {
-          builder.messagePredicate = new NotCategory(category);
-        } else {
-          builder.messagePredicate = builder.messagePredicate.and(new NotCategory(category));
+      builder.messagePredicate = parseMessagePredicate(cmd);
+
+      if (cmd.hasOption("p")) {
+        parseProfiles(cmd.getOptionValue("p"), builder);
+        if (builder.outputFile != null) {
+          if (builder.messagePredicate == null) {
+            throw new ParseException(
+                "Must select one or more selection criteria for output: category / section / flow");
+          }
+          builder.profile(builder.outputFile, builder.messagePredicate);
         }
+        return builder;
       }
 
-      if (cmd.hasOption("s")) {
-        final String section = cmd.getOptionValue("s");
-        if (builder.messagePredicate == null) {
-          builder.messagePredicate = new HasSection(section, isCategoryInSection);
-        } else {
-          builder.messagePredicate =
-              builder.messagePredicate.and(new HasSection(section, isCategoryInSection));
-        }
-      }
-
-      if (cmd.hasOption("notsection")) {
-        final String section = cmd.getOptionValue("notsection");
-        if (builder.messagePredicate == null) {
-          builder.messagePredicate = new NotSection(section, isCategoryInSection);
-        } else {
-          builder.messagePredicate =
-              builder.messagePredicate.and(new NotSection(section, isCategoryInSection));
-        }
+      if (builder.outputFile == null) {
+        throw new ParseException("Must specify an output file or a profiles file");
       }
-
-      if (cmd.hasOption("f")) {
-        final String flow = cmd.getOptionValue("f");
-        if (builder.messagePredicate == null) {
-          builder.messagePredicate = new HasFlow(flow);
-        } else {
-          builder.messagePredicate = builder.messagePredicate.and(new HasFlow(flow));
-        }
-      }
-
       if (builder.messagePredicate == null) {
         logger.fatal(
             "RepositoryCompressor invalid arguments; Must select one or more selection criteria: category / section / flow");
@@ -338,28 +329,129 @@ public class RepositoryCompressor {
     return m -> m.getFlow() != null;
   }
 
-  private final List<BigInteger> componentIdList = new ArrayList<>();
-  private List<ComponentType> componentList = new ArrayList<>();
-  private final List<BigInteger> fieldIdList = new ArrayList<>();
-  private final List<BigInteger> groupIdList = new ArrayList<>();
-  private List<GroupType> groupList;
+  private static Options createSelectionOptions() {
+    final Options options = new Options();
+    options.addOption(Option.builder("c").desc("select messages by category").longOpt("category")
+        .numberOfArgs(1).build());
+    options.addOption(Option.builder("s").desc("select messages by section").longOpt("section")
+        .numberOfArgs(1).build());
+    options.addOption(Option.builder("f").desc("select messages by flow").longOpt("flow")
+        .numberOfArgs(1).build());
+    options.addOption(Option.builder("n").desc("select messages except category")
+        .longOpt("notcategory").numberOfArgs(1).build());
+    options.addOption(Option.builder("x").desc("select messages except section")
+        .longOpt("notsection").numberOfArgs(1).build());
+    return options;
+  }
+
+  private static Predicate<MessageType> parseMessagePredicate(CommandLine cmd) {
+    Predicate<MessageType> messagePredicate = null;
+    if (cmd.hasOption("c")) {
+      final String category = cmd.getOptionValue("c");
+      messagePredicate = new HasCategory(category);
+    }
+
+    if (cmd.hasOption("notcategory")) {
+      final String category = cmd.getOptionValue("notcategory");
+      if (messagePredicate == null) {
+        messagePredicate = new NotCategory(category);
+      } else {
+        messagePredicate = messagePredicate.and(new NotCategory(category));
+      }
+    }
+
+    if (cmd.hasOption("s")) {
+      final String section = cmd.getOptionValue("s");
+      if (messagePredicate == null) {
+        messagePredicate = new HasSection(section, isCategoryInSection);
+      } else {
+        messagePredicate = messagePredicate.and(new HasSection(section, isCategoryInSection));
+      }
+    }
+
+    if (cmd.hasOption("notsection")) {
+      final String section = cmd.getOptionValue("notsection");
+      if (messagePredicate == null) {
+        messagePredicate = new NotSection(section, isCategoryInSection);
+      } else {
+        messagePredicate = messagePredicate.and(new NotSection(section, isCategoryInSection));
+      }
+    }
+
+    if (cmd.hasOption("f")) {
+      final String flow = cmd.getOptionValue("f");
+      if (messagePredicate == null) {
+        messagePredicate = new HasFlow(flow);
+      } else {
+        messagePredicate = messagePredicate.and(new HasFlow(flow));
+      }
+    }
+    return messagePredicate;
+  }
+
+  private static void parseProfiles(String profilesFile, Builder builder) throws ParseException {
+    final List<String> lines;
+    try {
+      lines = Files.readAllLines(Paths.get(profilesFile), StandardCharsets.UTF_8);
+    } catch (final IOException e) {
+      throw new ParseException(
+          "Failed to read profiles file " + profilesFile + "; " + e.getMessage());
+    }
+    final Options options = createSelectionOptions();
+    final DefaultParser parser = new DefaultParser();
+    for (int i = 0; i < lines.size(); i++) {
+      final String line = lines.get(i).trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      final String[] tokens = line.split("\\s+");
+      final String[] args = new String[tokens.length - 1];
+      System.arraycopy(tokens, 1, args, 0, args.length);
+      final Predicate<MessageType> messagePredicate =
+          parseMessagePredicate(parser.parse(options, args));
+      if (messagePredicate == null) {
+        throw new ParseException(String.format(
+            "Must select one or more selection criteria at line %d of %s", i + 1, profilesFile));
+      }
+      builder.profile(tokens[0], messagePredicate);
+    }
+    if (builder.profiles.isEmpty()) {
+      throw new ParseException("No profiles in " + profilesFile);
+    }
+  }
+
+  private static ElementOrRefinementContainer withContributor(
+      ElementOrRefinementContainer inMetadata) {
+    final ElementOrRefinementContainer metadata = new ElementOrRefinementContainer();
+    if (inMetadata != null) {
+      metadata.getAny().addAll(inMetadata.getAny());
+    }
+    final ObjectFactory objectFactory = new ObjectFactory();
+    final SimpleLiteral contributor = new SimpleLiteral();
+    contributor.getContent().add("RepositoryCompressor");
+    metadata.getAny().add(objectFactory.createContributor(contributor));
+    return metadata;
+  }
+
   private final String inputFile;
   private final Predicate<MessageType> messagePredicate;
   private final String outputFile;
-  private final File logFile;
-
-
-  private final boolean verbose;
+  private final List<Profile> profiles;
+  private final int threads;
 
   protected RepositoryCompressor(Builder builder) {
     this.inputFile = builder.inputFile;
     this.outputFile = builder.outputFile;
     this.messagePredicate = builder.messagePredicate;
-    this.logFile = builder.logFile != null ? new File(builder.logFile) : null;
-    this.verbose = builder.verbose;
+    this.profiles = new ArrayList<>(builder.profiles);
+    this.threads = Math.max(1, builder.threads);
   }
 
   public void compress() throws Exception {
+    if (!profiles.isEmpty()) {
+      compressProfiles();
+      return;
+    }
 
     try (InputStream is = new FileInputStream(this.inputFile);
         OutputStream os = new FileOutputStream(this.outputFile)) {
@@ -369,154 +461,118 @@ public class RepositoryCompressor {
 
   private void compress(InputStream is, OutputStream os,
       Predicate<? super MessageType> messagePredicate) throws JAXBException, IOException {
-
-    final Level level = verbose ? Level.DEBUG : Level.ERROR;
     final Repository inRepository = unmarshal(is);
     isCategoryInSection.setCategories(inRepository.getCategories().getCategory());
-    final Repository outRepository = new Repository();
-    inRepository.copyTo(null, outRepository, AttributeCopyStrategy.INSTANCE);
+    final Components components = inRepository.getComponents();
+    final RepositoryGraph graph = new RepositoryGraph(
+        components != null ? components.getComponent() : null, inRepository.getGroups().getGroup());
+    marshal(select(inRepository, graph, messagePredicate), os);
+  }
 
-    final ElementOrRefinementContainer metadata =
-        (ElementOrRefinementContainer) inRepository.getMetadata().clone();
-    final List<JAXBElement<SimpleLiteral>> literals = metadata.getAny();
-    final ObjectFactory objectFactory = new ObjectFactory();
-    final SimpleLiteral contributor = new SimpleLiteral();
-    contributor.getContent().add("RepositoryCompressor");
-    literals.add(objectFactory.createContributor(contributor));
-    outRepository.setMetadata(metadata);
-    outRepository.setCategories((Categories) inRepository.getCategories().clone());
-    outRepository.setSections((Sections) inRepository.getSections().clone());
-    outRepository.setDatatypes((Datatypes) inRepository.getDatatypes().clone());
-    final Actors actors = inRepository.getActors();
-    if (actors != null) {
-      outRepository.setActors((Actors) actors.clone());
+  /**
+   * Compresses each profile from one load of the input file
+   * <p>
+   * Output repositories share the elements of the input repository, which is not modified.
+   */
+  private void compressProfiles() throws Exception {
+    final Repository inRepository;
+    try (InputStream is = new FileInputStream(this.inputFile)) {
+      inRepository = unmarshal(is);
     }
+    isCategoryInSection.setCategories(inRepository.getCategories().getCategory());
     final Components components = inRepository.getComponents();
-    if (components != null) {
-      final Components inComponents = (Components) components.clone();
-      componentList = inComponents.getComponent();
-    }
-    final Groups inGroups = (Groups) inRepository.getGroups().clone();
-    groupList = inGroups.getGroup();
-
-    final Messages inMessages = (Messages) inRepository.getMessages().clone();
-    final List<MessageType> messageList = inMessages.getMessage();
-    final List<MessageType> filteredMessages =
-        messageList.stream().filter(messagePredicate).collect(Collectors.toList());
-    filteredMessages.forEach(m -> walk(m.getStructure().getComponentRefOrGroupRefOrFieldRef()));
-
-    final List<BigInteger> distinctFieldIds =
-        fieldIdList.stream().distinct().collect(Collectors.toList());
-    final Fields inFields = (Fields) inRepository.getFields().clone();
-    final List<FieldType> fieldsWithFlow = inFields.getField().stream()
-        .filter(f -> distinctFieldIds.contains(f.getId())).collect(Collectors.toList());
+    final RepositoryGraph graph = new RepositoryGraph(
+        components != null ? components.getComponent() : null, inRepository.getGroups().getGroup());
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(threads, profiles.size()));
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (final Profile profile : profiles) {
+        futures.add(executor.submit(() -> {
+          final Repository outRepository =
+              select(inRepository, graph, profile.getMessagePredicate());
+          try (OutputStream os = new FileOutputStream(profile.getOutputFile())) {
+            marshal(outRepository, os);
+          }
+          logger.info("RepositoryCompressor wrote {} messages to {}",
+              outRepository.getMessages().getMessage().size(), profile.getOutputFile());
+          return null;
+        }));
+      }
+      for (final Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (final ExecutionException e) {
+          final Throwable cause = e.getCause();
+          throw cause instanceof Exception ? (Exception) cause : e;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void marshal(Repository jaxbElement, OutputStream os) throws JAXBException {
+    RepositoryIO.getInstance().write(jaxbElement, os);
+  }
+
+  /**
+   * Selects messages and the elements they reference without copying them
+   * <p>
+   * Elements of the output repository are shared with the input repository, which is not
+   * modified, so the heap cost of compression is little more than the input model.
+   */
+  private Repository select(Repository inRepository, RepositoryGraph graph,
+      Predicate<? super MessageType> messagePredicate) {
+    final Repository outRepository = new Repository();
+    inRepository.copyTo(null, outRepository, AttributeCopyStrategy.INSTANCE);
+    outRepository.setMetadata(withContributor(inRepository.getMetadata()));
+    outRepository.setCategories(inRepository.getCategories());
+    outRepository.setSections(inRepository.getSections());
+    outRepository.setDatatypes(inRepository.getDatatypes());
+    outRepository.setActors(inRepository.getActors());
+
+    final List<MessageType> filteredMessages = inRepository.getMessages().getMessage().stream()
+        .filter(messagePredicate).collect(Collectors.toList());
+    final RepositoryGraph.Reachability reachability = graph.closure(filteredMessages);
+
+    final List<FieldType> fieldsWithFlow = inRepository.getFields().getField().stream()
+        .filter(f -> reachability.hasField(f.getId().intValue())).collect(Collectors.toList());
     final Fields outFields = new Fields();
     outFields.getField().addAll(fieldsWithFlow);
     outRepository.setFields(outFields);
 
-    final List<String> typeList =
-        fieldsWithFlow.stream().map(FieldType::getType).distinct().collect(Collectors.toList());
-    final CodeSets inCodeSets = (CodeSets) inRepository.getCodeSets().clone();
-    final List<CodeSetType> codeSetsWithFlow = inCodeSets.getCodeSet().stream()
-        .filter(cs -> typeList.contains(cs.getName())).collect(Collectors.toList());
+    final Set<String> typeSet =
+        fieldsWithFlow.stream().map(FieldType::getType).collect(Collectors.toSet());
     final CodeSets outCodeSets = new CodeSets();
-    outCodeSets.getCodeSet().addAll(codeSetsWithFlow);
+    inRepository.getCodeSets().getCodeSet().stream().filter(cs -> typeSet.contains(cs.getName()))
+        .forEach(outCodeSets.getCodeSet()::add);
     outRepository.setCodeSets(outCodeSets);
 
-    final List<BigInteger> distinctComponentsIds =
-        componentIdList.stream().distinct().collect(Collectors.toList());
-    final List<ComponentType> componentsWithFlow = componentList.stream()
-        .filter(c -> distinctComponentsIds.contains(c.getId())).collect(Collectors.toList());
     final Components outComponents = new Components();
-    outComponents.getComponent().addAll(componentsWithFlow);
+    final Components inComponents = inRepository.getComponents();
+    if (inComponents != null) {
+      inComponents.getComponent().stream()
+          .filter(c -> reachability.hasComponent(c.getId().intValue()))
+          .forEach(outComponents.getComponent()::add);
+    }
     outRepository.setComponents(outComponents);
 
-    final List<BigInteger> distinctGroupIds =
-        groupIdList.stream().distinct().collect(Collectors.toList());
-    final List<GroupType> groupWithFlow = groupList.stream()
-        .filter(c -> distinctGroupIds.contains(c.getId())).collect(Collectors.toList());
     final Groups outGroups = new Groups();
-    outGroups.getGroup().addAll(groupWithFlow);
+    inRepository.getGroups().getGroup().stream()
+        .filter(g -> reachability.hasGroup(g.getId().intValue()))
+        .forEach(outGroups.getGroup()::add);
     outRepository.setGroups(outGroups);
 
     final Messages outMessages = new Messages();
     outMessages.getMessage().addAll(filteredMessages);
     outRepository.setMessages(outMessages);
-    marshal(outRepository, os);
-  }
-
-  private ComponentType getComponent(BigInteger id) {
-    for (final ComponentType component : componentList) {
-      if (component.getId().equals(id)) {
-        return component;
-      }
-    }
-    return null;
-  }
-
-  private List<Object> getComponentMembers(BigInteger id) {
-    final ComponentType component = getComponent(id);
-    if (component != null) {
-      return component.getComponentRefOrGroupRefOrFieldRef();
-    } else {
-      return null;
-    }
-  }
-
-  private GroupType getGroup(BigInteger id) {
-    for (final GroupType group : groupList) {
-      if (group.getId().equals(id)) {
-        return group;
-      }
-    }
-    return null;
-  }
-
-  private List<Object> getGroupMembers(BigInteger id) {
-    final GroupType component = getGroup(id);
-    if (component != null) {
-      return component.getComponentRefOrGroupRefOrFieldRef();
-    } else {
-      return null;
-    }
-  }
-
-  private void marshal(Repository jaxbElement, OutputStream os) throws JAXBException {
-    final JAXBContext jaxbContext = JAXBContext.newInstance(Repository.class);
-    final Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-    jaxbMarshaller.setProperty("jaxb.formatted.output", true);
-    jaxbMarshaller.marshal(jaxbElement, os);
+    return outRepository;
   }
 
   private Repository unmarshal(InputStream is) throws JAXBException {
-    final JAXBContext jaxbContext = JAXBContext.newInstance(Repository.class);
-    final Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-    return (Repository) jaxbUnmarshaller.unmarshal(is);
-  }
-
-  private void walk(List<Object> list) {
-    for (final Object obj : list) {
-      if (obj instanceof GroupRefType) {
-        final GroupRefType groupRef = (GroupRefType) obj;
-        final GroupType group = getGroup(groupRef.getId());
-        if (group == null) {
-          logger.error("Group missing for groupRef; ID={}", groupRef.getId().intValue());
-          return;
-        }
-        fieldIdList.add(group.getNumInGroup().getId());
-        groupIdList.add(groupRef.getId());
-        // recursion on referenced component
-        walk(getGroupMembers(groupRef.getId()));
-      } else if (obj instanceof ComponentRefType) {
-        final ComponentRefType componentRef = (ComponentRefType) obj;
-        componentIdList.add(componentRef.getId());
-        // recursion on referenced component
-        walk(getComponentMembers(componentRef.getId()));
-      } else if (obj instanceof FieldRefType) {
-        final FieldRefType fieldRef = (FieldRefType) obj;
-        fieldIdList.add(fieldRef.getId());
-      }
-    }
+    return RepositoryIO.getInstance().read(is);
   }
 
 }
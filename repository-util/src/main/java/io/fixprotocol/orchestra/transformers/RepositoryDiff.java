@@ -0,0 +1,591 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.transformers;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRuleType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.Datatype;
+import io.fixprotocol._2020.orchestra.repository.Datatypes;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldRuleType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol._2020.orchestra.repository.SupportType;
+import io.fixprotocol.orchestra.repository.io.RepositoryIO;
+import io.fixprotocol.orchestra.transformers.ChangeSet.Change;
+import io.fixprotocol.orchestra.transformers.ChangeSet.ChangeType;
+import io.fixprotocol.orchestra.transformers.ChangeSet.Difference;
+import io.fixprotocol.orchestra.transformers.ChangeSet.ElementKind;
+
+/**
+ * Reports structural changes between two versions of an Orchestra repository
+ * <p>
+ * Datatypes, code sets and their codes, fields, components, groups and messages are aligned by
+ * id and scenario (datatypes by name, codes by id within their code set) through hash indexes, so
+ * the cost is linear in the size of the repositories. Matched elements are compared attribute by
+ * attribute; members of components, groups and messages are compared by reference, with their
+ * presence, constant value and rules. Documentation is not compared.
+ * <p>
+ * Changes are written as JSON or XML; see {@link ChangeSet}.
+ */
+public class RepositoryDiff {
+
+  public static class Builder {
+    private String baseFile;
+    private Format format;
+    private String inputFile;
+    private String outputFile;
+
+    public Builder baseFile(String baseFile) {
+      this.baseFile = baseFile;
+      return this;
+    }
+
+    public RepositoryDiff build() {
+      return new RepositoryDiff(this);
+    }
+
+    public Builder format(Format format) {
+      this.format = format;
+      return this;
+    }
+
+    public Builder inputFile(String inputFile) {
+      this.inputFile = inputFile;
+      return this;
+    }
+
+    public Builder outputFile(String outputFile) {
+      this.outputFile = outputFile;
+      return this;
+    }
+  }
+
+  /**
+   * Output format of a change set
+   */
+  public enum Format {
+    JSON, XML
+  }
+
+  private static final String BASE_SCENARIO = "base";
+  private static final String MEMBERS = "members";
+  private static final Logger logger = LogManager.getLogger(RepositoryDiff.class);
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * usage: RepositoryDiff
+   *
+   * <pre>
+   * -?,--help display usage
+   * -b,--base &lt;arg&gt; path of base (old) repository file
+   * -f,--format &lt;arg&gt; output format, json or xml; default from extension of output file
+   * -i,--input &lt;arg&gt; path of input (new) repository file
+   * -o,--output &lt;arg&gt; path of output file; default standard output
+   * </pre>
+   *
+   * @param args command line arguments
+   * @throws Exception if an IO error occurs or a file cannot be parsed
+   */
+  public static void main(String[] args) throws Exception {
+    final RepositoryDiff diff = RepositoryDiff.parseArgs(args).build();
+    diff.diff();
+  }
+
+  public static Builder parseArgs(String[] args) throws ParseException {
+    final Options options = new Options();
+    options.addOption(Option.builder("b").desc("path of base (old) repository file")
+        .longOpt("base").numberOfArgs(1).required().build());
+    options.addOption(Option.builder("i").desc("path of input (new) repository file")
+        .longOpt("input").numberOfArgs(1).required().build());
+    options.addOption(Option.builder("o").desc("path of output file").longOpt("output")
+        .numberOfArgs(1).build());
+    options.addOption(Option.builder("f").desc("output format, json or xml").longOpt("format")
+        .numberOfArgs(1).build());
+    options.addOption(Option.builder("?").desc("display usage").longOpt("help").build());
+
+    final DefaultParser parser = new DefaultParser();
+    try {
+      final CommandLine cmd = parser.parse(options, args);
+      if (cmd.hasOption("?")) {
+        final HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("RepositoryDiff", options);
+        System.exit(0);
+      }
+      final Builder builder = new Builder().baseFile(cmd.getOptionValue("b"))
+          .inputFile(cmd.getOptionValue("i")).outputFile(cmd.getOptionValue("o"));
+      if (cmd.hasOption("f")) {
+        try {
+          builder.format(Format.valueOf(cmd.getOptionValue("f").toUpperCase()));
+        } catch (final IllegalArgumentException e) {
+          throw new ParseException("Unknown format " + cmd.getOptionValue("f"));
+        }
+      }
+      return builder;
+    } catch (final ParseException e) {
+      logger.fatal("RepositoryDiff invalid arguments", e);
+      throw e;
+    }
+  }
+
+  private static <T> List<T> orEmpty(List<T> list) {
+    return list != null ? list : new ArrayList<>();
+  }
+
+  private static void put(Map<String, String> attributes, String name, Object value) {
+    if (value instanceof PresenceT) {
+      attributes.put(name, ((PresenceT) value).value());
+    } else if (value instanceof SupportType) {
+      attributes.put(name, ((SupportType) value).value());
+    } else if (value != null) {
+      attributes.put(name, value.toString());
+    }
+  }
+
+  private static String rule(PresenceT presence, String when) {
+    return presence != null ? presence.value() + " when " + when : when;
+  }
+
+  static String scenario(String scenario) {
+    return scenario != null ? scenario : BASE_SCENARIO;
+  }
+
+  private final String baseFile;
+  private final Format format;
+  private final String inputFile;
+  private final String outputFile;
+
+  private RepositoryDiff(Builder builder) {
+    this.baseFile = builder.baseFile;
+    this.inputFile = builder.inputFile;
+    this.outputFile = builder.outputFile;
+    if (builder.format != null) {
+      this.format = builder.format;
+    } else {
+      this.format = outputFile != null && outputFile.toLowerCase().endsWith(".json") ? Format.JSON
+          : Format.XML;
+    }
+  }
+
+  /**
+   * Compares the base and input files and writes changes to the output file or standard output
+   *
+   * @return changes from the base to the input repository
+   * @throws IOException if a file cannot be read or written
+   * @throws JAXBException if a repository file cannot be parsed
+   */
+  public ChangeSet diff() throws IOException, JAXBException {
+    Objects.requireNonNull(baseFile, "Base file missing");
+    Objects.requireNonNull(inputFile, "Input file missing");
+    final long startNanos = System.nanoTime();
+    final Repository base;
+    final Repository input;
+    try (InputStream is = new FileInputStream(baseFile)) {
+      base = RepositoryIO.getInstance().read(is);
+    }
+    try (InputStream is = new FileInputStream(inputFile)) {
+      input = RepositoryIO.getInstance().read(is);
+    }
+    final ChangeSet changes = diff(base, input);
+    if (outputFile != null) {
+      try (OutputStream os = new FileOutputStream(outputFile)) {
+        write(changes, os);
+      }
+    } else {
+      write(changes, System.out);
+      System.out.flush();
+    }
+    logger.info("RepositoryDiff {} in {} ms", changes,
+        (System.nanoTime() - startNanos) / 1000000L);
+    return changes;
+  }
+
+  /**
+   * Compares two repositories
+   *
+   * @param base the old repository
+   * @param input the new repository
+   * @return changes from the base to the input repository
+   */
+  public ChangeSet diff(Repository base, Repository input) {
+    final ChangeSet changes = new ChangeSet();
+
+    final Datatypes baseDatatypes = base.getDatatypes();
+    final Datatypes inputDatatypes = input.getDatatypes();
+    diffElements(ElementKind.DATATYPE,
+        baseDatatypes != null ? baseDatatypes.getDatatype() : null,
+        inputDatatypes != null ? inputDatatypes.getDatatype() : null, Datatype::getName,
+        d -> null, Datatype::getName, d -> null, this::attributes, null, changes);
+
+    final CodeSets baseCodeSets = base.getCodeSets();
+    final CodeSets inputCodeSets = input.getCodeSets();
+    diffElements(ElementKind.CODE_SET, baseCodeSets != null ? baseCodeSets.getCodeSet() : null,
+        inputCodeSets != null ? inputCodeSets.getCodeSet() : null,
+        cs -> key(cs.getId(), cs.getName(), cs.getScenario()), cs -> intValue(cs.getId()),
+        CodeSetType::getName, cs -> scenario(cs.getScenario()), this::attributes,
+        (oldCodeSet, newCodeSet) -> diffElements(ElementKind.CODE, oldCodeSet.getCode(),
+            newCodeSet.getCode(), c -> key(c.getId(), c.getName(), null),
+            c -> intValue(c.getId()), CodeType::getName, c -> scenario(newCodeSet.getScenario()),
+            this::attributes, null, changes, newCodeSet.getName()),
+        changes);
+
+    final Fields baseFields = base.getFields();
+    final Fields inputFields = input.getFields();
+    diffElements(ElementKind.FIELD, baseFields != null ? baseFields.getField() : null,
+        inputFields != null ? inputFields.getField() : null,
+        f -> key(f.getId(), f.getName(), f.getScenario()), f -> intValue(f.getId()),
+        FieldType::getName, f -> scenario(f.getScenario()), this::attributes, null, changes);
+
+    final Components baseComponents = base.getComponents();
+    final Components inputComponents = input.getComponents();
+    diffElements(ElementKind.COMPONENT,
+        baseComponents != null ? baseComponents.getComponent() : null,
+        inputComponents != null ? inputComponents.getComponent() : null,
+        c -> key(c.getId(), c.getName(), c.getScenario()), c -> intValue(c.getId()),
+        ComponentType::getName, c -> scenario(c.getScenario()), this::attributes, null, changes);
+
+    final Groups baseGroups = base.getGroups();
+    final Groups inputGroups = input.getGroups();
+    diffElements(ElementKind.GROUP, baseGroups != null ? baseGroups.getGroup() : null,
+        inputGroups != null ? inputGroups.getGroup() : null,
+        g -> key(g.getId(), g.getName(), g.getScenario()), g -> intValue(g.getId()),
+        GroupType::getName, g -> scenario(g.getScenario()), this::attributes, null, changes);
+
+    final Messages baseMessages = base.getMessages();
+    final Messages inputMessages = input.getMessages();
+    diffElements(ElementKind.MESSAGE, baseMessages != null ? baseMessages.getMessage() : null,
+        inputMessages != null ? inputMessages.getMessage() : null,
+        m -> key(m.getId(), m.getMsgType(), m.getScenario()), m -> intValue(m.getId()),
+        MessageType::getName, m -> scenario(m.getScenario()), this::attributes, null, changes);
+
+    return changes;
+  }
+
+  Map<String, String> attributes(CodeSetType codeSet) {
+    final Map<String, String> attributes = new LinkedHashMap<>();
+    put(attributes, "name", codeSet.getName());
+    put(attributes, "abbrName", codeSet.getAbbrName());
+    put(attributes, "type", codeSet.getType());
+    put(attributes, "specUrl", codeSet.getSpecUrl());
+    put(attributes, "added", codeSet.getAdded());
+    put(attributes, "addedEP", codeSet.getAddedEP());
+    put(attributes, "updated", codeSet.getUpdated());
+    put(attributes, "updatedEP", codeSet.getUpdatedEP());
+    put(attributes, "deprecated", codeSet.getDeprecated());
+    put(attributes, "supported", codeSet.getSupported());
+    return attributes;
+  }
+
+  Map<String, String> attributes(CodeType code) {
+    final Map<String, String> attributes = new LinkedHashMap<>();
+    put(attributes, "name", code.getName());
+    put(attributes, "abbrName", code.getAbbrName());
+    put(attributes, "value", code.getValue());
+    put(attributes, "sort", code.getSort());
+    put(attributes, "group", code.getGroup());
+    put(attributes, "added", code.getAdded());
+    put(attributes, "addedEP", code.getAddedEP());
+    put(attributes, "updated", code.getUpdated());
+    put(attributes, "updatedEP", code.getUpdatedEP());
+    put(attributes, "deprecated", code.getDeprecated());
+    put(attributes, "supported", code.getSupported());
+    return attributes;
+  }
+
+  Map<String, String> attributes(ComponentType component) {
+    final Map<String, String> attributes = new LinkedHashMap<>();
+    put(attributes, "name", component.getName());
+    put(attributes, "abbrName", component.getAbbrName());
+    put(attributes, "category", component.getCategory());
+    put(attributes, "added", component.getAdded());
+    put(attributes, "addedEP", component.getAddedEP());
+    put(attributes, "updated", component.getUpdated());
+    put(attributes, "updatedEP", component.getUpdatedEP());
+    put(attributes, "deprecated", component.getDeprecated());
+    put(attributes, "supported", component.getSupported());
+    putMembers(attributes, component.getComponentRefOrGroupRefOrFieldRef());
+    return attributes;
+  }
+
+  Map<String, String> attributes(Datatype datatype) {
+    final Map<String, String> attributes = new LinkedHashMap<>();
+    put(attributes, "name", datatype.getName());
+    put(attributes, "baseType", datatype.getBaseType());
+    return attributes;
+  }
+
+  Map<String, String> attributes(FieldType field) {
+    final Map<String, String> attributes = new LinkedHashMap<>();
+    put(attributes, "name", field.getName());
+    put(attributes, "abbrName", field.getAbbrName());
+    put(attributes, "type", field.getType());
+    put(attributes, "lengthId", field.getLengthId());
+    put(attributes, "discriminatorId", field.getDiscriminatorId());
+    put(attributes, "unionDataType", field.getUnionDataType());
+    put(attributes, "baseCategory", field.getBaseCategory());
+    put(attributes, "minInclusive", field.getMinInclusive());
+    put(attributes, "maxInclusive", field.getMaxInclusive());
+    put(attributes, "implLength", field.getImplLength());
+    put(attributes, "encoding", field.getEncoding());
+    put(attributes, "added", field.getAdded());
+    put(attributes, "addedEP", field.getAddedEP());
+    put(attributes, "updated", field.getUpdated());
+    put(attributes, "updatedEP", field.getUpdatedEP());
+    put(attributes, "deprecated", field.getDeprecated());
+    put(attributes, "supported", field.getSupported());
+    return attributes;
+  }
+
+  Map<String, String> attributes(GroupType group) {
+    final Map<String, String> attributes = new LinkedHashMap<>();
+    put(attributes, "name", group.getName());
+    put(attributes, "abbrName", group.getAbbrName());
+    put(attributes, "category", group.getCategory());
+    if (group.getNumInGroup() != null) {
+      put(attributes, "numInGroup", group.getNumInGroup().getId());
+    }
+    put(attributes, "implMinOccurs", group.getImplMinOccurs());
+    put(attributes, "implMaxOccurs", group.getImplMaxOccurs());
+    put(attributes, "added", group.getAdded());
+    put(attributes, "addedEP", group.getAddedEP());
+    put(attributes, "updated", group.getUpdated());
+    put(attributes, "updatedEP", group.getUpdatedEP());
+    put(attributes, "deprecated", group.getDeprecated());
+    put(attributes, "supported", group.getSupported());
+    putMembers(attributes, group.getComponentRefOrGroupRefOrFieldRef());
+    return attributes;
+  }
+
+  Map<String, String> attributes(MessageType message) {
+    final Map<String, String> attributes = new LinkedHashMap<>();
+    put(attributes, "name", message.getName());
+    put(attributes, "abbrName", message.getAbbrName());
+    put(attributes, "msgType", message.getMsgType());
+    put(attributes, "category", message.getCategory());
+    put(attributes, "flow", message.getFlow());
+    put(attributes, "added", message.getAdded());
+    put(attributes, "addedEP", message.getAddedEP());
+    put(attributes, "updated", message.getUpdated());
+    put(attributes, "updatedEP", message.getUpdatedEP());
+    put(attributes, "deprecated", message.getDeprecated());
+    put(attributes, "supported", message.getSupported());
+    if (message.getStructure() != null) {
+      putMembers(attributes, message.getStructure().getComponentRefOrGroupRefOrFieldRef());
+    }
+    return attributes;
+  }
+
+  List<Difference> compare(Map<String, String> oldAttributes,
+      Map<String, String> newAttributes) {
+    final List<Difference> differences = new ArrayList<>();
+    for (final Map.Entry<String, String> entry : newAttributes.entrySet()) {
+      final String oldValue = oldAttributes.get(entry.getKey());
+      if (MEMBERS.equals(entry.getKey())) {
+        if (oldValue != null && isReordered(oldValue, entry.getValue())) {
+          differences.add(new Difference(MEMBERS, oldValue, entry.getValue()));
+        }
+      } else if (!entry.getValue().equals(oldValue)) {
+        differences.add(new Difference(entry.getKey(), oldValue, entry.getValue()));
+      }
+    }
+    for (final Map.Entry<String, String> entry : oldAttributes.entrySet()) {
+      if (!newAttributes.containsKey(entry.getKey())) {
+        differences.add(new Difference(entry.getKey(), entry.getValue(), null));
+      }
+    }
+    return differences;
+  }
+
+  private <T> void diffElements(ElementKind kind, List<T> oldElements, List<T> newElements,
+      Function<T, String> key, Function<T, Integer> id, Function<T, String> name,
+      Function<T, String> scenario, Function<T, Map<String, String>> attributes,
+      BiConsumer<T, T> children, ChangeSet changes) {
+    diffElements(kind, oldElements, newElements, key, id, name, scenario, attributes, children,
+        changes, null);
+  }
+
+  private <T> void diffElements(ElementKind kind, List<T> oldElements, List<T> newElements,
+      Function<T, String> key, Function<T, Integer> id, Function<T, String> name,
+      Function<T, String> scenario, Function<T, Map<String, String>> attributes,
+      BiConsumer<T, T> children, ChangeSet changes, String parent) {
+    final List<T> oldList = orEmpty(oldElements);
+    final List<T> newList = orEmpty(newElements);
+    final Map<String, T> oldByKey = new HashMap<>(oldList.size() * 2);
+    for (final T element : oldList) {
+      oldByKey.putIfAbsent(key.apply(element), element);
+    }
+    final Set<String> matched = new HashSet<>(newList.size() * 2);
+    for (final T element : newList) {
+      final String k = key.apply(element);
+      final T oldElement = oldByKey.get(k);
+      if (oldElement == null) {
+        changes.add(new Change(ChangeType.ADDED, kind, id.apply(element), name.apply(element),
+            scenario.apply(element), parent, new ArrayList<>()));
+      } else if (matched.add(k)) {
+        final List<Difference> differences =
+            compare(attributes.apply(oldElement), attributes.apply(element));
+        if (!differences.isEmpty()) {
+          changes.add(new Change(ChangeType.MODIFIED, kind, id.apply(element),
+              name.apply(element), scenario.apply(element), parent, differences));
+        }
+        if (children != null) {
+          children.accept(oldElement, element);
+        }
+      }
+    }
+    for (final T element : oldList) {
+      final String k = key.apply(element);
+      if (!matched.contains(k) && oldByKey.get(k) == element) {
+        changes.add(new Change(ChangeType.REMOVED, kind, id.apply(element), name.apply(element),
+            scenario.apply(element), parent, new ArrayList<>()));
+      }
+    }
+  }
+
+  /**
+   * Members added or removed are reported on their own; the order is reported only if members
+   * present in both versions appear in a different sequence
+   */
+  private boolean isReordered(String oldOrder, String newOrder) {
+    final String[] oldPaths = oldOrder.split(" ");
+    final String[] newPaths = newOrder.split(" ");
+    final Set<String> oldSet = new HashSet<>(Arrays.asList(oldPaths));
+    final Set<String> newSet = new HashSet<>(Arrays.asList(newPaths));
+    final List<String> oldCommon = new ArrayList<>();
+    for (final String path : oldPaths) {
+      if (newSet.contains(path)) {
+        oldCommon.add(path);
+      }
+    }
+    final List<String> newCommon = new ArrayList<>();
+    for (final String path : newPaths) {
+      if (oldSet.contains(path)) {
+        newCommon.add(path);
+      }
+    }
+    return !oldCommon.equals(newCommon);
+  }
+
+  Integer intValue(BigInteger value) {
+    return value != null ? value.intValue() : null;
+  }
+
+  // elements without an id are matched by name
+  String key(BigInteger id, String name, String scenario) {
+    return (id != null ? id.toString() : name) + '/' + scenario(scenario);
+  }
+
+  /**
+   * Adds members of a structure as attributes named by reference, for example
+   * {@code fieldRef[54]}, whose value is the presence of the member, and
+   * {@code fieldRef[54]@rules}. The order of members is an attribute of its own, so a reordering is
+   * reported once.
+   */
+  private void putMembers(Map<String, String> attributes, List<Object> members) {
+    final StringBuilder order = new StringBuilder();
+    for (final Object member : members) {
+      String path;
+      final PresenceT presence;
+      String value = null;
+      final List<String> rules = new ArrayList<>();
+      if (member instanceof FieldRefType) {
+        final FieldRefType fieldRef = (FieldRefType) member;
+        path = "fieldRef[" + fieldRef.getId() + "]";
+        presence = fieldRef.getPresence();
+        value = fieldRef.getValue();
+        for (final FieldRuleType rule : fieldRef.getRule()) {
+          rules.add(rule(rule.getPresence(), rule.getWhen()));
+        }
+      } else if (member instanceof ComponentRefType) {
+        final ComponentRefType componentRef = (ComponentRefType) member;
+        path = (member instanceof GroupRefType ? "groupRef[" : "componentRef[")
+            + componentRef.getId() + "]";
+        presence = componentRef.getPresence();
+        for (final ComponentRuleType rule : componentRef.getRule()) {
+          rules.add(rule(rule.getPresence(), rule.getWhen()));
+        }
+      } else {
+        continue;
+      }
+      // a repeated reference is distinguished by its occurrence
+      if (attributes.containsKey(path)) {
+        int occurrence = 2;
+        while (attributes.containsKey(path + "#" + occurrence)) {
+          occurrence++;
+        }
+        path = path + "#" + occurrence;
+      }
+      attributes.put(path, presence != null ? presence.value() : PresenceT.OPTIONAL.value());
+      put(attributes, path + "@value", value);
+      if (!rules.isEmpty()) {
+        attributes.put(path + "@rules", String.join("; ", rules));
+      }
+      if (order.length() > 0) {
+        order.append(' ');
+      }
+      order.append(path);
+    }
+    attributes.put(MEMBERS, order.toString());
+  }
+
+  private void write(ChangeSet changes, OutputStream outputStream) throws IOException {
+    if (format == Format.JSON) {
+      changes.writeJson(outputStream);
+    } else {
+      changes.writeXml(outputStream);
+    }
+  }
+}
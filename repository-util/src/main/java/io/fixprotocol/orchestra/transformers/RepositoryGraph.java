@@ -0,0 +1,357 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.transformers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+
+/**
+ * Index of the components and groups of an Orchestra repository by id
+ * <p>
+ * Built once per loaded repository. Ids are small integers, so elements are held in arrays indexed
+ * by id; an id beyond {@link #MAX_DENSE_ID} falls back to a map. Where several scenarios share an
+ * id, the first one declared is indexed.
+ * <p>
+ * The transitive closure of each component and group is computed once, when the graph is built,
+ * so a component shared by many messages is expanded only once. Components that reference each
+ * other in a cycle share one closure. A built graph is not modified, so it may be shared by
+ * threads without locking.
+ */
+public final class RepositoryGraph {
+
+  /**
+   * Elements reachable from a set of messages, marked by id
+   */
+  public static final class Reachability {
+    private final BitSet componentIds = new BitSet();
+    private final BitSet fieldIds = new BitSet();
+    private final BitSet groupIds = new BitSet();
+
+    /**
+     * @return ids of reachable components in ascending order
+     */
+    public IntStream componentIds() {
+      return componentIds.stream();
+    }
+
+    /**
+     * @return ids of reachable fields in ascending order
+     */
+    public IntStream fieldIds() {
+      return fieldIds.stream();
+    }
+
+    /**
+     * @return ids of reachable groups in ascending order
+     */
+    public IntStream groupIds() {
+      return groupIds.stream();
+    }
+
+    /**
+     * @param id component id
+     * @return {@code true} if the component is reachable
+     */
+    public boolean hasComponent(int id) {
+      return componentIds.get(id);
+    }
+
+    /**
+     * @param id field id
+     * @return {@code true} if the field is reachable
+     */
+    public boolean hasField(int id) {
+      return fieldIds.get(id);
+    }
+
+    /**
+     * @param id group id
+     * @return {@code true} if the group is reachable
+     */
+    public boolean hasGroup(int id) {
+      return groupIds.get(id);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return "Reachability [fields=" + fieldIds.cardinality() + ", components="
+          + componentIds.cardinality() + ", groups=" + groupIds.cardinality() + "]";
+    }
+
+    void add(Reachability other) {
+      componentIds.or(other.componentIds);
+      fieldIds.or(other.fieldIds);
+      groupIds.or(other.groupIds);
+    }
+  }
+
+  /**
+   * Computes closures by Tarjan's strongly connected components algorithm, so each element is
+   * expanded once even where references form a cycle
+   */
+  private final class ClosureBuilder {
+    private int counter = 0;
+    private final Map<Object, Integer> index = new IdentityHashMap<>();
+    private final Map<Object, Integer> lowLink = new IdentityHashMap<>();
+    private final Map<Object, Reachability> partial = new IdentityHashMap<>();
+    private final Deque<Object> stack = new ArrayDeque<>();
+
+    Reachability visit(Object element) {
+      final int elementIndex = counter++;
+      index.put(element, elementIndex);
+      lowLink.put(element, elementIndex);
+      stack.push(element);
+
+      final Reachability local = new Reachability();
+      final List<Object> members;
+      if (element instanceof GroupType) {
+        final GroupType group = (GroupType) element;
+        local.groupIds.set(group.getId().intValue());
+        if (group.getNumInGroup() != null) {
+          local.fieldIds.set(group.getNumInGroup().getId().intValue());
+        }
+        members = group.getComponentRefOrGroupRefOrFieldRef();
+      } else {
+        final ComponentType component = (ComponentType) element;
+        local.componentIds.set(component.getId().intValue());
+        members = component.getComponentRefOrGroupRefOrFieldRef();
+      }
+
+      for (final Object member : members) {
+        if (member instanceof FieldRefType) {
+          local.fieldIds.set(((FieldRefType) member).getId().intValue());
+          continue;
+        }
+        final Object referenced = resolve(member, local);
+        if (referenced == null) {
+          continue;
+        }
+        final Reachability memo = closures.get(referenced);
+        if (memo != null) {
+          local.add(memo);
+        } else if (!index.containsKey(referenced)) {
+          visit(referenced);
+          lowLink.put(element, Math.min(lowLink.get(element), lowLink.get(referenced)));
+          final Reachability visited = closures.get(referenced);
+          local.add(visited != null ? visited : partial.get(referenced));
+        } else {
+          // on the stack, so part of a cycle; its closure is merged when the cycle completes
+          lowLink.put(element, Math.min(lowLink.get(element), index.get(referenced)));
+        }
+      }
+      partial.put(element, local);
+
+      if (lowLink.get(element) == elementIndex) {
+        final Reachability closure = new Reachability();
+        final List<Object> cycle = new ArrayList<>();
+        Object member;
+        do {
+          member = stack.pop();
+          closure.add(partial.remove(member));
+          cycle.add(member);
+        } while (member != element);
+        for (final Object m : cycle) {
+          closures.put(m, closure);
+        }
+        return closure;
+      }
+      return local;
+    }
+  }
+
+  /**
+   * Elements with larger ids are indexed in a map rather than an array
+   */
+  public static final int MAX_DENSE_ID = 1 << 20;
+
+  private static final Logger logger = LogManager.getLogger(RepositoryGraph.class);
+
+  private static <T> T[] denseIndex(T[] dense, Map<Integer, T> sparse, int id, T element) {
+    if (id < 0 || id > MAX_DENSE_ID) {
+      sparse.putIfAbsent(id, element);
+      return dense;
+    }
+    T[] index = dense;
+    if (id >= index.length) {
+      index = Arrays.copyOf(index, Math.max(id + 1, index.length * 2));
+    }
+    if (index[id] == null) {
+      index[id] = element;
+    }
+    return index;
+  }
+
+  private final Map<Object, Reachability> closures = new IdentityHashMap<>();
+  private ComponentType[] components = new ComponentType[256];
+  private final Map<Integer, ComponentType> sparseComponents = new HashMap<>();
+  private GroupType[] groups = new GroupType[256];
+  private final Map<Integer, GroupType> sparseGroups = new HashMap<>();
+
+  /**
+   * Constructor
+   *
+   * @param componentList components of a repository, may be {@code null}
+   * @param groupList groups of a repository, may be {@code null}
+   */
+  public RepositoryGraph(List<ComponentType> componentList, List<GroupType> groupList) {
+    if (componentList != null) {
+      for (final ComponentType component : componentList) {
+        components = denseIndex(components, sparseComponents, component.getId().intValue(),
+            component);
+      }
+    }
+    if (groupList != null) {
+      for (final GroupType group : groupList) {
+        groups = denseIndex(groups, sparseGroups, group.getId().intValue(), group);
+      }
+    }
+    buildClosures(Arrays.asList(components));
+    buildClosures(sparseComponents.values());
+    buildClosures(Arrays.asList(groups));
+    buildClosures(sparseGroups.values());
+  }
+
+  /**
+   * @param id component id
+   * @return a component, or {@code null} if not found
+   */
+  public ComponentType getComponent(int id) {
+    if (id >= 0 && id < components.length) {
+      return components[id];
+    }
+    return sparseComponents.get(id);
+  }
+
+  /**
+   * @param id group id
+   * @return a group, or {@code null} if not found
+   */
+  public GroupType getGroup(int id) {
+    if (id >= 0 && id < groups.length) {
+      return groups[id];
+    }
+    return sparseGroups.get(id);
+  }
+
+  /**
+   * Returns the elements reachable from a set of messages
+   *
+   * @param messages messages to expand
+   * @return fields, components and groups of the messages, transitively
+   */
+  public Reachability closure(Collection<MessageType> messages) {
+    final Reachability reachability = new Reachability();
+    for (final MessageType message : messages) {
+      mark(message.getStructure().getComponentRefOrGroupRefOrFieldRef(), reachability);
+    }
+    return reachability;
+  }
+
+  /**
+   * Returns the elements reachable from a component, including itself
+   *
+   * @param id component id
+   * @return a shared closure, or {@code null} if the component is not found
+   */
+  public Reachability getComponentClosure(int id) {
+    final ComponentType component = getComponent(id);
+    return component != null ? closureOf(component) : null;
+  }
+
+  /**
+   * Returns the elements reachable from a group, including itself and its NumInGroup field
+   *
+   * @param id group id
+   * @return a shared closure, or {@code null} if the group is not found
+   */
+  public Reachability getGroupClosure(int id) {
+    final GroupType group = getGroup(id);
+    return group != null ? closureOf(group) : null;
+  }
+
+  /**
+   * Marks the fields, components and groups reachable from a message structure
+   *
+   * @param members members of a message structure
+   * @param reachability accumulates marks across calls
+   */
+  public void mark(List<Object> members, Reachability reachability) {
+    for (final Object member : members) {
+      if (member instanceof FieldRefType) {
+        reachability.fieldIds.set(((FieldRefType) member).getId().intValue());
+      } else {
+        final Object referenced = resolve(member, reachability);
+        if (referenced != null) {
+          reachability.add(closureOf(referenced));
+        }
+      }
+    }
+  }
+
+  private void buildClosures(Collection<?> elements) {
+    for (final Object element : elements) {
+      if (element != null && !closures.containsKey(element)) {
+        new ClosureBuilder().visit(element);
+      }
+    }
+  }
+
+  private Reachability closureOf(Object element) {
+    return closures.get(element);
+  }
+
+  // A component is marked even if missing, as a reference to it was found
+  private Object resolve(Object member, Reachability reachability) {
+    if (member instanceof GroupRefType) {
+      final int id = ((GroupRefType) member).getId().intValue();
+      final GroupType group = getGroup(id);
+      if (group == null) {
+        logger.error("Group missing for groupRef; ID={}", id);
+      }
+      return group;
+    } else if (member instanceof ComponentRefType) {
+      final int id = ((ComponentRefType) member).getId().intValue();
+      final ComponentType component = getComponent(id);
+      if (component == null) {
+        reachability.componentIds.set(id);
+        logger.error("Component missing for componentRef; ID={}", id);
+      }
+      return component;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.transformers;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.fixprotocol._2020.orchestra.repository.Categories;
+import io.fixprotocol._2020.orchestra.repository.CategoryType;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.Datatype;
+import io.fixprotocol._2020.orchestra.repository.Datatypes;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol._2020.orchestra.repository.SectionType;
+import io.fixprotocol._2020.orchestra.repository.Sections;
+import io.fixprotocol.orchestra.repository.io.RepositoryIO;
+import io.fixprotocol.orchestra.transformers.ChangeSet.Change;
+import io.fixprotocol.orchestra.transformers.ChangeSet.ChangeType;
+import io.fixprotocol.orchestra.transformers.ChangeSet.ElementKind;
+
+/**
+ * Merges overlay repositories, such as firm-specific fields, codes and message scenarios, onto a
+ * base repository
+ * <p>
+ * Overlays are applied in order. Datatypes, code sets, fields, components, groups and messages
+ * are matched by id and scenario, as by {@link RepositoryDiff}, through a hash index of each
+ * section. An element that is not in the merged repository is appended to its section; codes of a
+ * matched code set are merged in the same way. A matched element whose attributes or members
+ * differ is a conflict, resolved by a {@link ConflictPolicy}. Categories and sections are added by
+ * name if not present. Metadata and other attributes of the base repository are kept.
+ * <p>
+ * Additions and conflicts are reported as a {@link ChangeSet}; a conflict is a modification.
+ */
+public class RepositoryMerger {
+
+  public static class Builder {
+    private String baseFile;
+    private ConflictPolicy conflictPolicy = ConflictPolicy.FAIL;
+    private final List<String> overlayFiles = new ArrayList<>();
+    private String outputFile;
+    private String reportFile;
+
+    public Builder baseFile(String baseFile) {
+      this.baseFile = baseFile;
+      return this;
+    }
+
+    public RepositoryMerger build() {
+      return new RepositoryMerger(this);
+    }
+
+    public Builder conflictPolicy(ConflictPolicy conflictPolicy) {
+      this.conflictPolicy = conflictPolicy;
+      return this;
+    }
+
+    /**
+     * Adds an overlay file; overlays are applied in the order added
+     */
+    public Builder overlayFile(String overlayFile) {
+      this.overlayFiles.add(overlayFile);
+      return this;
+    }
+
+    public Builder outputFile(String outputFile) {
+      this.outputFile = outputFile;
+      return this;
+    }
+
+    public Builder reportFile(String reportFile) {
+      this.reportFile = reportFile;
+      return this;
+    }
+  }
+
+  /**
+   * Resolution of an overlay element that conflicts with an element of the merged repository
+   */
+  public enum ConflictPolicy {
+    /**
+     * Report conflicts and do not write the merged repository
+     */
+    FAIL,
+    /**
+     * Keep the element of the merged repository
+     */
+    KEEP,
+    /**
+     * Replace the element by that of the overlay; the codes of a code set are still merged
+     */
+    REPLACE
+  }
+
+  /**
+   * Merges the children of a matched element of an overlay into the element that is kept
+   */
+  private interface ChildMerger<T> {
+    /**
+     * @param existing element of the merged repository
+     * @param overlay matched element of an overlay
+     * @param replaced {@code true} if the overlay element replaces the existing one
+     */
+    void merge(T existing, T overlay, boolean replaced);
+  }
+
+  private static final Logger logger = LogManager.getLogger(RepositoryMerger.class);
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * usage: RepositoryMerger [options] &lt;overlay&gt;...
+   *
+   * <pre>
+   * -?,--help display usage
+   * -b,--base &lt;arg&gt; path of base repository file
+   * -c,--conflict &lt;arg&gt; conflict policy, fail, keep or replace; default fail
+   * -o,--output &lt;arg&gt; path of merged repository file
+   * -r,--report &lt;arg&gt; path of report of additions and conflicts, json or xml by extension
+   * </pre>
+   *
+   * @param args command line arguments
+   * @throws Exception if an IO error occurs or a file cannot be parsed
+   */
+  public static void main(String[] args) throws Exception {
+    final RepositoryMerger merger = RepositoryMerger.parseArgs(args).build();
+    final ChangeSet changes = merger.merge();
+    if (merger.conflictPolicy == ConflictPolicy.FAIL
+        && changes.count(ChangeType.MODIFIED) > 0) {
+      System.exit(1);
+    }
+  }
+
+  public static Builder parseArgs(String[] args) throws ParseException {
+    final Options options = new Options();
+    options.addOption(Option.builder("b").desc("path of base repository file").longOpt("base")
+        .numberOfArgs(1).required().build());
+    options.addOption(Option.builder("o").desc("path of merged repository file")
+        .longOpt("output").numberOfArgs(1).required().build());
+    options.addOption(Option.builder("c").desc("conflict policy, fail, keep or replace")
+        .longOpt("conflict").numberOfArgs(1).build());
+    options.addOption(Option.builder("r").desc("path of report of additions and conflicts")
+        .longOpt("report").numberOfArgs(1).build());
+    options.addOption(Option.builder("?").desc("display usage").longOpt("help").build());
+
+    final DefaultParser parser = new DefaultParser();
+    try {
+      final CommandLine cmd = parser.parse(options, args);
+      if (cmd.hasOption("?")) {
+        final HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("RepositoryMerger [options] <overlay>...", options);
+        System.exit(0);
+      }
+      final Builder builder = new Builder().baseFile(cmd.getOptionValue("b"))
+          .outputFile(cmd.getOptionValue("o")).reportFile(cmd.getOptionValue("r"));
+      if (cmd.hasOption("c")) {
+        try {
+          builder.conflictPolicy(ConflictPolicy.valueOf(cmd.getOptionValue("c").toUpperCase()));
+        } catch (final IllegalArgumentException e) {
+          throw new ParseException("Unknown conflict policy " + cmd.getOptionValue("c"));
+        }
+      }
+      for (final String overlayFile : cmd.getArgList()) {
+        builder.overlayFile(overlayFile);
+      }
+      return builder;
+    } catch (final ParseException e) {
+      logger.fatal("RepositoryMerger invalid arguments", e);
+      throw e;
+    }
+  }
+
+  private final String baseFile;
+  private final ConflictPolicy conflictPolicy;
+  // compares elements and forms keys as RepositoryDiff does
+  private final RepositoryDiff differ = RepositoryDiff.builder().build();
+  private final List<String> overlayFiles;
+  private final String outputFile;
+  private final String reportFile;
+
+  private RepositoryMerger(Builder builder) {
+    this.baseFile = builder.baseFile;
+    this.conflictPolicy = builder.conflictPolicy;
+    this.overlayFiles = new ArrayList<>(builder.overlayFiles);
+    this.outputFile = builder.outputFile;
+    this.reportFile = builder.reportFile;
+  }
+
+  /**
+   * Merges the overlay files onto the base file and writes the merged repository, unless the
+   * conflict policy is {@link ConflictPolicy#FAIL} and there are conflicts
+   *
+   * @return additions and conflicts
+   * @throws IOException if a file cannot be read or written
+   * @throws JAXBException if a repository file cannot be parsed
+   */
+  public ChangeSet merge() throws IOException, JAXBException {
+    Objects.requireNonNull(baseFile, "Base file missing");
+    Objects.requireNonNull(outputFile, "Output file missing");
+    final long startNanos = System.nanoTime();
+    final Repository base;
+    try (InputStream is = new FileInputStream(baseFile)) {
+      base = RepositoryIO.getInstance().read(is);
+    }
+    final List<Repository> overlays = new ArrayList<>(overlayFiles.size());
+    for (final String overlayFile : overlayFiles) {
+      try (InputStream is = new FileInputStream(overlayFile)) {
+        overlays.add(RepositoryIO.getInstance().read(is));
+      }
+    }
+    final ChangeSet changes = merge(base, overlays);
+    if (reportFile != null) {
+      try (OutputStream os = new FileOutputStream(reportFile)) {
+        if (reportFile.toLowerCase().endsWith(".json")) {
+          changes.writeJson(os);
+        } else {
+          changes.writeXml(os);
+        }
+      }
+    }
+    final long conflicts = changes.count(ChangeType.MODIFIED);
+    if (conflictPolicy == ConflictPolicy.FAIL && conflicts > 0) {
+      logger.error("RepositoryMerger {} conflicts; merged repository not written", conflicts);
+    } else {
+      try (OutputStream os = new FileOutputStream(outputFile)) {
+        RepositoryIO.getInstance().write(base, os);
+      }
+    }
+    logger.info("RepositoryMerger {} in {} ms", changes,
+        (System.nanoTime() - startNanos) / 1000000L);
+    return changes;
+  }
+
+  /**
+   * Merges overlays onto a base repository
+   *
+   * @param base repository that is updated with the elements of the overlays
+   * @param overlays repositories to merge, in order; their elements are moved to the base
+   * @return additions and conflicts
+   */
+  public ChangeSet merge(Repository base, List<Repository> overlays) {
+    final ChangeSet changes = new ChangeSet();
+    for (final Repository overlay : overlays) {
+      if (overlay.getCategories() != null) {
+        if (base.getCategories() == null) {
+          base.setCategories(new Categories());
+        }
+        addMissing(base.getCategories().getCategory(), overlay.getCategories().getCategory(),
+            c -> c.getName() + '/' + c.getComponentType());
+      }
+      if (overlay.getSections() != null) {
+        if (base.getSections() == null) {
+          base.setSections(new Sections());
+        }
+        addMissing(base.getSections().getSection(), overlay.getSections().getSection(),
+            SectionType::getName);
+      }
+      if (overlay.getDatatypes() != null) {
+        if (base.getDatatypes() == null) {
+          base.setDatatypes(new Datatypes());
+        }
+        mergeElements(ElementKind.DATATYPE, base.getDatatypes().getDatatype(),
+            overlay.getDatatypes().getDatatype(), Datatype::getName, d -> null,
+            Datatype::getName, d -> null, differ::attributes, null, null, changes);
+      }
+      if (overlay.getCodeSets() != null) {
+        if (base.getCodeSets() == null) {
+          base.setCodeSets(new CodeSets());
+        }
+        mergeElements(ElementKind.CODE_SET, base.getCodeSets().getCodeSet(),
+            overlay.getCodeSets().getCodeSet(),
+            cs -> differ.key(cs.getId(), cs.getName(), cs.getScenario()),
+            cs -> differ.intValue(cs.getId()), CodeSetType::getName,
+            cs -> RepositoryDiff.scenario(cs.getScenario()), differ::attributes,
+            (existing, other, replaced) -> mergeCodes(existing, other, replaced, changes), null,
+            changes);
+      }
+      if (overlay.getFields() != null) {
+        if (base.getFields() == null) {
+          base.setFields(new Fields());
+        }
+        mergeElements(ElementKind.FIELD, base.getFields().getField(),
+            overlay.getFields().getField(),
+            f -> differ.key(f.getId(), f.getName(), f.getScenario()),
+            f -> differ.intValue(f.getId()), FieldType::getName,
+            f -> RepositoryDiff.scenario(f.getScenario()), differ::attributes, null, null, changes);
+      }
+      if (overlay.getComponents() != null) {
+        if (base.getComponents() == null) {
+          base.setComponents(new Components());
+        }
+        mergeElements(ElementKind.COMPONENT, base.getComponents().getComponent(),
+            overlay.getComponents().getComponent(),
+            c -> differ.key(c.getId(), c.getName(), c.getScenario()),
+            c -> differ.intValue(c.getId()), ComponentType::getName,
+            c -> RepositoryDiff.scenario(c.getScenario()), differ::attributes, null, null,
+            changes);
+      }
+      if (overlay.getGroups() != null) {
+        if (base.getGroups() == null) {
+          base.setGroups(new Groups());
+        }
+        mergeElements(ElementKind.GROUP, base.getGroups().getGroup(),
+            overlay.getGroups().getGroup(),
+            g -> differ.key(g.getId(), g.getName(), g.getScenario()),
+            g -> differ.intValue(g.getId()), GroupType::getName,
+            g -> RepositoryDiff.scenario(g.getScenario()), differ::attributes, null, null,
+            changes);
+      }
+      if (overlay.getMessages() != null) {
+        if (base.getMessages() == null) {
+          base.setMessages(new Messages());
+        }
+        mergeElements(ElementKind.MESSAGE, base.getMessages().getMessage(),
+            overlay.getMessages().getMessage(),
+            m -> differ.key(m.getId(), m.getMsgType(), m.getScenario()),
+            m -> differ.intValue(m.getId()), MessageType::getName,
+            m -> RepositoryDiff.scenario(m.getScenario()), differ::attributes, null, null,
+            changes);
+      }
+    }
+    return changes;
+  }
+
+  private <T> void addMissing(List<T> merged, List<T> overlay, Function<T, String> key) {
+    final Map<String, T> index = new HashMap<>(merged.size() * 2);
+    for (final T element : merged) {
+      index.putIfAbsent(key.apply(element), element);
+    }
+    for (final T element : overlay) {
+      if (index.putIfAbsent(key.apply(element), element) == null) {
+        merged.add(element);
+      }
+    }
+  }
+
+  /**
+   * Merges the codes of an overlay code set into a code set of the merged repository; codes of the
+   * merged repository come first, whichever code set is kept
+   */
+  private void mergeCodes(CodeSetType existing, CodeSetType overlay, boolean replaced,
+      ChangeSet changes) {
+    final List<CodeType> codes = existing.getCode();
+    mergeElements(ElementKind.CODE, codes, new ArrayList<>(overlay.getCode()),
+        c -> differ.key(c.getId(), c.getName(), null), c -> differ.intValue(c.getId()),
+        CodeType::getName, c -> RepositoryDiff.scenario(existing.getScenario()),
+        differ::attributes, null, existing.getName(), changes);
+    if (replaced) {
+      overlay.getCode().clear();
+      overlay.getCode().addAll(codes);
+    }
+  }
+
+  /**
+   * Merges elements of a section of an overlay into the same section of the merged repository
+   *
+   * @param merged elements of the merged repository, updated
+   * @param overlay elements of the overlay
+   * @param children merges the children of a matched element, or {@code null} if none
+   * @param parent name of the parent of the elements, if reported
+   */
+  private <T> void mergeElements(ElementKind kind, List<T> merged, List<T> overlay,
+      Function<T, String> key, Function<T, Integer> id, Function<T, String> name,
+      Function<T, String> scenario, Function<T, Map<String, String>> attributes,
+      ChildMerger<T> children, String parent, ChangeSet changes) {
+    final Map<String, Integer> index = new HashMap<>(merged.size() * 2);
+    for (int i = 0; i < merged.size(); i++) {
+      index.putIfAbsent(key.apply(merged.get(i)), i);
+    }
+    for (final T element : overlay) {
+      final String k = key.apply(element);
+      final Integer position = index.get(k);
+      if (position == null) {
+        index.put(k, merged.size());
+        merged.add(element);
+        changes.add(new Change(ChangeType.ADDED, kind, id.apply(element), name.apply(element),
+            scenario.apply(element), parent, new ArrayList<>()));
+        continue;
+      }
+      final T existing = merged.get(position);
+      final List<ChangeSet.Difference> differences =
+          differ.compare(attributes.apply(existing), attributes.apply(element));
+      T kept = existing;
+      if (!differences.isEmpty()) {
+        final Change conflict = new Change(ChangeType.MODIFIED, kind, id.apply(element),
+            name.apply(element), scenario.apply(element), parent, differences);
+        changes.add(conflict);
+        logger.warn("RepositoryMerger conflict {}", conflict);
+        if (conflictPolicy == ConflictPolicy.REPLACE) {
+          kept = element;
+        }
+      }
+      if (children != null) {
+        children.merge(existing, element, kept == element);
+      }
+      merged.set(position, kept);
+    }
+  }
+}
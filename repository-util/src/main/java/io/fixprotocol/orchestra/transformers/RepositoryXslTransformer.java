@@ -1,25 +1,38 @@
 package io.fixprotocol.orchestra.transformers;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import net.sf.saxon.TransformerFactoryImpl;
 
 /**
  * Invokes XSL Transform May be used to convert FIX Repository 2010 Edition unified repositories to
  * Orchestra schema by invoking script unified2orchestra.xslt
+ * <p>
+ * Stylesheets are compiled once by {@link XslTemplates} and reused by later transforms. If the
+ * input is a directory, its XML files are transformed in parallel into the output directory.
  *
  * @author Uditha Wijerathna
  */
 public class RepositoryXslTransformer {
-  public static void main(String[] args) throws TransformerException {
+  public static void main(String[] args) throws Exception {
     if (args.length < 3) {
       System.out.println(
-          "Usage : $<application> [xsl_file_path] [input_xml_file_path] [output_file_path] [param=value]");
+          "Usage : $<application> [xsl_file_path] [input_xml_file_or_dir] [output_file_or_dir] [param=value]");
       return;
     }
     System.out.println("Received args : \n" + "xslFile = " + args[0] + "\n" + "inputXml = "
@@ -28,26 +41,91 @@ public class RepositoryXslTransformer {
       System.out.format("Parameter : %s%n", args[i]);
     }
     final RepositoryXslTransformer transformer = new RepositoryXslTransformer();
-    transformer.transform(args);
+    final File inputXml = new File(args[1]);
+    if (inputXml.isDirectory()) {
+      final List<File> inputXmls;
+      try (Stream<Path> paths = Files.list(inputXml.toPath())) {
+        inputXmls = paths.filter(p -> p.toString().endsWith(".xml")).sorted().map(Path::toFile)
+            .collect(Collectors.toList());
+      }
+      transformer.transform(new File(args[0]), inputXmls, new File(args[2]),
+          Arrays.copyOfRange(args, 3, args.length), Runtime.getRuntime().availableProcessors());
+    } else {
+      transformer.transform(args);
+    }
   }
 
-  public void transform(File xsltFile, File inputXml, File outputXml, String[] parameters)
-      throws TransformerException {
-    outputXml.getParentFile().mkdirs();
+  private static void setParameters(Transformer trans, String[] parameters) {
+    for (String parameter : parameters) {
+      final String[] parts = parameter.split("=");
+      trans.setParameter(parts[0], parts[1]);
+    }
+  }
 
+  private static void transform(Templates templates, File inputXml, File outputXml,
+      String[] parameters) throws TransformerException {
     final Source xmlSource = new javax.xml.transform.stream.StreamSource(inputXml);
-    final Source xsltSource = new javax.xml.transform.stream.StreamSource(xsltFile);
     final Result result = new javax.xml.transform.stream.StreamResult(outputXml);
 
-    final TransformerFactory transFact = new TransformerFactoryImpl();
-    final Transformer trans = transFact.newTransformer(xsltSource);
+    final Transformer trans = templates.newTransformer();
+    setParameters(trans, parameters);
+    trans.transform(xmlSource, result);
+  }
 
-    for (String parameter : parameters) {
-      final String[] parts = parameter.split("=");
-      trans.setParameter(parts[0], parts[1]);
+  /**
+   * Transforms many files with one compilation of a stylesheet
+   *
+   * @param xsltFile stylesheet
+   * @param inputXmls files to transform
+   * @param outputDir directory of output files, each named as its input file
+   * @param parameters stylesheet parameters in the form name=value
+   * @param threads number of files to transform concurrently
+   * @throws TransformerException if the stylesheet is invalid or a file fails to transform; the
+   *         failures of other files are suppressed by it. All files are attempted.
+   * @throws InterruptedException if interrupted while waiting for transforms to complete
+   */
+  public void transform(File xsltFile, Collection<File> inputXmls, File outputDir,
+      String[] parameters, int threads) throws TransformerException, InterruptedException {
+    final Templates templates = XslTemplates.getTemplates(xsltFile);
+    outputDir.mkdirs();
+
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    try {
+      final List<Future<?>> futures = new ArrayList<>(inputXmls.size());
+      for (final File inputXml : inputXmls) {
+        final File outputXml = new File(outputDir, inputXml.getName());
+        futures.add(executor.submit(() -> {
+          transform(templates, inputXml, outputXml, parameters);
+          return null;
+        }));
+      }
+      TransformerException failure = null;
+      for (final Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (final ExecutionException e) {
+          final TransformerException exception = e.getCause() instanceof TransformerException
+              ? (TransformerException) e.getCause()
+              : new TransformerException(e.getCause());
+          if (failure == null) {
+            failure = exception;
+          } else {
+            failure.addSuppressed(exception);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      executor.shutdownNow();
     }
+  }
 
-    trans.transform(xmlSource, result);
+  public void transform(File xsltFile, File inputXml, File outputXml, String[] parameters)
+      throws TransformerException {
+    outputXml.getParentFile().mkdirs();
+    transform(XslTemplates.getTemplates(xsltFile), inputXml, outputXml, parameters);
   }
 
   public void transform(String[] args) throws TransformerException {
@@ -0,0 +1,737 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.transformers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Converts a FIX Repository 2010 Edition unified repository to an Orchestra file, as script
+ * unified2orchestra.xslt does, without XSLT
+ * <p>
+ * The phrases file is read first with StAX into a map of text by {@code textId}; its version
+ * selects the {@code fix} element of the unified repository to convert. The unified repository is
+ * then read with StAX. Only the elements of the selected version are retained; other versions are
+ * skipped, keeping only the few facts that the script looks up across the whole document. The
+ * Orchestra file is written with StAX one entity at a time.
+ * <p>
+ * The output has the same elements, attributes and documentation as that of the script, including
+ * its quirks: a code set has its annotation twice, and attributes of a group with no component are
+ * empty. Only formatting, namespace declarations and the creator and date of the metadata differ.
+ */
+public class Unified2OrchestraConverter {
+
+  /**
+   * Documentation of a phrase
+   */
+  private static final class Text {
+    final String purpose;
+    final String value;
+
+    Text(String purpose, String value) {
+      this.purpose = purpose;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Elements of the selected version, and facts about the whole unified repository
+   */
+  private static final class Unified {
+    String copyright;
+    XmlElement fix;
+    // NumInGroup id to the last component that contains the repeating group, in any version
+    final Map<String, XmlElement> groupComponents = new HashMap<>();
+    // ids of repeating components in any version
+    final Set<String> repeatingComponentIds = new HashSet<>();
+  }
+
+  private static final String DC_NAMESPACE = "http://purl.org/dc/elements/1.1/";
+
+  private static final Set<String> IGNORED_ATTRIBUTES =
+      new HashSet<>(Arrays.asList("elaborationTextId", "fixml", "notReqXML", "generateImplFile",
+          "legacyIndent", "legacyPosition", "inlined", "repeating", "associatedDataTag"));
+
+  private static final String REPOSITORY_NAMESPACE =
+      "http://fixprotocol.io/2020/orchestra/repository";
+
+  /**
+   * Converts a unified repository
+   *
+   * @param args command line arguments
+   *        <ol>
+   *        <li>Name of Unified Repository file to convert</li>
+   *        <li>Name of Repository phrases file</li>
+   *        <li>Name of Orchestra file to create</li>
+   *        <li>Name attribute of new Orchestra file</li>
+   *        <li>Version attribute of new Orchestra file</li>
+   *        </ol>
+   * @throws IOException if a file cannot be read or written, or is not well formed
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 5) {
+      System.out.println(
+          "Usage: Unified2OrchestraConverter <input_xml_file_path> <phrases_file_path> <output_file_path> <name> <version>");
+      return;
+    }
+    new Unified2OrchestraConverter().convert(new File(args[0]), new File(args[1]),
+        new File(args[2]), args[3], args[4]);
+  }
+
+  private static String except(String attribute, String... names) {
+    return Arrays.asList(names).contains(attribute) ? null : attribute;
+  }
+
+  private static XmlElement fixr(String localName) {
+    return new XmlElement("fixr", REPOSITORY_NAMESPACE, localName);
+  }
+
+  private final XMLInputFactory inputFactory;
+  private Map<String, String> fieldNames;
+  private Map<String, List<XmlElement>> fieldsByName;
+  private Map<String, List<String>> lengthFieldIds;
+  private Map<String, List<Text>> phrases;
+  private Unified unified;
+
+  public Unified2OrchestraConverter() {
+    inputFactory = XMLInputFactory.newInstance();
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
+  /**
+   * Converts a unified repository file
+   *
+   * @param inputXml unified repository file
+   * @param phrasesFile phrases file; its version selects the version of the repository to convert
+   * @param outputXml Orchestra file to create
+   * @param name name attribute of the new Orchestra file
+   * @param version version attribute of the new Orchestra file
+   * @throws IOException if a file cannot be read or written, or is not well formed
+   */
+  public void convert(File inputXml, File phrasesFile, File outputXml, String name,
+      String version) throws IOException {
+    final File parentFile = outputXml.getParentFile();
+    if (parentFile != null) {
+      parentFile.mkdirs();
+    }
+    try (InputStream unifiedStream = new BufferedInputStream(new FileInputStream(inputXml));
+        InputStream phrasesStream = new BufferedInputStream(new FileInputStream(phrasesFile));
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputXml))) {
+      convert(unifiedStream, phrasesStream, outputStream, name, version);
+    }
+  }
+
+  /**
+   * Converts a unified repository
+   *
+   * @param unifiedStream unified repository
+   * @param phrasesStream phrases; its version selects the version of the repository to convert
+   * @param outputStream Orchestra output, not closed by this method
+   * @param name name attribute of the new Orchestra file
+   * @param version version attribute of the new Orchestra file
+   * @throws IOException if an input is not well formed or an IO error occurs
+   */
+  public void convert(InputStream unifiedStream, InputStream phrasesStream,
+      OutputStream outputStream, String name, String version) throws IOException {
+    try {
+      final String phrasesVersion = readPhrases(phrasesStream);
+      unified = readUnified(unifiedStream, phrasesVersion);
+      if (unified.fix == null) {
+        throw new IOException("Unified repository has no version " + phrasesVersion);
+      }
+      indexFields();
+      final XMLStreamWriter writer =
+          XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+      writeRepository(writer, name, version);
+      writer.flush();
+      writer.close();
+    } catch (final XMLStreamException e) {
+      throw new IOException("Failed to convert unified repository", e);
+    } finally {
+      phrases = null;
+      unified = null;
+      fieldNames = null;
+      fieldsByName = null;
+      lengthFieldIds = null;
+    }
+  }
+
+  private XmlElement annotation(String textId) {
+    final XmlElement annotation = fixr("annotation");
+    for (final Text text : phrases.getOrDefault(textId, Collections.emptyList())) {
+      annotation.addChild(fixr("documentation")).setAttribute("purpose", text.purpose)
+          .setText(text.value);
+    }
+    return annotation;
+  }
+
+  private XmlElement category(XmlElement category, String localName) {
+    final XmlElement element = fixr(localName);
+    copyAttributes(category, element, "textId", "volume", "id");
+    element.setAttribute("name", valueOf(category.getAttribute("id")));
+    addAnnotation(category, element);
+    return element;
+  }
+
+  private XmlElement codeSet(String fieldName, List<XmlElement> fields) {
+    final String fieldId =
+        fields.stream().map(f -> f.getAttribute("id")).collect(Collectors.joining(" "));
+    final XmlElement codeSet = fixr("codeSet");
+    codeSet.setAttribute("name", fieldName + "CodeSet");
+    codeSet.setAttribute("id", fieldId);
+    codeSet.setAttribute("type",
+        fields.stream().map(f -> f.getAttribute("type")).collect(Collectors.joining(" ")));
+    int position = 0;
+    for (final XmlElement field : fields) {
+      for (final XmlElement enumElement : field.getChildren()) {
+        if (!"enum".equals(enumElement.getLocalName())) {
+          continue;
+        }
+        position++;
+        final String suffix = "000" + position;
+        final XmlElement code = codeSet.addChild(fixr("code"));
+        code.setAttribute("name", enumElement.getAttribute("symbolicName"));
+        code.setAttribute("id", fieldId + suffix.substring(suffix.length() - 3));
+        copyAttributes(enumElement, code, "symbolicName");
+        addAnnotation(enumElement, code);
+      }
+    }
+    // as the script does, the annotation of each field is added twice
+    for (int i = 0; i < 2; i++) {
+      for (final XmlElement field : fields) {
+        addAnnotation(field, codeSet);
+      }
+    }
+    return codeSet;
+  }
+
+  private XmlElement component(XmlElement component) {
+    final XmlElement element = fixr("component");
+    copyAttributes(component, element, "type", "textId");
+    for (final XmlElement member : component.getChildren()) {
+      member(member, element);
+    }
+    addAnnotation(component, element);
+    return element;
+  }
+
+  private void addAnnotation(XmlElement source, XmlElement target) {
+    final String textId = source.getAttribute("textId");
+    if (textId != null) {
+      target.addChild(annotation(textId));
+    }
+  }
+
+  /**
+   * Copies attributes as the attribute templates of the script do; a {@code textId} is not
+   * copied, but becomes an annotation, added by the caller
+   */
+  private void copyAttributes(XmlElement source, XmlElement target, String... except) {
+    for (final Map.Entry<String, String> attribute : source.getAttributes().entrySet()) {
+      final String name = except(attribute.getKey(), except);
+      final String value = attribute.getValue();
+      if (name == null || "textId".equals(name) || IGNORED_ATTRIBUTES.contains(name)) {
+        continue;
+      }
+      switch (name) {
+        case "enumDatatype":
+          target.setAttribute("type", fieldNames.getOrDefault(value, "") + "CodeSet");
+          break;
+        case "addedEP":
+          if (!"-1".equals(value)) {
+            target.setAttribute(name, value);
+          }
+          break;
+        case "required":
+          if ("1".equals(value)) {
+            target.setAttribute("presence", "required");
+          }
+          break;
+        case "purpose":
+          target.setAttribute(name, value);
+          break;
+        default:
+          setNonEmpty(target, name, value);
+          break;
+      }
+    }
+  }
+
+  private XmlElement datatype(XmlElement datatype) {
+    final XmlElement element = fixr("datatype");
+    copyAttributes(datatype, element, "textId");
+    final List<XmlElement> examples = new ArrayList<>();
+    for (final XmlElement child : datatype.getChildren()) {
+      if ("XML".equals(child.getLocalName())) {
+        final XmlElement mapped = element.addChild(fixr("mappedDatatype"));
+        mapped.setAttribute("standard", "XML");
+        copyAttributes(child, mapped);
+        addAnnotation(child, mapped);
+      } else if ("Example".equals(child.getLocalName())) {
+        examples.add(child);
+      }
+    }
+    final String textId = datatype.getAttribute("textId");
+    final XmlElement annotation =
+        element.addChild(textId != null ? annotation(textId) : fixr("annotation"));
+    for (final XmlElement example : examples) {
+      annotation.addChild(fixr("documentation")).setAttribute("purpose", "EXAMPLE")
+          .setText(example.getText());
+    }
+    return element;
+  }
+
+  private XmlElement field(XmlElement field) {
+    final XmlElement element = fixr("field");
+    copyAttributes(field, element, "textId");
+    final String name = field.getAttribute("name");
+    final List<XmlElement> discriminators = fieldsByName.get(name + "Source");
+    if (discriminators != null) {
+      element.setAttribute("discriminatorId",
+          discriminators.stream().map(f -> f.getAttribute("id")).collect(Collectors.joining(" ")));
+    }
+    if (hasChild(field, "enum")) {
+      element.setAttribute("type", name + "CodeSet");
+    } else if ("data".equals(field.getAttribute("type"))
+        || "XMLData".equals(field.getAttribute("type"))) {
+      element.setAttribute("lengthId", String.join(" ",
+          lengthFieldIds.getOrDefault(field.getAttribute("id"), Collections.emptyList())));
+    }
+    addAnnotation(field, element);
+    return element;
+  }
+
+  private XmlElement group(XmlElement repeatingGroup) {
+    final XmlElement group = fixr("group");
+    copyAttributes(repeatingGroup, group, "required", "textId");
+    final XmlElement parent = repeatingGroup.getParent();
+    final XmlElement component = "component".equals(parent.getLocalName()) ? parent
+        : unified.groupComponents.get(repeatingGroup.getAttribute("id"));
+    // as the script does, attributes are empty if there is no component
+    for (final String name : new String[] {"id", "name", "category", "abbrName"}) {
+      group.setAttribute(name, component != null ? valueOf(component.getAttribute(name)) : "");
+    }
+    final XmlElement numInGroup = group.addChild(fixr("numInGroup"));
+    numInGroup.setAttribute("id", repeatingGroup.getAttribute("id"));
+    addAnnotation(repeatingGroup, numInGroup);
+    for (final XmlElement member : repeatingGroup.getChildren()) {
+      member(member, group);
+    }
+    addAnnotation(parent, group);
+    return group;
+  }
+
+  private boolean hasChild(XmlElement element, String localName) {
+    for (final XmlElement child : element.getChildren()) {
+      if (localName.equals(child.getLocalName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void indexFields() {
+    fieldNames = new HashMap<>();
+    fieldsByName = new LinkedHashMap<>();
+    lengthFieldIds = new HashMap<>();
+    final XmlElement fields = section("fields");
+    if (fields == null) {
+      return;
+    }
+    for (final XmlElement field : fields.getChildren()) {
+      fieldNames.putIfAbsent(field.getAttribute("id"), field.getAttribute("name"));
+      fieldsByName.computeIfAbsent(field.getAttribute("name"), k -> new ArrayList<>()).add(field);
+      final String dataTag = field.getAttribute("associatedDataTag");
+      if (dataTag != null) {
+        lengthFieldIds.computeIfAbsent(dataTag, k -> new ArrayList<>(1))
+            .add(field.getAttribute("id"));
+      }
+    }
+  }
+
+  private void member(XmlElement member, XmlElement target) {
+    final XmlElement element;
+    switch (member.getLocalName()) {
+      case "fieldRef":
+        element = fixr("fieldRef");
+        copyAttributes(member, element, "name", "textId");
+        break;
+      case "componentRef":
+        element = fixr(unified.repeatingComponentIds.contains(member.getAttribute("id"))
+            ? "groupRef"
+            : "componentRef");
+        copyAttributes(member, element, "name", "textId");
+        break;
+      case "repeatingGroup":
+        // id is the NumInGroup tag, not the group id
+        element = fixr("groupRef");
+        copyAttributes(member, element, "name", "id", "textId");
+        final XmlElement parent = member.getParent();
+        final XmlElement component = "component".equals(parent.getLocalName()) ? parent
+            : unified.groupComponents.get(member.getAttribute("id"));
+        element.setAttribute("id", component != null ? valueOf(component.getAttribute("id")) : "");
+        break;
+      default:
+        return;
+    }
+    addAnnotation(member, element);
+    target.addChild(element);
+  }
+
+  private XmlElement message(XmlElement message) {
+    final XmlElement element = fixr("message");
+    copyAttributes(message, element, "textId", "section");
+    final XmlElement structure = element.addChild(fixr("structure"));
+    for (final XmlElement member : message.getChildren()) {
+      member(member, structure);
+    }
+    addAnnotation(message, element);
+    return element;
+  }
+
+  private String readPhrases(InputStream phrasesStream) throws XMLStreamException {
+    phrases = new HashMap<>();
+    String version = null;
+    final XMLStreamReader reader = inputFactory.createXMLStreamReader(phrasesStream);
+    try {
+      List<Text> texts = null;
+      String purpose = null;
+      StringBuilder value = null;
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            switch (reader.getLocalName()) {
+              case "phrases":
+                version = reader.getAttributeValue(null, "version");
+                break;
+              case "phrase":
+                // texts of phrases that share a textId are all documentation of an element
+                texts = phrases.computeIfAbsent(reader.getAttributeValue(null, "textId"),
+                    k -> new ArrayList<>(1));
+                break;
+              case "text":
+                purpose = reader.getAttributeValue(null, "purpose");
+                value = new StringBuilder();
+                break;
+              default:
+                break;
+            }
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            if (value != null) {
+              value.append(reader.getTextCharacters(), reader.getTextStart(),
+                  reader.getTextLength());
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if ("text".equals(reader.getLocalName()) && texts != null && value != null) {
+              texts.add(new Text(purpose, value.toString()));
+              value = null;
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return version;
+  }
+
+  private Unified readUnified(InputStream unifiedStream, String version)
+      throws XMLStreamException {
+    final Unified result = new Unified();
+    final XMLStreamReader reader = inputFactory.createXMLStreamReader(unifiedStream);
+    try {
+      // retained elements of the selected version
+      XmlElement current = null;
+      // component of another version, retained without members
+      XmlElement component = null;
+      String parentName = null;
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            final String localName = reader.getLocalName();
+            if ("fixRepository".equals(localName)) {
+              result.copyright = reader.getAttributeValue(null, "copyright");
+            } else if ("fix".equals(localName) && result.fix == null
+                && version != null && version.equals(reader.getAttributeValue(null, "version"))) {
+              result.fix = current = toElement(reader);
+            } else if (current != null) {
+              final XmlElement element = current.addChild(toElement(reader));
+              note(result, element, current);
+              current = element;
+            } else if ("component".equals(localName)) {
+              component = toElement(reader);
+              note(result, component, null);
+            } else if ("repeatingGroup".equals(localName) && "component".equals(parentName)
+                && component != null) {
+              result.groupComponents.put(reader.getAttributeValue(null, "id"), component);
+            }
+            parentName = localName;
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+            // only examples of datatypes have text that is converted
+            if (current != null && "Example".equals(current.getLocalName())) {
+              current.appendText(reader.getTextCharacters(), reader.getTextStart(),
+                  reader.getTextLength());
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (current != null) {
+              current = current.getParent();
+            } else if ("component".equals(reader.getLocalName())) {
+              component = null;
+            }
+            parentName = null;
+            break;
+          default:
+            break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return result;
+  }
+
+  private void note(Unified result, XmlElement element, XmlElement parent) {
+    switch (element.getLocalName()) {
+      case "component":
+        if ("1".equals(element.getAttribute("repeating"))) {
+          result.repeatingComponentIds.add(element.getAttribute("id"));
+        }
+        break;
+      case "repeatingGroup":
+        if (parent != null && "component".equals(parent.getLocalName())) {
+          result.groupComponents.put(element.getAttribute("id"), parent);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private XmlElement section(String localName) {
+    for (final XmlElement child : unified.fix.getChildren()) {
+      if (localName.equals(child.getLocalName())) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  private static String valueOf(String attribute) {
+    return attribute != null ? attribute : "";
+  }
+
+  private void setNonEmpty(XmlElement target, String name, String value) {
+    if (value != null && !value.isEmpty()) {
+      target.setAttribute(name, value);
+    }
+  }
+
+  private XmlElement toElement(XMLStreamReader reader) {
+    final XmlElement element = new XmlElement(reader.getLocalName());
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+    }
+    return element;
+  }
+
+  private void writeGroups(XMLStreamWriter writer, XmlElement components)
+      throws XMLStreamException {
+    final XmlElement groups = fixr("groups");
+    copyAttributes(components, groups);
+    XmlElement.indent(writer, 1);
+    groups.writeStart(writer);
+    // FIX 4.4 or later
+    for (final XmlElement component : components.getChildren()) {
+      if ("1".equals(component.getAttribute("repeating"))) {
+        for (final XmlElement child : component.getChildren()) {
+          if ("repeatingGroup".equals(child.getLocalName())) {
+            group(child).write(writer, 2);
+          } else {
+            // as the script does, other members are written directly within groups
+            final XmlElement members = fixr("groups");
+            member(child, members);
+            for (final XmlElement member : members.getChildren()) {
+              member.write(writer, 2);
+            }
+          }
+        }
+      }
+    }
+    // FIX 4.2; the last repeating group of each NumInGroup not contained by a component
+    final Set<String> ids = new LinkedHashSet<>();
+    final Map<String, XmlElement> lastGroups = new HashMap<>();
+    final List<XmlElement> pending = new ArrayList<>();
+    pending.add(unified.fix);
+    for (int i = 0; i < pending.size(); i++) {
+      final XmlElement element = pending.get(i);
+      if ("repeatingGroup".equals(element.getLocalName())) {
+        final String id = element.getAttribute("id");
+        lastGroups.put(id, element);
+        if (!"component".equals(element.getParent().getLocalName())) {
+          ids.add(id);
+        }
+      }
+      // depth-first, in document order
+      pending.addAll(i + 1, element.getChildren());
+    }
+    for (final String id : ids) {
+      group(lastGroups.get(id)).write(writer, 2);
+    }
+    XmlElement.indent(writer, 1);
+    writer.writeEndElement();
+  }
+
+  private void writeRepository(XMLStreamWriter writer, String name, String version)
+      throws XMLStreamException {
+    writer.writeStartDocument("UTF-8", "1.0");
+    writer.writeCharacters("\n");
+    final XmlElement repository = fixr("repository");
+    copyAttributes(unified.fix, repository, "version", "components");
+    repository.setAttribute("name", name);
+    repository.setAttribute("version", version);
+    writer.setPrefix("fixr", REPOSITORY_NAMESPACE);
+    writer.setPrefix("dc", DC_NAMESPACE);
+    repository.writeStart(writer);
+    writer.writeNamespace("fixr", REPOSITORY_NAMESPACE);
+    writer.writeNamespace("dc", DC_NAMESPACE);
+
+    final XmlElement metadata = fixr("metadata");
+    metadata.addChild(new XmlElement("dc", DC_NAMESPACE, "title")).setText("Orchestra");
+    metadata.addChild(new XmlElement("dc", DC_NAMESPACE, "creator"))
+        .setText("Unified2OrchestraConverter");
+    metadata.addChild(new XmlElement("dc", DC_NAMESPACE, "publisher"))
+        .setText("FIX Trading Community");
+    metadata.addChild(new XmlElement("dc", DC_NAMESPACE, "date"))
+        .setText(OffsetDateTime.now().toString());
+    metadata.addChild(new XmlElement("dc", DC_NAMESPACE, "format")).setText("Orchestra schema");
+    metadata.addChild(new XmlElement("dc", DC_NAMESPACE, "source"))
+        .setText("FIX Unified Repository");
+    if (unified.copyright != null) {
+      metadata.addChild(new XmlElement("dc", DC_NAMESPACE, "rights")).setText(unified.copyright);
+    }
+    metadata.write(writer, 1);
+
+    // code sets of fields that have enums, in order of the first field of a name with enums
+    XmlElement.indent(writer, 1);
+    fixr("codeSets").writeStart(writer);
+    final XmlElement fields = section("fields");
+    if (fields != null) {
+      final Set<String> names = new HashSet<>();
+      for (final XmlElement field : fields.getChildren()) {
+        final String fieldName = field.getAttribute("name");
+        if (hasChild(field, "enum") && names.add(fieldName)) {
+          codeSet(fieldName, fieldsByName.get(fieldName)).write(writer, 2);
+        }
+      }
+    }
+    XmlElement.indent(writer, 1);
+    writer.writeEndElement();
+
+    writeSection(writer, "datatypes", "datatype");
+    writeSection(writer, "categories", "category");
+    writeSection(writer, "sections", "section");
+    writeSection(writer, "fields", "field");
+    writeSection(writer, "components", "component");
+    final XmlElement components = section("components");
+    if (components != null) {
+      writeGroups(writer, components);
+    }
+    writeSection(writer, "messages", "message");
+
+    writer.writeCharacters("\n");
+    writer.writeEndElement();
+    writer.writeEndDocument();
+  }
+
+  private void writeSection(XMLStreamWriter writer, String sectionName, String entityName)
+      throws XMLStreamException {
+    final XmlElement section = section(sectionName);
+    if (section == null) {
+      return;
+    }
+    final XmlElement element = fixr(sectionName);
+    // as the script does, attributes of datatypes, categories and sections are not copied
+    if (!"datatypes".equals(sectionName) && !"categories".equals(sectionName)
+        && !"sections".equals(sectionName)) {
+      copyAttributes(section, element);
+    }
+    XmlElement.indent(writer, 1);
+    element.writeStart(writer);
+    for (final XmlElement entity : section.getChildren()) {
+      if (!entityName.equals(entity.getLocalName())) {
+        continue;
+      }
+      final XmlElement converted;
+      switch (entityName) {
+        case "datatype":
+          converted = datatype(entity);
+          break;
+        case "category":
+        case "section":
+          converted = category(entity, entityName);
+          break;
+        case "field":
+          converted = field(entity);
+          break;
+        case "component":
+          if ("1".equals(entity.getAttribute("repeating"))) {
+            continue;
+          }
+          converted = component(entity);
+          break;
+        default:
+          converted = message(entity);
+          break;
+      }
+      converted.write(writer, 2);
+    }
+    XmlElement.indent(writer, 1);
+    writer.writeEndElement();
+  }
+}
@@ -1,13 +1,10 @@
 package io.fixprotocol.orchestra.transformers;
 
 import java.io.File;
-import java.io.InputStream;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import net.sf.saxon.TransformerFactoryImpl;
 
 public class Unified2OrchestraTransformer {
 
@@ -43,13 +40,10 @@ public class Unified2OrchestraTransformer {
     }
 
     final Source xmlSource = new javax.xml.transform.stream.StreamSource(inputXml);
-    final InputStream xsltFile =
-        getClass().getClassLoader().getResourceAsStream("xsl/unified2orchestra.xslt");
-    final Source xsltSource = new javax.xml.transform.stream.StreamSource(xsltFile);
     final Result result = new javax.xml.transform.stream.StreamResult(outputXml);
 
-    final TransformerFactory transFact = new TransformerFactoryImpl();
-    final Transformer trans = transFact.newTransformer(xsltSource);
+    // the stylesheet is compiled on first use and shared by later transforms
+    final Transformer trans = XslTemplates.newTransformer(XslTemplates.UNIFIED2ORCHESTRA);
     trans.setParameter("phrases-file", phrasesFile.toURI().toString());
     trans.setParameter("name", name);
     trans.setParameter("new-version", version);
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.transformers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * A small XML element, for converters that hold one entity of a document at a time
+ * <p>
+ * Attributes keep the order in which they are first set; setting an attribute again replaces its
+ * value in place, as XSLT does. An element either has child elements or text, not both. Elements
+ * are written with indentation of three spaces per level.
+ */
+final class XmlElement {
+
+  private static final String INDENT = "   ";
+
+  /**
+   * Writes a line break and indentation before a tag
+   *
+   * @param writer XML output
+   * @param depth nesting level of the tag
+   * @throws XMLStreamException if the output fails
+   */
+  static void indent(XMLStreamWriter writer, int depth) throws XMLStreamException {
+    final StringBuilder sb = new StringBuilder(1 + depth * INDENT.length()).append('\n');
+    for (int i = 0; i < depth; i++) {
+      sb.append(INDENT);
+    }
+    writer.writeCharacters(sb.toString());
+  }
+
+  private Map<String, String> attributes = Collections.emptyMap();
+  private List<XmlElement> children = Collections.emptyList();
+  private final String localName;
+  private final String namespaceUri;
+  private XmlElement parent;
+  private final String prefix;
+  private StringBuilder text;
+
+  /**
+   * Constructor of an element without namespace
+   *
+   * @param localName name of the element
+   */
+  XmlElement(String localName) {
+    this("", "", localName);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param prefix namespace prefix, declared by an ancestor when written
+   * @param namespaceUri namespace of the element
+   * @param localName name of the element
+   */
+  XmlElement(String prefix, String namespaceUri, String localName) {
+    this.prefix = prefix;
+    this.namespaceUri = namespaceUri;
+    this.localName = localName;
+  }
+
+  XmlElement addChild(XmlElement child) {
+    if (children.isEmpty()) {
+      children = new ArrayList<>();
+    }
+    children.add(child);
+    child.parent = this;
+    return child;
+  }
+
+  void appendText(char[] characters, int start, int length) {
+    if (text == null) {
+      text = new StringBuilder(length);
+    }
+    text.append(characters, start, length);
+  }
+
+  /**
+   * @param name attribute name
+   * @return value of an attribute, or {@code null} if not present
+   */
+  String getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  Map<String, String> getAttributes() {
+    return attributes;
+  }
+
+  List<XmlElement> getChildren() {
+    return children;
+  }
+
+  String getLocalName() {
+    return localName;
+  }
+
+  XmlElement getParent() {
+    return parent;
+  }
+
+  /**
+   * @return text content, or an empty string if none
+   */
+  String getText() {
+    return text != null ? text.toString() : "";
+  }
+
+  /**
+   * Sets an attribute, ignored if the value is {@code null}
+   *
+   * @return this element
+   */
+  XmlElement setAttribute(String name, String value) {
+    if (value != null) {
+      if (attributes.isEmpty()) {
+        attributes = new LinkedHashMap<>();
+      }
+      attributes.put(name, value);
+    }
+    return this;
+  }
+
+  XmlElement setText(String value) {
+    text = new StringBuilder(value);
+    return this;
+  }
+
+  /**
+   * Writes this element and its descendants
+   *
+   * @param writer XML output
+   * @param depth nesting level of this element
+   * @throws XMLStreamException if the output fails
+   */
+  void write(XMLStreamWriter writer, int depth) throws XMLStreamException {
+    indent(writer, depth);
+    if (children.isEmpty() && (text == null || text.length() == 0)) {
+      writer.writeEmptyElement(prefix, localName, namespaceUri);
+      writeAttributes(writer);
+      return;
+    }
+    writeStart(writer);
+    if (children.isEmpty()) {
+      writer.writeCharacters(text.toString());
+    } else {
+      for (final XmlElement child : children) {
+        child.write(writer, depth + 1);
+      }
+      indent(writer, depth);
+    }
+    writer.writeEndElement();
+  }
+
+  /**
+   * Writes the start tag and attributes of this element, to be followed by content written
+   * separately and an end tag
+   *
+   * @param writer XML output
+   * @throws XMLStreamException if the output fails
+   */
+  void writeStart(XMLStreamWriter writer) throws XMLStreamException {
+    writer.writeStartElement(prefix, localName, namespaceUri);
+    writeAttributes(writer);
+  }
+
+  private void writeAttributes(XMLStreamWriter writer) throws XMLStreamException {
+    for (final Map.Entry<String, String> attribute : attributes.entrySet()) {
+      writer.writeAttribute(attribute.getKey(), attribute.getValue());
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.transformers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import net.sf.saxon.TransformerFactoryImpl;
+
+/**
+ * Cache of compiled XSL stylesheets
+ * <p>
+ * Compiling a stylesheet costs far more than applying it to a file, so a stylesheet is compiled by
+ * Saxon, which supports the XSLT 2.0 of this project, when it is first requested, and its
+ * {@link Templates} are kept for the life of the JVM. A {@link Transformer} holds the parameters
+ * and state of one transformation, so callers get a new one each time. Stylesheets are keyed by
+ * URI; a stylesheet file that is edited while the JVM runs is not recompiled.
+ */
+public final class XslTemplates {
+
+  /**
+   * Classpath resource of the stylesheet that converts Orchestra to a Unified Repository
+   */
+  public static final String ORCHESTRA2UNIFIED = "xsl/orchestra2unified.xslt";
+
+  /**
+   * Classpath resource of the stylesheet that converts a Unified Repository to Orchestra
+   */
+  public static final String UNIFIED2ORCHESTRA = "xsl/unified2orchestra.xslt";
+
+  private static final Map<String, Templates> templates = new ConcurrentHashMap<>();
+
+  /**
+   * Returns a compiled stylesheet file, compiling it on first use
+   *
+   * @param xsltFile stylesheet file; included stylesheets are resolved relative to it
+   * @return shared templates
+   * @throws TransformerException if the stylesheet cannot be read or is invalid
+   */
+  public static Templates getTemplates(File xsltFile) throws TransformerException {
+    try {
+      return getTemplates(xsltFile.getCanonicalFile().toURI().toURL());
+    } catch (final IOException e) {
+      throw new TransformerConfigurationException(e);
+    }
+  }
+
+  /**
+   * Returns a compiled stylesheet resource, compiling it on first use
+   *
+   * @param resourceName classpath resource of a stylesheet
+   * @return shared templates
+   * @throws TransformerException if the stylesheet is not found, cannot be read or is invalid
+   */
+  public static Templates getTemplates(String resourceName) throws TransformerException {
+    final URL resourceUrl = XslTemplates.class.getClassLoader().getResource(resourceName);
+    if (resourceUrl == null) {
+      throw new TransformerConfigurationException("Stylesheet not found; " + resourceName);
+    }
+    return getTemplates(resourceUrl);
+  }
+
+  /**
+   * Creates a transformer for a stylesheet file
+   *
+   * @param xsltFile stylesheet file
+   * @return a new transformer, to be used by one thread at a time
+   * @throws TransformerException if the stylesheet cannot be read or is invalid
+   */
+  public static Transformer newTransformer(File xsltFile) throws TransformerException {
+    return getTemplates(xsltFile).newTransformer();
+  }
+
+  /**
+   * Creates a transformer for a stylesheet resource
+   *
+   * @param resourceName classpath resource of a stylesheet
+   * @return a new transformer, to be used by one thread at a time
+   * @throws TransformerException if the stylesheet is not found, cannot be read or is invalid
+   */
+  public static Transformer newTransformer(String resourceName) throws TransformerException {
+    return getTemplates(resourceName).newTransformer();
+  }
+
+  // A thread that requests a stylesheet being compiled waits for it rather than compiling it again
+  private static synchronized Templates compile(URL url) throws TransformerException {
+    final String key = url.toExternalForm();
+    Templates compiled = templates.get(key);
+    if (compiled == null) {
+      final TransformerFactory factory = new TransformerFactoryImpl();
+      try (InputStream inputStream = url.openStream()) {
+        compiled = factory.newTemplates(new StreamSource(inputStream, key));
+      } catch (final IOException e) {
+        throw new TransformerConfigurationException(e);
+      }
+      templates.put(key, compiled);
+    }
+    return compiled;
+  }
+
+  private static Templates getTemplates(URL url) throws TransformerException {
+    final Templates compiled = templates.get(url.toExternalForm());
+    return compiled != null ? compiled : compile(url);
+  }
+
+  private XslTemplates() {
+
+  }
+}
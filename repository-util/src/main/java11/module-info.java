@@ -2,9 +2,11 @@ module orchestra.repository.util {
   requires transitive orchestra.repository;
   requires transitive orchestra.common;
   requires commons.cli;
+  requires com.fasterxml.jackson.core;
   requires org.apache.logging.log4j;
   requires java.xml;
   requires orchestra.score;
+  requires org.antlr.antlr4.runtime;
   requires Saxon.HE;
 
   exports io.fixprotocol.orchestra.repository;
@@ -0,0 +1,60 @@
+package io.fixprotocol.orchestra.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.orchestra.dsl.antlr.ScoreException;
+
+public class ExpressionCheckerTest {
+
+  private ExpressionChecker checker;
+
+  @BeforeEach
+  public void setUp() {
+    checker = new ExpressionChecker();
+    checker.addCodeSet("SideCodeSet", "char", "base", Arrays.asList("Buy", "Sell"));
+    checker.addCodeSet("OrdTypeCodeSet", "char", "base", Arrays.asList("Market", "Limit"));
+    checker.addCodeSet("PartyRoleCodeSet", "int", "base", Arrays.asList("ExecutingFirm"));
+    checker.addField("Side", "SideCodeSet", "base");
+    checker.addField("OrdType", "OrdTypeCodeSet", "base");
+    checker.addField("Price", "Price", "base");
+    checker.addField("SecurityID", "String", "base");
+    checker.addField("PartyRole", "PartyRoleCodeSet", "base");
+    checker.addField("PartyID", "String", "base");
+    checker.addComponent("Instrument");
+    checker.addGroup("Parties");
+  }
+
+  @Test
+  public void resolved() throws ScoreException {
+    assertTrue(checker.check("OrdType == ^Limit", true).isEmpty());
+    assertTrue(checker.check("Side in {^Buy, ^Sell}", true).isEmpty());
+    assertTrue(checker.check("Parties[PartyRole==^ExecutingFirm].PartyID == \"ABC\"", true)
+        .isEmpty());
+    assertTrue(checker.check("Price > 0 and exists Instrument.SecurityID", true).isEmpty());
+    assertTrue(checker.check("$limit = Price", false).isEmpty());
+    assertTrue(checker.check("this.Price = 12.5", false).isEmpty());
+  }
+
+  @Test
+  public void unresolved() throws ScoreException {
+    assertEquals(1, checker.check("Sid == ^Buy", true).size());
+    assertEquals(1, checker.check("OrdType == ^Buy", true).size());
+    assertEquals(1, checker.check("Side == ^Unknown", true).size());
+  }
+
+  @Test
+  public void types() throws ScoreException {
+    assertEquals(1, checker.check("Price == \"x\"", true).size());
+    assertEquals(1, checker.check("Price + 1", true).size());
+    assertEquals(2, checker.check("OrdType=3", true).size());
+  }
+
+  @Test
+  public void syntax() {
+    assertThrows(ScoreException.class, () -> checker.check("Side == == ^", true));
+  }
+}
@@ -0,0 +1,120 @@
+package io.fixprotocol.orchestra.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ReferenceCheckerTest {
+
+  private ReferenceChecker checker;
+
+  @BeforeEach
+  public void setUp() {
+    checker = new ReferenceChecker();
+  }
+
+  @Test
+  public void resolved() {
+    // references precede declarations, as sections may appear in any order
+    start("messages");
+    start("message", "id", "14", "name", "NewOrderSingle");
+    element("fieldRef", "id", "11");
+    element("componentRef", "id", "1001");
+    element("groupRef", "id", "2001", "scenario", "Equity");
+    end("message");
+    end("messages");
+    start("datatypes");
+    element("datatype", "name", "String");
+    end("datatypes");
+    start("fields");
+    element("field", "id", "11", "name", "ClOrdID", "type", "String");
+    element("field", "id", "453", "name", "NoParties", "type", "String");
+    end("fields");
+    start("components");
+    element("component", "id", "1001", "name", "Instrument");
+    end("components");
+    start("groups");
+    start("group", "id", "2001", "name", "Parties", "scenario", "Equity");
+    element("numInGroup", "id", "453");
+    end("group");
+    end("groups");
+    assertTrue(checker.check().isEmpty());
+  }
+
+  @Test
+  public void unresolved() {
+    start("datatypes");
+    element("datatype", "name", "Price", "baseType", "float");
+    end("datatypes");
+    start("codeSets");
+    start("codeSet", "id", "10002", "name", "OrdTypeCodeSet", "type", "char");
+    element("code", "id", "1", "name", "Market");
+    element("code", "id", "1", "name", "Limit");
+    end("codeSet");
+    end("codeSets");
+    start("fields");
+    element("field", "id", "11", "name", "ClOrdID", "type", "String");
+    end("fields");
+    start("messages");
+    start("message", "id", "14", "name", "NewOrderSingle");
+    element("fieldRef", "id", "11", "scenario", "Equity");
+    element("groupRef", "id", "2001");
+    end("message");
+    end("messages");
+    final List<String> problems = checker.check();
+    assertEquals(5, problems.size());
+    assertEquals("fieldRef id=11 scenario=Equity in message NewOrderSingle (id=14) does not match"
+        + " a field", problems.get(3));
+  }
+
+  @Test
+  public void stateMachines() {
+    start("actors");
+    start("actor", "name", "Trader");
+    start("states", "name", "OrdStatus");
+    start("initial", "name", "New");
+    element("transition", "name", "Fill", "target", "Filled");
+    element("transition", "name", "Reject", "target", "Rejected");
+    end("initial");
+    element("state", "name", "Filled");
+    element("state", "name", "Filled");
+    end("states");
+    element("timer", "name", "Expiry");
+    end("actor");
+    end("actors");
+    start("messages");
+    start("message", "id", "8", "name", "ExecutionReport");
+    start("responses");
+    start("response");
+    element("trigger", "actor", "Trader", "stateMachine", "OrdStatus", "name", "Fill");
+    element("trigger", "actor", "Trader", "stateMachine", "OrdStatus", "name", "Cancel");
+    element("timerSchedule", "actor", "Trader", "name", "Expiry");
+    element("timerSchedule", "actor", "Market", "name", "Expiry");
+    end("response");
+    end("responses");
+    end("message");
+    end("messages");
+    assertEquals(4, checker.check().size());
+  }
+
+  private void element(String localName, String... attributes) {
+    start(localName, attributes);
+    end(localName);
+  }
+
+  private void end(String localName) {
+    checker.endElement(localName);
+  }
+
+  private void start(String localName, String... attributes) {
+    final Map<String, String> values = new HashMap<>();
+    for (int i = 0; i < attributes.length; i += 2) {
+      values.put(attributes[i], attributes[i + 1]);
+    }
+    checker.startElement(localName, name -> values.getOrDefault(name, ""));
+  }
+}
@@ -1,20 +1,38 @@
 package io.fixprotocol.orchestra.repository;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import io.fixprotocol.orchestra.event.Event;
 import io.fixprotocol.orchestra.event.EventListener;
 
 public class RepositoryValidatorTest {
 
+  private static final class EventCollector implements EventListener {
+    final List<String> messages = new ArrayList<>();
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void event(Event event) {
+      messages.add(event.getSeverity() + " " + event.getMessage());
+    }
+  }
+
   private RepositoryValidatorImpl validator;
   private EventListener eventLogger;
 
@@ -42,10 +60,54 @@ public class RepositoryValidatorTest {
     validator.validate(inputStream);
   }
 
+  @Test
+  public void testExpressionMessages() throws FileNotFoundException {
+    final EventCollector collector = new EventCollector();
+    new RepositoryValidatorImpl(collector)
+        .validate(new FileInputStream("src/test/resources/repositorywitherrors.xml"));
+    assertTrue(collector.messages.contains("ERROR RepositoryValidator: Score expression"
+        + " 'OrdType=3' is invalid; assignment is not a condition at 'OrdType=3'"),
+        collector.messages.toString());
+  }
+
   @Test
   public void testValidate() throws FileNotFoundException {
     InputStream inputStream = new FileInputStream("src/test/resources/OrchestraFIXLatest.xml");
     validator.validate(inputStream);
   }
 
+  @Test
+  public void testValidateStreamingWithErrors() throws FileNotFoundException {
+    final EventCollector documentEvents = new EventCollector();
+    final RepositoryValidatorImpl documentValidator = new RepositoryValidatorImpl(documentEvents);
+    documentValidator.validate(new FileInputStream("src/test/resources/repositorywitherrors.xml"));
+    final EventCollector streamingEvents = new EventCollector();
+    final RepositoryValidatorImpl streamingValidator =
+        new RepositoryValidatorImpl(streamingEvents);
+    streamingValidator
+        .validateStreaming(new FileInputStream("src/test/resources/repositorywitherrors.xml"));
+    assertFalse(documentEvents.messages.isEmpty());
+    assertEquals(documentEvents.messages, streamingEvents.messages);
+    assertEquals(documentValidator.getFatalErrors(), streamingValidator.getFatalErrors());
+    assertEquals(documentValidator.getErrors(), streamingValidator.getErrors());
+    assertEquals(documentValidator.getWarnings(), streamingValidator.getWarnings());
+  }
+
+  @Test
+  public void testValidateParallelWithErrors() throws FileNotFoundException {
+    final EventCollector documentEvents = new EventCollector();
+    final RepositoryValidatorImpl documentValidator = new RepositoryValidatorImpl(documentEvents);
+    documentValidator.validate(new FileInputStream("src/test/resources/repositorywitherrors.xml"));
+    final EventCollector parallelEvents = new EventCollector();
+    final RepositoryValidatorImpl parallelValidator =
+        new RepositoryValidatorImpl(parallelEvents, 4);
+    parallelValidator
+        .validateStreaming(new FileInputStream("src/test/resources/repositorywitherrors.xml"));
+    assertFalse(documentEvents.messages.isEmpty());
+    assertEquals(documentEvents.messages, parallelEvents.messages);
+    assertEquals(documentValidator.getFatalErrors(), parallelValidator.getFatalErrors());
+    assertEquals(documentValidator.getErrors(), parallelValidator.getErrors());
+    assertEquals(documentValidator.getWarnings(), parallelValidator.getWarnings());
+  }
+
 }
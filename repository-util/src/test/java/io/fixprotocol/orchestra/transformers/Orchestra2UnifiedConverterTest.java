@@ -0,0 +1,255 @@
+package io.fixprotocol.orchestra.transformers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.Text;
+
+public class Orchestra2UnifiedConverterTest {
+
+  private static final String ORCHESTRA =
+      "<fixr:repository xmlns:fixr=\"http://fixprotocol.io/2020/orchestra/repository\""
+          + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\" name=\"FIX.Latest\""
+          + " version=\"FIX.Latest_EP1\">"
+          + "<fixr:metadata><dc:rights>Copyright FIX</dc:rights></fixr:metadata>"
+          + "<fixr:codeSets><fixr:codeSet name=\"SideCodeSet\" id=\"54\" type=\"char\">"
+          + "<fixr:code name=\"Buy\" id=\"54001\" value=\"1\"><fixr:annotation>"
+          + "<fixr:documentation purpose=\"SYNOPSIS\">Buy <b>side</b></fixr:documentation>"
+          + "</fixr:annotation></fixr:code>"
+          + "<fixr:code name=\"Sell\" id=\"54002\" value=\"2\" supported=\"forbidden\"/>"
+          + "</fixr:codeSet></fixr:codeSets>"
+          + "<fixr:categories><fixr:category name=\"Session\" section=\"Session\"/>"
+          + "</fixr:categories>"
+          + "<fixr:fields><fixr:field id=\"54\" name=\"Side\" type=\"SideCodeSet\"/>"
+          + "<fixr:field id=\"95\" name=\"RawDataLength\" type=\"Length\"/>"
+          + "<fixr:field id=\"96\" name=\"RawData\" type=\"data\" lengthId=\"95\"/>"
+          + "<fixr:field id=\"96\" name=\"RawData\" type=\"data\" lengthId=\"95\" scenario=\"x\"/>"
+          + "<fixr:field id=\"453\" name=\"NoPartyIDs\" type=\"NumInGroup\"/></fixr:fields>"
+          + "<fixr:groups><fixr:group id=\"1012\" name=\"Parties\"><fixr:numInGroup id=\"453\"/>"
+          + "<fixr:fieldRef id=\"96\"/></fixr:group></fixr:groups>"
+          + "<fixr:messages>"
+          + "<fixr:message name=\"Heartbeat\" id=\"1\" msgType=\"0\" category=\"Session\">"
+          + "<fixr:structure><fixr:fieldRef id=\"54\" presence=\"required\"><fixr:annotation>"
+          + "<fixr:documentation>Side of heartbeat</fixr:documentation></fixr:annotation>"
+          + "</fixr:fieldRef></fixr:structure>"
+          + "<fixr:annotation><fixr:documentation>Heartbeat</fixr:documentation>"
+          + "</fixr:annotation></fixr:message>"
+          + "<fixr:message name=\"Heartbeat\" id=\"1\" msgType=\"0\" scenario=\"Test\">"
+          + "<fixr:structure><fixr:groupRef id=\"1012\" implMaxOccurs=\"3\"/></fixr:structure>"
+          + "</fixr:message></fixr:messages>"
+          + "</fixr:repository>";
+
+  // documented entities and members of components and groups
+  private static final String ORCHESTRA_ENTITIES =
+      "<fixr:repository xmlns:fixr=\"http://fixprotocol.io/2020/orchestra/repository\""
+          + " name=\"FIX.Latest\" version=\"FIX.Latest_EP1\"><fixr:metadata/>"
+          + "<fixr:datatypes><fixr:datatype name=\"int\">"
+          + "<fixr:mappedDatatype standard=\"XML\" base=\"xs:integer\" builtin=\"1\"/>"
+          + "<fixr:annotation><fixr:documentation purpose=\"SYNOPSIS\">Integer"
+          + "</fixr:documentation></fixr:annotation></fixr:datatype></fixr:datatypes>"
+          + "<fixr:categories><fixr:category name=\"Common\" componentType=\"Block\">"
+          + "<fixr:annotation><fixr:documentation>Common</fixr:documentation></fixr:annotation>"
+          + "</fixr:category></fixr:categories>"
+          + "<fixr:sections><fixr:section name=\"Session\" displayOrder=\"1\">"
+          + "<fixr:annotation><fixr:documentation>Session</fixr:documentation></fixr:annotation>"
+          + "</fixr:section></fixr:sections>"
+          + "<fixr:fields><fixr:field id=\"11\" name=\"ClOrdID\" type=\"String\">"
+          + "<fixr:annotation><fixr:documentation>Order id</fixr:documentation>"
+          + "</fixr:annotation></fixr:field>"
+          + "<fixr:field id=\"11\" name=\"ClOrdID\" type=\"String\" scenario=\"x\">"
+          + "<fixr:annotation><fixr:documentation>Order id of x</fixr:documentation>"
+          + "</fixr:annotation></fixr:field>"
+          + "<fixr:field id=\"448\" name=\"PartyID\" type=\"String\"><fixr:annotation>"
+          + "<fixr:appinfo purpose=\"FIXML\">PartyID</fixr:appinfo></fixr:annotation>"
+          + "</fixr:field>"
+          + "<fixr:field id=\"453\" name=\"NoPartyIDs\" type=\"NumInGroup\"/></fixr:fields>"
+          + "<fixr:components><fixr:component id=\"1000\" name=\"Order\" category=\"Common\">"
+          + "<fixr:fieldRef id=\"11\" presence=\"required\" supported=\"supported\">"
+          + "<fixr:annotation><fixr:documentation>Order of component</fixr:documentation>"
+          + "</fixr:annotation></fixr:fieldRef>"
+          + "<fixr:groupRef id=\"1012\" presence=\"forbidden\"><fixr:annotation>"
+          + "<fixr:documentation>Parties of order</fixr:documentation></fixr:annotation>"
+          + "</fixr:groupRef>"
+          + "<fixr:annotation><fixr:documentation>An order</fixr:documentation>"
+          + "</fixr:annotation></fixr:component></fixr:components>"
+          + "<fixr:groups><fixr:group id=\"1012\" name=\"Parties\" implMaxOccurs=\"5\">"
+          + "<fixr:numInGroup id=\"453\"/><fixr:fieldRef id=\"448\" supported=\"forbidden\">"
+          + "<fixr:annotation><fixr:documentation>Party</fixr:documentation></fixr:annotation>"
+          + "</fixr:fieldRef></fixr:group></fixr:groups>"
+          + "<fixr:messages>"
+          + "<fixr:message name=\"NewOrderSingle\" id=\"14\" msgType=\"D\" flow=\"Orders\">"
+          + "<fixr:structure><fixr:componentRef id=\"1000\" presence=\"required\">"
+          + "<fixr:annotation><fixr:documentation>Order of message</fixr:documentation>"
+          + "</fixr:annotation></fixr:componentRef>"
+          + "<fixr:groupRef id=\"1012\" implMaxOccurs=\"unbounded\"/></fixr:structure>"
+          + "</fixr:message></fixr:messages>"
+          + "</fixr:repository>";
+
+  private static final String REPOSITORY_NAMESPACE =
+      "http://fixprotocol.io/2020/orchestra/repository";
+
+  @BeforeAll
+  public static void setupOnce() {
+    new File(("target/test")).mkdirs();
+  }
+
+  private final XPath xpath = XPathFactory.newInstance().newXPath();
+
+  @Test
+  public void convert() throws Exception {
+    final File inputXml = new File("target/test/Orchestra2UnifiedInput.xml");
+    Files.write(inputXml.toPath(), ORCHESTRA.getBytes(StandardCharsets.UTF_8));
+    final File outputXml = new File("target/test/Orchestra2Unified.xml");
+    new Orchestra2UnifiedConverter().convert(inputXml, outputXml, null);
+
+    final Document unified = parse(outputXml);
+    assertEquals("Copyright FIX", xpath.evaluate("/fixRepository/@copyright", unified));
+    assertEquals("0", xpath.evaluate("/fixRepository/fix/@hasComponents", unified));
+    assertEquals("char", xpath.evaluate("//field[@id='54']/@type", unified));
+    assertEquals("ENUM_54_1", xpath.evaluate("//field[@id='54']/enum[1]/@textId", unified));
+    // as by the script, every code is supported
+    assertEquals("", xpath.evaluate("//field[@id='54']/enum[@value='2']/@supported", unified));
+    assertEquals("96 96", xpath.evaluate("//field[@id='95']/@associatedDataTag", unified));
+    assertEquals("1", xpath.evaluate("count(//field[@id='96'])", unified));
+    assertEquals("453",
+        xpath.evaluate("//component[@name='Parties']/repeatingGroup/@id", unified));
+    assertEquals("Session", xpath.evaluate("//message/@section", unified));
+    assertEquals("1", xpath.evaluate("count(//message)", unified));
+    assertEquals("MSG_1_REF_54", xpath.evaluate("//message/fieldRef/@textId", unified));
+    assertEquals("1", xpath.evaluate("//message/fieldRef/@required", unified));
+    assertEquals("Parties", xpath.evaluate("//message/componentRef/@name", unified));
+    assertEquals("3", xpath.evaluate("//message/componentRef/@implMaxOccurs", unified));
+
+    final Document phrases = parse(new File("target/test/FIX.Latest_EP1_en_phrases.xml"));
+    assertEquals("3", xpath.evaluate("count(//phrase)", phrases));
+    assertEquals("Buy side", xpath.evaluate("//phrase[@textId='ENUM_54_1']//para", phrases));
+    assertEquals("Heartbeat", xpath.evaluate("//phrase[@textId='MSG_1_TITLE']//para", phrases));
+  }
+
+  @Test
+  public void equivalentToStylesheet() throws Exception {
+    assertEquivalent(write("Orchestra2UnifiedEquivalent.xml", ORCHESTRA));
+    assertEquivalent(write("Orchestra2UnifiedEntities.xml", ORCHESTRA_ENTITIES));
+  }
+
+  /**
+   * Asserts that the converter and orchestra2unified.xslt produce the same unified repository and
+   * phrases, apart from the differences documented by the converter
+   */
+  private static void assertEquivalent(File inputXml) throws Exception {
+    final File transformedDir = new File("target/test/transformed");
+    final File convertedDir = new File("target/test/converted");
+    transformedDir.mkdirs();
+    convertedDir.mkdirs();
+    final File transformed = new File(transformedDir, inputXml.getName());
+    final File converted = new File(convertedDir, inputXml.getName());
+    XslTemplates.newTransformer(XslTemplates.ORCHESTRA2UNIFIED).transform(
+        new DOMSource(withSupportedMembers(inputXml), inputXml.toURI().toString()),
+        new StreamResult(transformed));
+    new Orchestra2UnifiedConverter().convert(inputXml, converted, null);
+    assertEquals(canonicalize(transformed, false), canonicalize(converted, false));
+
+    final String phrasesName = "FIX.Latest_EP1_en_phrases.xml";
+    assertEquals(canonicalize(new File(transformedDir, phrasesName), true),
+        canonicalize(new File(convertedDir, phrasesName), true));
+  }
+
+  /**
+   * Writes one element per line with its attributes sorted, omitting namespace declarations,
+   * whitespace between elements and the time generated
+   * <p>
+   * Text identifiers of members of components and groups are masked, since the converter forms
+   * them alike in the repository and phrases. A phrase is kept only if it has a text identifier and
+   * text, and only the first phrase of a text identifier is kept.
+   */
+  private static void canonicalize(Element element, StringBuilder sb, Set<String> textIds) {
+    final Map<String, String> attributes = new TreeMap<>();
+    final NamedNodeMap attributeNodes = element.getAttributes();
+    for (int i = 0; i < attributeNodes.getLength(); i++) {
+      final Node attribute = attributeNodes.item(i);
+      if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())
+          && !"generated".equals(attribute.getLocalName())) {
+        attributes.put(attribute.getLocalName(),
+            "textId".equals(attribute.getLocalName())
+                ? attribute.getNodeValue().replaceFirst("^CMP_.*", "CMP_*")
+                : attribute.getNodeValue());
+      }
+    }
+    if (textIds != null && "phrase".equals(element.getLocalName())) {
+      final String textId = element.getAttribute("textId");
+      if (textId.isEmpty() || element.getElementsByTagName("text").getLength() == 0
+          || !textIds.add(textId)) {
+        return;
+      }
+    }
+    sb.append('<').append(element.getLocalName()).append(' ').append(attributes).append(">\n");
+    for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof Element) {
+        canonicalize((Element) child, sb, textIds);
+      } else if (child instanceof Text && !child.getNodeValue().trim().isEmpty()) {
+        sb.append(child.getNodeValue()).append('\n');
+      }
+    }
+    sb.append("</").append(element.getLocalName()).append(">\n");
+  }
+
+  private static String canonicalize(File file, boolean phrases) throws Exception {
+    final StringBuilder sb = new StringBuilder();
+    canonicalize(parseNamespaceAware(file).getDocumentElement(), sb,
+        phrases ? new HashSet<>() : null);
+    return sb.toString();
+  }
+
+  private static Document parseNamespaceAware(File file) throws Exception {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    return factory.newDocumentBuilder().parse(file);
+  }
+
+  /**
+   * An Orchestra file in which members without a supported attribute are explicitly supported,
+   * the schema default, which the script does not apply
+   */
+  private static Document withSupportedMembers(File inputXml) throws Exception {
+    final Document document = parseNamespaceAware(inputXml);
+    for (final String localName : new String[] {"fieldRef", "componentRef", "groupRef"}) {
+      final NodeList members = document.getElementsByTagNameNS(REPOSITORY_NAMESPACE, localName);
+      for (int i = 0; i < members.getLength(); i++) {
+        final Element member = (Element) members.item(i);
+        if (!member.hasAttribute("supported")) {
+          member.setAttribute("supported", "supported");
+        }
+      }
+    }
+    return document;
+  }
+
+  private static File write(String fileName, String xml) throws IOException {
+    final File file = new File("target/test", fileName);
+    Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static Document parse(File file) throws Exception {
+    return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+  }
+}
@@ -1,11 +1,26 @@
 package io.fixprotocol.orchestra.transformers;
 
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.code;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.field;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.fieldRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.math.BigInteger;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import javax.xml.parsers.ParserConfigurationException;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -20,8 +35,23 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.SAXException;
+import io.fixprotocol._2020.orchestra.repository.Categories;
+import io.fixprotocol._2020.orchestra.repository.CategoryType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol._2020.orchestra.repository.SectionType;
+import io.fixprotocol._2020.orchestra.repository.Sections;
 import io.fixprotocol.orchestra.repository.RepositoryValidatorImpl;
 import io.fixprotocol.orchestra.event.EventListener;
+import io.fixprotocol.orchestra.repository.io.RepositoryIO;
 
 public class RepositoryCompressorTest {
 
@@ -94,4 +124,132 @@ public class RepositoryCompressorTest {
     final RepositoryValidatorImpl validator = new RepositoryValidatorImpl(eventLogger);
     validator.validate(new FileInputStream(new File(outfile)));
   }
+
+  @Test
+  public void profiles() throws Exception {
+    final String inputFile = "target/test/RepositoryCompressorTest-input.xml";
+    try (OutputStream os = new FileOutputStream(inputFile)) {
+      RepositoryIO.getInstance().write(repository(), os);
+    }
+    final String[][] selections = {{"--section", "PreTrade"},
+        {"--section", "Trade", "--notcategory", "CrossOrders"}, {"--category", "Session"}};
+    final String profilesFile = "target/test/profiles.txt";
+    try (PrintWriter writer = new PrintWriter(profilesFile)) {
+      writer.println("# output selection");
+      for (int i = 0; i < 2; i++) {
+        writer.println(profileOutput(i) + " " + String.join(" ", selections[i]));
+      }
+    }
+    // the last profile is given on the command line
+    final List<String> args = new ArrayList<>(
+        Arrays.asList("-i", inputFile, "-p", profilesFile, "-o", profileOutput(2)));
+    args.addAll(Arrays.asList(selections[2]));
+    RepositoryCompressor.main(args.toArray(new String[0]));
+
+    final String[][] messageNames =
+        {{"IOI"}, {"NewOrderSingle"}, {"Logon"}};
+    for (int i = 0; i < selections.length; i++) {
+      final String singleOutput = "target/test/RepositoryCompressorTest-single" + i + ".xml";
+      final List<String> singleArgs = new ArrayList<>(Arrays.asList("-i", inputFile, "-o",
+          singleOutput));
+      singleArgs.addAll(Arrays.asList(selections[i]));
+      RepositoryCompressor.main(singleArgs.toArray(new String[0]));
+      assertEquals(new String(Files.readAllBytes(Paths.get(singleOutput)), StandardCharsets.UTF_8),
+          new String(Files.readAllBytes(Paths.get(profileOutput(i))), StandardCharsets.UTF_8));
+
+      final Repository output;
+      try (InputStream is = new FileInputStream(profileOutput(i))) {
+        output = RepositoryIO.getInstance().read(is);
+      }
+      assertEquals(Arrays.asList(messageNames[i]), output.getMessages().getMessage().stream()
+          .map(MessageType::getName).collect(Collectors.toList()));
+    }
+  }
+
+  private static String profileOutput(int i) {
+    return "target/test/RepositoryCompressorTest-profile" + i + ".xml";
+  }
+
+  /**
+   * Messages in three sections that share a header component and a repeating group
+   */
+  private static Repository repository() {
+    final Repository repository = RepositoryFixtures.withSideCodes(
+        RepositoryFixtures.repository(Arrays.asList(field(8, "BeginString", "String"),
+            field(11, "ClOrdID", "String"), field(23, "IOIID", "String"),
+            field(54, "Side", "SideCodeSet"), field(98, "EncryptMethod", "int"),
+            field(448, "PartyID", "String"), field(453, "NoPartyIDs", "NumInGroup"),
+            field(548, "CrossID", "String"))),
+        code(1, "Buy", "1"), code(2, "Sell", "2"));
+
+    final Sections sections = new Sections();
+    for (final String name : new String[] {"PreTrade", "Trade", "Session"}) {
+      final SectionType section = new SectionType();
+      section.setName(name);
+      sections.getSection().add(section);
+    }
+    repository.setSections(sections);
+    final Categories categories = new Categories();
+    for (final String[] nameAndSection : new String[][] {{"Indication", "PreTrade"},
+        {"SingleGeneralOrderHandling", "Trade"}, {"CrossOrders", "Trade"},
+        {"Session", "Session"}}) {
+      final CategoryType category = new CategoryType();
+      category.setName(nameAndSection[0]);
+      category.setSection(nameAndSection[1]);
+      categories.getCategory().add(category);
+    }
+    repository.setCategories(categories);
+
+    final ComponentType header = new ComponentType();
+    header.setId(BigInteger.valueOf(1024));
+    header.setName("StandardHeader");
+    header.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(8, PresenceT.REQUIRED));
+    final Components components = new Components();
+    components.getComponent().add(header);
+    repository.setComponents(components);
+    final GroupType parties = new GroupType();
+    parties.setId(BigInteger.valueOf(1012));
+    parties.setName("Parties");
+    parties.setNumInGroup(fieldRef(453, null));
+    parties.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(448, PresenceT.REQUIRED));
+    final Groups groups = new Groups();
+    groups.getGroup().add(parties);
+    repository.setGroups(groups);
+
+    final Messages messages = new Messages();
+    messages.getMessage()
+        .add(message(1, "IOI", "6", "Indication", fieldRef(23, PresenceT.REQUIRED),
+            fieldRef(54, PresenceT.REQUIRED)));
+    messages.getMessage()
+        .add(message(2, "NewOrderSingle", "D", "SingleGeneralOrderHandling",
+            fieldRef(11, PresenceT.REQUIRED), fieldRef(54, PresenceT.REQUIRED), groupRef(1012)));
+    messages.getMessage().add(message(3, "NewOrderCross", "s", "CrossOrders",
+        fieldRef(548, PresenceT.REQUIRED), groupRef(1012)));
+    messages.getMessage()
+        .add(message(4, "Logon", "A", "Session", fieldRef(98, PresenceT.REQUIRED)));
+    repository.setMessages(messages);
+    return repository;
+  }
+
+  private static GroupRefType groupRef(int id) {
+    final GroupRefType ref = new GroupRefType();
+    ref.setId(BigInteger.valueOf(id));
+    return ref;
+  }
+
+  private static MessageType message(int id, String name, String msgType, String category,
+      Object... members) {
+    final MessageType message = new MessageType();
+    message.setId(BigInteger.valueOf(id));
+    message.setName(name);
+    message.setMsgType(msgType);
+    message.setCategory(category);
+    message.setStructure(new MessageType.Structure());
+    final ComponentRefType header = new ComponentRefType();
+    header.setId(BigInteger.valueOf(1024));
+    header.setPresence(PresenceT.REQUIRED);
+    message.getStructure().getComponentRefOrGroupRefOrFieldRef().add(header);
+    message.getStructure().getComponentRefOrGroupRefOrFieldRef().addAll(Arrays.asList(members));
+    return message;
+  }
 }
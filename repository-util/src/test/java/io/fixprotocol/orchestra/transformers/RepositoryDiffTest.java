@@ -0,0 +1,116 @@
+package io.fixprotocol.orchestra.transformers;
+
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.field;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.fieldRef;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.repository;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.withNewOrderSingle;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol.orchestra.repository.io.RepositoryIO;
+import io.fixprotocol.orchestra.transformers.ChangeSet.Change;
+import io.fixprotocol.orchestra.transformers.ChangeSet.ChangeType;
+import io.fixprotocol.orchestra.transformers.ChangeSet.ElementKind;
+
+public class RepositoryDiffTest {
+
+  @BeforeAll
+  public static void setupOnce() throws Exception {
+    new File(("target/test")).mkdirs();
+  }
+
+  private static Repository base() {
+    return withNewOrderSingle(
+        repository(Arrays.asList(field(11, "ClOrdID", "String"), field(54, "Side", "char"),
+            field(99, "StopPx", "Price"))),
+        fieldRef(11, PresenceT.REQUIRED), fieldRef(54, PresenceT.REQUIRED),
+        fieldRef(99, PresenceT.OPTIONAL));
+  }
+
+  private static Repository input() {
+    return withNewOrderSingle(
+        repository(Arrays.asList(field(11, "ClOrdID", "String"),
+            field(54, "Side", "SideCodeSet"), field(38, "OrderQty", "Qty"))),
+        fieldRef(54, PresenceT.REQUIRED), fieldRef(11, PresenceT.REQUIRED),
+        fieldRef(38, PresenceT.REQUIRED));
+  }
+
+  private static String write(Repository repository, String fileName) throws Exception {
+    final File file = new File("target/test", fileName);
+    try (OutputStream os = new FileOutputStream(file)) {
+      RepositoryIO.getInstance().write(repository, os);
+    }
+    return file.getPath();
+  }
+
+  @Test
+  public void changes() throws Exception {
+    final Repository base = base();
+    final Repository input = input();
+
+    final ChangeSet changes = RepositoryDiff.builder().build().diff(base, input);
+    assertEquals(1, changes.count(ChangeType.ADDED));
+    assertEquals(1, changes.count(ChangeType.REMOVED));
+    assertEquals(2, changes.count(ChangeType.MODIFIED));
+
+    final Change side = changes.getChanges().stream()
+        .filter(c -> c.getElement() == ElementKind.FIELD && c.getType() == ChangeType.MODIFIED)
+        .findFirst().get();
+    assertEquals(54, side.getId().intValue());
+    assertEquals("type", side.getDifferences().get(0).getAttribute());
+    assertEquals("char", side.getDifferences().get(0).getOldValue());
+    assertEquals("SideCodeSet", side.getDifferences().get(0).getNewValue());
+
+    final Change message = changes.getChanges().stream()
+        .filter(c -> c.getElement() == ElementKind.MESSAGE).findFirst().get();
+    assertTrue(message.getDifferences().stream()
+        .anyMatch(d -> d.getAttribute().equals("fieldRef[38]") && d.getOldValue() == null));
+    assertTrue(message.getDifferences().stream()
+        .anyMatch(d -> d.getAttribute().equals("fieldRef[99]") && d.getNewValue() == null));
+    assertTrue(message.getDifferences().stream().anyMatch(d -> d.getAttribute().equals("members")));
+
+    final ByteArrayOutputStream json = new ByteArrayOutputStream();
+    changes.writeJson(json);
+    assertTrue(new String(json.toByteArray(), StandardCharsets.UTF_8).contains("\"OrderQty\""));
+    final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+    changes.writeXml(xml);
+    assertTrue(new String(xml.toByteArray(), StandardCharsets.UTF_8)
+        .contains("<difference attribute=\"type\" old=\"char\" new=\"SideCodeSet\"/>"));
+  }
+
+  @Test
+  public void identical() throws Exception {
+    final ChangeSet changes = RepositoryDiff.builder().build().diff(base(), base());
+    assertTrue(changes.isEmpty(), changes.toString());
+    assertEquals(0, changes.getChanges().size());
+  }
+
+  @Test
+  public void files() throws Exception {
+    final String outputFile = "target/test/RepositoryDiffTest-diff.json";
+    final ChangeSet changes = RepositoryDiff.builder()
+        .baseFile(write(base(), "RepositoryDiffTest-base.xml"))
+        .inputFile(write(input(), "RepositoryDiffTest-input.xml")).outputFile(outputFile).build()
+        .diff();
+    assertEquals(4, changes.getChanges().size());
+
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    changes.writeJson(expected);
+    final String json =
+        new String(Files.readAllBytes(Paths.get(outputFile)), StandardCharsets.UTF_8);
+    assertEquals(new String(expected.toByteArray(), StandardCharsets.UTF_8), json);
+    assertTrue(json.contains("\"OrderQty\""), json);
+    assertTrue(json.contains("\"StopPx\""), json);
+  }
+}
@@ -0,0 +1,97 @@
+package io.fixprotocol.orchestra.transformers;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * Builds small repositories for tests of transformers that compare or merge them
+ */
+final class RepositoryFixtures {
+
+  static CodeType code(int id, String name, String value) {
+    final CodeType code = new CodeType();
+    code.setId(BigInteger.valueOf(id));
+    code.setName(name);
+    code.setValue(value);
+    return code;
+  }
+
+  static FieldType field(int id, String name, String type) {
+    return field(id, name, type, null);
+  }
+
+  static FieldType field(int id, String name, String type, String scenario) {
+    final FieldType field = new FieldType();
+    field.setId(BigInteger.valueOf(id));
+    field.setName(name);
+    field.setType(type);
+    field.setScenario(scenario);
+    return field;
+  }
+
+  static FieldRefType fieldRef(int id, PresenceT presence) {
+    final FieldRefType ref = new FieldRefType();
+    ref.setId(BigInteger.valueOf(id));
+    ref.setPresence(presence);
+    return ref;
+  }
+
+  /**
+   * A repository with fields only
+   */
+  static Repository repository(List<FieldType> fieldList) {
+    final Repository repository = new Repository();
+    final Fields fields = new Fields();
+    fields.getField().addAll(fieldList);
+    repository.setFields(fields);
+    return repository;
+  }
+
+  /**
+   * Adds a NewOrderSingle message
+   *
+   * @return the repository
+   */
+  static Repository withNewOrderSingle(Repository repository, FieldRefType... members) {
+    final MessageType message = new MessageType();
+    message.setId(BigInteger.ONE);
+    message.setName("NewOrderSingle");
+    message.setMsgType("D");
+    message.setStructure(new MessageType.Structure());
+    message.getStructure().getComponentRefOrGroupRefOrFieldRef().addAll(Arrays.asList(members));
+    final Messages messages = new Messages();
+    messages.getMessage().add(message);
+    repository.setMessages(messages);
+    return repository;
+  }
+
+  /**
+   * Adds SideCodeSet, possibly with no codes
+   *
+   * @return the repository
+   */
+  static Repository withSideCodes(Repository repository, CodeType... codes) {
+    final CodeSetType codeSet = new CodeSetType();
+    codeSet.setId(BigInteger.valueOf(54));
+    codeSet.setName("SideCodeSet");
+    codeSet.setType("char");
+    codeSet.getCode().addAll(Arrays.asList(codes));
+    final CodeSets codeSets = new CodeSets();
+    codeSets.getCodeSet().add(codeSet);
+    repository.setCodeSets(codeSets);
+    return repository;
+  }
+
+  private RepositoryFixtures() {}
+}
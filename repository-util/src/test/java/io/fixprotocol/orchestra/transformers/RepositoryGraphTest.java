@@ -0,0 +1,108 @@
+package io.fixprotocol.orchestra.transformers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+
+public class RepositoryGraphTest {
+
+  private static ComponentRefType componentRef(int id) {
+    final ComponentRefType ref = new ComponentRefType();
+    ref.setId(BigInteger.valueOf(id));
+    return ref;
+  }
+
+  private static FieldRefType fieldRef(int id) {
+    final FieldRefType ref = new FieldRefType();
+    ref.setId(BigInteger.valueOf(id));
+    return ref;
+  }
+
+  private static GroupRefType groupRef(int id) {
+    final GroupRefType ref = new GroupRefType();
+    ref.setId(BigInteger.valueOf(id));
+    return ref;
+  }
+
+  private RepositoryGraph graph;
+
+  @BeforeEach
+  public void setUp() {
+    final List<ComponentType> components = new ArrayList<>();
+    // 1001 and 1002 reference each other
+    final ComponentType c1001 = new ComponentType();
+    c1001.setId(BigInteger.valueOf(1001));
+    c1001.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(11));
+    c1001.getComponentRefOrGroupRefOrFieldRef().add(componentRef(1002));
+    components.add(c1001);
+    final ComponentType c1002 = new ComponentType();
+    c1002.setId(BigInteger.valueOf(1002));
+    c1002.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(12));
+    c1002.getComponentRefOrGroupRefOrFieldRef().add(componentRef(1001));
+    c1002.getComponentRefOrGroupRefOrFieldRef().add(groupRef(2001));
+    components.add(c1002);
+    final ComponentType c1003 = new ComponentType();
+    c1003.setId(BigInteger.valueOf(1003));
+    c1003.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(13));
+    components.add(c1003);
+
+    final List<GroupType> groups = new ArrayList<>();
+    final GroupType g2001 = new GroupType();
+    g2001.setId(BigInteger.valueOf(2001));
+    g2001.setNumInGroup(fieldRef(20));
+    g2001.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(21));
+    groups.add(g2001);
+
+    graph = new RepositoryGraph(components, groups);
+  }
+
+  @Test
+  public void cycle() {
+    final RepositoryGraph.Reachability closure = graph.getComponentClosure(1001);
+    assertTrue(closure.hasComponent(1001));
+    assertTrue(closure.hasComponent(1002));
+    assertFalse(closure.hasComponent(1003));
+    assertTrue(closure.hasGroup(2001));
+    assertEquals(4, closure.fieldIds().count());
+    assertTrue(closure.hasField(20));
+    // members of a cycle share a closure
+    assertSame(closure, graph.getComponentClosure(1002));
+  }
+
+  @Test
+  public void messages() {
+    final MessageType message = new MessageType();
+    message.setStructure(new MessageType.Structure());
+    message.getStructure().getComponentRefOrGroupRefOrFieldRef().add(fieldRef(35));
+    message.getStructure().getComponentRefOrGroupRefOrFieldRef().add(componentRef(1003));
+    message.getStructure().getComponentRefOrGroupRefOrFieldRef().add(groupRef(2001));
+    final RepositoryGraph.Reachability closure =
+        graph.closure(Collections.singletonList(message));
+    assertTrue(closure.hasField(35));
+    assertTrue(closure.hasField(13));
+    assertTrue(closure.hasField(21));
+    assertFalse(closure.hasField(11));
+    assertFalse(closure.hasComponent(1001));
+    assertEquals(1, closure.groupIds().count());
+  }
+
+  @Test
+  public void missing() {
+    assertNull(graph.getComponentClosure(9999));
+    assertNull(graph.getGroupClosure(9999));
+  }
+}
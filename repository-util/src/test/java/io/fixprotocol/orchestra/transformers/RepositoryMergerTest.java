@@ -0,0 +1,126 @@
+package io.fixprotocol.orchestra.transformers;
+
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.code;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.field;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.fieldRef;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.repository;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.withNewOrderSingle;
+import static io.fixprotocol.orchestra.transformers.RepositoryFixtures.withSideCodes;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol.orchestra.transformers.ChangeSet.Change;
+import io.fixprotocol.orchestra.transformers.ChangeSet.ChangeType;
+import io.fixprotocol.orchestra.transformers.ChangeSet.Difference;
+import io.fixprotocol.orchestra.transformers.ChangeSet.ElementKind;
+import io.fixprotocol.orchestra.transformers.RepositoryMerger.ConflictPolicy;
+
+public class RepositoryMergerTest {
+
+  @Test
+  public void merge() throws Exception {
+    final Repository base = withSideCodes(
+        repository(Arrays.asList(field(11, "ClOrdID", "String"),
+            field(54, "Side", "SideCodeSet"))),
+        code(54001, "Buy", "1"), code(54002, "Sell", "2"));
+    final Repository overlay1 = withSideCodes(
+        repository(Arrays.asList(field(54, "Side", "SideCodeSet"),
+            field(5001, "DeskID", "String"), field(11, "ClOrdID", "String", "Venue"))),
+        code(54002, "Sell", "2"), code(54901, "InternalCross", "Z"));
+    final Repository overlay2 =
+        withSideCodes(repository(Collections.singletonList(field(5002, "TraderID", "String"))));
+
+    final ChangeSet changes =
+        RepositoryMerger.builder().build().merge(base, Arrays.asList(overlay1, overlay2));
+    assertEquals(4, changes.count(ChangeType.ADDED), changes.getChanges().toString());
+    assertEquals(0, changes.count(ChangeType.MODIFIED));
+
+    final List<FieldType> fields = base.getFields().getField();
+    assertEquals(5, fields.size());
+    assertEquals("Venue", fields.get(3).getScenario());
+    assertEquals("TraderID", fields.get(4).getName());
+    final List<CodeType> codes = base.getCodeSets().getCodeSet().get(0).getCode();
+    assertEquals(Arrays.asList("Buy", "Sell", "InternalCross"),
+        Arrays.asList(codes.get(0).getName(), codes.get(1).getName(), codes.get(2).getName()));
+    final Change code = changes.getChanges().stream()
+        .filter(c -> c.getElement() == ElementKind.CODE).findFirst().get();
+    assertEquals("SideCodeSet", code.getParent());
+  }
+
+  @Test
+  public void conflicts() throws Exception {
+    final FieldType side = field(54, "Side", "char");
+    final Repository base = withSideCodes(
+        repository(Collections.singletonList(field(54, "Side", "SideCodeSet"))),
+        code(54001, "Buy", "1"));
+    final Repository overlay = withSideCodes(repository(Collections.singletonList(side)),
+        code(54001, "Purchase", "1"), code(54002, "Sell", "2"));
+
+    final ChangeSet changes = RepositoryMerger.builder().conflictPolicy(ConflictPolicy.REPLACE)
+        .build().merge(base, Collections.singletonList(overlay));
+    assertEquals(2, changes.count(ChangeType.MODIFIED), changes.getChanges().toString());
+    assertTrue(changes.getChanges().stream().anyMatch(c -> c.getType() == ChangeType.MODIFIED
+        && c.getElement() == ElementKind.FIELD
+        && c.getDifferences().get(0).getNewValue().equals("char")));
+    assertSame(side, base.getFields().getField().get(0));
+    final List<CodeType> codes = base.getCodeSets().getCodeSet().get(0).getCode();
+    assertEquals(2, codes.size());
+    assertEquals("Purchase", codes.get(0).getName());
+  }
+
+  @Test
+  public void keep() throws Exception {
+    final Repository base =
+        repository(Collections.singletonList(field(54, "Side", "SideCodeSet")));
+    final Repository overlay = repository(Collections.singletonList(field(54, "Side", "char")));
+
+    final ChangeSet changes = RepositoryMerger.builder().conflictPolicy(ConflictPolicy.KEEP)
+        .build().merge(base, Collections.singletonList(overlay));
+    assertEquals(1, changes.count(ChangeType.MODIFIED));
+    assertEquals("SideCodeSet", base.getFields().getField().get(0).getType());
+  }
+
+  @ParameterizedTest
+  @EnumSource(ConflictPolicy.class)
+  public void membersConflict(ConflictPolicy policy) throws Exception {
+    final List<FieldType> fields =
+        Arrays.asList(field(11, "ClOrdID", "String"), field(54, "Side", "SideCodeSet"));
+    final Repository base = withNewOrderSingle(repository(fields),
+        fieldRef(11, PresenceT.REQUIRED), fieldRef(54, PresenceT.REQUIRED));
+    final Repository overlay = withNewOrderSingle(repository(fields),
+        fieldRef(11, PresenceT.REQUIRED), fieldRef(54, PresenceT.OPTIONAL));
+    final MessageType existing = base.getMessages().getMessage().get(0);
+    final MessageType other = overlay.getMessages().getMessage().get(0);
+
+    final ChangeSet changes = RepositoryMerger.builder().conflictPolicy(policy).build()
+        .merge(base, Collections.singletonList(overlay));
+    assertEquals(1, changes.count(ChangeType.MODIFIED), changes.getChanges().toString());
+    final Change conflict = changes.getChanges().get(0);
+    assertEquals(ElementKind.MESSAGE, conflict.getElement());
+    assertEquals(1, conflict.getDifferences().size());
+    final Difference difference = conflict.getDifferences().get(0);
+    assertEquals("fieldRef[54]", difference.getAttribute());
+    assertEquals(PresenceT.REQUIRED.value(), difference.getOldValue());
+    assertEquals(PresenceT.OPTIONAL.value(), difference.getNewValue());
+
+    final MessageType merged = base.getMessages().getMessage().get(0);
+    assertEquals(1, base.getMessages().getMessage().size());
+    assertSame(policy == ConflictPolicy.REPLACE ? other : existing, merged);
+    final FieldRefType side =
+        (FieldRefType) merged.getStructure().getComponentRefOrGroupRefOrFieldRef().get(1);
+    assertEquals(policy == ConflictPolicy.REPLACE ? PresenceT.OPTIONAL : PresenceT.REQUIRED,
+        side.getPresence());
+  }
+}
@@ -0,0 +1,83 @@
+package io.fixprotocol.orchestra.transformers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.transform.TransformerException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class RepositoryXslTransformerTest {
+
+  // writes the name of the root element of the input with a suffix
+  private static final String STYLESHEET =
+      "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+          + "<xsl:output method=\"text\"/><xsl:param name=\"suffix\"/>"
+          + "<xsl:template match=\"/\"><xsl:value-of select=\"concat(name(*), $suffix)\"/>"
+          + "</xsl:template></xsl:stylesheet>";
+
+  private static File inputDir;
+  private static File xsltFile;
+
+  @BeforeAll
+  public static void setupOnce() throws IOException {
+    inputDir = new File("target/test/xslinput");
+    inputDir.mkdirs();
+    xsltFile = write(new File("target/test"), "root.xslt", STYLESHEET);
+  }
+
+  private static String read(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  private static File write(File dir, String fileName, String text) throws IOException {
+    final File file = new File(dir, fileName);
+    Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  @Test
+  public void transformFile() throws Exception {
+    final File inputXml = write(inputDir, "single.xml", "<single/>");
+    final File outputXml = new File("target/test/xsloutput/single.txt");
+    new RepositoryXslTransformer().transform(xsltFile, inputXml, outputXml,
+        new String[] {"suffix=-1"});
+    assertEquals("single-1", read(outputXml));
+  }
+
+  @Test
+  public void transformBatch() throws Exception {
+    final List<File> inputXmls = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      inputXmls.add(write(inputDir, "good" + i + ".xml", "<good" + i + "/>"));
+    }
+    inputXmls.add(2, write(inputDir, "unclosed.xml", "<unclosed>"));
+    inputXmls.add(5, write(inputDir, "text.xml", "not XML"));
+    final File outputDir = new File("target/test/xslbatch");
+
+    final TransformerException e = assertThrows(TransformerException.class,
+        () -> new RepositoryXslTransformer().transform(xsltFile, inputXmls, outputDir,
+            new String[] {"suffix=-batch"}, 3));
+    // the first failure in order of input is thrown, and the other is suppressed by it
+    assertEquals(1, e.getSuppressed().length);
+
+    // other files are transformed regardless of the failures
+    for (int i = 0; i < 6; i++) {
+      assertEquals("good" + i + "-batch", read(new File(outputDir, "good" + i + ".xml")));
+    }
+  }
+
+  @Test
+  public void invalidStylesheet() throws Exception {
+    final File invalid = write(new File("target/test"), "invalid-batch.xslt", "<stylesheet/>");
+    final List<File> inputXmls = new ArrayList<>();
+    inputXmls.add(write(inputDir, "any.xml", "<any/>"));
+    assertThrows(TransformerException.class, () -> new RepositoryXslTransformer()
+        .transform(invalid, inputXmls, new File("target/test/xslinvalid"), new String[0], 1));
+  }
+}
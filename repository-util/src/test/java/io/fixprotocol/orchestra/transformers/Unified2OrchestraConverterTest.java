@@ -0,0 +1,220 @@
+package io.fixprotocol.orchestra.transformers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+public class Unified2OrchestraConverterTest {
+
+  private static final String PHRASES = "<phrases version=\"FIX.5.0SP2\">"
+      + "<phrase textId=\"FIELD_54\"><text purpose=\"SYNOPSIS\"><para>Side of order</para></text>"
+      + "</phrase>"
+      + "<phrase textId=\"MSG_0\"><text purpose=\"SYNOPSIS\">Heartbeat</text></phrase>"
+      + "<phrase textId=\"DT_int\"><text purpose=\"SYNOPSIS\">Sequence of digits</text>"
+      + "<text purpose=\"ELABORATION\"><para>No commas</para><para>or decimals</para></text>"
+      + "</phrase>"
+      + "<phrase textId=\"CAT_Common\"><text purpose=\"SYNOPSIS\">Common</text></phrase>"
+      + "<phrase textId=\"COMP_Parties\"><text purpose=\"SYNOPSIS\">Parties</text></phrase>"
+      + "<phrase textId=\"ENUM_54_1\"><text purpose=\"SYNOPSIS\">Buy</text></phrase>"
+      + "</phrases>";
+
+  private static final String UNIFIED = "<fixRepository copyright=\"Copyright FIX\">"
+      + "<fix version=\"FIX.4.2\"><fields><field id=\"1\" name=\"Account\" type=\"String\"/>"
+      + "</fields></fix>"
+      + "<fix version=\"FIX.5.0SP2\">"
+      + "<fields><field id=\"54\" name=\"Side\" type=\"char\" textId=\"FIELD_54\">"
+      + "<enum value=\"1\" symbolicName=\"Buy\"/><enum value=\"2\" symbolicName=\"Sell\"/></field>"
+      + "<field id=\"448\" name=\"PartyID\" type=\"String\"/>"
+      + "<field id=\"453\" name=\"NoPartyIDs\" type=\"NumInGroup\"/></fields>"
+      + "<components><component id=\"1012\" name=\"Parties\" repeating=\"1\" category=\"Common\">"
+      + "<repeatingGroup id=\"453\" required=\"0\"><fieldRef id=\"448\" required=\"1\"/>"
+      + "</repeatingGroup></component></components>"
+      + "<messages><message id=\"1\" name=\"Heartbeat\" msgType=\"0\" section=\"Session\""
+      + " textId=\"MSG_0\"><fieldRef id=\"54\" name=\"Side\" required=\"1\"/>"
+      + "<componentRef id=\"1012\" name=\"Parties\"/></message></messages>"
+      + "</fix></fixRepository>";
+
+  // entities with documentation, a repeating group without component and a length field
+  private static final String UNIFIED_ENTITIES = "<fixRepository copyright=\"Copyright FIX\">"
+      + "<fix version=\"FIX.5.0SP2\" components=\"1\" fields=\"1\">"
+      + "<datatypes><datatype name=\"int\" textId=\"DT_int\">"
+      + "<XML builtin=\"1\" base=\"xs:integer\"/>"
+      + "<Example>-1</Example><Example>723</Example></datatype>"
+      + "<datatype name=\"char\"/></datatypes>"
+      + "<categories><category id=\"Common\" volume=\"1\" componentType=\"Block\""
+      + " textId=\"CAT_Common\"/></categories>"
+      + "<sections><section id=\"Session\" volume=\"2\" displayOrder=\"1\"/></sections>"
+      + "<fields><field id=\"54\" name=\"Side\" type=\"char\" textId=\"FIELD_54\">"
+      + "<enum value=\"1\" symbolicName=\"Buy\" textId=\"ENUM_54_1\"/>"
+      + "<enum value=\"2\" symbolicName=\"Sell\" addedEP=\"-1\"/></field>"
+      + "<field id=\"95\" name=\"RawDataLength\" type=\"Length\" associatedDataTag=\"96\"/>"
+      + "<field id=\"96\" name=\"RawData\" type=\"data\"/>"
+      + "<field id=\"212\" name=\"XmlData\" type=\"XMLData\"/>"
+      + "<field id=\"33\" name=\"NoLinesOfText\" type=\"NumInGroup\" addedEP=\"-1\"/>"
+      + "<field id=\"58\" name=\"Text\" type=\"String\" enumDatatype=\"54\""
+      + " elaborationTextId=\"X\"/>"
+      + "<field id=\"448\" name=\"PartyID\" type=\"String\"/>"
+      + "<field id=\"453\" name=\"NoPartyIDs\" type=\"NumInGroup\"/></fields>"
+      + "<components><component id=\"1000\" name=\"Instrument\" type=\"Block\">"
+      + "<fieldRef id=\"54\" name=\"Side\" required=\"0\"/></component>"
+      + "<component id=\"1012\" name=\"Parties\" repeating=\"1\" category=\"Common\""
+      + " textId=\"COMP_Parties\"><repeatingGroup id=\"453\" required=\"0\">"
+      + "<fieldRef id=\"448\" required=\"1\"/></repeatingGroup></component></components>"
+      + "<messages><message id=\"1\" name=\"Heartbeat\" msgType=\"0\" section=\"Session\""
+      + " textId=\"MSG_0\"><fieldRef id=\"54\" name=\"Side\" required=\"1\"/>"
+      + "<componentRef id=\"1012\" name=\"Parties\"/><componentRef id=\"1000\"/>"
+      + "<repeatingGroup id=\"33\" required=\"1\"><fieldRef id=\"58\" required=\"1\"/>"
+      + "<fieldRef id=\"96\" required=\"0\"/></repeatingGroup></message></messages>"
+      + "</fix></fixRepository>";
+
+  private static final String DC_NAMESPACE = "http://purl.org/dc/elements/1.1/";
+
+  @BeforeAll
+  public static void setupOnce() {
+    new File(("target/test")).mkdirs();
+  }
+
+  /**
+   * Asserts that the converter and unified2orchestra.xslt produce the same elements, attributes
+   * and text, apart from the date and creator of the metadata
+   */
+  private static void assertEquivalent(File unifiedFile, File phrasesFile) throws Exception {
+    final File transformed = new File("target/test", "transformed-" + unifiedFile.getName());
+    final File converted = new File("target/test", "converted-" + unifiedFile.getName());
+    new Unified2OrchestraTransformer().transform(unifiedFile, phrasesFile, transformed,
+        "FIX.Latest", "FIX.Latest_EP1");
+    new Unified2OrchestraConverter().convert(unifiedFile, phrasesFile, converted, "FIX.Latest",
+        "FIX.Latest_EP1");
+    assertEquals(canonicalize(transformed), canonicalize(converted));
+  }
+
+  /**
+   * Writes one element per line with its attributes sorted, omitting namespace declarations,
+   * whitespace between elements, dc:date and dc:creator
+   */
+  private static void canonicalize(Element element, StringBuilder sb) {
+    if (DC_NAMESPACE.equals(element.getNamespaceURI())
+        && ("date".equals(element.getLocalName()) || "creator".equals(element.getLocalName()))) {
+      return;
+    }
+    final String name = "{" + element.getNamespaceURI() + "}" + element.getLocalName();
+    final Map<String, String> attributes = new TreeMap<>();
+    final NamedNodeMap attributeNodes = element.getAttributes();
+    for (int i = 0; i < attributeNodes.getLength(); i++) {
+      final Node attribute = attributeNodes.item(i);
+      if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+        attributes.put(attribute.getLocalName(), attribute.getNodeValue());
+      }
+    }
+    sb.append('<').append(name).append(' ').append(attributes).append(">\n");
+    for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof Element) {
+        canonicalize((Element) child, sb);
+      } else if (child instanceof Text && !child.getNodeValue().trim().isEmpty()) {
+        sb.append(child.getNodeValue()).append('\n');
+      }
+    }
+    sb.append("</").append(name).append(">\n");
+  }
+
+  private static String canonicalize(File file) throws Exception {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    final Document document = factory.newDocumentBuilder().parse(file);
+    final StringBuilder sb = new StringBuilder();
+    canonicalize(document.getDocumentElement(), sb);
+    return sb.toString();
+  }
+
+  private static Document convert(String unified, String phrases) throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new Unified2OrchestraConverter().convert(toStream(unified), toStream(phrases), out,
+        "FIX.Latest", "FIX.Latest_EP1");
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    return factory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+  }
+
+  private static File write(String fileName, String xml) throws IOException {
+    final File file = new File("target/test", fileName);
+    Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static InputStream toStream(String xml) {
+    return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private final XPath xpath = XPathFactory.newInstance().newXPath();
+
+  @Test
+  public void convert() throws Exception {
+    final Document document = convert(UNIFIED, PHRASES);
+    assertEquals("FIX.Latest_EP1", evaluate(document, "/*/@version"));
+    assertEquals("Copyright FIX", evaluate(document, "//*[local-name()='rights']"));
+    assertEquals("", evaluate(document, "//*[@id='1']/@name[.='Account']"));
+    assertEquals("54002", evaluate(document,
+        "//*[local-name()='codeSet'][@name='SideCodeSet']/*[@name='Sell']/@id"));
+    assertEquals("SideCodeSet", evaluate(document, "//*[local-name()='field'][@id='54']/@type"));
+    assertEquals("Side of order", evaluate(document,
+        "//*[local-name()='field'][@id='54']//*[local-name()='documentation']"));
+    assertEquals("1012", evaluate(document, "//*[local-name()='group']/@id"));
+    assertEquals("453",
+        evaluate(document, "//*[local-name()='group']/*[local-name()='numInGroup']/@id"));
+    assertEquals("required", evaluate(document,
+        "//*[local-name()='group']/*[local-name()='fieldRef'][@id='448']/@presence"));
+    assertEquals("1012", evaluate(document,
+        "//*[local-name()='structure']/*[local-name()='groupRef']/@id"));
+    assertEquals("", evaluate(document, "//*[local-name()='message']/@section"));
+    assertEquals("Heartbeat", evaluate(document,
+        "//*[local-name()='message']/*[local-name()='annotation']/*"));
+  }
+
+  @Test
+  public void equivalentToStylesheet() throws Exception {
+    final File phrasesFile = write("unified-phrases.xml", PHRASES);
+    assertEquivalent(write("unified.xml", UNIFIED), phrasesFile);
+    assertEquivalent(write("unified-entities.xml", UNIFIED_ENTITIES), phrasesFile);
+  }
+
+  @Test
+  public void equivalentToStylesheetEP247() throws Exception {
+    final URL resource =
+        Thread.currentThread().getContextClassLoader().getResource("FixRepositoryUnifiedEP247.xml");
+    assumeTrue(resource != null, "FixRepositoryUnifiedEP247.xml not available");
+    final File unifiedFile = new File(resource.toURI());
+    assertEquivalent(unifiedFile,
+        new File(unifiedFile.getParent(), "FIX.5.0SP2_EP247_en_phrases.xml"));
+  }
+
+  @Test
+  public void missingVersion() {
+    assertThrows(IOException.class,
+        () -> convert(UNIFIED, PHRASES.replace("FIX.5.0SP2", "FIX.4.4")));
+  }
+
+  private String evaluate(Document document, String expression) throws Exception {
+    return xpath.evaluate(expression, document);
+  }
+}
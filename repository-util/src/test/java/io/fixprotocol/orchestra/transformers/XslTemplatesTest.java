@@ -0,0 +1,67 @@
+package io.fixprotocol.orchestra.transformers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class XslTemplatesTest {
+
+  @BeforeAll
+  public static void setupOnce() {
+    new File(("target/test")).mkdirs();
+  }
+
+  private static File write(String fileName, String text) throws IOException {
+    final File file = new File("target/test", fileName);
+    Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  @Test
+  public void resource() throws Exception {
+    final Templates templates = XslTemplates.getTemplates(XslTemplates.ORCHESTRA2UNIFIED);
+    assertSame(templates, XslTemplates.getTemplates(XslTemplates.ORCHESTRA2UNIFIED));
+  }
+
+  @Test
+  public void fileKeyedByCanonicalPath() throws Exception {
+    final File xsltFile = write("templates.xslt",
+        "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+            + "<xsl:param name=\"suffix\"/>"
+            + "<xsl:template match=\"/\"><result><xsl:value-of select=\"$suffix\"/></result>"
+            + "</xsl:template></xsl:stylesheet>");
+    assertSame(XslTemplates.getTemplates(xsltFile),
+        XslTemplates.getTemplates(new File("target/test/../test/templates.xslt")));
+
+    // parameters belong to a transformer, not to the shared templates
+    final Transformer transformer = XslTemplates.newTransformer(xsltFile);
+    transformer.setParameter("suffix", "-x");
+    assertEquals("-x", transformer.getParameter("suffix"));
+    assertNull(XslTemplates.newTransformer(xsltFile).getParameter("suffix"));
+  }
+
+  @Test
+  public void missingResource() {
+    final TransformerConfigurationException e = assertThrows(
+        TransformerConfigurationException.class, () -> XslTemplates.getTemplates("xsl/none.xslt"));
+    assertTrue(e.getMessage().contains("xsl/none.xslt"), e.getMessage());
+  }
+
+  @Test
+  public void invalidFile() throws Exception {
+    final File xsltFile = write("invalid.xslt", "<stylesheet/>");
+    assertThrows(TransformerException.class, () -> XslTemplates.getTemplates(xsltFile));
+  }
+}
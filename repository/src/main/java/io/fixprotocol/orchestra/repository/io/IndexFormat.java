@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.io;
+
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+
+/**
+ * Layout of a repository index file
+ *
+ * <pre>
+ * header:    magic (int) version (int) payload length (int) CRC-32 of payload (int)
+ * payload:   directory of tables, (offset, record count) each, then the tables
+ * </pre>
+ *
+ * Records are fixed-width arrays of ints, so a record is located by arithmetic. A string is
+ * referenced by its offset in the string table, where it is stored as a length followed by UTF-8
+ * bytes; {@link #NONE} stands for a null string or number. All values are big-endian.
+ */
+final class IndexFormat {
+
+  static final int FORMAT_VERSION = 1;
+  static final int HEADER_LENGTH = 16;
+  static final int MAGIC = 0x46495849; // "FIXI"
+  static final int NONE = -1;
+
+  // tables in directory order
+  static final int FIELDS = 0; // sorted by id, then base scenario first
+  static final int FIELD_NAMES = 1; // field record numbers sorted by name
+  static final int CODE_SETS = 2; // sorted by name, then scenario
+  static final int CODES = 3;
+  static final int COMPONENTS = 4; // sorted by id, then base scenario first
+  static final int GROUPS = 5; // sorted by id, then base scenario first
+  static final int MEMBERS = 6;
+  static final int MESSAGES = 7; // sorted by msgType, then base scenario first
+  static final int MESSAGE_NAMES = 8; // message record numbers sorted by name
+  static final int STRINGS = 9;
+  static final int TABLE_COUNT = 10;
+
+  static final int DIRECTORY_LENGTH = TABLE_COUNT * 2 * Integer.BYTES;
+
+  // record widths in bytes
+  static final int CODE_LENGTH = 2 * Integer.BYTES; // name, value
+  static final int CODE_SET_LENGTH = 6 * Integer.BYTES; // id, name, scenario, type, first, count
+  static final int FIELD_LENGTH = 5 * Integer.BYTES; // id, name, scenario, type, code set
+  static final int MEMBER_LENGTH = 4 * Integer.BYTES; // kind, id, presence, value
+  static final int MESSAGE_LENGTH = 6 * Integer.BYTES; // id, name, scenario, msgType, first, count
+  static final int NAME_LENGTH = Integer.BYTES; // record number
+  // id, name, scenario, NumInGroup id, first member, count
+  static final int STRUCTURE_LENGTH = 6 * Integer.BYTES;
+
+  static final int MEMBER_COMPONENT = 1;
+  static final int MEMBER_FIELD = 0;
+  static final int MEMBER_GROUP = 2;
+
+  // presence codes are fixed by the format, independent of the order of PresenceT constants
+  static final int PRESENCE_CONSTANT = 4;
+  static final int PRESENCE_FORBIDDEN = 2;
+  static final int PRESENCE_IGNORED = 3;
+  static final int PRESENCE_OPTIONAL = 0;
+  static final int PRESENCE_REQUIRED = 1;
+
+  static int presenceCode(PresenceT presence) {
+    if (presence == null) {
+      return NONE;
+    }
+    switch (presence) {
+      case CONSTANT:
+        return PRESENCE_CONSTANT;
+      case FORBIDDEN:
+        return PRESENCE_FORBIDDEN;
+      case IGNORED:
+        return PRESENCE_IGNORED;
+      case OPTIONAL:
+        return PRESENCE_OPTIONAL;
+      case REQUIRED:
+        return PRESENCE_REQUIRED;
+      default:
+        throw new IllegalArgumentException("Unknown presence " + presence);
+    }
+  }
+
+  static PresenceT presence(int code) {
+    switch (code) {
+      case PRESENCE_CONSTANT:
+        return PresenceT.CONSTANT;
+      case PRESENCE_FORBIDDEN:
+        return PresenceT.FORBIDDEN;
+      case PRESENCE_IGNORED:
+        return PresenceT.IGNORED;
+      case PRESENCE_OPTIONAL:
+        return PresenceT.OPTIONAL;
+      case PRESENCE_REQUIRED:
+        return PresenceT.REQUIRED;
+      default:
+        return null;
+    }
+  }
+
+  private IndexFormat() {}
+}
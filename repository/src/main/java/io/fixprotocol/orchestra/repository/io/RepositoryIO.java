@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEventHandler;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * Reads and writes Orchestra repository files
+ * <p>
+ * Creating a {@link JAXBContext} reflects over the whole repository model, so one context is
+ * created for the life of the process and shared. Unmarshallers and marshallers are not
+ * thread-safe; they are pooled, and each is used by one thread at a time. This class is
+ * thread-safe.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * final Repository repository = RepositoryIO.getInstance().read(inputStream);
+ * RepositoryIO.getInstance().write(repository, outputStream);
+ * </pre>
+ */
+public final class RepositoryIO {
+
+  private static RepositoryIO instance;
+
+  /**
+   * Returns the shared instance, creating the JAXB context on first use
+   *
+   * @return the shared instance
+   * @throws JAXBException if the JAXB context cannot be created
+   */
+  public static synchronized RepositoryIO getInstance() throws JAXBException {
+    if (instance == null) {
+      instance = new RepositoryIO(JAXBContext.newInstance(Repository.class));
+    }
+    return instance;
+  }
+
+  private final JAXBContext jaxbContext;
+  private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<>();
+  private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<>();
+
+  private RepositoryIO(JAXBContext jaxbContext) {
+    this.jaxbContext = jaxbContext;
+  }
+
+  /**
+   * @return the shared JAXB context of the repository model
+   */
+  public JAXBContext getContext() {
+    return jaxbContext;
+  }
+
+  /**
+   * Reads a repository
+   *
+   * @param inputStream XML input
+   * @return a repository
+   * @throws JAXBException if the input cannot be unmarshalled
+   */
+  public Repository read(InputStream inputStream) throws JAXBException {
+    return read(inputStream, null);
+  }
+
+  /**
+   * Reads a repository, reporting errors to a handler
+   *
+   * @param inputStream XML input
+   * @param eventHandler receives unmarshalling errors, or {@code null} for the default handler
+   * @return a repository
+   * @throws JAXBException if the input cannot be unmarshalled
+   */
+  public Repository read(InputStream inputStream, ValidationEventHandler eventHandler)
+      throws JAXBException {
+    final Unmarshaller unmarshaller = acquireUnmarshaller();
+    try {
+      unmarshaller.setEventHandler(eventHandler);
+      return (Repository) unmarshaller.unmarshal(inputStream);
+    } finally {
+      releaseUnmarshaller(unmarshaller);
+    }
+  }
+
+  /**
+   * Writes a repository as formatted XML
+   *
+   * @param repository a repository
+   * @param outputStream XML output
+   * @throws JAXBException if the repository cannot be marshalled
+   */
+  public void write(Repository repository, OutputStream outputStream) throws JAXBException {
+    Marshaller marshaller = marshallers.poll();
+    if (marshaller == null) {
+      marshaller = jaxbContext.createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+    }
+    try {
+      marshaller.marshal(repository, outputStream);
+    } finally {
+      marshallers.offer(marshaller);
+    }
+  }
+
+  Unmarshaller acquireUnmarshaller() throws JAXBException {
+    final Unmarshaller unmarshaller = unmarshallers.poll();
+    return unmarshaller != null ? unmarshaller : jaxbContext.createUnmarshaller();
+  }
+
+  void releaseUnmarshaller(Unmarshaller unmarshaller) throws JAXBException {
+    unmarshaller.setEventHandler(null);
+    unmarshallers.offer(unmarshaller);
+  }
+}
@@ -0,0 +1,581 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+
+/**
+ * A read-only index of a repository in a memory-mapped file
+ * <p>
+ * The index is written by {@link RepositoryIndexWriter}. Its records live off the heap in the
+ * page cache, so processes that open the same file share one copy. Records are read through
+ * reusable flyweights: a lookup positions a flyweight on a record, and its accessors read the
+ * mapped file. Strings are decoded only when requested.
+ * <p>
+ * An index is thread-safe; a flyweight belongs to one thread. Example:
+ *
+ * <pre>
+ * final RepositoryIndex index = RepositoryIndex.open(path);
+ * final RepositoryIndex.Field field = new RepositoryIndex.Field();
+ * if (index.findField(54, field)) {
+ *   final String name = field.getName();
+ * }
+ * </pre>
+ */
+public final class RepositoryIndex {
+
+  /**
+   * A code of a code set
+   */
+  public static final class Code extends Flyweight {
+    public String getName() {
+      return index.getString(offset);
+    }
+
+    public String getValue() {
+      return index.getString(offset + 4);
+    }
+  }
+
+  /**
+   * A code set
+   */
+  public static final class CodeSet extends Flyweight {
+    /**
+     * Positions a flyweight on a code of this code set
+     *
+     * @param i position of the code
+     * @param code flyweight to position
+     * @return the positioned flyweight
+     */
+    public Code getCode(int i, Code code) {
+      if (i < 0 || i >= getCodeCount()) {
+        throw new IndexOutOfBoundsException("Code " + i);
+      }
+      code.wrap(index, index.recordOffset(IndexFormat.CODES,
+          index.buffer.getInt(offset + 16) + i, IndexFormat.CODE_LENGTH));
+      return code;
+    }
+
+    public int getCodeCount() {
+      return index.buffer.getInt(offset + 20);
+    }
+
+    public int getId() {
+      return index.buffer.getInt(offset);
+    }
+
+    public String getName() {
+      return index.getString(offset + 4);
+    }
+
+    public String getScenario() {
+      return index.getString(offset + 8);
+    }
+
+    public String getType() {
+      return index.getString(offset + 12);
+    }
+  }
+
+  /**
+   * A field
+   */
+  public static final class Field extends Flyweight {
+    /**
+     * Positions a flyweight on the code set of this field's type
+     *
+     * @param codeSet flyweight to position
+     * @return {@code true} if the field has a code set type
+     */
+    public boolean getCodeSet(CodeSet codeSet) {
+      final int recordNumber = index.buffer.getInt(offset + 16);
+      if (recordNumber == IndexFormat.NONE) {
+        return false;
+      }
+      codeSet.wrap(index,
+          index.recordOffset(IndexFormat.CODE_SETS, recordNumber, IndexFormat.CODE_SET_LENGTH));
+      return true;
+    }
+
+    public int getId() {
+      return index.buffer.getInt(offset);
+    }
+
+    public String getName() {
+      return index.getString(offset + 4);
+    }
+
+    public String getScenario() {
+      return index.getString(offset + 8);
+    }
+
+    public String getType() {
+      return index.getString(offset + 12);
+    }
+  }
+
+  /**
+   * Base of flyweights, positioned on a record of an index
+   */
+  public abstract static class Flyweight {
+    RepositoryIndex index;
+    int offset;
+
+    void wrap(RepositoryIndex index, int offset) {
+      this.index = index;
+      this.offset = offset;
+    }
+  }
+
+  /**
+   * A member of a component, group or message
+   */
+  public static final class Member extends Flyweight {
+    /**
+     * @return id of the referenced field, component or group
+     */
+    public int getId() {
+      return index.buffer.getInt(offset + 4);
+    }
+
+    public PresenceT getPresence() {
+      return IndexFormat.presence(index.buffer.getInt(offset + 8));
+    }
+
+    /**
+     * @return constant value of a field, or {@code null}
+     */
+    public String getValue() {
+      return index.getString(offset + 12);
+    }
+
+    public boolean isComponent() {
+      return index.buffer.getInt(offset) == IndexFormat.MEMBER_COMPONENT;
+    }
+
+    public boolean isField() {
+      return index.buffer.getInt(offset) == IndexFormat.MEMBER_FIELD;
+    }
+
+    public boolean isGroup() {
+      return index.buffer.getInt(offset) == IndexFormat.MEMBER_GROUP;
+    }
+  }
+
+  /**
+   * A message
+   */
+  public static final class Message extends Structure {
+    public String getMsgType() {
+      return index.getString(offset + 12);
+    }
+  }
+
+  /**
+   * A component or repeating group, or the structure of a message
+   */
+  public static class Structure extends Flyweight {
+    public int getId() {
+      return index.buffer.getInt(offset);
+    }
+
+    /**
+     * Positions a flyweight on a member
+     *
+     * @param i position of the member
+     * @param member flyweight to position
+     * @return the positioned flyweight
+     */
+    public Member getMember(int i, Member member) {
+      if (i < 0 || i >= getMemberCount()) {
+        throw new IndexOutOfBoundsException("Member " + i);
+      }
+      member.wrap(index, index.recordOffset(IndexFormat.MEMBERS,
+          index.buffer.getInt(offset + 16) + i, IndexFormat.MEMBER_LENGTH));
+      return member;
+    }
+
+    public int getMemberCount() {
+      return index.buffer.getInt(offset + 20);
+    }
+
+    public String getName() {
+      return index.getString(offset + 4);
+    }
+
+    /**
+     * @return id of the NumInGroup field of a group, or -1
+     */
+    public int getNumInGroupId() {
+      return index.buffer.getInt(offset + 12);
+    }
+
+    public String getScenario() {
+      return index.getString(offset + 8);
+    }
+  }
+
+  /**
+   * Opens an index file and verifies its header and checksum
+   *
+   * @param path index file
+   * @return an index
+   * @throws IOException if the file cannot be read or is not a valid index
+   */
+  public static RepositoryIndex open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new RepositoryIndex(
+          verify(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+    }
+  }
+
+  /**
+   * Wraps an index in a buffer, such as one received from another process
+   *
+   * @param buffer an index, from its current position
+   * @return an index
+   * @throws IOException if the buffer does not hold a valid index
+   */
+  public static RepositoryIndex wrap(ByteBuffer buffer) throws IOException {
+    return new RepositoryIndex(verify(buffer.duplicate()));
+  }
+
+  // unsigned lexicographic order of UTF-8 bytes
+  static int compare(byte[] a, byte[] b) {
+    final int length = Math.min(a.length, b.length);
+    for (int i = 0; i < length; i++) {
+      final int c = (a[i] & 0xff) - (b[i] & 0xff);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return a.length - b.length;
+  }
+
+  private static ByteBuffer verify(ByteBuffer buffer) throws IOException {
+    if (buffer.remaining() < IndexFormat.HEADER_LENGTH
+        || buffer.getInt() != IndexFormat.MAGIC) {
+      throw new StreamCorruptedException("Not a repository index");
+    }
+    final int version = buffer.getInt();
+    if (version != IndexFormat.FORMAT_VERSION) {
+      throw new StreamCorruptedException(String.format(
+          "Unsupported index version %d; expected %d", version, IndexFormat.FORMAT_VERSION));
+    }
+    final int length = buffer.getInt();
+    final int checksum = buffer.getInt();
+    if (length < IndexFormat.DIRECTORY_LENGTH || length > buffer.remaining()) {
+      throw new StreamCorruptedException("Index truncated");
+    }
+    final ByteBuffer payload = buffer.slice();
+    payload.limit(length);
+    final CRC32 crc = new CRC32();
+    crc.update(payload.duplicate());
+    if ((int) crc.getValue() != checksum) {
+      throw new StreamCorruptedException("Index checksum mismatch");
+    }
+    return payload;
+  }
+
+  private final ByteBuffer buffer;
+  private final int[] counts = new int[IndexFormat.TABLE_COUNT];
+  private final int[] offsets = new int[IndexFormat.TABLE_COUNT];
+
+  private RepositoryIndex(ByteBuffer buffer) {
+    this.buffer = buffer;
+    for (int i = 0; i < IndexFormat.TABLE_COUNT; i++) {
+      offsets[i] = buffer.getInt(i * 8);
+      counts[i] = buffer.getInt(i * 8 + 4);
+    }
+  }
+
+  /**
+   * Finds a code set by name, preferring the base scenario
+   *
+   * @param name name of the code set
+   * @param codeSet flyweight to position
+   * @return {@code true} if found
+   */
+  public boolean findCodeSet(String name, CodeSet codeSet) {
+    final int recordNumber = search(IndexFormat.CODE_SETS, IndexFormat.CODE_SET_LENGTH, 4,
+        name.getBytes(StandardCharsets.UTF_8), false);
+    if (recordNumber < 0) {
+      return false;
+    }
+    codeSet.wrap(this,
+        recordOffset(IndexFormat.CODE_SETS, recordNumber, IndexFormat.CODE_SET_LENGTH));
+    return true;
+  }
+
+  /**
+   * Finds a component by id, preferring the base scenario
+   *
+   * @param id component id
+   * @param component flyweight to position
+   * @return {@code true} if found
+   */
+  public boolean findComponent(int id, Structure component) {
+    return findById(IndexFormat.COMPONENTS, IndexFormat.STRUCTURE_LENGTH, id, null, component);
+  }
+
+  /**
+   * Finds a field by id, preferring the base scenario
+   *
+   * @param id field id
+   * @param field flyweight to position
+   * @return {@code true} if found
+   */
+  public boolean findField(int id, Field field) {
+    return findById(IndexFormat.FIELDS, IndexFormat.FIELD_LENGTH, id, null, field);
+  }
+
+  /**
+   * Finds a field by id and scenario
+   *
+   * @param id field id
+   * @param scenario scenario name
+   * @param field flyweight to position
+   * @return {@code true} if found
+   */
+  public boolean findField(int id, String scenario, Field field) {
+    return findById(IndexFormat.FIELDS, IndexFormat.FIELD_LENGTH, id, scenario, field);
+  }
+
+  /**
+   * Finds a field by name, preferring the base scenario
+   *
+   * @param name field name
+   * @param field flyweight to position
+   * @return {@code true} if found
+   */
+  public boolean findFieldByName(String name, Field field) {
+    final int recordNumber = search(IndexFormat.FIELD_NAMES, IndexFormat.NAME_LENGTH, 4,
+        name.getBytes(StandardCharsets.UTF_8), true);
+    if (recordNumber < 0) {
+      return false;
+    }
+    field.wrap(this, recordOffset(IndexFormat.FIELDS, buffer.getInt(
+        recordOffset(IndexFormat.FIELD_NAMES, recordNumber, IndexFormat.NAME_LENGTH)),
+        IndexFormat.FIELD_LENGTH));
+    return true;
+  }
+
+  /**
+   * Finds a repeating group by id, preferring the base scenario
+   *
+   * @param id group id
+   * @param group flyweight to position
+   * @return {@code true} if found
+   */
+  public boolean findGroup(int id, Structure group) {
+    return findById(IndexFormat.GROUPS, IndexFormat.STRUCTURE_LENGTH, id, null, group);
+  }
+
+  /**
+   * Finds a message by MsgType and scenario
+   *
+   * @param msgType value of MsgType(35)
+   * @param scenario scenario name, or {@code null} for the base scenario
+   * @param message flyweight to position
+   * @return {@code true} if found
+   */
+  public boolean findMessage(String msgType, String scenario, Message message) {
+    final byte[] key = msgType.getBytes(StandardCharsets.UTF_8);
+    int recordNumber = search(IndexFormat.MESSAGES, IndexFormat.MESSAGE_LENGTH, 12, key, false);
+    if (recordNumber < 0) {
+      return false;
+    }
+    if (scenario != null) {
+      final byte[] scenarioKey = scenario.getBytes(StandardCharsets.UTF_8);
+      while (recordNumber < counts[IndexFormat.MESSAGES]) {
+        final int offset =
+            recordOffset(IndexFormat.MESSAGES, recordNumber, IndexFormat.MESSAGE_LENGTH);
+        if (compareString(buffer.getInt(offset + 12), key) != 0) {
+          return false;
+        }
+        if (compareString(buffer.getInt(offset + 8), scenarioKey) == 0) {
+          break;
+        }
+        recordNumber++;
+      }
+      if (recordNumber == counts[IndexFormat.MESSAGES]) {
+        return false;
+      }
+    }
+    message.wrap(this,
+        recordOffset(IndexFormat.MESSAGES, recordNumber, IndexFormat.MESSAGE_LENGTH));
+    return true;
+  }
+
+  /**
+   * Finds a message by name, preferring the base scenario
+   *
+   * @param name message name
+   * @param message flyweight to position
+   * @return {@code true} if found
+   */
+  public boolean findMessageByName(String name, Message message) {
+    final int recordNumber = search(IndexFormat.MESSAGE_NAMES, IndexFormat.NAME_LENGTH, 4,
+        name.getBytes(StandardCharsets.UTF_8), true);
+    if (recordNumber < 0) {
+      return false;
+    }
+    message.wrap(this, recordOffset(IndexFormat.MESSAGES, buffer.getInt(
+        recordOffset(IndexFormat.MESSAGE_NAMES, recordNumber, IndexFormat.NAME_LENGTH)),
+        IndexFormat.MESSAGE_LENGTH));
+    return true;
+  }
+
+  public int getCodeSetCount() {
+    return counts[IndexFormat.CODE_SETS];
+  }
+
+  public int getComponentCount() {
+    return counts[IndexFormat.COMPONENTS];
+  }
+
+  public int getFieldCount() {
+    return counts[IndexFormat.FIELDS];
+  }
+
+  public int getGroupCount() {
+    return counts[IndexFormat.GROUPS];
+  }
+
+  public int getMessageCount() {
+    return counts[IndexFormat.MESSAGES];
+  }
+
+  /**
+   * Positions a flyweight on a message by its position in MsgType order, for iteration
+   *
+   * @param i position of the message
+   * @param message flyweight to position
+   * @return the positioned flyweight
+   */
+  public Message getMessage(int i, Message message) {
+    if (i < 0 || i >= getMessageCount()) {
+      throw new IndexOutOfBoundsException("Message " + i);
+    }
+    message.wrap(this, recordOffset(IndexFormat.MESSAGES, i, IndexFormat.MESSAGE_LENGTH));
+    return message;
+  }
+
+  private int compareString(int ref, byte[] key) {
+    if (ref == IndexFormat.NONE) {
+      return key.length == 0 ? 0 : -1;
+    }
+    final int position = offsets[IndexFormat.STRINGS] + ref;
+    final int length = buffer.getInt(position);
+    final int common = Math.min(length, key.length);
+    for (int i = 0; i < common; i++) {
+      final int c = (buffer.get(position + 4 + i) & 0xff) - (key[i] & 0xff);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return length - key.length;
+  }
+
+  private boolean findById(int table, int recordLength, int id, String scenario,
+      Flyweight flyweight) {
+    // lower bound of id
+    int low = 0;
+    int high = counts[table];
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (buffer.getInt(recordOffset(table, mid, recordLength)) < id) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    final byte[] scenarioKey = scenario != null ? scenario.getBytes(StandardCharsets.UTF_8) : null;
+    for (int i = low; i < counts[table]; i++) {
+      final int offset = recordOffset(table, i, recordLength);
+      if (buffer.getInt(offset) != id) {
+        return false;
+      }
+      if (scenarioKey == null || compareString(buffer.getInt(offset + 8), scenarioKey) == 0) {
+        flyweight.wrap(this, offset);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String getString(int fieldOffset) {
+    final int ref = buffer.getInt(fieldOffset);
+    if (ref == IndexFormat.NONE) {
+      return null;
+    }
+    final int position = offsets[IndexFormat.STRINGS] + ref;
+    final byte[] bytes = new byte[buffer.getInt(position)];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(position + 4 + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int recordOffset(int table, int recordNumber, int recordLength) {
+    return offsets[table] + recordNumber * recordLength;
+  }
+
+  /**
+   * Finds the first record whose string key equals a key
+   *
+   * @param keyOffset offset of the string reference within a record
+   * @param indirect {@code true} if records are record numbers of fields or messages
+   * @return record number, or -1 if not found
+   */
+  private int search(int table, int recordLength, int keyOffset, byte[] key, boolean indirect) {
+    int low = 0;
+    int high = counts[table];
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (compareString(stringRef(table, mid, recordLength, keyOffset, indirect), key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    if (low < counts[table]
+        && compareString(stringRef(table, low, recordLength, keyOffset, indirect), key) == 0) {
+      return low;
+    }
+    return -1;
+  }
+
+  private int stringRef(int table, int recordNumber, int recordLength, int keyOffset,
+      boolean indirect) {
+    final int offset = recordOffset(table, recordNumber, recordLength);
+    if (!indirect) {
+      return buffer.getInt(offset + keyOffset);
+    }
+    final int target = table == IndexFormat.FIELD_NAMES ? IndexFormat.FIELDS : IndexFormat.MESSAGES;
+    final int targetLength =
+        table == IndexFormat.FIELD_NAMES ? IndexFormat.FIELD_LENGTH : IndexFormat.MESSAGE_LENGTH;
+    return buffer.getInt(recordOffset(target, buffer.getInt(offset), targetLength) + keyOffset);
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * Writes a read-only index of a repository for {@link RepositoryIndex}
+ * <p>
+ * The index holds fields by id and name, code sets with their codes, components and groups with
+ * their members, and messages by MsgType and name. Documentation and rules are not included.
+ */
+public final class RepositoryIndexWriter {
+
+  private static final class StringTable {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> offsets = new HashMap<>();
+
+    int ref(String s) throws IOException {
+      if (s == null) {
+        return IndexFormat.NONE;
+      }
+      Integer offset = offsets.get(s);
+      if (offset == null) {
+        offset = out.size();
+        final byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+        offsets.put(s, offset);
+      }
+      return offset;
+    }
+  }
+
+  private static final String BASE_SCENARIO = "base";
+
+  private static final Comparator<String> UTF8_ORDER = (a, b) -> {
+    final byte[] x = (a != null ? a : "").getBytes(StandardCharsets.UTF_8);
+    final byte[] y = (b != null ? b : "").getBytes(StandardCharsets.UTF_8);
+    return RepositoryIndex.compare(x, y);
+  };
+
+  // base scenario sorts first among elements with the same key
+  private static final Comparator<String> SCENARIO_ORDER =
+      Comparator.comparing((String s) -> !BASE_SCENARIO.equals(s)).thenComparing(UTF8_ORDER);
+
+  private static int intValue(BigInteger value) {
+    return value != null ? value.intValue() : IndexFormat.NONE;
+  }
+
+  /**
+   * Writes an index to a file
+   *
+   * @param repository repository to index
+   * @param path output file
+   * @throws IOException if the file cannot be written
+   */
+  public void write(Repository repository, Path path) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(path)) {
+      write(repository, outputStream);
+    }
+  }
+
+  /**
+   * Writes an index to a stream
+   *
+   * @param repository repository to index
+   * @param outputStream output, not closed by this method
+   * @throws IOException if the index cannot be written
+   */
+  public void write(Repository repository, OutputStream outputStream) throws IOException {
+    final StringTable strings = new StringTable();
+    final ByteArrayOutputStream[] tables = new ByteArrayOutputStream[IndexFormat.TABLE_COUNT];
+    final int[] counts = new int[IndexFormat.TABLE_COUNT];
+    for (int i = 0; i < IndexFormat.STRINGS; i++) {
+      tables[i] = new ByteArrayOutputStream();
+    }
+
+    // code sets
+    final CodeSets codeSets = repository.getCodeSets();
+    final List<CodeSetType> codeSetList =
+        new ArrayList<>(codeSets != null ? codeSets.getCodeSet() : new ArrayList<>());
+    codeSetList.sort(Comparator.comparing(CodeSetType::getName, UTF8_ORDER)
+        .thenComparing(CodeSetType::getScenario, SCENARIO_ORDER));
+    final Map<String, Integer> codeSetsByKey = new HashMap<>();
+    final DataOutputStream codeSetOut = new DataOutputStream(tables[IndexFormat.CODE_SETS]);
+    final DataOutputStream codeOut = new DataOutputStream(tables[IndexFormat.CODES]);
+    for (final CodeSetType codeSet : codeSetList) {
+      codeSetsByKey.putIfAbsent(codeSet.getName() + "/" + codeSet.getScenario(),
+          counts[IndexFormat.CODE_SETS]);
+      final List<CodeType> codes = codeSet.getCode();
+      codeSetOut.writeInt(intValue(codeSet.getId()));
+      codeSetOut.writeInt(strings.ref(codeSet.getName()));
+      codeSetOut.writeInt(strings.ref(codeSet.getScenario()));
+      codeSetOut.writeInt(strings.ref(codeSet.getType()));
+      codeSetOut.writeInt(counts[IndexFormat.CODES]);
+      codeSetOut.writeInt(codes.size());
+      for (final CodeType code : codes) {
+        codeOut.writeInt(strings.ref(code.getName()));
+        codeOut.writeInt(strings.ref(code.getValue()));
+      }
+      counts[IndexFormat.CODES] += codes.size();
+      counts[IndexFormat.CODE_SETS]++;
+    }
+
+    // fields
+    final Fields fields = repository.getFields();
+    final List<FieldType> fieldList =
+        new ArrayList<>(fields != null ? fields.getField() : new ArrayList<>());
+    fieldList.sort(Comparator.comparing(FieldType::getId)
+        .thenComparing(FieldType::getScenario, SCENARIO_ORDER));
+    final DataOutputStream fieldOut = new DataOutputStream(tables[IndexFormat.FIELDS]);
+    for (final FieldType field : fieldList) {
+      Integer codeSet = codeSetsByKey.get(field.getType() + "/" + field.getScenario());
+      if (codeSet == null) {
+        codeSet = codeSetsByKey.get(field.getType() + "/" + BASE_SCENARIO);
+      }
+      fieldOut.writeInt(intValue(field.getId()));
+      fieldOut.writeInt(strings.ref(field.getName()));
+      fieldOut.writeInt(strings.ref(field.getScenario()));
+      fieldOut.writeInt(strings.ref(field.getType()));
+      fieldOut.writeInt(codeSet != null ? codeSet : IndexFormat.NONE);
+    }
+    counts[IndexFormat.FIELDS] = fieldList.size();
+    counts[IndexFormat.FIELD_NAMES] =
+        writeNames(tables[IndexFormat.FIELD_NAMES], fieldList, FieldType::getName);
+
+    // components and groups
+    final DataOutputStream memberOut = new DataOutputStream(tables[IndexFormat.MEMBERS]);
+    final Components components = repository.getComponents();
+    final List<ComponentType> componentList =
+        new ArrayList<>(components != null ? components.getComponent() : new ArrayList<>());
+    componentList.sort(Comparator.comparing(ComponentType::getId)
+        .thenComparing(ComponentType::getScenario, SCENARIO_ORDER));
+    final DataOutputStream componentOut = new DataOutputStream(tables[IndexFormat.COMPONENTS]);
+    for (final ComponentType component : componentList) {
+      componentOut.writeInt(intValue(component.getId()));
+      componentOut.writeInt(strings.ref(component.getName()));
+      componentOut.writeInt(strings.ref(component.getScenario()));
+      componentOut.writeInt(IndexFormat.NONE);
+      counts[IndexFormat.MEMBERS] = writeMembers(componentOut, memberOut,
+          component.getComponentRefOrGroupRefOrFieldRef(), counts[IndexFormat.MEMBERS], strings);
+    }
+    counts[IndexFormat.COMPONENTS] = componentList.size();
+
+    final Groups groups = repository.getGroups();
+    final List<GroupType> groupList =
+        new ArrayList<>(groups != null ? groups.getGroup() : new ArrayList<>());
+    groupList.sort(Comparator.comparing(GroupType::getId)
+        .thenComparing(GroupType::getScenario, SCENARIO_ORDER));
+    final DataOutputStream groupOut = new DataOutputStream(tables[IndexFormat.GROUPS]);
+    for (final GroupType group : groupList) {
+      groupOut.writeInt(intValue(group.getId()));
+      groupOut.writeInt(strings.ref(group.getName()));
+      groupOut.writeInt(strings.ref(group.getScenario()));
+      final FieldRefType numInGroup = group.getNumInGroup();
+      groupOut.writeInt(numInGroup != null ? intValue(numInGroup.getId()) : IndexFormat.NONE);
+      counts[IndexFormat.MEMBERS] = writeMembers(groupOut, memberOut,
+          group.getComponentRefOrGroupRefOrFieldRef(), counts[IndexFormat.MEMBERS], strings);
+    }
+    counts[IndexFormat.GROUPS] = groupList.size();
+
+    // messages
+    final Messages messages = repository.getMessages();
+    final List<MessageType> messageList =
+        new ArrayList<>(messages != null ? messages.getMessage() : new ArrayList<>());
+    messageList.sort(Comparator.comparing(MessageType::getMsgType, UTF8_ORDER)
+        .thenComparing(MessageType::getScenario, SCENARIO_ORDER));
+    final DataOutputStream messageOut = new DataOutputStream(tables[IndexFormat.MESSAGES]);
+    for (final MessageType message : messageList) {
+      messageOut.writeInt(intValue(message.getId()));
+      messageOut.writeInt(strings.ref(message.getName()));
+      messageOut.writeInt(strings.ref(message.getScenario()));
+      messageOut.writeInt(strings.ref(message.getMsgType()));
+      final MessageType.Structure structure = message.getStructure();
+      counts[IndexFormat.MEMBERS] = writeMembers(messageOut, memberOut,
+          structure != null ? structure.getComponentRefOrGroupRefOrFieldRef() : new ArrayList<>(),
+          counts[IndexFormat.MEMBERS], strings);
+    }
+    counts[IndexFormat.MESSAGES] = messageList.size();
+    counts[IndexFormat.MESSAGE_NAMES] =
+        writeNames(tables[IndexFormat.MESSAGE_NAMES], messageList, MessageType::getName);
+
+    tables[IndexFormat.STRINGS] = strings.bytes;
+    counts[IndexFormat.STRINGS] = strings.offsets.size();
+
+    // payload is the directory followed by tables in order
+    final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    final DataOutputStream payloadOut = new DataOutputStream(payload);
+    int offset = IndexFormat.DIRECTORY_LENGTH;
+    for (int i = 0; i < IndexFormat.TABLE_COUNT; i++) {
+      payloadOut.writeInt(offset);
+      payloadOut.writeInt(counts[i]);
+      offset += tables[i].size();
+    }
+    for (int i = 0; i < IndexFormat.TABLE_COUNT; i++) {
+      tables[i].writeTo(payloadOut);
+    }
+    payloadOut.flush();
+
+    final byte[] payloadBytes = payload.toByteArray();
+    final CRC32 crc = new CRC32();
+    crc.update(payloadBytes, 0, payloadBytes.length);
+    final DataOutputStream out = new DataOutputStream(outputStream);
+    out.writeInt(IndexFormat.MAGIC);
+    out.writeInt(IndexFormat.FORMAT_VERSION);
+    out.writeInt(payloadBytes.length);
+    out.writeInt((int) crc.getValue());
+    out.write(payloadBytes);
+    out.flush();
+  }
+
+  private int writeMembers(DataOutputStream parentOut, DataOutputStream memberOut,
+      List<Object> members, int firstMember, StringTable strings) throws IOException {
+    parentOut.writeInt(firstMember);
+    parentOut.writeInt(members.size());
+    for (final Object member : members) {
+      if (member instanceof FieldRefType) {
+        final FieldRefType fieldRef = (FieldRefType) member;
+        memberOut.writeInt(IndexFormat.MEMBER_FIELD);
+        memberOut.writeInt(intValue(fieldRef.getId()));
+        memberOut.writeInt(IndexFormat.presenceCode(fieldRef.getPresence()));
+        memberOut.writeInt(strings.ref(fieldRef.getValue()));
+      } else {
+        final ComponentRefType componentRef = (ComponentRefType) member;
+        memberOut.writeInt(componentRef instanceof GroupRefType ? IndexFormat.MEMBER_GROUP
+            : IndexFormat.MEMBER_COMPONENT);
+        memberOut.writeInt(intValue(componentRef.getId()));
+        memberOut.writeInt(IndexFormat.presenceCode(componentRef.getPresence()));
+        memberOut.writeInt(IndexFormat.NONE);
+      }
+    }
+    return firstMember + members.size();
+  }
+
+  // Writes record numbers of elements sorted by name; elements are already in record order
+  private <T> int writeNames(ByteArrayOutputStream table, List<T> elements,
+      Function<T, String> name) throws IOException {
+    final List<Integer> recordNumbers = new ArrayList<>(elements.size());
+    for (int i = 0; i < elements.size(); i++) {
+      recordNumbers.add(i);
+    }
+    // stable sort keeps the base scenario first among elements with the same name
+    recordNumbers.sort(Comparator.comparing(i -> name.apply(elements.get(i)), UTF8_ORDER));
+    final DataOutputStream out = new DataOutputStream(table);
+    for (final Integer recordNumber : recordNumbers) {
+      out.writeInt(recordNumber);
+    }
+    return recordNumbers.size();
+  }
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.purl.dc.terms.ElementOrRefinementContainer;
+import io.fixprotocol._2020.orchestra.repository.ActorType;
+import io.fixprotocol._2020.orchestra.repository.Actors;
+import io.fixprotocol._2020.orchestra.repository.Annotation;
+import io.fixprotocol._2020.orchestra.repository.Categories;
+import io.fixprotocol._2020.orchestra.repository.CategoryType;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.Concepts;
+import io.fixprotocol._2020.orchestra.repository.Datatype;
+import io.fixprotocol._2020.orchestra.repository.Datatypes;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.FlowType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol._2020.orchestra.repository.SectionType;
+import io.fixprotocol._2020.orchestra.repository.Sections;
+
+/**
+ * Reads selected sections of a repository file as a stream
+ * <p>
+ * The file is parsed with StAX and only the selected sections are unmarshalled by JAXB; other
+ * sections are skipped without creating objects. A reader may either load the selected sections
+ * into a partial {@link Repository}, or pass their elements one at a time to a
+ * {@link RepositoryVisitor}.
+ * <p>
+ * Example: load only fields and code sets
+ *
+ * <pre>
+ * final RepositoryReader reader = RepositoryReader.builder()
+ *     .sections(RepositoryReader.Section.FIELDS, RepositoryReader.Section.CODE_SETS).build();
+ * final Repository repository = reader.read(inputStream);
+ * </pre>
+ *
+ * A reader is thread-safe.
+ */
+public final class RepositoryReader {
+
+  public static class Builder {
+    private ProgressListener progressListener;
+    private final Set<Section> sections = EnumSet.noneOf(Section.class);
+
+    public RepositoryReader build() {
+      return new RepositoryReader(this);
+    }
+
+    public Builder progressListener(ProgressListener progressListener) {
+      this.progressListener = progressListener;
+      return this;
+    }
+
+    /**
+     * Selects sections to read. If none are selected, all are read.
+     */
+    public Builder sections(Collection<Section> sections) {
+      this.sections.addAll(sections);
+      return this;
+    }
+
+    /**
+     * Selects sections to read. If none are selected, all are read.
+     */
+    public Builder sections(Section... sections) {
+      for (final Section section : sections) {
+        this.sections.add(section);
+      }
+      return this;
+    }
+  }
+
+  /**
+   * Reports progress of reading a repository
+   */
+  @FunctionalInterface
+  public interface ProgressListener {
+
+    /**
+     * Invoked periodically while a section is visited and once when it is complete
+     *
+     * @param section section being read
+     * @param elementCount number of child elements read so far
+     * @param complete {@code true} if the section is complete
+     */
+    void progress(Section section, int elementCount, boolean complete);
+  }
+
+  /**
+   * Top-level sections of a repository
+   */
+  public enum Section {
+    ACTORS("actors", Actors.class),
+    ANNOTATION("annotation", Annotation.class),
+    CATEGORIES("categories", Categories.class),
+    CODE_SETS("codeSets", CodeSets.class),
+    COMPONENTS("components", Components.class),
+    CONCEPTS("concepts", Concepts.class),
+    DATATYPES("datatypes", Datatypes.class),
+    FIELDS("fields", Fields.class),
+    GROUPS("groups", Groups.class),
+    MESSAGES("messages", Messages.class),
+    METADATA("metadata", ElementOrRefinementContainer.class),
+    SECTIONS("sections", Sections.class);
+
+    /**
+     * @param elementName local name of an XML element
+     * @return a section, or {@code null} if the element is not a section
+     */
+    public static Section forElementName(String elementName) {
+      for (final Section section : values()) {
+        if (section.elementName.equals(elementName)) {
+          return section;
+        }
+      }
+      return null;
+    }
+
+    private final String elementName;
+    private final Class<?> type;
+
+    Section(String elementName, Class<?> type) {
+      this.elementName = elementName;
+      this.type = type;
+    }
+
+    /**
+     * @return local name of the XML element
+     */
+    public String getElementName() {
+      return elementName;
+    }
+
+    /**
+     * @return JAXB class of the section
+     */
+    public Class<?> getType() {
+      return type;
+    }
+  }
+
+  /**
+   * Number of elements visited between progress reports
+   */
+  public static final int PROGRESS_INTERVAL = 1000;
+
+  private static final ProgressListener NO_PROGRESS = (section, elementCount, complete) -> {
+  };
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  // Positions the reader at the next child start element, or returns false at the parent's end
+  private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+    while (reader.hasNext()) {
+      final int event = reader.getEventType();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        return true;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        return false;
+      }
+      reader.next();
+    }
+    return false;
+  }
+
+  private static void readAttributes(XMLStreamReader reader, Repository repository) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      final String value = reader.getAttributeValue(i);
+      switch (reader.getAttributeLocalName(i)) {
+        case "name":
+          repository.setName(value);
+          break;
+        case "version":
+          repository.setVersion(value);
+          break;
+        case "latestEP":
+          repository.setLatestEP(new BigInteger(value.trim()));
+          break;
+        case "guid":
+          repository.setGuid(value);
+          break;
+        case "specUrl":
+          repository.setSpecUrl(value);
+          break;
+        case "namespace":
+          repository.setNamespace(value);
+          break;
+        case "applVerId":
+          repository.setApplVerId(value);
+          break;
+        case "expressionLanguage":
+          repository.setExpressionLanguage(value);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private static void set(Repository repository, Section section, Object value) {
+    switch (section) {
+      case ACTORS:
+        repository.setActors((Actors) value);
+        break;
+      case ANNOTATION:
+        repository.setAnnotation((Annotation) value);
+        break;
+      case CATEGORIES:
+        repository.setCategories((Categories) value);
+        break;
+      case CODE_SETS:
+        repository.setCodeSets((CodeSets) value);
+        break;
+      case COMPONENTS:
+        repository.setComponents((Components) value);
+        break;
+      case CONCEPTS:
+        repository.setConcepts((Concepts) value);
+        break;
+      case DATATYPES:
+        repository.setDatatypes((Datatypes) value);
+        break;
+      case FIELDS:
+        repository.setFields((Fields) value);
+        break;
+      case GROUPS:
+        repository.setGroups((Groups) value);
+        break;
+      case MESSAGES:
+        repository.setMessages((Messages) value);
+        break;
+      case METADATA:
+        repository.setMetadata((ElementOrRefinementContainer) value);
+        break;
+      case SECTIONS:
+        repository.setSections((Sections) value);
+        break;
+    }
+  }
+
+  private static int size(Section section, Object value) {
+    switch (section) {
+      case ACTORS:
+        return ((Actors) value).getActorOrFlow().size();
+      case CATEGORIES:
+        return ((Categories) value).getCategory().size();
+      case CODE_SETS:
+        return ((CodeSets) value).getCodeSet().size();
+      case COMPONENTS:
+        return ((Components) value).getComponent().size();
+      case CONCEPTS:
+        return ((Concepts) value).getConcept().size();
+      case DATATYPES:
+        return ((Datatypes) value).getDatatype().size();
+      case FIELDS:
+        return ((Fields) value).getField().size();
+      case GROUPS:
+        return ((Groups) value).getGroup().size();
+      case MESSAGES:
+        return ((Messages) value).getMessage().size();
+      case SECTIONS:
+        return ((Sections) value).getSection().size();
+      default:
+        return 1;
+    }
+  }
+
+  // Skips the current element and its descendants
+  private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 0;
+    do {
+      final int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    } while (depth >= 0);
+    reader.next();
+  }
+
+  private final XMLInputFactory inputFactory;
+  private final ProgressListener progressListener;
+  private final Set<Section> sections;
+
+  private RepositoryReader(Builder builder) {
+    this.sections = builder.sections.isEmpty() ? EnumSet.allOf(Section.class)
+        : EnumSet.copyOf(builder.sections);
+    this.progressListener =
+        builder.progressListener != null ? builder.progressListener : NO_PROGRESS;
+    this.inputFactory = XMLInputFactory.newInstance();
+    this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
+  /**
+   * @return sections selected to read
+   */
+  public Set<Section> getSections() {
+    return EnumSet.copyOf(sections);
+  }
+
+  /**
+   * Reads selected sections of a repository
+   *
+   * @param inputStream XML input
+   * @return a repository with its attributes and selected sections; other sections are
+   *         {@code null}
+   * @throws JAXBException if a section cannot be unmarshalled
+   * @throws XMLStreamException if the input is not well-formed or not a repository
+   */
+  public Repository read(InputStream inputStream) throws JAXBException, XMLStreamException {
+    final RepositoryIO repositoryIO = RepositoryIO.getInstance();
+    final Unmarshaller unmarshaller = repositoryIO.acquireUnmarshaller();
+    final XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+    try {
+      final Repository repository = readRoot(reader);
+      while (nextChild(reader)) {
+        final Section section = Section.forElementName(reader.getLocalName());
+        if (section == null || !sections.contains(section)) {
+          skipElement(reader);
+          continue;
+        }
+        final Object value = unmarshaller.unmarshal(reader, section.getType()).getValue();
+        set(repository, section, value);
+        progressListener.progress(section, size(section, value), true);
+      }
+      return repository;
+    } finally {
+      reader.close();
+      repositoryIO.releaseUnmarshaller(unmarshaller);
+    }
+  }
+
+  /**
+   * Visits the elements of selected sections one at a time
+   * <p>
+   * Sections that do not contain a list of elements, annotation and concepts, are not visited.
+   *
+   * @param inputStream XML input
+   * @param visitor receives elements
+   * @throws JAXBException if an element cannot be unmarshalled
+   * @throws XMLStreamException if the input is not well-formed or not a repository
+   */
+  public void visit(InputStream inputStream, RepositoryVisitor visitor)
+      throws JAXBException, XMLStreamException {
+    final RepositoryIO repositoryIO = RepositoryIO.getInstance();
+    final Unmarshaller unmarshaller = repositoryIO.acquireUnmarshaller();
+    final XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+    try {
+      visitor.visitRepository(readRoot(reader));
+      while (nextChild(reader)) {
+        final Section section = Section.forElementName(reader.getLocalName());
+        if (section == null || !sections.contains(section) || section == Section.ANNOTATION
+            || section == Section.CONCEPTS) {
+          skipElement(reader);
+        } else if (section == Section.METADATA) {
+          visitor.visitMetadata(
+              unmarshaller.unmarshal(reader, ElementOrRefinementContainer.class).getValue());
+          progressListener.progress(section, 1, true);
+        } else {
+          visitSection(reader, section, unmarshaller, visitor);
+        }
+      }
+    } finally {
+      reader.close();
+      repositoryIO.releaseUnmarshaller(unmarshaller);
+    }
+  }
+
+  private Repository readRoot(XMLStreamReader reader) throws XMLStreamException {
+    if (!nextChild(reader) || !"repository".equals(reader.getLocalName())) {
+      throw new XMLStreamException("Not an Orchestra repository", reader.getLocation());
+    }
+    final Repository repository = new Repository();
+    readAttributes(reader, repository);
+    reader.next();
+    return repository;
+  }
+
+  private void visitElement(XMLStreamReader reader, Unmarshaller unmarshaller,
+      RepositoryVisitor visitor) throws JAXBException, XMLStreamException {
+    switch (reader.getLocalName()) {
+      case "actor":
+        visitor.visitActor(unmarshaller.unmarshal(reader, ActorType.class).getValue());
+        break;
+      case "category":
+        visitor.visitCategory(unmarshaller.unmarshal(reader, CategoryType.class).getValue());
+        break;
+      case "codeSet":
+        visitor.visitCodeSet(unmarshaller.unmarshal(reader, CodeSetType.class).getValue());
+        break;
+      case "component":
+        visitor.visitComponent(unmarshaller.unmarshal(reader, ComponentType.class).getValue());
+        break;
+      case "datatype":
+        visitor.visitDatatype(unmarshaller.unmarshal(reader, Datatype.class).getValue());
+        break;
+      case "field":
+        visitor.visitField(unmarshaller.unmarshal(reader, FieldType.class).getValue());
+        break;
+      case "flow":
+        visitor.visitFlow(unmarshaller.unmarshal(reader, FlowType.class).getValue());
+        break;
+      case "group":
+        visitor.visitGroup(unmarshaller.unmarshal(reader, GroupType.class).getValue());
+        break;
+      case "message":
+        visitor.visitMessage(unmarshaller.unmarshal(reader, MessageType.class).getValue());
+        break;
+      case "section":
+        visitor.visitSection(unmarshaller.unmarshal(reader, SectionType.class).getValue());
+        break;
+      default:
+        // annotation of a section
+        skipElement(reader);
+        break;
+    }
+  }
+
+  private void visitSection(XMLStreamReader reader, Section section, Unmarshaller unmarshaller,
+      RepositoryVisitor visitor) throws JAXBException, XMLStreamException {
+    int elementCount = 0;
+    reader.next();
+    while (nextChild(reader)) {
+      visitElement(reader, unmarshaller, visitor);
+      elementCount++;
+      if (elementCount % PROGRESS_INTERVAL == 0) {
+        progressListener.progress(section, elementCount, false);
+      }
+    }
+    // end of section
+    reader.next();
+    progressListener.progress(section, elementCount, true);
+  }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRuleType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldRuleType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * Reads a repository snapshot written by {@link RepositorySnapshotWriter}
+ * <p>
+ * A snapshot file is memory-mapped read-only, so processes that load the same file share its pages.
+ * The format version and checksum are verified before the repository is decoded.
+ */
+public final class RepositorySnapshotReader {
+
+  /**
+   * Memory-maps a snapshot file and verifies its header and checksum
+   *
+   * @param path snapshot file
+   * @return a read-only buffer positioned at the start of the payload
+   * @throws IOException if the file cannot be read, or is not a valid snapshot
+   */
+  public static ByteBuffer map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return verify(buffer);
+    }
+  }
+
+  /**
+   * Reads a snapshot file
+   *
+   * @param path snapshot file
+   * @return a repository
+   * @throws IOException if the file cannot be read, or is not a valid snapshot
+   */
+  public static Repository read(Path path) throws IOException {
+    return new RepositorySnapshotReader(map(path)).readRepository();
+  }
+
+  /**
+   * Reads a snapshot from a buffer
+   *
+   * @param buffer a snapshot, from its current position
+   * @return a repository
+   * @throws IOException if the buffer does not hold a valid snapshot
+   */
+  public static Repository read(ByteBuffer buffer) throws IOException {
+    return new RepositorySnapshotReader(verify(buffer.duplicate())).readRepository();
+  }
+
+  private static BigInteger bigInteger(int value) {
+    return value != SnapshotFormat.NONE ? BigInteger.valueOf(value) : null;
+  }
+
+  private static ByteBuffer verify(ByteBuffer buffer) throws IOException {
+    if (buffer.remaining() < SnapshotFormat.HEADER_LENGTH
+        || buffer.getInt() != SnapshotFormat.MAGIC) {
+      throw new StreamCorruptedException("Not a repository snapshot");
+    }
+    final int version = buffer.getInt();
+    if (version != SnapshotFormat.FORMAT_VERSION) {
+      throw new StreamCorruptedException(
+          String.format("Unsupported snapshot version %d; expected %d", version,
+              SnapshotFormat.FORMAT_VERSION));
+    }
+    final int length = buffer.getInt();
+    final int checksum = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new StreamCorruptedException("Snapshot truncated");
+    }
+    final ByteBuffer payload = buffer.slice();
+    payload.limit(length);
+    final CRC32 crc = new CRC32();
+    crc.update(payload.duplicate());
+    if ((int) crc.getValue() != checksum) {
+      throw new StreamCorruptedException("Snapshot checksum mismatch");
+    }
+    return payload;
+  }
+
+  private final ByteBuffer buffer;
+  private String[] strings;
+
+  private RepositorySnapshotReader(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  private void readCodeSet(CodeSetType codeSet) {
+    codeSet.setId(bigInteger(buffer.getInt()));
+    codeSet.setName(readString());
+    codeSet.setScenario(readString());
+    codeSet.setType(readString());
+    codeSet.setSpecUrl(readString());
+    codeSet.setAdded(readString());
+    codeSet.setDeprecated(readString());
+    final int codeCount = buffer.getInt();
+    final List<CodeType> codes = codeSet.getCode();
+    for (int i = 0; i < codeCount; i++) {
+      final CodeType code = new CodeType();
+      code.setId(bigInteger(buffer.getInt()));
+      code.setName(readString());
+      code.setValue(readString());
+      code.setSort(readString());
+      code.setGroup(readString());
+      code.setAdded(readString());
+      code.setDeprecated(readString());
+      codes.add(code);
+    }
+  }
+
+  private void readComponent(ComponentType component) {
+    component.setId(bigInteger(buffer.getInt()));
+    component.setName(readString());
+    component.setScenario(readString());
+    component.setCategory(readString());
+    component.setAdded(readString());
+    component.setDeprecated(readString());
+    readMembers(component.getComponentRefOrGroupRefOrFieldRef());
+  }
+
+  private void readField(FieldType field) {
+    field.setId(bigInteger(buffer.getInt()));
+    field.setName(readString());
+    field.setScenario(readString());
+    field.setType(readString());
+    field.setLengthId(bigInteger(buffer.getInt()));
+    field.setDiscriminatorId(bigInteger(buffer.getInt()));
+    field.setMinInclusive(readString());
+    field.setMaxInclusive(readString());
+    field.setEncoding(readString());
+    field.setAdded(readString());
+    field.setDeprecated(readString());
+  }
+
+  private FieldRefType readFieldRef() {
+    final FieldRefType fieldRef = new FieldRefType();
+    fieldRef.setId(bigInteger(buffer.getInt()));
+    fieldRef.setScenario(readString());
+    fieldRef.setPresence(readPresence());
+    fieldRef.setValue(readString());
+    fieldRef.setAssign(readString());
+    fieldRef.setMinInclusive(readString());
+    fieldRef.setMaxInclusive(readString());
+    fieldRef.setInstanceName(readString());
+    final int ruleCount = buffer.getInt();
+    for (int i = 0; i < ruleCount; i++) {
+      final FieldRuleType rule = new FieldRuleType();
+      rule.setName(readString());
+      rule.setPresence(readPresence());
+      rule.setValue(readString());
+      rule.setWhen(readString());
+      fieldRef.getRule().add(rule);
+    }
+    return fieldRef;
+  }
+
+  private void readGroup(GroupType group) {
+    group.setId(bigInteger(buffer.getInt()));
+    group.setName(readString());
+    group.setScenario(readString());
+    group.setCategory(readString());
+    group.setAdded(readString());
+    group.setDeprecated(readString());
+    group.setImplMinOccurs(bigInteger(buffer.getInt()));
+    group.setImplMaxOccurs(readString());
+    if (buffer.get() != 0) {
+      group.setNumInGroup(readFieldRef());
+    }
+    readMembers(group.getComponentRefOrGroupRefOrFieldRef());
+  }
+
+  private void readMembers(List<Object> members) {
+    final int memberCount = buffer.getInt();
+    for (int i = 0; i < memberCount; i++) {
+      final byte kind = buffer.get();
+      if (kind == SnapshotFormat.MEMBER_FIELD) {
+        members.add(readFieldRef());
+        continue;
+      }
+      final ComponentRefType componentRef =
+          kind == SnapshotFormat.MEMBER_GROUP ? new GroupRefType() : new ComponentRefType();
+      componentRef.setId(bigInteger(buffer.getInt()));
+      componentRef.setScenario(readString());
+      componentRef.setPresence(readPresence());
+      componentRef.setInstanceName(readString());
+      if (kind == SnapshotFormat.MEMBER_GROUP) {
+        final GroupRefType groupRef = (GroupRefType) componentRef;
+        groupRef.setImplMinOccurs(bigInteger(buffer.getInt()));
+        groupRef.setImplMaxOccurs(readString());
+      }
+      final int ruleCount = buffer.getInt();
+      for (int j = 0; j < ruleCount; j++) {
+        final ComponentRuleType rule = new ComponentRuleType();
+        rule.setName(readString());
+        rule.setPresence(readPresence());
+        rule.setWhen(readString());
+        componentRef.getRule().add(rule);
+      }
+      members.add(componentRef);
+    }
+  }
+
+  private void readMessage(MessageType message) {
+    message.setId(bigInteger(buffer.getInt()));
+    message.setName(readString());
+    message.setScenario(readString());
+    message.setMsgType(readString());
+    message.setCategory(readString());
+    message.setFlow(readString());
+    message.setAdded(readString());
+    message.setDeprecated(readString());
+    final MessageType.Structure structure = new MessageType.Structure();
+    readMembers(structure.getComponentRefOrGroupRefOrFieldRef());
+    message.setStructure(structure);
+  }
+
+  private PresenceT readPresence() {
+    final String value = readString();
+    return value != null ? PresenceT.fromValue(value) : null;
+  }
+
+  private Repository readRepository() throws StreamCorruptedException {
+    try {
+      readStrings();
+      final Repository repository = new Repository();
+      repository.setName(readString());
+      repository.setVersion(readString());
+      repository.setLatestEP(bigInteger(buffer.getInt()));
+      repository.setSpecUrl(readString());
+      repository.setNamespace(readString());
+      repository.setApplVerId(readString());
+      repository.setExpressionLanguage(readString());
+
+      final Fields fields = new Fields();
+      final int fieldCount = buffer.getInt();
+      for (int i = 0; i < fieldCount; i++) {
+        final FieldType field = new FieldType();
+        readField(field);
+        fields.getField().add(field);
+      }
+      repository.setFields(fields);
+
+      final CodeSets codeSets = new CodeSets();
+      final int codeSetCount = buffer.getInt();
+      for (int i = 0; i < codeSetCount; i++) {
+        final CodeSetType codeSet = new CodeSetType();
+        readCodeSet(codeSet);
+        codeSets.getCodeSet().add(codeSet);
+      }
+      repository.setCodeSets(codeSets);
+
+      final Components components = new Components();
+      final int componentCount = buffer.getInt();
+      for (int i = 0; i < componentCount; i++) {
+        final ComponentType component = new ComponentType();
+        readComponent(component);
+        components.getComponent().add(component);
+      }
+      repository.setComponents(components);
+
+      final Groups groups = new Groups();
+      final int groupCount = buffer.getInt();
+      for (int i = 0; i < groupCount; i++) {
+        final GroupType group = new GroupType();
+        readGroup(group);
+        groups.getGroup().add(group);
+      }
+      repository.setGroups(groups);
+
+      final Messages messages = new Messages();
+      final int messageCount = buffer.getInt();
+      for (int i = 0; i < messageCount; i++) {
+        final MessageType message = new MessageType();
+        readMessage(message);
+        messages.getMessage().add(message);
+      }
+      repository.setMessages(messages);
+      return repository;
+    } catch (final RuntimeException e) {
+      // BufferUnderflowException or an index out of bounds
+      throw new StreamCorruptedException("Malformed snapshot; " + e);
+    }
+  }
+
+  private String readString() {
+    final int index = buffer.getInt();
+    return index != SnapshotFormat.NONE ? strings[index] : null;
+  }
+
+  private void readStrings() {
+    final int count = buffer.getInt();
+    strings = new String[count];
+    byte[] bytes = new byte[256];
+    for (int i = 0; i < count; i++) {
+      final int length = buffer.getInt();
+      if (length > bytes.length) {
+        bytes = new byte[Math.max(length, bytes.length * 2)];
+      }
+      buffer.get(bytes, 0, length);
+      strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRuleType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldRuleType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * Writes a compact binary snapshot of a repository
+ * <p>
+ * A snapshot holds what is needed at run time: fields, code sets with their codes, components,
+ * groups and messages with their members, and rules. Rule expressions are kept as text. Datatypes,
+ * categories, sections, actors, annotations and documentation are not included. A snapshot is read
+ * by {@link RepositorySnapshotReader}; it is much faster to load than XML.
+ * <p>
+ * The format is versioned and its payload is protected by a CRC-32 checksum.
+ */
+public final class RepositorySnapshotWriter {
+
+  private static int intValue(BigInteger value) {
+    return value != null ? value.intValue() : SnapshotFormat.NONE;
+  }
+
+  private final DataOutputStream out;
+  private final ByteArrayOutputStream records = new ByteArrayOutputStream(64 * 1024);
+  private final Map<String, Integer> stringIndex = new HashMap<>();
+  private final List<String> strings = new ArrayList<>();
+
+  public RepositorySnapshotWriter() {
+    this.out = new DataOutputStream(records);
+  }
+
+  /**
+   * Writes a snapshot to a file
+   *
+   * @param repository repository to write
+   * @param path output file
+   * @throws IOException if the file cannot be written
+   */
+  public void write(Repository repository, Path path) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(path)) {
+      write(repository, outputStream);
+    }
+  }
+
+  /**
+   * Writes a snapshot to a stream
+   * <p>
+   * A writer may be reused but is not thread-safe.
+   *
+   * @param repository repository to write
+   * @param outputStream output, not closed by this method
+   * @throws IOException if the snapshot cannot be written
+   */
+  public void write(Repository repository, OutputStream outputStream) throws IOException {
+    records.reset();
+    stringIndex.clear();
+    strings.clear();
+
+    writeString(repository.getName());
+    writeString(repository.getVersion());
+    out.writeInt(intValue(repository.getLatestEP()));
+    writeString(repository.getSpecUrl());
+    writeString(repository.getNamespace());
+    writeString(repository.getApplVerId());
+    writeString(repository.getExpressionLanguage());
+
+    final Fields fields = repository.getFields();
+    final List<FieldType> fieldList = fields != null ? fields.getField() : new ArrayList<>();
+    out.writeInt(fieldList.size());
+    for (final FieldType field : fieldList) {
+      writeField(field);
+    }
+    final CodeSets codeSets = repository.getCodeSets();
+    final List<CodeSetType> codeSetList =
+        codeSets != null ? codeSets.getCodeSet() : new ArrayList<>();
+    out.writeInt(codeSetList.size());
+    for (final CodeSetType codeSet : codeSetList) {
+      writeCodeSet(codeSet);
+    }
+    final Components components = repository.getComponents();
+    final List<ComponentType> componentList =
+        components != null ? components.getComponent() : new ArrayList<>();
+    out.writeInt(componentList.size());
+    for (final ComponentType component : componentList) {
+      writeComponent(component);
+    }
+    final Groups groups = repository.getGroups();
+    final List<GroupType> groupList = groups != null ? groups.getGroup() : new ArrayList<>();
+    out.writeInt(groupList.size());
+    for (final GroupType group : groupList) {
+      writeGroup(group);
+    }
+    final Messages messages = repository.getMessages();
+    final List<MessageType> messageList =
+        messages != null ? messages.getMessage() : new ArrayList<>();
+    out.writeInt(messageList.size());
+    for (final MessageType message : messageList) {
+      writeMessage(message);
+    }
+    out.flush();
+
+    final ByteArrayOutputStream payload =
+        new ByteArrayOutputStream(records.size() + strings.size() * 16);
+    final DataOutputStream payloadOut = new DataOutputStream(payload);
+    payloadOut.writeInt(strings.size());
+    for (final String s : strings) {
+      final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      payloadOut.writeInt(bytes.length);
+      payloadOut.write(bytes);
+    }
+    records.writeTo(payloadOut);
+    payloadOut.flush();
+
+    final byte[] payloadBytes = payload.toByteArray();
+    final CRC32 crc = new CRC32();
+    crc.update(payloadBytes, 0, payloadBytes.length);
+    final DataOutputStream header = new DataOutputStream(outputStream);
+    header.writeInt(SnapshotFormat.MAGIC);
+    header.writeInt(SnapshotFormat.FORMAT_VERSION);
+    header.writeInt(payloadBytes.length);
+    header.writeInt((int) crc.getValue());
+    header.write(payloadBytes);
+    header.flush();
+  }
+
+  private void writeCodeSet(CodeSetType codeSet) throws IOException {
+    out.writeInt(intValue(codeSet.getId()));
+    writeString(codeSet.getName());
+    writeString(codeSet.getScenario());
+    writeString(codeSet.getType());
+    writeString(codeSet.getSpecUrl());
+    writeString(codeSet.getAdded());
+    writeString(codeSet.getDeprecated());
+    final List<CodeType> codes = codeSet.getCode();
+    out.writeInt(codes.size());
+    for (final CodeType code : codes) {
+      out.writeInt(intValue(code.getId()));
+      writeString(code.getName());
+      writeString(code.getValue());
+      writeString(code.getSort());
+      writeString(code.getGroup());
+      writeString(code.getAdded());
+      writeString(code.getDeprecated());
+    }
+  }
+
+  private void writeComponent(ComponentType component) throws IOException {
+    out.writeInt(intValue(component.getId()));
+    writeString(component.getName());
+    writeString(component.getScenario());
+    writeString(component.getCategory());
+    writeString(component.getAdded());
+    writeString(component.getDeprecated());
+    writeMembers(component.getComponentRefOrGroupRefOrFieldRef());
+  }
+
+  private void writeField(FieldType field) throws IOException {
+    out.writeInt(intValue(field.getId()));
+    writeString(field.getName());
+    writeString(field.getScenario());
+    writeString(field.getType());
+    out.writeInt(intValue(field.getLengthId()));
+    out.writeInt(intValue(field.getDiscriminatorId()));
+    writeString(field.getMinInclusive());
+    writeString(field.getMaxInclusive());
+    writeString(field.getEncoding());
+    writeString(field.getAdded());
+    writeString(field.getDeprecated());
+  }
+
+  private void writeFieldRef(FieldRefType fieldRef) throws IOException {
+    out.writeInt(intValue(fieldRef.getId()));
+    writeString(fieldRef.getScenario());
+    writePresence(fieldRef.getPresence());
+    writeString(fieldRef.getValue());
+    writeString(fieldRef.getAssign());
+    writeString(fieldRef.getMinInclusive());
+    writeString(fieldRef.getMaxInclusive());
+    writeString(fieldRef.getInstanceName());
+    final List<FieldRuleType> rules = fieldRef.getRule();
+    out.writeInt(rules.size());
+    for (final FieldRuleType rule : rules) {
+      writeString(rule.getName());
+      writePresence(rule.getPresence());
+      writeString(rule.getValue());
+      writeString(rule.getWhen());
+    }
+  }
+
+  private void writeGroup(GroupType group) throws IOException {
+    out.writeInt(intValue(group.getId()));
+    writeString(group.getName());
+    writeString(group.getScenario());
+    writeString(group.getCategory());
+    writeString(group.getAdded());
+    writeString(group.getDeprecated());
+    out.writeInt(intValue(group.getImplMinOccurs()));
+    writeString(group.getImplMaxOccurs());
+    final FieldRefType numInGroup = group.getNumInGroup();
+    out.writeBoolean(numInGroup != null);
+    if (numInGroup != null) {
+      writeFieldRef(numInGroup);
+    }
+    writeMembers(group.getComponentRefOrGroupRefOrFieldRef());
+  }
+
+  private void writeMembers(List<Object> members) throws IOException {
+    out.writeInt(members.size());
+    for (final Object member : members) {
+      if (member instanceof FieldRefType) {
+        out.writeByte(SnapshotFormat.MEMBER_FIELD);
+        writeFieldRef((FieldRefType) member);
+      } else {
+        final ComponentRefType componentRef = (ComponentRefType) member;
+        final boolean isGroup = componentRef instanceof GroupRefType;
+        out.writeByte(isGroup ? SnapshotFormat.MEMBER_GROUP : SnapshotFormat.MEMBER_COMPONENT);
+        out.writeInt(intValue(componentRef.getId()));
+        writeString(componentRef.getScenario());
+        writePresence(componentRef.getPresence());
+        writeString(componentRef.getInstanceName());
+        if (isGroup) {
+          final GroupRefType groupRef = (GroupRefType) componentRef;
+          out.writeInt(intValue(groupRef.getImplMinOccurs()));
+          writeString(groupRef.getImplMaxOccurs());
+        }
+        final List<ComponentRuleType> rules = componentRef.getRule();
+        out.writeInt(rules.size());
+        for (final ComponentRuleType rule : rules) {
+          writeString(rule.getName());
+          writePresence(rule.getPresence());
+          writeString(rule.getWhen());
+        }
+      }
+    }
+  }
+
+  private void writeMessage(MessageType message) throws IOException {
+    out.writeInt(intValue(message.getId()));
+    writeString(message.getName());
+    writeString(message.getScenario());
+    writeString(message.getMsgType());
+    writeString(message.getCategory());
+    writeString(message.getFlow());
+    writeString(message.getAdded());
+    writeString(message.getDeprecated());
+    final MessageType.Structure structure = message.getStructure();
+    writeMembers(
+        structure != null ? structure.getComponentRefOrGroupRefOrFieldRef() : new ArrayList<>());
+  }
+
+  private void writePresence(PresenceT presence) throws IOException {
+    writeString(presence != null ? presence.value() : null);
+  }
+
+  private void writeString(String s) throws IOException {
+    if (s == null) {
+      out.writeInt(SnapshotFormat.NONE);
+      return;
+    }
+    Integer index = stringIndex.get(s);
+    if (index == null) {
+      index = strings.size();
+      strings.add(s);
+      stringIndex.put(s, index);
+    }
+    out.writeInt(index);
+  }
+}
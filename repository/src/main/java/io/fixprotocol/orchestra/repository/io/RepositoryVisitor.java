@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.io;
+
+import org.purl.dc.terms.ElementOrRefinementContainer;
+import io.fixprotocol._2020.orchestra.repository.ActorType;
+import io.fixprotocol._2020.orchestra.repository.CategoryType;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Datatype;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.FlowType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol._2020.orchestra.repository.SectionType;
+
+/**
+ * Receives elements of a repository one at a time from {@link RepositoryReader#visit}
+ * <p>
+ * Each element is unmarshalled on its own and may be discarded after it is visited, so memory
+ * use does not depend on the size of the repository. All methods do nothing by default;
+ * implement only those of interest.
+ */
+public interface RepositoryVisitor {
+
+  /**
+   * @param actor an actor
+   */
+  default void visitActor(ActorType actor) {}
+
+  /**
+   * @param category a category
+   */
+  default void visitCategory(CategoryType category) {}
+
+  /**
+   * @param codeSet a code set
+   */
+  default void visitCodeSet(CodeSetType codeSet) {}
+
+  /**
+   * @param component a component
+   */
+  default void visitComponent(ComponentType component) {}
+
+  /**
+   * @param datatype a datatype
+   */
+  default void visitDatatype(Datatype datatype) {}
+
+  /**
+   * @param field a field
+   */
+  default void visitField(FieldType field) {}
+
+  /**
+   * @param flow a flow between actors
+   */
+  default void visitFlow(FlowType flow) {}
+
+  /**
+   * @param group a repeating group
+   */
+  default void visitGroup(GroupType group) {}
+
+  /**
+   * @param message a message
+   */
+  default void visitMessage(MessageType message) {}
+
+  /**
+   * @param metadata metadata of the repository
+   */
+  default void visitMetadata(ElementOrRefinementContainer metadata) {}
+
+  /**
+   * Visits the root element before any of its children
+   *
+   * @param repository a repository with attributes only
+   */
+  default void visitRepository(Repository repository) {}
+
+  /**
+   * @param section a section
+   */
+  default void visitSection(SectionType section) {}
+}
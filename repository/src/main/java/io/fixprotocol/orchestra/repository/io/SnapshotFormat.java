@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.io;
+
+/**
+ * Layout of a repository snapshot file
+ *
+ * <pre>
+ * header:  magic (int) version (int) payload length (int) CRC-32 of payload (int)
+ * payload: string table, repository attributes, fields, code sets, components, groups, messages
+ * </pre>
+ *
+ * All values are big-endian. Strings are written once in the string table and referenced by
+ * index; {@link #NONE} stands for a null string or number.
+ */
+final class SnapshotFormat {
+
+  static final int FORMAT_VERSION = 1;
+  static final int HEADER_LENGTH = 16;
+  static final int MAGIC = 0x46495853; // "FIXS"
+
+  static final byte MEMBER_COMPONENT = 1;
+  static final byte MEMBER_FIELD = 0;
+  static final byte MEMBER_GROUP = 2;
+
+  static final int NONE = -1;
+
+  private SnapshotFormat() {}
+}
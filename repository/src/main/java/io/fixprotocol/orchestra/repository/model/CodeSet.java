@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A code set and its codes
+ */
+public final class CodeSet extends Element {
+  private final Code[] codes;
+  private final String type;
+
+  CodeSet(int id, String name, String scenario, String added, String updated, String deprecated,
+      int ordinal, String type, Code[] codes) {
+    super(id, name, scenario, added, updated, deprecated, ordinal);
+    this.type = type;
+    this.codes = codes;
+  }
+
+  /**
+   * @param value a code value
+   * @return the code with the value, or {@code null} if not a member of this code set
+   */
+  public Code getCode(String value) {
+    for (final Code code : codes) {
+      if (code.getValue().equals(value)) {
+        return code;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return codes in declared order, read-only
+   */
+  public List<Code> getCodes() {
+    return Collections.unmodifiableList(Arrays.asList(codes));
+  }
+
+  /**
+   * @return name of the datatype of the codes
+   */
+  public String getType() {
+    return type;
+  }
+}
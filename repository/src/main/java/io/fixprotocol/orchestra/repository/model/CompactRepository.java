@@ -0,0 +1,478 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.model;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * A compact, immutable run-time model of the message structures of a repository
+ * <p>
+ * The generated JAXB classes hold ids as {@code BigInteger}, a separate {@code String} for every
+ * occurrence of a name, scenario or version, and members as lists of untyped objects. This model
+ * holds ids as {@code int}, shares one instance of each distinct string and of each distinct
+ * member reference, and keeps members in typed arrays. Fields, components and groups are indexed
+ * by id in primitive-keyed maps; where several scenarios share an id or name, the base scenario is
+ * preferred.
+ * <p>
+ * The model covers fields, code sets, components, groups and messages, with their version
+ * attributes. Documentation, rules and other sections are not held; use
+ * {@link Element#getOrdinal()} to retrieve a full declaration from the source repository. A model
+ * may be shared by threads.
+ */
+public final class CompactRepository {
+
+  private static final String BASE_SCENARIO = "base";
+
+  /**
+   * Converts the message structures of a repository
+   *
+   * @param repository a repository
+   * @return a compact model
+   */
+  public static CompactRepository from(Repository repository) {
+    return new CompactRepository(repository);
+  }
+
+  private static int intValue(BigInteger value) {
+    return value != null ? value.intValue() : 0;
+  }
+
+  private static String messageKey(String msgType, String scenario) {
+    return msgType + '/' + scenario;
+  }
+
+  private static <T> List<T> readOnly(T[] elements) {
+    return Collections.unmodifiableList(Arrays.asList(elements));
+  }
+
+  private static BigInteger toBigInteger(int value) {
+    return BigInteger.valueOf(value);
+  }
+
+  // base scenario is implicit in XML
+  private static String toScenario(String scenario) {
+    return BASE_SCENARIO.equals(scenario) ? null : scenario;
+  }
+
+  private final CodeSet[] codeSets;
+  private final Map<String, CodeSet> codeSetsByName;
+  private final Component[] components;
+  private final IntMap<Component> componentsById;
+  private final Field[] fields;
+  private final IntMap<Field> fieldsById;
+  private final Map<String, Field> fieldsByName;
+  private final Group[] groups;
+  private final IntMap<Group> groupsById;
+  private final Message[] messages;
+  private final Map<String, Message> messagesByType;
+  private final String name;
+  private final String version;
+
+  private CompactRepository(Repository repository) {
+    final StringPool strings = new StringPool();
+    final Map<Member, Member> memberPool = new HashMap<>();
+    this.name = repository.getName();
+    this.version = repository.getVersion();
+
+    final CodeSets codeSetList = repository.getCodeSets();
+    final List<CodeSetType> codeSetTypes =
+        codeSetList != null ? codeSetList.getCodeSet() : new ArrayList<>();
+    codeSets = new CodeSet[codeSetTypes.size()];
+    codeSetsByName = new HashMap<>(codeSetTypes.size() * 2);
+    final Map<String, CodeSet> codeSetsByScenario = new HashMap<>(codeSetTypes.size() * 2);
+    for (int i = 0; i < codeSets.length; i++) {
+      final CodeSetType codeSetType = codeSetTypes.get(i);
+      final List<CodeType> codeTypes = codeSetType.getCode();
+      final Code[] codes = new Code[codeTypes.size()];
+      for (int j = 0; j < codes.length; j++) {
+        final CodeType code = codeTypes.get(j);
+        codes[j] = new Code(intValue(code.getId()), strings.intern(code.getName()),
+            scenario(strings, code.getScenario()), strings.intern(code.getAdded()),
+            strings.intern(code.getUpdated()), strings.intern(code.getDeprecated()), j,
+            strings.intern(code.getValue()));
+      }
+      final CodeSet codeSet = new CodeSet(intValue(codeSetType.getId()),
+          strings.intern(codeSetType.getName()), scenario(strings, codeSetType.getScenario()),
+          strings.intern(codeSetType.getAdded()), strings.intern(codeSetType.getUpdated()),
+          strings.intern(codeSetType.getDeprecated()), i, strings.intern(codeSetType.getType()),
+          codes);
+      codeSets[i] = codeSet;
+      putPreferBase(codeSetsByName, codeSet.getName(), codeSet);
+      codeSetsByScenario.putIfAbsent(codeSet.getName() + '/' + codeSet.getScenario(), codeSet);
+    }
+
+    final Fields fieldList = repository.getFields();
+    final List<FieldType> fieldTypes = fieldList != null ? fieldList.getField() : new ArrayList<>();
+    fields = new Field[fieldTypes.size()];
+    fieldsById = new IntMap<>(fields.length);
+    fieldsByName = new HashMap<>(fields.length * 2);
+    for (int i = 0; i < fields.length; i++) {
+      final FieldType fieldType = fieldTypes.get(i);
+      final String scenario = scenario(strings, fieldType.getScenario());
+      final String type = strings.intern(fieldType.getType());
+      CodeSet codeSet = codeSetsByScenario.get(type + '/' + scenario);
+      if (codeSet == null) {
+        codeSet = codeSetsByScenario.get(type + '/' + BASE_SCENARIO);
+      }
+      final Field field = new Field(intValue(fieldType.getId()),
+          strings.intern(fieldType.getName()), scenario, strings.intern(fieldType.getAdded()),
+          strings.intern(fieldType.getUpdated()), strings.intern(fieldType.getDeprecated()), i,
+          type, codeSet);
+      fields[i] = field;
+      fieldsById.put(field.getId(), field, BASE_SCENARIO.equals(scenario));
+      putPreferBase(fieldsByName, field.getName(), field);
+    }
+
+    final Components componentList = repository.getComponents();
+    final List<ComponentType> componentTypes =
+        componentList != null ? componentList.getComponent() : new ArrayList<>();
+    components = new Component[componentTypes.size()];
+    componentsById = new IntMap<>(components.length);
+    for (int i = 0; i < components.length; i++) {
+      final ComponentType componentType = componentTypes.get(i);
+      final Component component = new Component(intValue(componentType.getId()),
+          strings.intern(componentType.getName()), scenario(strings, componentType.getScenario()),
+          strings.intern(componentType.getAdded()), strings.intern(componentType.getUpdated()),
+          strings.intern(componentType.getDeprecated()), i,
+          members(componentType.getComponentRefOrGroupRefOrFieldRef(), strings, memberPool));
+      components[i] = component;
+      componentsById.put(component.getId(), component,
+          BASE_SCENARIO.equals(component.getScenario()));
+    }
+
+    final Groups groupList = repository.getGroups();
+    final List<GroupType> groupTypes = groupList != null ? groupList.getGroup() : new ArrayList<>();
+    groups = new Group[groupTypes.size()];
+    groupsById = new IntMap<>(groups.length);
+    for (int i = 0; i < groups.length; i++) {
+      final GroupType groupType = groupTypes.get(i);
+      final FieldRefType numInGroup = groupType.getNumInGroup();
+      final Group group = new Group(intValue(groupType.getId()),
+          strings.intern(groupType.getName()), scenario(strings, groupType.getScenario()),
+          strings.intern(groupType.getAdded()), strings.intern(groupType.getUpdated()),
+          strings.intern(groupType.getDeprecated()), i,
+          members(groupType.getComponentRefOrGroupRefOrFieldRef(), strings, memberPool),
+          numInGroup != null ? intValue(numInGroup.getId()) : 0);
+      groups[i] = group;
+      groupsById.put(group.getId(), group, BASE_SCENARIO.equals(group.getScenario()));
+    }
+
+    final Messages messageList = repository.getMessages();
+    final List<MessageType> messageTypes =
+        messageList != null ? messageList.getMessage() : new ArrayList<>();
+    messages = new Message[messageTypes.size()];
+    messagesByType = new HashMap<>(messages.length * 2);
+    for (int i = 0; i < messages.length; i++) {
+      final MessageType messageType = messageTypes.get(i);
+      final MessageType.Structure structure = messageType.getStructure();
+      final Message message = new Message(intValue(messageType.getId()),
+          strings.intern(messageType.getName()), scenario(strings, messageType.getScenario()),
+          strings.intern(messageType.getAdded()), strings.intern(messageType.getUpdated()),
+          strings.intern(messageType.getDeprecated()), i,
+          members(structure != null ? structure.getComponentRefOrGroupRefOrFieldRef()
+              : new ArrayList<>(), strings, memberPool),
+          strings.intern(messageType.getMsgType()));
+      messages[i] = message;
+      messagesByType.putIfAbsent(messageKey(message.getMsgType(), message.getScenario()), message);
+    }
+  }
+
+  /**
+   * @param name name of a code set
+   * @return a code set, or {@code null} if not found
+   */
+  public CodeSet getCodeSet(String name) {
+    return codeSetsByName.get(name);
+  }
+
+  /**
+   * @return code sets in declared order, read-only
+   */
+  public List<CodeSet> getCodeSets() {
+    return readOnly(codeSets);
+  }
+
+  /**
+   * @param id component id
+   * @return a component, or {@code null} if not found
+   */
+  public Component getComponent(int id) {
+    return componentsById.get(id);
+  }
+
+  /**
+   * @return components in declared order, read-only
+   */
+  public List<Component> getComponents() {
+    return readOnly(components);
+  }
+
+  /**
+   * @param id field id
+   * @return a field, or {@code null} if not found
+   */
+  public Field getField(int id) {
+    return fieldsById.get(id);
+  }
+
+  /**
+   * @param name field name
+   * @return a field, or {@code null} if not found
+   */
+  public Field getFieldByName(String name) {
+    return fieldsByName.get(name);
+  }
+
+  /**
+   * @return fields in declared order, read-only
+   */
+  public List<Field> getFields() {
+    return readOnly(fields);
+  }
+
+  /**
+   * @param id group id
+   * @return a repeating group, or {@code null} if not found
+   */
+  public Group getGroup(int id) {
+    return groupsById.get(id);
+  }
+
+  /**
+   * @return repeating groups in declared order, read-only
+   */
+  public List<Group> getGroups() {
+    return readOnly(groups);
+  }
+
+  /**
+   * @param msgType value of MsgType(35)
+   * @param scenario scenario name
+   * @return a message, or {@code null} if not found
+   */
+  public Message getMessage(String msgType, String scenario) {
+    return messagesByType.get(messageKey(msgType, scenario));
+  }
+
+  /**
+   * @return messages in declared order, read-only
+   */
+  public List<Message> getMessages() {
+    return readOnly(messages);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * Converts this model to a repository of generated JAXB classes
+   * <p>
+   * Only the content of the model is restored; documentation and rules are absent.
+   *
+   * @return a new repository
+   */
+  public Repository toRepository() {
+    final Repository repository = new Repository();
+    repository.setName(name);
+    repository.setVersion(version);
+
+    final CodeSets codeSetList = new CodeSets();
+    for (final CodeSet codeSet : codeSets) {
+      final CodeSetType codeSetType = new CodeSetType();
+      codeSetType.setId(toBigInteger(codeSet.getId()));
+      codeSetType.setName(codeSet.getName());
+      codeSetType.setScenario(toScenario(codeSet.getScenario()));
+      codeSetType.setType(codeSet.getType());
+      codeSetType.setAdded(codeSet.getAdded());
+      codeSetType.setUpdated(codeSet.getUpdated());
+      codeSetType.setDeprecated(codeSet.getDeprecated());
+      for (final Code code : codeSet.getCodes()) {
+        final CodeType codeType = new CodeType();
+        codeType.setId(toBigInteger(code.getId()));
+        codeType.setName(code.getName());
+        codeType.setValue(code.getValue());
+        codeType.setAdded(code.getAdded());
+        codeType.setUpdated(code.getUpdated());
+        codeType.setDeprecated(code.getDeprecated());
+        codeSetType.getCode().add(codeType);
+      }
+      codeSetList.getCodeSet().add(codeSetType);
+    }
+    repository.setCodeSets(codeSetList);
+
+    final Fields fieldList = new Fields();
+    for (final Field field : fields) {
+      final FieldType fieldType = new FieldType();
+      fieldType.setId(toBigInteger(field.getId()));
+      fieldType.setName(field.getName());
+      fieldType.setScenario(toScenario(field.getScenario()));
+      fieldType.setType(field.getType());
+      fieldType.setAdded(field.getAdded());
+      fieldType.setUpdated(field.getUpdated());
+      fieldType.setDeprecated(field.getDeprecated());
+      fieldList.getField().add(fieldType);
+    }
+    repository.setFields(fieldList);
+
+    final Components componentList = new Components();
+    for (final Component component : components) {
+      final ComponentType componentType = new ComponentType();
+      componentType.setId(toBigInteger(component.getId()));
+      componentType.setName(component.getName());
+      componentType.setScenario(toScenario(component.getScenario()));
+      componentType.setAdded(component.getAdded());
+      componentType.setUpdated(component.getUpdated());
+      componentType.setDeprecated(component.getDeprecated());
+      toMembers(component, componentType.getComponentRefOrGroupRefOrFieldRef());
+      componentList.getComponent().add(componentType);
+    }
+    repository.setComponents(componentList);
+
+    final Groups groupList = new Groups();
+    for (final Group group : groups) {
+      final GroupType groupType = new GroupType();
+      groupType.setId(toBigInteger(group.getId()));
+      groupType.setName(group.getName());
+      groupType.setScenario(toScenario(group.getScenario()));
+      groupType.setAdded(group.getAdded());
+      groupType.setUpdated(group.getUpdated());
+      groupType.setDeprecated(group.getDeprecated());
+      if (group.getNumInGroupId() != 0) {
+        final FieldRefType numInGroup = new FieldRefType();
+        numInGroup.setId(toBigInteger(group.getNumInGroupId()));
+        groupType.setNumInGroup(numInGroup);
+      }
+      toMembers(group, groupType.getComponentRefOrGroupRefOrFieldRef());
+      groupList.getGroup().add(groupType);
+    }
+    repository.setGroups(groupList);
+
+    final Messages messageList = new Messages();
+    for (final Message message : messages) {
+      final MessageType messageType = new MessageType();
+      messageType.setId(toBigInteger(message.getId()));
+      messageType.setName(message.getName());
+      messageType.setScenario(toScenario(message.getScenario()));
+      messageType.setMsgType(message.getMsgType());
+      messageType.setAdded(message.getAdded());
+      messageType.setUpdated(message.getUpdated());
+      messageType.setDeprecated(message.getDeprecated());
+      final MessageType.Structure structure = new MessageType.Structure();
+      toMembers(message, structure.getComponentRefOrGroupRefOrFieldRef());
+      messageType.setStructure(structure);
+      messageList.getMessage().add(messageType);
+    }
+    repository.setMessages(messageList);
+    return repository;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "CompactRepository [name=" + name + ", version=" + version + ", fields="
+        + fields.length + ", codeSets=" + codeSets.length + ", components=" + components.length
+        + ", groups=" + groups.length + ", messages=" + messages.length + "]";
+  }
+
+  private Member[] members(List<Object> memberTypes, StringPool strings,
+      Map<Member, Member> memberPool) {
+    final Member[] members = new Member[memberTypes.size()];
+    for (int i = 0; i < members.length; i++) {
+      final Object memberType = memberTypes.get(i);
+      final Member member;
+      if (memberType instanceof FieldRefType) {
+        final FieldRefType fieldRef = (FieldRefType) memberType;
+        member = new Member(Member.Kind.FIELD, intValue(fieldRef.getId()), fieldRef.getPresence(),
+            strings.intern(fieldRef.getValue()));
+      } else {
+        final ComponentRefType componentRef = (ComponentRefType) memberType;
+        member = new Member(
+            componentRef instanceof GroupRefType ? Member.Kind.GROUP : Member.Kind.COMPONENT,
+            intValue(componentRef.getId()), componentRef.getPresence(), null);
+      }
+      final Member pooled = memberPool.putIfAbsent(member, member);
+      members[i] = pooled != null ? pooled : member;
+    }
+    return members;
+  }
+
+  private <T extends Element> void putPreferBase(Map<String, T> map, String key, T element) {
+    if (BASE_SCENARIO.equals(element.getScenario())) {
+      map.put(key, element);
+    } else {
+      map.putIfAbsent(key, element);
+    }
+  }
+
+  private String scenario(StringPool strings, String scenario) {
+    return scenario != null ? strings.intern(scenario) : BASE_SCENARIO;
+  }
+
+  private void toMembers(Structure structure, List<Object> memberTypes) {
+    for (int i = 0; i < structure.getMemberCount(); i++) {
+      final Member member = structure.getMember(i);
+      switch (member.getKind()) {
+        case FIELD:
+          final FieldRefType fieldRef = new FieldRefType();
+          fieldRef.setId(toBigInteger(member.getId()));
+          fieldRef.setPresence(member.getPresence());
+          fieldRef.setValue(member.getValue());
+          memberTypes.add(fieldRef);
+          break;
+        case GROUP:
+          final GroupRefType groupRef = new GroupRefType();
+          groupRef.setId(toBigInteger(member.getId()));
+          groupRef.setPresence(member.getPresence());
+          memberTypes.add(groupRef);
+          break;
+        default:
+          final ComponentRefType componentRef = new ComponentRefType();
+          componentRef.setId(toBigInteger(member.getId()));
+          componentRef.setPresence(member.getPresence());
+          memberTypes.add(componentRef);
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.model;
+
+/**
+ * A component
+ */
+public final class Component extends Structure {
+
+  Component(int id, String name, String scenario, String added, String updated,
+      String deprecated, int ordinal, Member[] members) {
+    super(id, name, scenario, added, updated, deprecated, ordinal, members);
+  }
+}
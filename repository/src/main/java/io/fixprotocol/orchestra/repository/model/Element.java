@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.model;
+
+/**
+ * Attributes common to the elements of a compact repository
+ * <p>
+ * Strings of a model are deduplicated, so equal names, scenarios and versions share one instance.
+ */
+public abstract class Element {
+  private final String added;
+  private final String deprecated;
+  private final int id;
+  private final String name;
+  private final int ordinal;
+  private final String scenario;
+  private final String updated;
+
+  Element(int id, String name, String scenario, String added, String updated, String deprecated,
+      int ordinal) {
+    this.id = id;
+    this.name = name;
+    this.scenario = scenario;
+    this.added = added;
+    this.updated = updated;
+    this.deprecated = deprecated;
+    this.ordinal = ordinal;
+  }
+
+  /**
+   * @return version in which the element was added, or {@code null}
+   */
+  public String getAdded() {
+    return added;
+  }
+
+  /**
+   * @return version in which the element was deprecated, or {@code null}
+   */
+  public String getDeprecated() {
+    return deprecated;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Position of the element in its list of the source repository, so the full declaration can be
+   * retrieved without a search
+   *
+   * @return a zero-based position
+   */
+  public int getOrdinal() {
+    return ordinal;
+  }
+
+  public String getScenario() {
+    return scenario;
+  }
+
+  /**
+   * @return version in which the element was last updated, or {@code null}
+   */
+  public String getUpdated() {
+    return updated;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + " [id=" + id + ", name=" + name + ", scenario=" + scenario
+        + "]";
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.model;
+
+import java.util.Arrays;
+
+/**
+ * A map keyed by primitive int, by open addressing with linear probing
+ * <p>
+ * Keys and values are held in parallel arrays, so a lookup neither boxes its key nor follows a
+ * chain of entries. Entries are only added while a model is built; afterwards the map is read-only
+ * and may be shared between threads.
+ *
+ * @param <V> value type
+ */
+final class IntMap<V> {
+  private static final int FREE = Integer.MIN_VALUE;
+
+  private static int hash(int key) {
+    final int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private int[] keys;
+  private int size = 0;
+  private Object[] values;
+
+  IntMap(int expectedSize) {
+    int capacity = 16;
+    while (capacity < expectedSize * 2) {
+      capacity <<= 1;
+    }
+    keys = new int[capacity];
+    Arrays.fill(keys, FREE);
+    values = new Object[capacity];
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(int key) {
+    final int mask = keys.length - 1;
+    for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return (V) values[i];
+      } else if (keys[i] == FREE) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Adds an entry, replacing an existing one only if {@code replace} is {@code true}
+   */
+  void put(int key, V value, boolean replace) {
+    if (key == FREE) {
+      throw new IllegalArgumentException("Key out of range");
+    }
+    if ((size + 1) * 2 > keys.length) {
+      resize();
+    }
+    final int mask = keys.length - 1;
+    for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        if (replace) {
+          values[i] = value;
+        }
+        return;
+      } else if (keys[i] == FREE) {
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return;
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void resize() {
+    final int[] oldKeys = keys;
+    final Object[] oldValues = values;
+    keys = new int[oldKeys.length * 2];
+    Arrays.fill(keys, FREE);
+    values = new Object[keys.length];
+    final int mask = keys.length - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] != FREE) {
+        int i = hash(oldKeys[j]) & mask;
+        while (keys[i] != FREE) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+}
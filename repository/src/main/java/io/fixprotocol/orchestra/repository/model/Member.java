@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.model;
+
+import java.util.Objects;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+
+/**
+ * A reference to a field, component or group from a component, group or message
+ * <p>
+ * Members are immutable values. Equal references are shared by every structure of a model, so a
+ * common optional field reference is held only once.
+ */
+public final class Member {
+
+  /**
+   * Kind of element referenced
+   */
+  public enum Kind {
+    COMPONENT, FIELD, GROUP
+  }
+
+  private final int id;
+  private final Kind kind;
+  private final PresenceT presence;
+  private final String value;
+
+  Member(Kind kind, int id, PresenceT presence, String value) {
+    this.kind = kind;
+    this.id = id;
+    this.presence = presence;
+    this.value = value;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Member)) {
+      return false;
+    }
+    final Member other = (Member) obj;
+    return id == other.id && kind == other.kind && presence == other.presence
+        && Objects.equals(value, other.value);
+  }
+
+  /**
+   * @return id of the referenced field, component or group
+   */
+  public int getId() {
+    return id;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public PresenceT getPresence() {
+    return presence;
+  }
+
+  /**
+   * @return value of a constant field, or {@code null}
+   */
+  public String getValue() {
+    return value;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(kind, id, presence, value);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "Member [kind=" + kind + ", id=" + id + ", presence=" + presence + ", value=" + value
+        + "]";
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deduplicates strings while a model is built, so that equal names, scenarios, types and versions
+ * share one instance
+ * <p>
+ * Not thread-safe; a pool is used by one conversion and then discarded.
+ */
+final class StringPool {
+  private final Map<String, String> strings = new HashMap<>();
+
+  String intern(String s) {
+    if (s == null) {
+      return null;
+    }
+    final String pooled = strings.putIfAbsent(s, s);
+    return pooled != null ? pooled : s;
+  }
+}
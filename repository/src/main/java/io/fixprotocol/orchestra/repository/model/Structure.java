@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.orchestra.repository.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An element composed of members: a component, group or message
+ */
+public abstract class Structure extends Element {
+  private final Member[] members;
+
+  Structure(int id, String name, String scenario, String added, String updated,
+      String deprecated, int ordinal, Member[] members) {
+    super(id, name, scenario, added, updated, deprecated, ordinal);
+    this.members = members;
+  }
+
+  /**
+   * @param i position of a member
+   * @return a member
+   * @throws IndexOutOfBoundsException if there is no member at the position
+   */
+  public Member getMember(int i) {
+    return members[i];
+  }
+
+  public int getMemberCount() {
+    return members.length;
+  }
+
+  /**
+   * @return members in declared order, read-only
+   */
+  public List<Member> getMembers() {
+    return Collections.unmodifiableList(Arrays.asList(members));
+  }
+}
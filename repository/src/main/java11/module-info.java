@@ -5,6 +5,8 @@ module orchestra.repository {
   
   exports io.fixprotocol._2020.orchestra.repository;
   opens io.fixprotocol._2020.orchestra.repository;
+  exports io.fixprotocol.orchestra.repository.io;
+  exports io.fixprotocol.orchestra.repository.model;
   exports org.purl.dc.elements._1;
   opens org.purl.dc.elements._1;
   exports org.purl.dc.terms;
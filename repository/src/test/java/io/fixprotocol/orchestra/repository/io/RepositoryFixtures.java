@@ -0,0 +1,160 @@
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import javax.xml.bind.JAXBException;
+import io.fixprotocol._2020.orchestra.repository.CodeSetType;
+import io.fixprotocol._2020.orchestra.repository.CodeSets;
+import io.fixprotocol._2020.orchestra.repository.CodeType;
+import io.fixprotocol._2020.orchestra.repository.ComponentRefType;
+import io.fixprotocol._2020.orchestra.repository.ComponentType;
+import io.fixprotocol._2020.orchestra.repository.Components;
+import io.fixprotocol._2020.orchestra.repository.FieldRefType;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Fields;
+import io.fixprotocol._2020.orchestra.repository.GroupRefType;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.Groups;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Messages;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * Builds a small repository for tests
+ */
+public final class RepositoryFixtures {
+
+  public static final int STANDARD_HEADER_ID = 1024;
+  public static final int PARTIES_GROUP_ID = 1012;
+
+  /**
+   * A repository with code sets, a component, a repeating group and two messages that both begin
+   * with the standard header
+   */
+  public static Repository sample() {
+    final Repository repository = new Repository();
+    repository.setName("FIX.Sample");
+    repository.setVersion("FIX.Latest");
+
+    final CodeSets codeSets = new CodeSets();
+    codeSets.getCodeSet().add(codeSet(54, "SideCodeSet", "Buy", "1", "Sell", "2"));
+    codeSets.getCodeSet()
+        .add(codeSet(39, "OrdStatusCodeSet", "New", "0", "PartiallyFilled", "1", "Filled", "2"));
+    repository.setCodeSets(codeSets);
+
+    final Fields fields = new Fields();
+    fields.getField().add(field(8, "BeginString", "String"));
+    fields.getField().add(field(11, "ClOrdID", "String"));
+    fields.getField().add(field(35, "MsgType", "String"));
+    fields.getField().add(field(37, "OrderID", "String"));
+    fields.getField().add(field(39, "OrdStatus", "OrdStatusCodeSet"));
+    fields.getField().add(field(54, "Side", "SideCodeSet"));
+    fields.getField().add(field(448, "PartyID", "String"));
+    fields.getField().add(field(453, "NoPartyIDs", "NumInGroup"));
+    repository.setFields(fields);
+
+    final Components components = new Components();
+    final ComponentType header = new ComponentType();
+    header.setId(BigInteger.valueOf(STANDARD_HEADER_ID));
+    header.setName("StandardHeader");
+    header.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(8, PresenceT.REQUIRED));
+    header.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(35, PresenceT.REQUIRED));
+    components.getComponent().add(header);
+    repository.setComponents(components);
+
+    final Groups groups = new Groups();
+    final GroupType parties = new GroupType();
+    parties.setId(BigInteger.valueOf(PARTIES_GROUP_ID));
+    parties.setName("Parties");
+    parties.setNumInGroup(fieldRef(453, null));
+    parties.getComponentRefOrGroupRefOrFieldRef().add(fieldRef(448, PresenceT.REQUIRED));
+    groups.getGroup().add(parties);
+    repository.setGroups(groups);
+
+    final Messages messages = new Messages();
+    messages.getMessage()
+        .add(message(14, "NewOrderSingle", "D", componentRef(), fieldRef(11, PresenceT.REQUIRED),
+            fieldRef(54, PresenceT.REQUIRED), groupRef(PARTIES_GROUP_ID)));
+    messages.getMessage()
+        .add(message(9, "ExecutionReport", "8", componentRef(), fieldRef(37, PresenceT.REQUIRED),
+            fieldRef(11, PresenceT.OPTIONAL), fieldRef(39, PresenceT.REQUIRED),
+            fieldRef(54, PresenceT.REQUIRED), groupRef(PARTIES_GROUP_ID)));
+    repository.setMessages(messages);
+    return repository;
+  }
+
+  /**
+   * Writes the sample repository as XML
+   *
+   * @param file output file
+   * @throws IOException if the file cannot be written
+   * @throws JAXBException if the repository cannot be marshalled
+   */
+  public static void writeSample(File file) throws IOException, JAXBException {
+    try (OutputStream os = new FileOutputStream(file)) {
+      RepositoryIO.getInstance().write(sample(), os);
+    }
+  }
+
+  private static CodeSetType codeSet(int id, String name, String... namesAndValues) {
+    final CodeSetType codeSet = new CodeSetType();
+    codeSet.setId(BigInteger.valueOf(id));
+    codeSet.setName(name);
+    codeSet.setType("char");
+    for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+      final CodeType code = new CodeType();
+      code.setId(BigInteger.valueOf(id * 1000 + i / 2 + 1));
+      code.setName(namesAndValues[i]);
+      code.setValue(namesAndValues[i + 1]);
+      codeSet.getCode().add(code);
+    }
+    return codeSet;
+  }
+
+  private static ComponentRefType componentRef() {
+    final ComponentRefType ref = new ComponentRefType();
+    ref.setId(BigInteger.valueOf(STANDARD_HEADER_ID));
+    ref.setPresence(PresenceT.REQUIRED);
+    return ref;
+  }
+
+  private static FieldType field(int id, String name, String type) {
+    final FieldType field = new FieldType();
+    field.setId(BigInteger.valueOf(id));
+    field.setName(name);
+    field.setType(type);
+    return field;
+  }
+
+  private static FieldRefType fieldRef(int id, PresenceT presence) {
+    final FieldRefType ref = new FieldRefType();
+    ref.setId(BigInteger.valueOf(id));
+    ref.setPresence(presence);
+    return ref;
+  }
+
+  private static GroupRefType groupRef(int id) {
+    final GroupRefType ref = new GroupRefType();
+    ref.setId(BigInteger.valueOf(id));
+    ref.setPresence(PresenceT.OPTIONAL);
+    return ref;
+  }
+
+  private static MessageType message(int id, String name, String msgType, Object... members) {
+    final MessageType message = new MessageType();
+    message.setId(BigInteger.valueOf(id));
+    message.setName(name);
+    message.setMsgType(msgType);
+    message.setStructure(new MessageType.Structure());
+    for (final Object member : members) {
+      message.getStructure().getComponentRefOrGroupRefOrFieldRef().add(member);
+    }
+    return message;
+  }
+
+  private RepositoryFixtures() {}
+}
@@ -0,0 +1,71 @@
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+/**
+ * Compares repeated loads through a new JAXB context per load, as tools did before, with the
+ * shared instance of {@link RepositoryIO}
+ * <p>
+ * Not run as a unit test, since its class name does not match the test includes of Surefire. Run
+ * it with {@code mvn -pl repository test -Dtest=RepositoryIOBenchmark}. Set system property
+ * {@code orchestra.benchmark.file} to load an Orchestra file such as FIX Latest; otherwise, the
+ * sample repository is loaded with many generated fields.
+ */
+@Tag("benchmark")
+public class RepositoryIOBenchmark {
+
+  private static final int GENERATED_FIELDS = 5000;
+  private static final int LOADS = 5;
+  private static byte[] orchestra;
+
+  @BeforeAll
+  public static void setupOnce() throws Exception {
+    final String fileName = System.getProperty("orchestra.benchmark.file");
+    if (fileName != null) {
+      orchestra = Files.readAllBytes(Paths.get(fileName));
+    } else {
+      final Repository repository = RepositoryFixtures.sample();
+      for (int i = 0; i < GENERATED_FIELDS; i++) {
+        final FieldType field = new FieldType();
+        field.setId(BigInteger.valueOf(10000 + i));
+        field.setName("Field" + i);
+        field.setType("String");
+        repository.getFields().getField().add(field);
+      }
+      final ByteArrayOutputStream os = new ByteArrayOutputStream();
+      RepositoryIO.getInstance().write(repository, os);
+      orchestra = os.toByteArray();
+    }
+  }
+
+  @Test
+  public void repeatedLoads() throws Exception {
+    long startNanos = System.nanoTime();
+    for (int i = 0; i < LOADS; i++) {
+      final JAXBContext jaxbContext = JAXBContext.newInstance(Repository.class);
+      jaxbContext.createUnmarshaller().unmarshal(new ByteArrayInputStream(orchestra));
+    }
+    final long newContextMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+    final RepositoryIO repositoryIO = RepositoryIO.getInstance();
+    startNanos = System.nanoTime();
+    for (int i = 0; i < LOADS; i++) {
+      Assertions.assertNotNull(repositoryIO.read(new ByteArrayInputStream(orchestra)));
+    }
+    final long sharedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    System.out.format("%d loads: new context %d ms, shared context %d ms%n", LOADS,
+        newContextMillis, sharedMillis);
+  }
+}
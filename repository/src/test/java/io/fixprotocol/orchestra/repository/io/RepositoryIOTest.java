@@ -0,0 +1,26 @@
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+public class RepositoryIOTest {
+
+  @Test
+  public void roundTrip() throws Exception {
+    final RepositoryIO repositoryIO = RepositoryIO.getInstance();
+    Assertions.assertSame(repositoryIO, RepositoryIO.getInstance());
+    final Repository repository = RepositoryFixtures.sample();
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    repositoryIO.write(repository, os);
+    final Repository copy = repositoryIO.read(new ByteArrayInputStream(os.toByteArray()));
+    Assertions.assertEquals(repository.getName(), copy.getName());
+    Assertions.assertEquals(repository.getMessages().getMessage().size(),
+        copy.getMessages().getMessage().size());
+    Assertions.assertEquals(repository.getFields().getField().size(),
+        copy.getFields().getField().size());
+    Assertions.assertEquals("NewOrderSingle", copy.getMessages().getMessage().get(0).getName());
+  }
+}
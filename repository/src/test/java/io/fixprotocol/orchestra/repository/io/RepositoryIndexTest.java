@@ -0,0 +1,92 @@
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+public class RepositoryIndexTest {
+
+  private static Repository repository;
+
+  @BeforeAll
+  public static void setupOnce() throws Exception {
+    new File(("target/test")).mkdirs();
+    repository = RepositoryFixtures.sample();
+  }
+
+  @Test
+  public void lookup() throws Exception {
+    final Path path = Paths.get("target/test/RepositoryIndexTest.index");
+    new RepositoryIndexWriter().write(repository, path);
+    final RepositoryIndex index = RepositoryIndex.open(path);
+
+    Assertions.assertEquals(repository.getFields().getField().size(), index.getFieldCount());
+    Assertions.assertEquals(repository.getMessages().getMessage().size(),
+        index.getMessageCount());
+
+    final RepositoryIndex.Field field = new RepositoryIndex.Field();
+    Assertions.assertTrue(index.findField(54, field));
+    Assertions.assertEquals("Side", field.getName());
+    final RepositoryIndex.CodeSet codeSet = new RepositoryIndex.CodeSet();
+    Assertions.assertTrue(field.getCodeSet(codeSet));
+    Assertions.assertEquals("SideCodeSet", codeSet.getName());
+    Assertions.assertEquals("1", codeSet.getCode(0, new RepositoryIndex.Code()).getValue());
+
+    Assertions.assertTrue(index.findFieldByName("ClOrdID", field));
+    Assertions.assertEquals(11, field.getId());
+    Assertions.assertFalse(index.findField(Integer.MAX_VALUE, field));
+
+    final RepositoryIndex.Message message = new RepositoryIndex.Message();
+    Assertions.assertTrue(index.findMessage("D", "base", message));
+    Assertions.assertEquals("NewOrderSingle", message.getName());
+    Assertions.assertTrue(message.getMemberCount() > 0);
+    Assertions.assertTrue(index.findMessageByName("ExecutionReport", message));
+    Assertions.assertEquals("8", message.getMsgType());
+    Assertions.assertFalse(index.findMessage("D", "NoSuchScenario", message));
+
+    final RepositoryIndex.Member member = new RepositoryIndex.Member();
+    final RepositoryIndex.Structure group = new RepositoryIndex.Structure();
+    for (int i = 0; i < message.getMemberCount(); i++) {
+      message.getMember(i, member);
+      if (member.isGroup()) {
+        Assertions.assertTrue(index.findGroup(member.getId(), group));
+        Assertions.assertTrue(group.getNumInGroupId() > 0);
+      }
+      if (member.isField() && member.getId() == 39) {
+        Assertions.assertEquals(PresenceT.REQUIRED, member.getPresence());
+      }
+    }
+  }
+
+  @Test
+  public void presenceCodes() {
+    // codes are part of the file format, so they must not follow the order of PresenceT
+    Assertions.assertEquals(0, IndexFormat.presenceCode(PresenceT.OPTIONAL));
+    Assertions.assertEquals(1, IndexFormat.presenceCode(PresenceT.REQUIRED));
+    Assertions.assertEquals(2, IndexFormat.presenceCode(PresenceT.FORBIDDEN));
+    Assertions.assertEquals(3, IndexFormat.presenceCode(PresenceT.IGNORED));
+    Assertions.assertEquals(4, IndexFormat.presenceCode(PresenceT.CONSTANT));
+    for (final PresenceT presence : PresenceT.values()) {
+      Assertions.assertEquals(presence, IndexFormat.presence(IndexFormat.presenceCode(presence)));
+    }
+    Assertions.assertNull(IndexFormat.presence(IndexFormat.presenceCode(null)));
+  }
+
+  @Test
+  public void corrupted() throws Exception {
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new RepositoryIndexWriter().write(repository, os);
+    final byte[] bytes = os.toByteArray();
+    bytes[bytes.length / 2] ^= 0x55;
+    Assertions.assertThrows(IOException.class,
+        () -> RepositoryIndex.wrap(ByteBuffer.wrap(bytes)));
+  }
+}
@@ -0,0 +1,72 @@
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+public class RepositoryReaderTest {
+
+  private static final String ORCHESTRA_FILE = "target/test/RepositoryReaderTest.xml";
+  private static Repository repository;
+
+  @BeforeAll
+  public static void setupOnce() throws Exception {
+    new File(("target/test")).mkdirs();
+    RepositoryFixtures.writeSample(new File(ORCHESTRA_FILE));
+    repository = RepositoryFixtures.sample();
+  }
+
+  @Test
+  public void readSections() throws Exception {
+    final Map<RepositoryReader.Section, Integer> progress =
+        new EnumMap<>(RepositoryReader.Section.class);
+    final RepositoryReader reader = RepositoryReader.builder()
+        .sections(RepositoryReader.Section.FIELDS, RepositoryReader.Section.CODE_SETS)
+        .progressListener((section, count, complete) -> progress.put(section, count)).build();
+    final Repository partial;
+    try (InputStream is = new FileInputStream(ORCHESTRA_FILE)) {
+      partial = reader.read(is);
+    }
+    Assertions.assertEquals(repository.getName(), partial.getName());
+    Assertions.assertEquals(repository.getVersion(), partial.getVersion());
+    Assertions.assertEquals(repository.getFields().getField().size(),
+        partial.getFields().getField().size());
+    Assertions.assertEquals(repository.getCodeSets().getCodeSet().size(),
+        partial.getCodeSets().getCodeSet().size());
+    Assertions.assertNull(partial.getMessages());
+    Assertions.assertNull(partial.getComponents());
+    Assertions.assertEquals(2, progress.size());
+    Assertions.assertEquals(repository.getFields().getField().size(),
+        progress.get(RepositoryReader.Section.FIELDS).intValue());
+  }
+
+  @Test
+  public void visitMessages() throws Exception {
+    final int[] counts = new int[2];
+    final RepositoryReader reader =
+        RepositoryReader.builder().sections(RepositoryReader.Section.MESSAGES).build();
+    try (InputStream is = new FileInputStream(ORCHESTRA_FILE)) {
+      reader.visit(is, new RepositoryVisitor() {
+        @Override
+        public void visitField(FieldType field) {
+          counts[1]++;
+        }
+
+        @Override
+        public void visitMessage(MessageType message) {
+          counts[0]++;
+        }
+      });
+    }
+    Assertions.assertEquals(repository.getMessages().getMessage().size(), counts[0]);
+    Assertions.assertEquals(0, counts[1]);
+  }
+}
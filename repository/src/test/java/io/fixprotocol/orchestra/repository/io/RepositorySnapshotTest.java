@@ -0,0 +1,60 @@
+package io.fixprotocol.orchestra.repository.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.GroupType;
+import io.fixprotocol._2020.orchestra.repository.MessageType;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+
+public class RepositorySnapshotTest {
+
+  private static Repository repository;
+
+  @BeforeAll
+  public static void setupOnce() throws Exception {
+    new File(("target/test")).mkdirs();
+    repository = RepositoryFixtures.sample();
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    final Path path = Paths.get("target/test/RepositorySnapshotTest.snapshot");
+    new RepositorySnapshotWriter().write(repository, path);
+    final Repository copy = RepositorySnapshotReader.read(path);
+
+    Assertions.assertEquals(repository.getName(), copy.getName());
+    Assertions.assertEquals(repository.getFields().getField().size(),
+        copy.getFields().getField().size());
+    Assertions.assertEquals(repository.getCodeSets().getCodeSet().size(),
+        copy.getCodeSets().getCodeSet().size());
+    Assertions.assertEquals(repository.getGroups().getGroup().size(),
+        copy.getGroups().getGroup().size());
+    final GroupType group = repository.getGroups().getGroup().get(0);
+    final GroupType groupCopy = copy.getGroups().getGroup().get(0);
+    Assertions.assertEquals(group.getNumInGroup().getId(), groupCopy.getNumInGroup().getId());
+    Assertions.assertEquals(group.getComponentRefOrGroupRefOrFieldRef().size(),
+        groupCopy.getComponentRefOrGroupRefOrFieldRef().size());
+    final MessageType message = repository.getMessages().getMessage().get(0);
+    final MessageType messageCopy = copy.getMessages().getMessage().get(0);
+    Assertions.assertEquals(message.getMsgType(), messageCopy.getMsgType());
+    Assertions.assertEquals(message.getStructure().getComponentRefOrGroupRefOrFieldRef().size(),
+        messageCopy.getStructure().getComponentRefOrGroupRefOrFieldRef().size());
+  }
+
+  @Test
+  public void corrupted() throws Exception {
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new RepositorySnapshotWriter().write(repository, os);
+    final byte[] bytes = os.toByteArray();
+    bytes[bytes.length / 2] ^= 0x55;
+    Assertions.assertThrows(IOException.class,
+        () -> RepositorySnapshotReader.read(ByteBuffer.wrap(bytes)));
+  }
+}
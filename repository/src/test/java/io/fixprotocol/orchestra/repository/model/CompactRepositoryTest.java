@@ -0,0 +1,58 @@
+package io.fixprotocol.orchestra.repository.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol._2020.orchestra.repository.FieldType;
+import io.fixprotocol._2020.orchestra.repository.PresenceT;
+import io.fixprotocol._2020.orchestra.repository.Repository;
+import io.fixprotocol.orchestra.repository.io.RepositoryFixtures;
+
+public class CompactRepositoryTest {
+
+  private static Repository repository;
+
+  @BeforeAll
+  public static void setupOnce() {
+    repository = RepositoryFixtures.sample();
+  }
+
+  @Test
+  public void lookup() {
+    final CompactRepository model = CompactRepository.from(repository);
+    Assertions.assertEquals(repository.getFields().getField().size(), model.getFields().size());
+
+    final Field side = model.getField(54);
+    Assertions.assertEquals("Side", side.getName());
+    Assertions.assertEquals("SideCodeSet", side.getCodeSet().getName());
+    Assertions.assertEquals("1", side.getCodeSet().getCode("1").getValue());
+    final FieldType sideType = repository.getFields().getField().get(side.getOrdinal());
+    Assertions.assertEquals(54, sideType.getId().intValue());
+    Assertions.assertSame(side, model.getFieldByName("Side"));
+
+    final Message newOrder = model.getMessage("D", "base");
+    Assertions.assertEquals("NewOrderSingle", newOrder.getName());
+    Assertions.assertTrue(newOrder.getMemberCount() > 0);
+    final Message executionReport = model.getMessage("8", "base");
+    // both begin with a reference to the standard header, shared by the model
+    Assertions.assertSame(newOrder.getMember(0), executionReport.getMember(0));
+    Assertions.assertNull(model.getField(Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void roundTrip() {
+    final CompactRepository model = CompactRepository.from(repository);
+    final CompactRepository copy = CompactRepository.from(model.toRepository());
+    Assertions.assertEquals(model.getFields().size(), copy.getFields().size());
+    Assertions.assertEquals(model.getGroups().size(), copy.getGroups().size());
+    for (final Message message : model.getMessages()) {
+      final Message messageCopy = copy.getMessage(message.getMsgType(), message.getScenario());
+      Assertions.assertEquals(message.getMembers(), messageCopy.getMembers());
+    }
+    final Group group = model.getGroups().get(0);
+    Assertions.assertEquals(group.getNumInGroupId(),
+        copy.getGroup(group.getId()).getNumInGroupId());
+    Assertions.assertEquals(PresenceT.REQUIRED, model.getMessage("D", "base").getMembers().stream()
+        .filter(m -> m.getId() == 11).findFirst().get().getPresence());
+  }
+}